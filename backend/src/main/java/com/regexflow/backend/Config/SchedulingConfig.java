@@ -0,0 +1,12 @@
+package com.regexflow.backend.Config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs, e.g. polling the template set version
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,261 @@
+package com.regexflow.backend.Controller;
+
+import com.regexflow.backend.Enums.UserRole;
+import com.regexflow.backend.Service.CompiledPatternCache;
+import com.regexflow.backend.Service.FusedTemplateMatcher;
+import com.regexflow.backend.Service.MatchingMetrics;
+import com.regexflow.backend.Service.ParseResultCache;
+import com.regexflow.backend.Service.ShapeRoutingCache;
+import com.regexflow.backend.Service.SmsDeduplicator;
+import com.regexflow.backend.Service.SmsIngestPipeline;
+import com.regexflow.backend.Service.SmsIngestionQueue;
+import com.regexflow.backend.Service.SmsWriteAheadLog;
+import com.regexflow.backend.Service.TemplateEvaluationPool;
+import com.regexflow.backend.Service.TemplateRegistrySync;
+import com.regexflow.backend.Service.TemplateRequestCoalescer;
+import com.regexflow.backend.Service.TemplateWinStats;
+import com.regexflow.backend.Service.VerifiedTemplateRegistry;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runtime counters of the SMS matching pipeline.
+ * Only ADMIN users can access these endpoints.
+ */
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    @Autowired
+    private CompiledPatternCache compiledPatternCache;
+
+    @Autowired
+    private MatchingMetrics matchingMetrics;
+
+    @Autowired
+    private FusedTemplateMatcher fusedTemplateMatcher;
+
+    @Autowired
+    private TemplateWinStats templateWinStats;
+
+    @Autowired
+    private ShapeRoutingCache shapeRoutingCache;
+
+    @Autowired
+    private ParseResultCache parseResultCache;
+
+    @Autowired
+    private VerifiedTemplateRegistry verifiedTemplateRegistry;
+
+    @Autowired
+    private TemplateRegistrySync templateRegistrySync;
+
+    @Autowired
+    private TemplateEvaluationPool templateEvaluationPool;
+
+    @Autowired
+    private SmsIngestionQueue smsIngestionQueue;
+
+    @Autowired
+    private TemplateRequestCoalescer templateRequestCoalescer;
+
+    @Autowired
+    private SmsDeduplicator smsDeduplicator;
+
+    @Autowired
+    private SmsWriteAheadLog smsWriteAheadLog;
+
+    // Only with the nonblocking-ingest profile
+    @Autowired
+    private ObjectProvider<SmsIngestPipeline> smsIngestPipeline;
+
+    /**
+     * GET /metrics/pattern-cache
+     * Size, hits, misses and evictions of the compiled pattern cache
+     */
+    @GetMapping("/pattern-cache")
+    public ResponseEntity<Map<String, Object>> getPatternCacheStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(compiledPatternCache.stats());
+    }
+
+    /**
+     * GET /metrics/matching
+     * SMS and template match counts, and how often matching ran out of its budget
+     */
+    @GetMapping("/matching")
+    public ResponseEntity<Map<String, Object>> getMatchingStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(matchingMetrics.stats());
+    }
+
+    /**
+     * GET /metrics/fused-matcher
+     * Senders with a fused program, how many templates they cover, scans and rebuilds
+     */
+    @GetMapping("/fused-matcher")
+    public ResponseEntity<Map<String, Object>> getFusedMatcherStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(fusedTemplateMatcher.stats());
+    }
+
+    /**
+     * GET /metrics/template-ranking
+     * Per sender header, the order its templates are tried in with their decayed wins and attempts
+     */
+    @GetMapping("/template-ranking")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> getTemplateRanking(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(templateWinStats.ranking());
+    }
+
+    /**
+     * GET /metrics/shape-cache
+     * Size, hit ratio and how often the routed template was confirmed for the shape routing cache
+     */
+    @GetMapping("/shape-cache")
+    public ResponseEntity<Map<String, Object>> getShapeCacheStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(shapeRoutingCache.stats());
+    }
+
+    /**
+     * GET /metrics/parse-cache
+     * Size, hit ratio and entries found for an outdated template set, for the parse result cache
+     */
+    @GetMapping("/parse-cache")
+    public ResponseEntity<Map<String, Object>> getParseCacheStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(parseResultCache.stats());
+    }
+
+    /**
+     * GET /metrics/template-registry
+     * Senders and templates held in memory, lookups (and those for senders without templates) and reloads
+     */
+    @GetMapping("/template-registry")
+    public ResponseEntity<Map<String, Object>> getTemplateRegistryStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(verifiedTemplateRegistry.stats());
+    }
+
+    /**
+     * GET /metrics/template-sync
+     * Template set version applied on this node versus the database, and how long changes took to arrive
+     */
+    @GetMapping("/template-sync")
+    public ResponseEntity<Map<String, Object>> getTemplateSyncStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(templateRegistrySync.stats());
+    }
+
+    /**
+     * GET /metrics/parallel-matching
+     * SMS whose templates were matched in parallel, and parallel matches cancelled or not needed
+     */
+    @GetMapping("/parallel-matching")
+    public ResponseEntity<Map<String, Object>> getParallelMatchingStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(templateEvaluationPool.stats());
+    }
+
+    /**
+     * GET /metrics/template-requests
+     * Template requests opened, unmatched SMS counted on an open one, and insert races lost
+     */
+    @GetMapping("/template-requests")
+    public ResponseEntity<Map<String, Object>> getTemplateRequestStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(templateRequestCoalescer.stats());
+    }
+
+    /**
+     * GET /metrics/sms-dedup
+     * Submissions checked for duplicates, duplicates answered from the recent set or the unique index, and hit rate
+     */
+    @GetMapping("/sms-dedup")
+    public ResponseEntity<Map<String, Object>> getSmsDedupStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(smsDeduplicator.stats());
+    }
+
+    /**
+     * GET /metrics/ingestion
+     * Depth of the asynchronous SMS queue, submissions rejected because it was full, and queue wait
+     */
+    @GetMapping("/ingestion")
+    public ResponseEntity<Map<String, Object>> getIngestionStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(smsIngestionQueue.stats());
+    }
+
+    /**
+     * GET /metrics/ingest-pipeline
+     * In-flight SMS, stage queue depths, rejections and latency of POST /sms/submit/nonblocking;
+     * 404 unless the nonblocking-ingest profile is active
+     */
+    @GetMapping("/ingest-pipeline")
+    public ResponseEntity<Map<String, Object>> getIngestPipelineStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        SmsIngestPipeline pipeline = smsIngestPipeline.getIfAvailable();
+        if (pipeline == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(pipeline.stats());
+    }
+
+    /**
+     * GET /metrics/write-ahead-log
+     * Segments, SMS not yet marked done, group commit size and fsync time of the SMS write-ahead log
+     */
+    @GetMapping("/write-ahead-log")
+    public ResponseEntity<Map<String, Object>> getWriteAheadLogStats(HttpSession session) {
+        if (!isAdmin(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(smsWriteAheadLog.stats());
+    }
+
+    private boolean isAdmin(HttpSession session) {
+        if (session == null || session.getAttribute("token") == null || session.getAttribute("userId") == null) {
+            return false;
+        }
+        String userRole = String.valueOf(session.getAttribute("userRole"));
+        return UserRole.ADMIN.name().equals(userRole);
+    }
+}
@@ -3,6 +3,7 @@ package com.regexflow.backend.Controller;
 import com.regexflow.backend.Dto.RegexProcessRequest;
 import com.regexflow.backend.Dto.RegexProcessResponse;
 import com.regexflow.backend.Dto.RegexTemplateDto;
+import com.regexflow.backend.Enums.ExtractableField;
 import com.regexflow.backend.Enums.UserRole;
 import com.regexflow.backend.Service.RegexProcessService;
 import com.regexflow.backend.Service.RegexTemplateService;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/regex")
@@ -35,6 +37,18 @@ public class RegexController {
         return ResponseEntity.ok(regexTemplateService.getAllRegexTemplates());
     }
 
+    /**
+     * GET /regex/fields
+     * The extractable fields in schema order (groupName, label, summary), for any signed-in user
+     */
+    @GetMapping("/fields")
+    public ResponseEntity<List<Map<String, Object>>> getExtractableFields(HttpSession session) {
+        if (!isSignedIn(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(ExtractableField.schema());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<List<RegexTemplateDto>> getTemplatesByMakerId(
             @PathVariable Long id,
@@ -125,6 +139,10 @@ public class RegexController {
         }
     }
 
+    private boolean isSignedIn(HttpSession session) {
+        return session != null && session.getAttribute("token") != null && session.getAttribute("userId") != null;
+    }
+
     private boolean isAdmin(HttpSession session) {
         if (session == null || session.getAttribute("token") == null || session.getAttribute("userId") == null) {
             return false;
@@ -1,18 +1,24 @@
 package com.regexflow.backend.Controller;
 
+import com.regexflow.backend.Dto.SmsBatchSubmissionRequest;
+import com.regexflow.backend.Dto.SmsIngestionStatusDto;
 import com.regexflow.backend.Dto.SmsSubmissionRequest;
 import com.regexflow.backend.Dto.SmsSubmissionResponse;
 import com.regexflow.backend.Dto.TemplateRequestNotificationDto;
 import com.regexflow.backend.Enums.UserRole;
+import com.regexflow.backend.Service.SmsIngestionQueue;
 import com.regexflow.backend.Service.SmsService;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/sms")
@@ -21,13 +27,27 @@ public class SmsController {
     @Autowired
     private SmsService smsService;
     
+    @Autowired
+    private SmsIngestionQueue smsIngestionQueue;
+    
+    @Value("${regexflow.sms.batch.max-size:500}")
+    private int maxBatchSize;
+    
+    @Value("${regexflow.sms.ingest.max-wait-ms:30000}")
+    private long maxResultWaitMs;
+    
     @PostMapping("/submit")
     public ResponseEntity<?> submitSms(
             @Valid @RequestBody SmsSubmissionRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             HttpSession session) {
         if (!isCustomer(session)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 128)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body("{\"error\": \"Idempotency-Key must be 1 to 128 characters\"}");
+        }
         
         try {
             Long userId = (Long) session.getAttribute("userId");
@@ -35,7 +55,8 @@ public class SmsController {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
-            SmsSubmissionResponse response = smsService.processSms(request.getSmsText(), userId);
+            // A retry with the same key, or a resend of the same SMS, returns the stored result
+            SmsSubmissionResponse response = smsService.processSms(request.getSmsText(), userId, idempotencyKey);
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -43,6 +64,98 @@ public class SmsController {
         }
     }
     
+    /**
+     * POST /sms/submit/batch
+     * Submits up to regexflow.sms.batch.max-size SMS at once; results are returned in input order
+     */
+    @PostMapping("/submit/batch")
+    public ResponseEntity<?> submitSmsBatch(
+            @Valid @RequestBody SmsBatchSubmissionRequest request,
+            HttpSession session) {
+        if (!isCustomer(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (request.getMessages().size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body("{\"error\": \"At most " + maxBatchSize + " SMS can be submitted at once\"}");
+        }
+        
+        try {
+            Long userId = (Long) session.getAttribute("userId");
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            
+            List<String> smsTexts = request.getMessages().stream()
+                .map(SmsSubmissionRequest::getSmsText)
+                .toList();
+            List<SmsSubmissionResponse> responses = smsService.processSmsBatch(smsTexts, userId);
+            return ResponseEntity.ok(responses);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
+    
+    /**
+     * POST /sms/submit/async
+     * Queues the SMS and answers 202 with an ingestion id at once; 429 if the queue is full
+     */
+    @PostMapping("/submit/async")
+    public ResponseEntity<?> submitSmsAsync(
+            @Valid @RequestBody SmsSubmissionRequest request,
+            HttpSession session) {
+        if (!isCustomer(session)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        Long userId = (Long) session.getAttribute("userId");
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        SmsIngestionStatusDto status = smsIngestionQueue.submit(request.getSmsText(), userId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "1")
+                .body("{\"error\": \"SMS ingestion queue is full, retry later\"}");
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+    }
+    
+    /**
+     * GET /sms/result/{ingestionId}?waitMs=
+     * Status and, once processed, result of an asynchronous submission. With waitMs the response is
+     * held until processing finishes or waitMs (capped at regexflow.sms.ingest.max-wait-ms) passes,
+     * without holding a request thread.
+     */
+    @GetMapping("/result/{ingestionId}")
+    public DeferredResult<ResponseEntity<?>> getSmsResult(
+            @PathVariable String ingestionId,
+            @RequestParam(defaultValue = "0") long waitMs,
+            HttpSession session) {
+        DeferredResult<ResponseEntity<?>> deferred = new DeferredResult<>(Math.max(1, Math.min(waitMs, maxResultWaitMs)));
+        if (!isCustomer(session)) {
+            deferred.setResult(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+            return deferred;
+        }
+        
+        Long userId = (Long) session.getAttribute("userId");
+        CompletableFuture<SmsIngestionStatusDto> completion = smsIngestionQueue.completion(ingestionId, userId);
+        if (completion == null) {
+            deferred.setResult(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+            return deferred;
+        }
+        if (waitMs <= 0 || completion.isDone()) {
+            deferred.setResult(ResponseEntity.ok(smsIngestionQueue.status(ingestionId, userId)));
+            return deferred;
+        }
+        
+        deferred.onTimeout(() -> deferred.setResult(ResponseEntity.ok(smsIngestionQueue.status(ingestionId, userId))));
+        completion.thenAccept(status -> deferred.setResult(ResponseEntity.ok(status)));
+        return deferred;
+    }
+    
     @GetMapping("/history")
     public ResponseEntity<List<SmsSubmissionResponse>> getSmsHistory(HttpSession session) {
         if (!isCustomer(session)) {
@@ -0,0 +1,66 @@
+package com.regexflow.backend.Controller;
+
+import com.regexflow.backend.Dto.SmsSubmissionRequest;
+import com.regexflow.backend.Dto.SmsSubmissionResponse;
+import com.regexflow.backend.Enums.UserRole;
+import com.regexflow.backend.Service.SmsIngestPipeline;
+import jakarta.servlet.http.HttpSession;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking SMS submission, served next to {@link SmsController} when the
+ * {@code nonblocking-ingest} profile is active
+ */
+@RestController
+@RequestMapping("/sms")
+@Profile("nonblocking-ingest")
+public class SmsPipelineController {
+
+    @Autowired
+    private SmsIngestPipeline smsIngestPipeline;
+
+    /**
+     * POST /sms/submit/nonblocking
+     * Same request and response as POST /sms/submit, but the request thread is released while the
+     * SMS is processed; 429 when too many SMS are in flight
+     */
+    @PostMapping("/submit/nonblocking")
+    public CompletableFuture<ResponseEntity<?>> submitSms(
+            @Valid @RequestBody SmsSubmissionRequest request,
+            HttpSession session) {
+        if (!isCustomer(session)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+
+        Long userId = (Long) session.getAttribute("userId");
+        CompletableFuture<SmsSubmissionResponse> response = smsIngestPipeline.submit(request.getSmsText(), userId);
+        if (response == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "1")
+                .body("{\"error\": \"Too many SMS in flight, retry later\"}"));
+        }
+        return response
+            .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+            .exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("{\"error\": \"" + cause.getMessage() + "\"}");
+            });
+    }
+
+    private boolean isCustomer(HttpSession session) {
+        if (session == null || session.getAttribute("token") == null || session.getAttribute("userId") == null) {
+            return false;
+        }
+        String userRole = String.valueOf(session.getAttribute("userRole"));
+        return UserRole.CUSTOMER.name().equals(userRole);
+    }
+}
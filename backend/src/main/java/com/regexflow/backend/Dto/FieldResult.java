@@ -10,4 +10,19 @@ import lombok.NoArgsConstructor;
 public class FieldResult {
     private String value;
     private int index;
+
+    /**
+     * Jackson value filter that leaves fields the match did not capture out of the JSON
+     */
+    public static class AbsentFilter {
+        @Override
+        public boolean equals(Object other) {
+            return other == null || (other instanceof FieldResult && ((FieldResult) other).getValue() == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
 }
@@ -1,8 +1,16 @@
 package com.regexflow.backend.Dto;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
+// Sparse JSON: only the fields the template captured are written
+// Keyed by field name, which is the group name (getSBank alone would write "sbank")
 @Data
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE,
+        isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+@JsonInclude(value = JsonInclude.Include.CUSTOM, valueFilter = FieldResult.AbsentFilter.class)
 public class RegexProcessResponse {
 
     // Basic Transaction Fields
@@ -1,6 +1,7 @@
 package com.regexflow.backend.Dto;
 
 import com.regexflow.backend.Enums.PaymentType;
+import com.regexflow.backend.Enums.RedosRisk;
 import com.regexflow.backend.Enums.RegexTemplateStatus;
 import com.regexflow.backend.Enums.SmsType;
 import com.regexflow.backend.Enums.TransactionType;
@@ -46,4 +47,9 @@ public class RegexTemplateDto {
     
     @NotNull(message = "Payment Type is required")
     private PaymentType paymentType;
+
+    // Set by the backtracking check on push/approval, read-only for clients
+    private RedosRisk redosRisk;
+    private String redosFindings;
+    private Long worstCaseMatchMicros;
 }
@@ -0,0 +1,17 @@
+package com.regexflow.backend.Dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SmsBatchSubmissionRequest {
+    @NotEmpty(message = "At least one SMS is required")
+    private List<@Valid SmsSubmissionRequest> messages;
+}
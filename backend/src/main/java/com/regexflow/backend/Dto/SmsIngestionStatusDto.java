@@ -0,0 +1,20 @@
+package com.regexflow.backend.Dto;
+
+import com.regexflow.backend.Enums.IngestionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SmsIngestionStatusDto {
+    private String ingestionId;
+    private IngestionStatus status;
+    private SmsSubmissionResponse result; // Set once COMPLETED
+    private String error; // Set when FAILED
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+}
@@ -15,5 +15,7 @@ public class SmsSubmissionResponse {
     private String matchedTemplateSenderHeader;
     private ExtractedFieldsDto extractedFields;
     private String message; // e.g., "No available template" or "Template matched successfully"
+    private Boolean matchBudgetExceeded; // True if some templates were skipped because matching ran out of time
     private java.time.LocalDateTime createdAt;
+    private Boolean duplicate; // True if the SMS was already submitted and this is its stored result
 }
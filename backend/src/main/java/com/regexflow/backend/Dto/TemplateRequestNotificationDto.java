@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -20,4 +21,9 @@ public class TemplateRequestNotificationDto {
     private NotificationStatus status;
     private LocalDateTime createdAt;
     private LocalDateTime resolvedAt;
+    // Unmatched SMS of this sender and shape, and when the first and last arrived
+    private Long occurrenceCount;
+    private LocalDateTime firstSeenAt;
+    private LocalDateTime lastSeenAt;
+    private List<Long> sampleSmsIds;
 }
@@ -0,0 +1,227 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Engine.MatchBudgetExceededException.Reason;
+import com.regexflow.backend.Engine.RegexNode.Alternation;
+import com.regexflow.backend.Engine.RegexNode.Atomic;
+import com.regexflow.backend.Engine.RegexNode.CharClass;
+import com.regexflow.backend.Engine.RegexNode.Group;
+import com.regexflow.backend.Engine.RegexNode.Literal;
+import com.regexflow.backend.Engine.RegexNode.Repeat;
+import com.regexflow.backend.Engine.RegexNode.Sequence;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Times a pattern against inputs built to make it backtrack.
+ *
+ * Each input is prefix + pump * n + suffix: the prefix is the shortest text that leads the
+ * pattern up to a loop, the pump is a character that loop accepts (in more than one way, if
+ * the static analysis found one), and the suffix is a character the pattern is unlikely to
+ * accept, forcing the engine to try every way of splitting the pumped run before failing.
+ * Every match runs on a {@link BudgetedCharSequence}, so fuzzing itself is bounded.
+ */
+public final class AdversarialInputFuzzer {
+
+    private static final String[] SUFFIXES = {"\u0001", "\n", ""};
+    private static final int[] PUMP_LENGTHS = {16, 32, 64, 256};
+    private static final int MAX_TARGETS = 8;
+    private static final int MAX_WITNESS_REPEAT = 32;
+
+    private AdversarialInputFuzzer() {
+    }
+
+    /**
+     * Worst case observed over the adversarial inputs. When the budget was exceeded,
+     * pumpLength is the shortest pumped run that did it.
+     */
+    public record Result(long worstNanos, long worstSteps, int worstInputLength, int pumpLength, boolean budgetExceeded) {
+    }
+
+    private record Target(Repeat repeat, int pumpChar) {
+    }
+
+    private record Input(String text, int pumpLength) {
+    }
+
+    /**
+     * @param maxInputLength longest adversarial input to try
+     * @param maxSteps       character reads allowed per input
+     * @param maxNanos       time allowed per input
+     */
+    public static Result fuzz(Pattern pattern, RegexNode root, List<RedosAnalyzer.Finding> findings,
+                              String sampleMessage, int maxInputLength, long maxSteps, long maxNanos) {
+        List<Target> targets = new ArrayList<>();
+        for (RedosAnalyzer.Finding finding : findings) {
+            targets.add(new Target(finding.repeat(), finding.pumpChar()));
+        }
+        collectLoops(root, targets);
+
+        Set<Input> inputs = new LinkedHashSet<>();
+        for (Target target : targets.subList(0, Math.min(targets.size(), MAX_TARGETS))) {
+            String prefix = prefixBefore(root, target.repeat());
+            String pump = new String(Character.toChars(target.pumpChar()));
+            for (int length : pumpLengths(maxInputLength)) {
+                String pumped = pump.repeat(length);
+                for (String suffix : SUFFIXES) {
+                    inputs.add(new Input(truncate(prefix + pumped + suffix, maxInputLength), length));
+                    if (sampleMessage != null && !sampleMessage.isEmpty()) {
+                        inputs.add(new Input(truncate(sampleMessage + pumped + suffix, maxInputLength), length));
+                    }
+                }
+            }
+        }
+
+        // Shortest pumps first, so the first input over budget shows how little it takes
+        List<Input> ordered = new ArrayList<>(inputs);
+        ordered.sort(Comparator.comparingInt(Input::pumpLength).thenComparingInt(input -> input.text().length()));
+
+        long worstNanos = 0;
+        long worstSteps = 0;
+        int worstLength = 0;
+        int worstPump = 0;
+        for (Input input : ordered) {
+            long start = System.nanoTime();
+            BudgetedCharSequence text = new BudgetedCharSequence(input.text(), maxSteps, start + maxNanos, Reason.TEMPLATE_TIME_BUDGET);
+            boolean exceeded = false;
+            try {
+                pattern.matcher(text).find();
+            } catch (MatchBudgetExceededException e) {
+                exceeded = true;
+            } catch (StackOverflowError e) {
+                // Deep recursion in the regex engine is as bad as running out of budget
+                exceeded = true;
+            }
+            long elapsed = System.nanoTime() - start;
+            if (exceeded || elapsed > worstNanos) {
+                worstNanos = elapsed;
+                worstSteps = text.getSteps();
+                worstLength = input.text().length();
+                worstPump = input.pumpLength();
+            }
+            if (exceeded) {
+                // Longer pumps of the same loop would only take longer
+                return new Result(worstNanos, worstSteps, worstLength, worstPump, true);
+            }
+        }
+        return new Result(worstNanos, worstSteps, worstLength, worstPump, false);
+    }
+
+    private static int[] pumpLengths(int maxInputLength) {
+        List<Integer> lengths = new ArrayList<>();
+        for (int length : PUMP_LENGTHS) {
+            if (length < maxInputLength) {
+                lengths.add(length);
+            }
+        }
+        lengths.add(maxInputLength);
+        return lengths.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static String truncate(String input, int maxLength) {
+        return input.length() <= maxLength ? input : input.substring(0, maxLength);
+    }
+
+    /**
+     * Every backtracking loop in the pattern, pumped with a character it accepts
+     */
+    private static void collectLoops(RegexNode node, List<Target> targets) {
+        if (node instanceof Repeat repeat && repeat.max() == Repeat.UNBOUNDED
+            && repeat.greediness() != RegexNode.Greediness.POSSESSIVE) {
+            CharSet chars = RedosAnalyzer.firstSet(repeat.body());
+            if (!chars.isEmpty()) {
+                targets.add(new Target(repeat, RedosAnalyzer.witnessChar(chars)));
+            }
+        }
+        for (RegexNode child : TemplateAnalyzer.children(node)) {
+            collectLoops(child, targets);
+        }
+    }
+
+    /**
+     * Shortest text that takes the pattern from its start to the given loop
+     */
+    static String prefixBefore(RegexNode root, Repeat target) {
+        StringBuilder prefix = new StringBuilder();
+        return appendPrefix(root, target, prefix) ? prefix.toString() : "";
+    }
+
+    /**
+     * Appends the witness of everything in node that comes before target.
+     * Returns true once target has been reached.
+     */
+    private static boolean appendPrefix(RegexNode node, Repeat target, StringBuilder prefix) {
+        if (node == target) {
+            return true;
+        }
+        if (node instanceof Sequence sequence) {
+            for (RegexNode item : sequence.items()) {
+                if (appendPrefix(item, target, prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (node instanceof Alternation alternation) {
+            int mark = prefix.length();
+            for (RegexNode branch : alternation.branches()) {
+                if (appendPrefix(branch, target, prefix)) {
+                    return true;
+                }
+                prefix.setLength(mark);
+            }
+            prefix.append(witness(alternation));
+            return false;
+        }
+        if (node instanceof Repeat repeat) {
+            int mark = prefix.length();
+            if (appendPrefix(repeat.body(), target, prefix)) {
+                return true;
+            }
+            prefix.setLength(mark);
+            prefix.append(witness(repeat));
+            return false;
+        }
+        List<RegexNode> children = TemplateAnalyzer.children(node);
+        if (node instanceof Group || node instanceof Atomic) {
+            return appendPrefix(children.get(0), target, prefix);
+        }
+        prefix.append(witness(node));
+        return false;
+    }
+
+    /**
+     * A short string the node matches (exact for literal-only nodes, approximate otherwise)
+     */
+    static String witness(RegexNode node) {
+        if (node instanceof Literal literal) {
+            return new String(Character.toChars(literal.codePoint()));
+        }
+        if (node instanceof CharClass charClass) {
+            return charClass.set().isEmpty() ? "" : new String(Character.toChars(RedosAnalyzer.witnessChar(charClass.set())));
+        }
+        if (node instanceof Sequence sequence) {
+            StringBuilder sb = new StringBuilder();
+            sequence.items().forEach(item -> sb.append(witness(item)));
+            return sb.toString();
+        }
+        if (node instanceof Alternation alternation) {
+            return witness(alternation.branches().get(0));
+        }
+        if (node instanceof Repeat repeat) {
+            return witness(repeat.body()).repeat(Math.min(repeat.min(), MAX_WITNESS_REPEAT));
+        }
+        if (node instanceof Group group) {
+            return witness(group.body());
+        }
+        if (node instanceof Atomic atomic) {
+            return witness(atomic.body());
+        }
+        // Assertions, lookaround and back references contribute no text of their own
+        return "";
+    }
+}
@@ -0,0 +1,162 @@
+package com.regexflow.backend.Engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton that finds which of a fixed set of keywords occur in a text,
+ * in one pass over the text.
+ *
+ * Matching ignores ASCII case, like templates compiled with CASE_INSENSITIVE (and without
+ * UNICODE_CASE): keywords must already be lower-cased the same way (see {@link #foldCase}),
+ * and the text is folded character by character while it is scanned.
+ */
+public final class AhoCorasick {
+
+    // Per state: sorted transition characters and their target states
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] failure;
+    // Keywords ending at each state, including those reached through failure links
+    private final int[][] outputs;
+    private final int keywordCount;
+
+    private AhoCorasick(char[][] labels, int[][] targets, int[] failure, int[][] outputs, int keywordCount) {
+        this.labels = labels;
+        this.targets = targets;
+        this.failure = failure;
+        this.outputs = outputs;
+        this.keywordCount = keywordCount;
+    }
+
+    /**
+     * Builds the automaton; keyword i is reported as bit i. Empty keywords occur in every text.
+     */
+    public static AhoCorasick build(List<String> keywords) {
+        List<StringBuilder> labelLists = new ArrayList<>();
+        List<List<Integer>> targetLists = new ArrayList<>();
+        List<List<Integer>> outputLists = new ArrayList<>();
+        labelLists.add(new StringBuilder());
+        targetLists.add(new ArrayList<>());
+        outputLists.add(new ArrayList<>());
+
+        // Trie of the keywords
+        for (int k = 0; k < keywords.size(); k++) {
+            int state = 0;
+            for (char c : keywords.get(k).toCharArray()) {
+                int index = labelLists.get(state).indexOf(String.valueOf(c));
+                if (index >= 0) {
+                    state = targetLists.get(state).get(index);
+                } else {
+                    int created = labelLists.size();
+                    labelLists.add(new StringBuilder());
+                    targetLists.add(new ArrayList<>());
+                    outputLists.add(new ArrayList<>());
+                    labelLists.get(state).append(c);
+                    targetLists.get(state).add(created);
+                    state = created;
+                }
+            }
+            outputLists.get(state).add(k);
+        }
+
+        int stateCount = labelLists.size();
+        char[][] labels = new char[stateCount][];
+        int[][] targets = new int[stateCount][];
+        for (int s = 0; s < stateCount; s++) {
+            // Sort transitions by character for binary search
+            char[] chars = labelLists.get(s).toString().toCharArray();
+            Integer[] order = new Integer[chars.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Character.compare(chars[a], chars[b]));
+            labels[s] = new char[chars.length];
+            targets[s] = new int[chars.length];
+            for (int i = 0; i < order.length; i++) {
+                labels[s][i] = chars[order[i]];
+                targets[s][i] = targetLists.get(s).get(order[i]);
+            }
+        }
+
+        // Failure links in breadth-first order, so a state's failure target is always done first
+        AhoCorasick automaton = new AhoCorasick(labels, targets, new int[stateCount], new int[stateCount][], keywords.size());
+        Deque<Integer> queue = new ArrayDeque<>();
+        automaton.outputs[0] = toArray(outputLists.get(0));
+        for (int child : targets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> output = outputLists.get(state);
+            output.addAll(outputLists.get(automaton.failure[state]));
+            automaton.outputs[state] = toArray(output);
+            for (int i = 0; i < labels[state].length; i++) {
+                int child = targets[state][i];
+                int fallback = automaton.failure[state];
+                int next;
+                while ((next = automaton.transition(fallback, labels[state][i])) < 0 && fallback != 0) {
+                    fallback = automaton.failure[fallback];
+                }
+                automaton.failure[child] = next >= 0 ? next : 0;
+                queue.add(child);
+            }
+        }
+        return automaton;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).distinct().toArray();
+    }
+
+    /**
+     * Lower-cases ASCII letters only, which is all CASE_INSENSITIVE folds
+     */
+    public static char foldCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    public static String foldCase(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = foldCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    public int getKeywordCount() {
+        return keywordCount;
+    }
+
+    /**
+     * The keywords that occur somewhere in the text
+     */
+    public BitSet findAll(CharSequence text) {
+        BitSet found = new BitSet(keywordCount);
+        for (int keyword : outputs[0]) {
+            found.set(keyword);
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = foldCase(text.charAt(i));
+            int next;
+            while ((next = transition(state, c)) < 0 && state != 0) {
+                state = failure[state];
+            }
+            state = next >= 0 ? next : 0;
+            for (int keyword : outputs[state]) {
+                found.set(keyword);
+            }
+        }
+        return found;
+    }
+
+    private int transition(int state, char c) {
+        int index = Arrays.binarySearch(labels[state], c);
+        return index >= 0 ? targets[state][index] : -1;
+    }
+}
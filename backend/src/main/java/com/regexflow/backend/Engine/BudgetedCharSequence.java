@@ -0,0 +1,73 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Engine.MatchBudgetExceededException.Reason;
+
+/**
+ * Read-only view of a message that counts every character the regex engine reads.
+ *
+ * java.util.regex reads its input only through {@link #charAt(int)}, so the number of reads
+ * is a faithful measure of matching work, backtracking included. Every
+ * {@value #CLOCK_CHECK_INTERVAL} reads the step count and the clock are checked; once either
+ * limit is passed the read throws {@link MatchBudgetExceededException}, which unwinds the match.
+ */
+public final class BudgetedCharSequence implements CharSequence {
+
+    static final int CLOCK_CHECK_INTERVAL = 1024;
+
+    private final String text;
+    private final long maxSteps;
+    private final long deadlineNanos;
+    private final Reason deadlineReason;
+    private long steps;
+
+    /**
+     * @param maxSteps       character reads allowed before the match is aborted
+     * @param deadlineNanos  {@link System#nanoTime()} value after which the match is aborted
+     * @param deadlineReason reported when the deadline is what ran out
+     */
+    public BudgetedCharSequence(String text, long maxSteps, long deadlineNanos, Reason deadlineReason) {
+        this.text = text;
+        this.maxSteps = maxSteps;
+        this.deadlineNanos = deadlineNanos;
+        this.deadlineReason = deadlineReason;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (++steps % CLOCK_CHECK_INTERVAL == 0) {
+            checkBudget();
+        }
+        return text.charAt(index);
+    }
+
+    private void checkBudget() {
+        if (steps >= maxSteps) {
+            throw new MatchBudgetExceededException(Reason.STEP_BUDGET, steps);
+        }
+        if (System.nanoTime() - deadlineNanos > 0) {
+            throw new MatchBudgetExceededException(deadlineReason, steps);
+        }
+    }
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    /**
+     * Used by the matcher to copy out group values, which is not matching work
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+}
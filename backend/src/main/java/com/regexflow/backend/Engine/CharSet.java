@@ -0,0 +1,222 @@
+package com.regexflow.backend.Engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable set of code points, stored as sorted, non-overlapping inclusive ranges.
+ *
+ * A set is "exact" when it describes precisely the characters java.util.regex would accept.
+ * Constructs we do not model (most Unicode properties) produce an inexact set that
+ * over-approximates to every code point; analysis can still use it, matching engines must not.
+ */
+public final class CharSet {
+
+    public static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+
+    public static final CharSet EMPTY = new CharSet(new int[0], true);
+    public static final CharSet ALL = new CharSet(new int[]{0, MAX_CODE_POINT}, true);
+    public static final CharSet UNKNOWN = new CharSet(new int[]{0, MAX_CODE_POINT}, false);
+
+    // Pairs of [low, high], sorted and merged
+    private final int[] ranges;
+    private final boolean exact;
+
+    private CharSet(int[] ranges, boolean exact) {
+        this.ranges = ranges;
+        this.exact = exact;
+    }
+
+    public static CharSet of(int codePoint) {
+        return new CharSet(new int[]{codePoint, codePoint}, true);
+    }
+
+    public static CharSet range(int low, int high) {
+        if (low > high) {
+            return EMPTY;
+        }
+        return new CharSet(new int[]{low, high}, true);
+    }
+
+    /**
+     * Builds a set from unsorted, possibly overlapping [low, high] pairs
+     */
+    public static CharSet ofRanges(int... pairs) {
+        return normalize(pairs, pairs.length, true);
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    public boolean isEmpty() {
+        return ranges.length == 0;
+    }
+
+    public boolean contains(int codePoint) {
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (codePoint < ranges[2 * mid]) {
+                high = mid - 1;
+            } else if (codePoint > ranges[2 * mid + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of code points in the set
+     */
+    public long size() {
+        long size = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            size += ranges[i + 1] - ranges[i] + 1L;
+        }
+        return size;
+    }
+
+    /**
+     * The only code point of a single-element set, or -1
+     */
+    public int singleCodePoint() {
+        if (ranges.length == 2 && ranges[0] == ranges[1]) {
+            return ranges[0];
+        }
+        return -1;
+    }
+
+    public int rangeCount() {
+        return ranges.length / 2;
+    }
+
+    public int rangeLow(int index) {
+        return ranges[2 * index];
+    }
+
+    public int rangeHigh(int index) {
+        return ranges[2 * index + 1];
+    }
+
+    public CharSet union(CharSet other) {
+        int[] pairs = Arrays.copyOf(ranges, ranges.length + other.ranges.length);
+        System.arraycopy(other.ranges, 0, pairs, ranges.length, other.ranges.length);
+        return normalize(pairs, pairs.length, exact && other.exact);
+    }
+
+    public CharSet intersect(CharSet other) {
+        List<Integer> pairs = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < ranges.length && j < other.ranges.length) {
+            int low = Math.max(ranges[i], other.ranges[j]);
+            int high = Math.min(ranges[i + 1], other.ranges[j + 1]);
+            if (low <= high) {
+                pairs.add(low);
+                pairs.add(high);
+            }
+            if (ranges[i + 1] < other.ranges[j + 1]) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+        return new CharSet(pairs.stream().mapToInt(Integer::intValue).toArray(), exact && other.exact);
+    }
+
+    public CharSet complement() {
+        if (!exact) {
+            return UNKNOWN;
+        }
+        List<Integer> pairs = new ArrayList<>();
+        int next = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next) {
+                pairs.add(next);
+                pairs.add(ranges[i] - 1);
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= MAX_CODE_POINT) {
+            pairs.add(next);
+            pairs.add(MAX_CODE_POINT);
+        }
+        return new CharSet(pairs.stream().mapToInt(Integer::intValue).toArray(), true);
+    }
+
+    public boolean intersects(CharSet other) {
+        return !intersect(other).isEmpty();
+    }
+
+    /**
+     * Adds the other-case counterpart of every ASCII letter in the set, which is how
+     * java.util.regex applies CASE_INSENSITIVE (without UNICODE_CASE) to characters and ranges.
+     */
+    public CharSet foldAsciiCase() {
+        List<Integer> extra = new ArrayList<>();
+        for (int c = 'A'; c <= 'Z'; c++) {
+            int lower = c + ('a' - 'A');
+            if (contains(c) && !contains(lower)) {
+                extra.add(lower);
+            } else if (contains(lower) && !contains(c)) {
+                extra.add(c);
+            }
+        }
+        if (extra.isEmpty()) {
+            return this;
+        }
+        int[] pairs = Arrays.copyOf(ranges, ranges.length + extra.size() * 2);
+        int k = ranges.length;
+        for (int c : extra) {
+            pairs[k++] = c;
+            pairs[k++] = c;
+        }
+        return normalize(pairs, pairs.length, exact);
+    }
+
+    public CharSet inexact() {
+        return exact ? new CharSet(ranges, false) : this;
+    }
+
+    private static CharSet normalize(int[] pairs, int length, boolean exact) {
+        int count = length / 2;
+        long[] packed = new long[count];
+        for (int i = 0; i < count; i++) {
+            packed[i] = ((long) pairs[2 * i] << 32) | (pairs[2 * i + 1] & 0xffffffffL);
+        }
+        Arrays.sort(packed);
+        int[] merged = new int[length];
+        int size = 0;
+        for (long p : packed) {
+            int low = (int) (p >> 32);
+            int high = (int) p;
+            if (low > high) {
+                continue;
+            }
+            if (size > 0 && low <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], high);
+            } else {
+                merged[size++] = low;
+                merged[size++] = high;
+            }
+        }
+        return new CharSet(Arrays.copyOf(merged, size), exact);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CharSet other)) return false;
+        return exact == other.exact && Arrays.equals(ranges, other.ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(ranges) + (exact ? 1 : 0);
+    }
+}
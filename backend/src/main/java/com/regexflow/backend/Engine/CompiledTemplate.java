@@ -0,0 +1,210 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Engine.RegexParser.ParsedRegex;
+import com.regexflow.backend.Enums.ExtractableField;
+import com.regexflow.backend.Enums.MatchEngine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A template pattern compiled once and reused for every SMS it is matched against.
+ *
+ * Besides the compiled {@link Pattern} it holds the template's execution plan: the known
+ * fields the pattern declares, each resolved to its group number through the
+ * {@link TemplateAnalysis} group table. Extraction
+ * is then a loop over just those groups, with no name lookups and no exceptions.
+ *
+ * Patterns inside the regular subset the {@link LinearProgram} supports are matched with it
+ * rather than with the backtracking {@link Pattern}; the choice is made here, per template.
+ */
+public final class CompiledTemplate {
+
+    private final String regex;
+    private final Pattern pattern;
+    private final TemplateAnalysis analysis;
+    // Null when the pattern needs java.util.regex
+    private final LinearProgram linearProgram;
+
+    // Execution plan: planFields[i] is captured by group planGroups[i]
+    private final ExtractableField[] planFields;
+    private final int[] planGroups;
+
+    // False when the group numbers could not be resolved reliably; extraction then goes by name
+    private final boolean groupNumbersResolved;
+
+    private CompiledTemplate(String regex, Pattern pattern, TemplateAnalysis analysis, LinearProgram linearProgram,
+                             ExtractableField[] planFields, int[] planGroups, boolean groupNumbersResolved) {
+        this.regex = regex;
+        this.pattern = pattern;
+        this.analysis = analysis;
+        this.linearProgram = linearProgram;
+        this.planFields = planFields;
+        this.planGroups = planGroups;
+        this.groupNumbersResolved = groupNumbersResolved;
+    }
+
+    /**
+     * Compiles the regex case-insensitively (same flags as the parser always used)
+     * and resolves its execution plan by analyzing the pattern.
+     * Throws {@link java.util.regex.PatternSyntaxException} for invalid patterns.
+     */
+    public static CompiledTemplate compile(String regex) {
+        return compile(regex, null);
+    }
+
+    /**
+     * Same as {@link #compile(String)}, but reuses an analysis stored at approval time
+     * instead of re-analyzing the pattern. A null analysis is computed here.
+     */
+    public static CompiledTemplate compile(String regex, TemplateAnalysis analysis) {
+        Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        ParsedRegex parsed = parseOrNull(regex);
+        if (analysis == null && parsed != null) {
+            analysis = TemplateAnalyzer.analyze(parsed);
+        }
+
+        // The group table is only trusted if it has as many groups as the regex engine does
+        int groupCount = pattern.matcher("").groupCount();
+        if (analysis != null && analysis.groupCount() == groupCount) {
+            List<ExtractableField> fields = new ArrayList<>();
+            List<Integer> groups = new ArrayList<>();
+            for (ExtractableField field : ExtractableField.values()) {
+                Integer group = analysis.namedGroups().get(field.getGroupName());
+                if (group != null) {
+                    fields.add(field);
+                    groups.add(group);
+                }
+            }
+            LinearProgram linearProgram = parsed != null && parsed.groupCount() == groupCount
+                ? LinearProgram.compile(parsed)
+                : null;
+            return new CompiledTemplate(regex, pattern, analysis, linearProgram,
+                fields.toArray(new ExtractableField[0]),
+                groups.stream().mapToInt(Integer::intValue).toArray(),
+                true);
+        }
+
+        // Pattern accepted something the analyzer could not follow: plan every field the regex
+        // names and resolve them by name at match time. The reported index is then only the
+        // field's position among the named groups.
+        List<ExtractableField> fields = new ArrayList<>();
+        for (ExtractableField field : ExtractableField.values()) {
+            if (regex.contains("(?<" + field.getGroupName() + ">")) {
+                fields.add(field);
+            }
+        }
+        fields.sort(Comparator.comparingInt(field -> regex.indexOf("(?<" + field.getGroupName() + ">")));
+        int[] positions = new int[fields.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i + 1;
+        }
+        return new CompiledTemplate(regex, pattern, null, null, fields.toArray(new ExtractableField[0]), positions, false);
+    }
+
+    private static ParsedRegex parseOrNull(String regex) {
+        try {
+            return RegexParser.parse(regex);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public String getRegex() {
+        return regex;
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Analysis the execution plan was built from; null if the pattern could not be analyzed
+     */
+    public TemplateAnalysis getAnalysis() {
+        return analysis;
+    }
+
+    /**
+     * The linear-time program the template is matched with, or null if it needs java.util.regex
+     */
+    public LinearProgram getLinearProgram() {
+        return linearProgram;
+    }
+
+    public MatchEngine getEngine() {
+        return linearProgram != null ? MatchEngine.LINEAR : MatchEngine.BACKTRACKING;
+    }
+
+    /**
+     * Number of known fields the template declares, i.e. the most fields a match can extract
+     */
+    public int getDeclaredFieldCount() {
+        return planFields.length;
+    }
+
+    /**
+     * Finds the first match in the message with the template's engine and records where the
+     * declared fields were captured. Returns {@link FieldMatch#none()} if nothing matches.
+     */
+    public FieldMatch match(CharSequence message) {
+        if (linearProgram != null && LinearProgram.supportsInput(message.toString())) {
+            int[] captures = linearProgram.find(message);
+            return captures != null ? extract(captures, message) : FieldMatch.none();
+        }
+
+        Matcher matcher = pattern.matcher(message);
+        return matcher.find() ? extract(matcher, message) : FieldMatch.none();
+    }
+
+    /**
+     * Records every declared field that participated in a {@link LinearProgram} match,
+     * given the match's capture offsets in the message
+     */
+    public FieldMatch extract(int[] captures, CharSequence message) {
+        FieldMatch.Builder match = FieldMatch.builder(message.toString());
+        for (int i = 0; i < planFields.length; i++) {
+            int start = captures[2 * planGroups[i]];
+            if (start >= 0) {
+                match.field(planFields[i], start, captures[2 * planGroups[i] + 1], planGroups[i]);
+            }
+        }
+        return match.build();
+    }
+
+    /**
+     * Records every declared field that participated in the match.
+     * The matcher must be positioned on a successful match over the message.
+     */
+    public FieldMatch extract(Matcher matcher, CharSequence message) {
+        FieldMatch.Builder match = FieldMatch.builder(message.toString());
+        for (int i = 0; i < planFields.length; i++) {
+            int start = groupStart(matcher, i);
+            if (start >= 0) {
+                match.field(planFields[i], start, groupEnd(matcher, i), planGroups[i]);
+            }
+        }
+        return match.build();
+    }
+
+    private int groupStart(Matcher matcher, int planIndex) {
+        if (groupNumbersResolved) {
+            return matcher.start(planGroups[planIndex]);
+        }
+        // Fallback for patterns the analyzer cannot number reliably, resolve by name instead
+        try {
+            return matcher.start(planFields[planIndex].getGroupName());
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private int groupEnd(Matcher matcher, int planIndex) {
+        return groupNumbersResolved
+            ? matcher.end(planGroups[planIndex])
+            : matcher.end(planFields[planIndex].getGroupName());
+    }
+}
@@ -0,0 +1,129 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Dto.FieldResult;
+import com.regexflow.backend.Dto.RegexProcessResponse;
+import com.regexflow.backend.Enums.ExtractableField;
+
+import java.util.Arrays;
+
+/**
+ * Compact result of matching one template against an SMS: where each known field was captured.
+ *
+ * Fields are stored as offsets into the original SMS, indexed by {@link ExtractableField} ordinal,
+ * so a match costs one int array and a miss costs nothing ({@link #none()}). Field values are
+ * only cut out of the SMS when asked for, which in practice is for the winning template only;
+ * {@link RegexProcessResponse} is built from a match only where an API returns it.
+ */
+public final class FieldMatch {
+
+    private static final ExtractableField[] FIELDS = ExtractableField.values();
+    private static final FieldMatch NONE = new FieldMatch("", null, 0);
+
+    private final String text;
+    // Per field ordinal f: spans[3f] start, spans[3f + 1] end, spans[3f + 2] group; start -1 if absent.
+    // Null when no field was captured.
+    private final int[] spans;
+    private final int fieldCount;
+
+    private FieldMatch(String text, int[] spans, int fieldCount) {
+        this.text = text;
+        this.spans = spans;
+        this.fieldCount = fieldCount;
+    }
+
+    /**
+     * The result for a template that did not match
+     */
+    public static FieldMatch none() {
+        return NONE;
+    }
+
+    public static Builder builder(String text) {
+        return new Builder(text);
+    }
+
+    /**
+     * Number of known fields the match captured
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public boolean has(ExtractableField field) {
+        return spans != null && spans[3 * field.ordinal()] >= 0;
+    }
+
+    /**
+     * The captured text of the field, or null if the match did not capture it
+     */
+    public String getValue(ExtractableField field) {
+        if (!has(field)) {
+            return null;
+        }
+        int slot = 3 * field.ordinal();
+        return text.substring(spans[slot], spans[slot + 1]);
+    }
+
+    /**
+     * Group number (or named-group position, see {@link CompiledTemplate}) that captured the field, or -1
+     */
+    public int getGroup(ExtractableField field) {
+        return has(field) ? spans[3 * field.ordinal() + 2] : -1;
+    }
+
+    /**
+     * The same field offsets over another text, which must be the matched SMS or an exact copy of
+     * it; a null text keeps only the offsets, whose values can be read once attached to a text again
+     */
+    public FieldMatch withText(String text) {
+        return spans == null ? this : new FieldMatch(text, spans, fieldCount);
+    }
+
+    /**
+     * The API representation of the match, with every captured field's value copied out
+     */
+    public RegexProcessResponse toResponse() {
+        RegexProcessResponse response = new RegexProcessResponse();
+        if (spans == null) {
+            return response;
+        }
+        for (ExtractableField field : FIELDS) {
+            if (has(field)) {
+                field.set(response, new FieldResult(getValue(field), getGroup(field)));
+            }
+        }
+        return response;
+    }
+
+    public static final class Builder {
+        private final String text;
+        private int[] spans;
+        private int fieldCount;
+
+        private Builder(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Records that the field was captured by the group at [start, end) of the text
+         */
+        public Builder field(ExtractableField field, int start, int end, int group) {
+            if (spans == null) {
+                spans = new int[3 * FIELDS.length];
+                Arrays.fill(spans, -1);
+            }
+            int slot = 3 * field.ordinal();
+            if (spans[slot] < 0) {
+                fieldCount++;
+            }
+            spans[slot] = start;
+            spans[slot + 1] = end;
+            spans[slot + 2] = group;
+            return this;
+        }
+
+        public FieldMatch build() {
+            return new FieldMatch(text, spans, fieldCount);
+        }
+    }
+}
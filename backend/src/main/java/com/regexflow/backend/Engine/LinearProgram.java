@@ -0,0 +1,630 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Engine.RegexNode.Alternation;
+import com.regexflow.backend.Engine.RegexNode.Assertion;
+import com.regexflow.backend.Engine.RegexNode.AssertionKind;
+import com.regexflow.backend.Engine.RegexNode.CharClass;
+import com.regexflow.backend.Engine.RegexNode.Empty;
+import com.regexflow.backend.Engine.RegexNode.Greediness;
+import com.regexflow.backend.Engine.RegexNode.Group;
+import com.regexflow.backend.Engine.RegexNode.Literal;
+import com.regexflow.backend.Engine.RegexNode.Repeat;
+import com.regexflow.backend.Engine.RegexNode.Sequence;
+import com.regexflow.backend.Engine.RegexParser.Feature;
+import com.regexflow.backend.Engine.RegexParser.ParsedRegex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Linear-time matcher for the regular subset of java.util.regex, used instead of
+ * {@link java.util.regex.Pattern} for templates that stay inside that subset.
+ *
+ * The pattern is compiled to a small instruction program and run as a Pike VM: every
+ * alternative advances together, one character at a time, so a match reads each character
+ * of the message once whatever the pattern looks like and no input can make it backtrack.
+ * Threads are kept in priority order, which reproduces java.util.regex's leftmost-first
+ * result, group captures included, for every construct {@link #compile} accepts.
+ *
+ * Several programs can be {@link #fuse fused} into one with a branch per program. The fused
+ * program scans the text once and reports each branch's first match exactly as the branch
+ * would on its own: branches share the scan, but not their threads or captures.
+ */
+public final class LinearProgram {
+
+    // Larger programs (e.g. \d{1,500} expanded) are left to java.util.regex
+    static final int MAX_INSTRUCTIONS = 5_000;
+
+    private static final Set<Feature> UNSUPPORTED_FEATURES = EnumSet.of(
+        Feature.BACK_REFERENCE, Feature.LOOKAROUND, Feature.ATOMIC_GROUP, Feature.POSSESSIVE_QUANTIFIER,
+        Feature.PREVIOUS_MATCH_END, Feature.UNICODE_CASE, Feature.UNICODE_CHARACTER_CLASS,
+        Feature.UNIX_LINES, Feature.UNMODELLED_CONSTRUCT);
+
+    private static final AssertionKind[] ASSERTION_KINDS = AssertionKind.values();
+
+    // Instruction opcodes
+    private static final int CHAR_SET = 0;
+    private static final int SPLIT = 1;
+    private static final int JUMP = 2;
+    private static final int SAVE = 3;
+    private static final int ASSERT = 4;
+    private static final int MATCH = 5;
+
+    private final int[] ops;
+    // CHAR_SET: set index; SPLIT: preferred target; JUMP: target; SAVE: slot; ASSERT: AssertionKind ordinal
+    private final int[] args;
+    // SPLIT: other target
+    private final int[] alternates;
+    private final CharSet[] sets;
+    // Two 64-bit masks per set for the ASCII fast path
+    private final long[] asciiMasks;
+
+    // Per branch: first pc, number of capture slots, and the characters a match can start with
+    private final int[] entries;
+    private final int[] slotCounts;
+    private final CharSet[] firstSets;
+    private final long[] firstAsciiMasks;
+    // Branches that can match without consuming anything, so must be started everywhere
+    private final boolean[] startsEverywhere;
+    // Branch each pc belongs to
+    private final int[] branchOf;
+    private final int maxSlotCount;
+
+    private LinearProgram(int[] ops, int[] args, int[] alternates, CharSet[] sets, int[] entries, int[] slotCounts) {
+        this.ops = ops;
+        this.args = args;
+        this.alternates = alternates;
+        this.sets = sets;
+        this.entries = entries;
+        this.slotCounts = slotCounts;
+        this.asciiMasks = new long[sets.length * 2];
+        for (int s = 0; s < sets.length; s++) {
+            setAsciiMask(sets[s], asciiMasks, s);
+        }
+
+        this.branchOf = new int[ops.length];
+        for (int b = 0; b < entries.length; b++) {
+            int end = b + 1 < entries.length ? entries[b + 1] : ops.length;
+            Arrays.fill(branchOf, entries[b], end, b);
+        }
+        this.maxSlotCount = Arrays.stream(slotCounts).max().orElse(0);
+
+        this.firstSets = new CharSet[entries.length];
+        this.firstAsciiMasks = new long[entries.length * 2];
+        this.startsEverywhere = new boolean[entries.length];
+        for (int b = 0; b < entries.length; b++) {
+            computeFirstSet(b);
+            setAsciiMask(firstSets[b], firstAsciiMasks, b);
+        }
+    }
+
+    private static void setAsciiMask(CharSet set, long[] masks, int index) {
+        for (int c = 0; c < 128; c++) {
+            if (set.contains(c)) {
+                masks[2 * index + (c >> 6)] |= 1L << c;
+            }
+        }
+    }
+
+    /**
+     * Characters the branch can consume first, found by following every non-consuming
+     * instruction from its entry (assertions are assumed to hold). A start position whose
+     * character is outside this set cannot begin a match, so no thread is started there.
+     */
+    private void computeFirstSet(int branch) {
+        CharSet first = CharSet.EMPTY;
+        boolean[] seen = new boolean[ops.length];
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(entries[branch]);
+        while (!pending.isEmpty()) {
+            int pc = pending.pop();
+            if (seen[pc]) {
+                continue;
+            }
+            seen[pc] = true;
+            switch (ops[pc]) {
+                case CHAR_SET -> first = first.union(sets[args[pc]]);
+                case MATCH -> startsEverywhere[branch] = true;
+                case JUMP -> pending.push(args[pc]);
+                case SPLIT -> {
+                    pending.push(args[pc]);
+                    pending.push(alternates[pc]);
+                }
+                default -> pending.push(pc + 1);
+            }
+        }
+        firstSets[branch] = first;
+    }
+
+    /**
+     * Compiles a parsed pattern, or returns null if it uses anything outside the supported
+     * subset: back references, lookaround, atomic groups, possessive quantifiers, \G, Unicode
+     * case or classes, constructs the parser does not model, a repeated sub-pattern that can
+     * match the empty string, or a capturing group inside a repetition that can iterate more
+     * than once. java.util.regex stops empty loop iterations early and keeps captures made by
+     * iterations it later abandoned, neither of which a VM can mirror.
+     */
+    public static LinearProgram compile(ParsedRegex parsed) {
+        if (!Collections.disjoint(parsed.features(), UNSUPPORTED_FEATURES)) {
+            return null;
+        }
+        try {
+            Compiler compiler = new Compiler();
+            compiler.emit(SAVE, 0, 0);
+            compiler.compile(parsed.root());
+            compiler.emit(SAVE, 1, 0);
+            compiler.emit(MATCH, 0, 0);
+            return compiler.build(2 * (parsed.groupCount() + 1));
+        } catch (UnsupportedConstructException e) {
+            return null;
+        }
+    }
+
+    /**
+     * True if the matcher can run on this text. Supplementary characters (surrogate pairs)
+     * are left to java.util.regex, which matches them as single code points.
+     */
+    public static boolean supportsInput(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isSurrogate(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Combines programs into one whose branch i is programs[i]. Branch i reports the same
+     * match and captures as programs[i].find() would, in a single pass over the text.
+     */
+    public static LinearProgram fuse(List<LinearProgram> programs) {
+        int size = programs.stream().mapToInt(program -> program.ops.length).sum();
+        int[] ops = new int[size];
+        int[] args = new int[size];
+        int[] alternates = new int[size];
+        List<CharSet> sets = new ArrayList<>();
+        List<Integer> entries = new ArrayList<>();
+        List<Integer> slotCounts = new ArrayList<>();
+
+        int offset = 0;
+        for (LinearProgram program : programs) {
+            int setOffset = sets.size();
+            sets.addAll(Arrays.asList(program.sets));
+            for (int b = 0; b < program.entries.length; b++) {
+                entries.add(program.entries[b] + offset);
+                slotCounts.add(program.slotCounts[b]);
+            }
+            int branchOffset = entries.size() - program.entries.length;
+            for (int pc = 0; pc < program.ops.length; pc++) {
+                int op = program.ops[pc];
+                ops[offset + pc] = op;
+                alternates[offset + pc] = op == SPLIT ? program.alternates[pc] + offset : 0;
+                args[offset + pc] = switch (op) {
+                    case SPLIT, JUMP -> program.args[pc] + offset;
+                    case CHAR_SET -> program.args[pc] + setOffset;
+                    case MATCH -> program.args[pc] + branchOffset;
+                    default -> program.args[pc];
+                };
+            }
+            offset += program.ops.length;
+        }
+        return new LinearProgram(ops, args, alternates, sets.toArray(new CharSet[0]),
+            entries.stream().mapToInt(Integer::intValue).toArray(),
+            slotCounts.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public int getInstructionCount() {
+        return ops.length;
+    }
+
+    public int getBranchCount() {
+        return entries.length;
+    }
+
+    /**
+     * Finds the first match the way {@link java.util.regex.Matcher#find()} does. Returns the
+     * capture offsets (start and end of group g at 2g and 2g + 1, -1 if the group did not
+     * participate), or null if there is no match. Text must pass {@link #supportsInput}.
+     * On a fused program this is the first branch's match.
+     */
+    public int[] find(CharSequence text) {
+        return findAll(text, null)[0];
+    }
+
+    /**
+     * Finds the first match of every requested branch in one pass over the text.
+     * Returns, per branch, what {@link #find} would return for that branch on its own;
+     * branches that were not requested get null. A null set requests every branch.
+     */
+    public int[][] findAll(CharSequence text, BitSet branches) {
+        int length = text.length();
+        int branchCount = entries.length;
+        ThreadList current = new ThreadList(ops.length, maxSlotCount);
+        ThreadList next = new ThreadList(ops.length, maxSlotCount);
+        int[] captures = new int[maxSlotCount];
+        int[] stack = new int[ops.length * 3 + 2];
+        int[][] matched = new int[branchCount][];
+
+        // Branches that still start new attempts: requested, and not matched yet
+        BitSet searching = new BitSet(branchCount);
+        if (branches == null) {
+            searching.set(0, branchCount);
+        } else {
+            searching.or(branches);
+        }
+        // Branches that matched at the current position; their lower-priority threads are dropped
+        boolean[] cut = new boolean[branchCount];
+
+        for (int pos = 0; ; pos++) {
+            boolean hasChar = pos < length;
+            char c = hasChar ? text.charAt(pos) : 0;
+            // A new attempt starting here has the lowest priority, after every earlier start
+            for (int b = searching.nextSetBit(0); b >= 0; b = searching.nextSetBit(b + 1)) {
+                if (startsEverywhere[b] || (hasChar && canStartWith(b, c))) {
+                    Arrays.fill(captures, -1);
+                    addThread(current, entries[b], pos, captures, stack, text);
+                }
+            }
+            if (current.size == 0 && (searching.isEmpty() || !hasChar)) {
+                break;
+            }
+
+            Arrays.fill(cut, false);
+            for (int t = 0; t < current.size; t++) {
+                int pc = current.pcs[t];
+                int branch = branchOf[pc];
+                if (cut[branch]) {
+                    continue;
+                }
+                if (ops[pc] == MATCH) {
+                    matched[branch] = Arrays.copyOfRange(current.captures, t * maxSlotCount,
+                        t * maxSlotCount + slotCounts[branch]);
+                    // Lower-priority threads could only produce a match java.util.regex would not pick
+                    cut[branch] = true;
+                    searching.clear(branch);
+                    continue;
+                }
+                // The list also marks the non-consuming instructions already followed; skip those
+                if (ops[pc] == CHAR_SET && hasChar && contains(args[pc], c)) {
+                    System.arraycopy(current.captures, t * maxSlotCount, captures, 0, maxSlotCount);
+                    addThread(next, pc + 1, pos + 1, captures, stack, text);
+                }
+            }
+
+            if (!hasChar) {
+                break;
+            }
+            ThreadList swap = current;
+            current = next;
+            next = swap;
+            next.clear();
+        }
+        return matched;
+    }
+
+    private boolean canStartWith(int branch, char c) {
+        if (c < 128) {
+            return (firstAsciiMasks[2 * branch + (c >> 6)] & (1L << c)) != 0;
+        }
+        return firstSets[branch].contains(c);
+    }
+
+    /**
+     * Follows every non-consuming instruction reachable from pc in priority order and adds
+     * the consuming ones (and MATCH) to the list, each with the captures on its path.
+     * Iterative so a long pattern cannot overflow the call stack; the stack holds either a pc,
+     * or a saved capture to restore once the SAVE's successors are done (~slot, then value).
+     */
+    private void addThread(ThreadList list, int startPc, int pos, int[] captures, int[] stack, CharSequence text) {
+        int top = 0;
+        stack[top++] = startPc;
+        while (top > 0) {
+            int entry = stack[--top];
+            if (entry < 0) {
+                captures[~entry] = stack[--top];
+                continue;
+            }
+            int pc = entry;
+            if (list.contains(pc)) {
+                continue;
+            }
+            list.add(pc);
+            switch (ops[pc]) {
+                case JUMP -> stack[top++] = args[pc];
+                case SPLIT -> {
+                    stack[top++] = alternates[pc];
+                    stack[top++] = args[pc];
+                }
+                case SAVE -> {
+                    stack[top++] = captures[args[pc]];
+                    stack[top++] = ~args[pc];
+                    captures[args[pc]] = pos;
+                    stack[top++] = pc + 1;
+                }
+                case ASSERT -> {
+                    if (assertionHolds(ASSERTION_KINDS[args[pc]], text, pos)) {
+                        stack[top++] = pc + 1;
+                    }
+                }
+                default -> list.setCaptures(pc, captures);
+            }
+        }
+    }
+
+    private boolean contains(int set, char c) {
+        if (c < 128) {
+            return (asciiMasks[2 * set + (c >> 6)] & (1L << c)) != 0;
+        }
+        return sets[set].contains(c);
+    }
+
+    /**
+     * Zero-width assertions, with the exact line terminator and word character rules of
+     * java.util.regex (Begin, End, Caret, Dollar and Bound nodes)
+     */
+    static boolean assertionHolds(AssertionKind kind, CharSequence text, int pos) {
+        int length = text.length();
+        return switch (kind) {
+            case BEGIN_INPUT -> pos == 0;
+            case END_INPUT -> pos == length;
+            case BEGIN_LINE -> {
+                // ^ never matches at the very end of the input, even after a line terminator
+                if (pos == length) {
+                    yield false;
+                }
+                if (pos == 0) {
+                    yield true;
+                }
+                char before = text.charAt(pos - 1);
+                yield isLineTerminator(before) && !(before == '\r' && text.charAt(pos) == '\n');
+            }
+            case END_LINE -> isAtLineEnd(text, pos);
+            case END_INPUT_BEFORE_TERMINATOR -> pos == length
+                || (pos == length - 2 && text.charAt(pos) == '\r' && text.charAt(pos + 1) == '\n')
+                || (pos == length - 1 && isAtLineEnd(text, pos));
+            case WORD_BOUNDARY -> isWordBefore(text, pos) != isWordAt(text, pos);
+            case NOT_WORD_BOUNDARY -> isWordBefore(text, pos) == isWordAt(text, pos);
+            case PREVIOUS_MATCH_END -> throw new IllegalStateException("\\G is not compiled");
+        };
+    }
+
+    private static boolean isAtLineEnd(CharSequence text, int pos) {
+        if (pos == text.length()) {
+            return true;
+        }
+        char c = text.charAt(pos);
+        if (c == '\n') {
+            // Not between \r and \n
+            return pos == 0 || text.charAt(pos - 1) != '\r';
+        }
+        return isLineTerminator(c);
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isWordBefore(CharSequence text, int pos) {
+        return pos > 0 && isBoundaryWordChar(text, pos - 1);
+    }
+
+    private static boolean isWordAt(CharSequence text, int pos) {
+        return pos < text.length() && isBoundaryWordChar(text, pos);
+    }
+
+    /**
+     * \b counts Unicode letters and digits as word characters (not just \w), and a
+     * non-spacing mark when it follows one
+     */
+    private static boolean isBoundaryWordChar(CharSequence text, int index) {
+        char c = text.charAt(index);
+        if (c == '_' || Character.isLetterOrDigit(c)) {
+            return true;
+        }
+        if (Character.getType(c) != Character.NON_SPACING_MARK) {
+            return false;
+        }
+        for (int i = index; i >= 0; i--) {
+            char base = text.charAt(i);
+            if (Character.isLetterOrDigit(base)) {
+                return true;
+            }
+            if (Character.getType(base) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Threads of one step: a sparse set of pcs in priority order, with the captures of each
+     */
+    private static final class ThreadList {
+        private final int[] sparse;
+        private final int[] pcs;
+        private final int[] captures;
+        private final int slotCount;
+        private int size;
+
+        private ThreadList(int programSize, int slotCount) {
+            this.sparse = new int[programSize];
+            this.pcs = new int[programSize];
+            this.captures = new int[programSize * slotCount];
+            this.slotCount = slotCount;
+        }
+
+        private boolean contains(int pc) {
+            int index = sparse[pc];
+            return index < size && pcs[index] == pc;
+        }
+
+        private void add(int pc) {
+            sparse[pc] = size;
+            pcs[size++] = pc;
+        }
+
+        private void setCaptures(int pc, int[] values) {
+            System.arraycopy(values, 0, captures, sparse[pc] * slotCount, slotCount);
+        }
+
+        private void clear() {
+            size = 0;
+        }
+    }
+
+    private static final class UnsupportedConstructException extends RuntimeException {
+        private UnsupportedConstructException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Emits the program for a syntax tree. Each node's code falls through to whatever follows it.
+     */
+    private static final class Compiler {
+        private int[] ops = new int[64];
+        private int[] args = new int[64];
+        private int[] alternates = new int[64];
+        private final List<CharSet> sets = new ArrayList<>();
+        private int size;
+        // Enclosing repetitions that can iterate more than once
+        private int loopDepth;
+
+        private int emit(int op, int arg, int alternate) {
+            if (size == MAX_INSTRUCTIONS) {
+                throw new UnsupportedConstructException();
+            }
+            if (size == ops.length) {
+                ops = Arrays.copyOf(ops, size * 2);
+                args = Arrays.copyOf(args, size * 2);
+                alternates = Arrays.copyOf(alternates, size * 2);
+            }
+            ops[size] = op;
+            args[size] = arg;
+            alternates[size] = alternate;
+            return size++;
+        }
+
+        private void compile(RegexNode node) {
+            if (node instanceof Empty) {
+                return;
+            }
+            if (node instanceof Literal literal) {
+                CharSet set = CharSet.of(literal.codePoint());
+                emitSet(literal.ignoreCase() ? set.foldAsciiCase() : set);
+            } else if (node instanceof CharClass charClass) {
+                if (!charClass.set().isExact()) {
+                    throw new UnsupportedConstructException();
+                }
+                emitSet(charClass.set());
+            } else if (node instanceof Sequence sequence) {
+                for (RegexNode item : sequence.items()) {
+                    compile(item);
+                }
+            } else if (node instanceof Alternation alternation) {
+                compileAlternation(alternation.branches());
+            } else if (node instanceof Group group) {
+                if (loopDepth > 0) {
+                    throw new UnsupportedConstructException();
+                }
+                emit(SAVE, 2 * group.number(), 0);
+                compile(group.body());
+                emit(SAVE, 2 * group.number() + 1, 0);
+            } else if (node instanceof Repeat repeat) {
+                boolean loop = repeat.max() != 1;
+                loopDepth += loop ? 1 : 0;
+                compileRepeat(repeat);
+                loopDepth -= loop ? 1 : 0;
+            } else if (node instanceof Assertion assertion && assertion.kind() != AssertionKind.PREVIOUS_MATCH_END) {
+                emit(ASSERT, assertion.kind().ordinal(), 0);
+            } else {
+                throw new UnsupportedConstructException();
+            }
+        }
+
+        private void emitSet(CharSet set) {
+            int index = sets.indexOf(set);
+            if (index < 0) {
+                index = sets.size();
+                sets.add(set);
+            }
+            emit(CHAR_SET, index, 0);
+        }
+
+        /**
+         * SPLIT to each branch in order; every branch but the last jumps to the common end
+         */
+        private void compileAlternation(List<RegexNode> branches) {
+            List<Integer> jumps = new ArrayList<>();
+            for (int i = 0; i < branches.size() - 1; i++) {
+                int split = emit(SPLIT, 0, 0);
+                args[split] = size;
+                compile(branches.get(i));
+                jumps.add(emit(JUMP, 0, 0));
+                alternates[split] = size;
+            }
+            compile(branches.get(branches.size() - 1));
+            for (int jump : jumps) {
+                args[jump] = size;
+            }
+        }
+
+        private void compileRepeat(Repeat repeat) {
+            if (repeat.greediness() == Greediness.POSSESSIVE
+                || (RedosAnalyzer.nullable(repeat.body()) && repeat.max() != 1)) {
+                throw new UnsupportedConstructException();
+            }
+            boolean greedy = repeat.greediness() == Greediness.GREEDY;
+
+            if (repeat.max() == Repeat.UNBOUNDED) {
+                if (repeat.min() == 0) {
+                    // loop: SPLIT body, end; body; JUMP loop
+                    int loop = emit(SPLIT, 0, 0);
+                    compile(repeat.body());
+                    emit(JUMP, loop, 0);
+                    setSplit(loop, loop + 1, size, greedy);
+                    return;
+                }
+                for (int i = 0; i < repeat.min() - 1; i++) {
+                    compile(repeat.body());
+                }
+                // body: ...; SPLIT body, end
+                int body = size;
+                compile(repeat.body());
+                int split = emit(SPLIT, 0, 0);
+                setSplit(split, body, size, greedy);
+                return;
+            }
+
+            for (int i = 0; i < repeat.min(); i++) {
+                compile(repeat.body());
+            }
+            // Each optional copy is entered by a SPLIT that skips to the end of all of them
+            List<Integer> splits = new ArrayList<>();
+            for (int i = repeat.min(); i < repeat.max(); i++) {
+                splits.add(emit(SPLIT, 0, 0));
+                compile(repeat.body());
+            }
+            for (int split : splits) {
+                setSplit(split, split + 1, size, greedy);
+            }
+        }
+
+        private void setSplit(int split, int body, int exit, boolean greedy) {
+            args[split] = greedy ? body : exit;
+            alternates[split] = greedy ? exit : body;
+        }
+
+        private LinearProgram build(int slotCount) {
+            return new LinearProgram(Arrays.copyOf(ops, size), Arrays.copyOf(args, size),
+                Arrays.copyOf(alternates, size), sets.toArray(new CharSet[0]), new int[]{0}, new int[]{slotCount});
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.regexflow.backend.Engine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides, in one pass over an SMS, which of a sender's templates can possibly match it.
+ *
+ * Every template contributes the literals all of its matches contain
+ * ({@link TemplateAnalysis#requiredLiterals()}); the distinct literals of all templates go into
+ * one {@link AhoCorasick} automaton. A template is a candidate only if every one of its literals
+ * occurs in the SMS. Templates without known literals are always candidates.
+ */
+public final class LiteralPrefilter {
+
+    private final AhoCorasick automaton;
+    // literalIds[t] are the automaton keywords template t requires; null means "always a candidate"
+    private final int[][] literalIds;
+
+    private LiteralPrefilter(AhoCorasick automaton, int[][] literalIds) {
+        this.automaton = automaton;
+        this.literalIds = literalIds;
+    }
+
+    /**
+     * @param requiredLiterals per template, in the order candidates are reported; a null entry
+     *                         (e.g. the template could not be analyzed) keeps that template a candidate
+     */
+    public static LiteralPrefilter build(List<List<String>> requiredLiterals) {
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        int[][] literalIds = new int[requiredLiterals.size()][];
+        for (int t = 0; t < literalIds.length; t++) {
+            List<String> literals = requiredLiterals.get(t);
+            if (literals == null || literals.isEmpty()) {
+                continue;
+            }
+            literalIds[t] = literals.stream()
+                .map(AhoCorasick::foldCase)
+                .mapToInt(literal -> ids.computeIfAbsent(literal, key -> ids.size()))
+                .distinct()
+                .toArray();
+        }
+        return new LiteralPrefilter(AhoCorasick.build(new ArrayList<>(ids.keySet())), literalIds);
+    }
+
+    public int getTemplateCount() {
+        return literalIds.length;
+    }
+
+    /**
+     * Indexes of the templates whose required literals all occur in the text
+     */
+    public BitSet candidates(CharSequence text) {
+        BitSet found = automaton.getKeywordCount() > 0 ? automaton.findAll(text) : new BitSet();
+        BitSet candidates = new BitSet(literalIds.length);
+        for (int t = 0; t < literalIds.length; t++) {
+            if (literalIds[t] == null || allFound(literalIds[t], found)) {
+                candidates.set(t);
+            }
+        }
+        return candidates;
+    }
+
+    private static boolean allFound(int[] ids, BitSet found) {
+        for (int id : ids) {
+            if (!found.get(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
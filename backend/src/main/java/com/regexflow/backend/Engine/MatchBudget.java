@@ -0,0 +1,43 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Engine.MatchBudgetExceededException.Reason;
+
+/**
+ * Work limits for matching one SMS: a step and time budget for each template tried,
+ * and an overall deadline shared by all candidate templates.
+ */
+public final class MatchBudget {
+
+    private final long stepsPerTemplate;
+    private final long nanosPerTemplate;
+    private final long smsDeadlineNanos;
+
+    private MatchBudget(long stepsPerTemplate, long nanosPerTemplate, long smsDeadlineNanos) {
+        this.stepsPerTemplate = stepsPerTemplate;
+        this.nanosPerTemplate = nanosPerTemplate;
+        this.smsDeadlineNanos = smsDeadlineNanos;
+    }
+
+    /**
+     * Starts the clock for one SMS
+     */
+    public static MatchBudget start(long stepsPerTemplate, long nanosPerTemplate, long nanosPerSms) {
+        return new MatchBudget(stepsPerTemplate, nanosPerTemplate, System.nanoTime() + nanosPerSms);
+    }
+
+    /**
+     * Wraps the message for one template match. The template gets its full step budget and
+     * its time budget, cut short by the SMS deadline if that comes first.
+     */
+    public BudgetedCharSequence forTemplate(String text) {
+        long templateDeadline = System.nanoTime() + nanosPerTemplate;
+        if (templateDeadline - smsDeadlineNanos >= 0) {
+            return new BudgetedCharSequence(text, stepsPerTemplate, smsDeadlineNanos, Reason.SMS_DEADLINE);
+        }
+        return new BudgetedCharSequence(text, stepsPerTemplate, templateDeadline, Reason.TEMPLATE_TIME_BUDGET);
+    }
+
+    public boolean isSmsDeadlinePassed() {
+        return System.nanoTime() - smsDeadlineNanos > 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.regexflow.backend.Engine;
+
+/**
+ * Thrown from inside a regex match when it runs out of its step or time budget.
+ * Unlike a failed match it means "unknown": the template may or may not have matched.
+ */
+public class MatchBudgetExceededException extends RuntimeException {
+
+    public enum Reason {
+        // The template used up its character-read budget
+        STEP_BUDGET,
+        // The template ran longer than its own time budget
+        TEMPLATE_TIME_BUDGET,
+        // The SMS ran past its overall deadline across all candidate templates
+        SMS_DEADLINE
+    }
+
+    private final Reason reason;
+    private final long steps;
+
+    public MatchBudgetExceededException(Reason reason, long steps) {
+        super("Regex matching exceeded its " + describe(reason) + " after " + steps + " steps");
+        this.reason = reason;
+        this.steps = steps;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    private static String describe(Reason reason) {
+        return switch (reason) {
+            case STEP_BUDGET -> "step budget";
+            case TEMPLATE_TIME_BUDGET -> "time budget";
+            case SMS_DEADLINE -> "SMS deadline";
+        };
+    }
+
+    // Control-flow exception on a hot path, the stack trace is never useful
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
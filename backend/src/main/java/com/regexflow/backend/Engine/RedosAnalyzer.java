@@ -0,0 +1,476 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Engine.RegexNode.Alternation;
+import com.regexflow.backend.Engine.RegexNode.Assertion;
+import com.regexflow.backend.Engine.RegexNode.Atomic;
+import com.regexflow.backend.Engine.RegexNode.BackReference;
+import com.regexflow.backend.Engine.RegexNode.CharClass;
+import com.regexflow.backend.Engine.RegexNode.Empty;
+import com.regexflow.backend.Engine.RegexNode.Greediness;
+import com.regexflow.backend.Engine.RegexNode.Group;
+import com.regexflow.backend.Engine.RegexNode.Literal;
+import com.regexflow.backend.Engine.RegexNode.Lookaround;
+import com.regexflow.backend.Engine.RegexNode.Opaque;
+import com.regexflow.backend.Engine.RegexNode.Repeat;
+import com.regexflow.backend.Engine.RegexNode.Sequence;
+import com.regexflow.backend.Enums.RedosRisk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Static detection of patterns that make java.util.regex backtrack catastrophically.
+ *
+ * Two shapes are reported:
+ * <ul>
+ *   <li>Exponential: an unbounded repeat whose body can match the same text in more than one
+ *   way per iteration, e.g. {@code (\d+,?)+} (the inner repeat alone can fill an iteration) or
+ *   {@code (\w|\d)+} (two alternatives accept the same character), or {@code (x+x+)+}
+ *   (two loops inside the iteration trade characters).</li>
+ *   <li>Polynomial: two unbounded repeats in a row, separated only by optional parts, that accept
+ *   a common character, e.g. {@code [\d,]+\.?\d*}.</li>
+ * </ul>
+ * Atomic groups and possessive quantifiers do not backtrack and are not reported. The analysis
+ * is a conservative heuristic; {@link AdversarialInputFuzzer} measures what actually happens.
+ */
+public final class RedosAnalyzer {
+
+    private RedosAnalyzer() {
+    }
+
+    /**
+     * Static findings for a parsed pattern
+     */
+    public static List<Finding> analyze(RegexNode root) {
+        List<Finding> findings = new ArrayList<>();
+        visit(root, findings);
+        return findings;
+    }
+
+    /**
+     * One risky construct: repeat is the quantifier an attacker would pump, with the
+     * character pumpChar that it accepts in more than one way
+     */
+    public record Finding(RedosRisk risk, String description, Repeat repeat, int pumpChar) {
+    }
+
+    public static RedosRisk worstRisk(List<Finding> findings) {
+        RedosRisk worst = RedosRisk.NONE;
+        for (Finding finding : findings) {
+            if (finding.risk().ordinal() > worst.ordinal()) {
+                worst = finding.risk();
+            }
+        }
+        return worst;
+    }
+
+    private static void visit(RegexNode node, List<Finding> findings) {
+        if (node instanceof Atomic) {
+            return; // no backtracking into an atomic group
+        }
+        if (node instanceof Repeat repeat && isBacktrackingLoop(repeat)) {
+            checkAmbiguousIteration(repeat, findings);
+        }
+        if (node instanceof Sequence sequence) {
+            checkAdjacentRepeats(flatten(sequence.items()), findings);
+        }
+        for (RegexNode child : TemplateAnalyzer.children(node)) {
+            visit(child, findings);
+        }
+    }
+
+    private static boolean isBacktrackingLoop(Repeat repeat) {
+        return repeat.max() == Repeat.UNBOUNDED && repeat.greediness() != Greediness.POSSESSIVE;
+    }
+
+    /**
+     * An iteration of the outer loop is ambiguous if an inner loop can fill it on its own,
+     * or if two alternatives of the body accept the same single character.
+     */
+    private static void checkAmbiguousIteration(Repeat outer, List<Finding> findings) {
+        List<Repeat> soleRepeats = new ArrayList<>();
+        collectSoleRepeats(outer.body(), soleRepeats);
+        for (Repeat inner : soleRepeats) {
+            CharSet innerChars = loopCharSet(inner);
+            if (!innerChars.isEmpty()) {
+                findings.add(new Finding(RedosRisk.EXPONENTIAL,
+                    "Nested quantifier: " + describe(inner) + " can fill a whole iteration of " + describe(outer),
+                    outer, witnessChar(innerChars)));
+                return;
+            }
+        }
+
+        RegexNode body = unwrap(outer.body());
+        if (body instanceof Sequence sequence) {
+            // Two loops inside the iteration that trade characters multiply on every iteration
+            List<Finding> inner = new ArrayList<>();
+            checkAdjacentRepeats(flatten(sequence.items()), inner);
+            if (!inner.isEmpty()) {
+                findings.add(new Finding(RedosRisk.EXPONENTIAL,
+                    inner.get(0).description() + " inside " + describe(outer), outer, inner.get(0).pumpChar()));
+                return;
+            }
+        }
+        if (body instanceof Alternation alternation) {
+            List<RegexNode> branches = alternation.branches();
+            for (int i = 0; i < branches.size(); i++) {
+                for (int j = i + 1; j < branches.size(); j++) {
+                    CharSet a = singleCharSet(branches.get(i));
+                    CharSet b = singleCharSet(branches.get(j));
+                    CharSet common = a.intersect(b);
+                    if (!common.isEmpty()) {
+                        findings.add(new Finding(RedosRisk.EXPONENTIAL,
+                            "Overlapping alternatives inside " + describe(outer), outer, witnessChar(common)));
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Unbounded repeats R inside node such that node can match text made only of R's iterations
+     */
+    private static void collectSoleRepeats(RegexNode node, List<Repeat> out) {
+        if (node instanceof Repeat repeat) {
+            if (repeat.greediness() == Greediness.POSSESSIVE) {
+                return;
+            }
+            if (repeat.max() == Repeat.UNBOUNDED) {
+                out.add(repeat);
+            }
+            collectSoleRepeats(repeat.body(), out);
+        } else if (node instanceof Group group) {
+            collectSoleRepeats(group.body(), out);
+        } else if (node instanceof Alternation alternation) {
+            for (RegexNode branch : alternation.branches()) {
+                collectSoleRepeats(branch, out);
+            }
+        } else if (node instanceof Sequence sequence) {
+            List<RegexNode> items = sequence.items();
+            for (int i = 0; i < items.size(); i++) {
+                if (othersNullable(items, i)) {
+                    collectSoleRepeats(items.get(i), out);
+                }
+            }
+        }
+    }
+
+    private static boolean othersNullable(List<RegexNode> items, int except) {
+        for (int i = 0; i < items.size(); i++) {
+            if (i != except && !nullable(items.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Two loops in a row that can trade characters: the split point between them is ambiguous
+     */
+    private static void checkAdjacentRepeats(List<RegexNode> items, List<Finding> findings) {
+        for (int i = 0; i < items.size(); i++) {
+            if (!(items.get(i) instanceof Repeat first) || !isBacktrackingLoop(first)) {
+                continue;
+            }
+            CharSet firstChars = loopCharSet(first);
+            for (int j = i + 1; j < items.size(); j++) {
+                RegexNode next = items.get(j);
+                CharSet common = next instanceof Repeat second && isBacktrackingLoop(second)
+                    ? firstChars.intersect(loopCharSet(second))
+                    : CharSet.EMPTY;
+                if (!common.isEmpty()) {
+                    findings.add(new Finding(RedosRisk.POLYNOMIAL,
+                        "Adjacent overlapping quantifiers: " + describe(first) + " and " + describe((Repeat) next),
+                        first, witnessChar(common)));
+                    break;
+                }
+                if (!nullable(next)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sequence items with capturing and nested sequences opened up, so that loops separated
+     * only by group boundaries are seen as neighbours
+     */
+    static List<RegexNode> flatten(List<RegexNode> items) {
+        List<RegexNode> flat = new ArrayList<>();
+        for (RegexNode item : items) {
+            RegexNode unwrapped = unwrap(item);
+            if (unwrapped instanceof Sequence sequence) {
+                flat.addAll(flatten(sequence.items()));
+            } else {
+                flat.add(unwrapped);
+            }
+        }
+        return flat;
+    }
+
+    private static RegexNode unwrap(RegexNode node) {
+        while (node instanceof Group group) {
+            node = group.body();
+        }
+        return node;
+    }
+
+    /**
+     * Characters one iteration of the loop can consume
+     */
+    private static CharSet loopCharSet(Repeat repeat) {
+        CharSet single = singleCharSet(repeat.body());
+        return single.isEmpty() ? firstSet(repeat.body()) : single;
+    }
+
+    /**
+     * Characters c such that the node matches exactly the one-character string c
+     */
+    static CharSet singleCharSet(RegexNode node) {
+        node = unwrap(node);
+        if (node instanceof CharClass charClass) {
+            return charClass.set();
+        }
+        if (node instanceof Literal literal) {
+            return literalSet(literal);
+        }
+        if (node instanceof Alternation alternation) {
+            CharSet set = CharSet.EMPTY;
+            for (RegexNode branch : alternation.branches()) {
+                set = set.union(singleCharSet(branch));
+            }
+            return set;
+        }
+        return CharSet.EMPTY;
+    }
+
+    /**
+     * Over-approximation of the characters a non-empty match of the node can start with
+     */
+    static CharSet firstSet(RegexNode node) {
+        if (node instanceof Literal literal) {
+            return literalSet(literal);
+        }
+        if (node instanceof CharClass charClass) {
+            return charClass.set();
+        }
+        if (node instanceof Group group) {
+            return firstSet(group.body());
+        }
+        if (node instanceof Atomic atomic) {
+            return firstSet(atomic.body());
+        }
+        if (node instanceof Repeat repeat) {
+            return repeat.max() == 0 ? CharSet.EMPTY : firstSet(repeat.body());
+        }
+        if (node instanceof Alternation alternation) {
+            CharSet set = CharSet.EMPTY;
+            for (RegexNode branch : alternation.branches()) {
+                set = set.union(firstSet(branch));
+            }
+            return set;
+        }
+        if (node instanceof Sequence sequence) {
+            CharSet set = CharSet.EMPTY;
+            for (RegexNode item : sequence.items()) {
+                set = set.union(firstSet(item));
+                if (!nullable(item)) {
+                    break;
+                }
+            }
+            return set;
+        }
+        if (node instanceof BackReference || (node instanceof Opaque opaque && !opaque.zeroWidth())) {
+            return CharSet.UNKNOWN;
+        }
+        return CharSet.EMPTY;
+    }
+
+    /**
+     * True if the node can match the empty string
+     */
+    static boolean nullable(RegexNode node) {
+        if (node instanceof Empty || node instanceof Assertion || node instanceof Lookaround
+            || node instanceof BackReference) {
+            return true;
+        }
+        if (node instanceof Opaque opaque) {
+            return opaque.zeroWidth();
+        }
+        if (node instanceof Literal || node instanceof CharClass) {
+            return false;
+        }
+        if (node instanceof Group group) {
+            return nullable(group.body());
+        }
+        if (node instanceof Atomic atomic) {
+            return nullable(atomic.body());
+        }
+        if (node instanceof Repeat repeat) {
+            return repeat.min() == 0 || nullable(repeat.body());
+        }
+        if (node instanceof Alternation alternation) {
+            return alternation.branches().stream().anyMatch(RedosAnalyzer::nullable);
+        }
+        if (node instanceof Sequence sequence) {
+            return sequence.items().stream().allMatch(RedosAnalyzer::nullable);
+        }
+        return false;
+    }
+
+    /**
+     * A representative member of a non-empty set, preferring characters an SMS would contain
+     */
+    static int witnessChar(CharSet set) {
+        for (int preferred : new int[]{'a', '1', ' ', 'A', ',', '.'}) {
+            if (set.contains(preferred)) {
+                return preferred;
+            }
+        }
+        for (int i = 0; i < set.rangeCount(); i++) {
+            if (set.rangeHigh(i) >= 0x21 && set.rangeLow(i) <= 0x7E) {
+                return Math.max(set.rangeLow(i), 0x21);
+            }
+        }
+        return set.rangeLow(0);
+    }
+
+    static CharSet literalSet(Literal literal) {
+        CharSet set = CharSet.of(literal.codePoint());
+        return literal.ignoreCase() ? set.foldAsciiCase() : set;
+    }
+
+    private static String describe(Repeat repeat) {
+        return "'" + render(repeat) + "'";
+    }
+
+    private static final CharSet DIGIT = CharSet.range('0', '9');
+    private static final CharSet WORD = CharSet.ofRanges('a', 'z', 'A', 'Z', '0', '9', '_', '_');
+    private static final CharSet SPACE = CharSet.ofRanges('\t', '\r', ' ', ' ');
+    private static final CharSet DOT = CharSet.ofRanges('\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029).complement();
+    private static final int MAX_RENDERED_LENGTH = 60;
+
+    /**
+     * Approximate regex source of a node, for messages shown to makers and checkers
+     */
+    static String render(RegexNode node) {
+        String text = renderNode(node);
+        return text.length() <= MAX_RENDERED_LENGTH ? text : text.substring(0, MAX_RENDERED_LENGTH - 3) + "...";
+    }
+
+    private static String renderNode(RegexNode node) {
+        if (node instanceof Literal literal) {
+            return renderChar(literal.codePoint());
+        }
+        if (node instanceof CharClass charClass) {
+            return renderSet(charClass.set());
+        }
+        if (node instanceof Group group) {
+            return "(" + (group.name() == null ? "" : "?<" + group.name() + ">") + renderNode(group.body()) + ")";
+        }
+        if (node instanceof Atomic atomic) {
+            return "(?>" + renderNode(atomic.body()) + ")";
+        }
+        if (node instanceof Sequence sequence) {
+            StringBuilder sb = new StringBuilder();
+            sequence.items().forEach(item -> sb.append(renderNode(item)));
+            return sb.toString();
+        }
+        if (node instanceof Alternation alternation) {
+            List<String> branches = new ArrayList<>();
+            alternation.branches().forEach(branch -> branches.add(renderNode(branch)));
+            return "(?:" + String.join("|", branches) + ")";
+        }
+        if (node instanceof Repeat repeat) {
+            String body = renderNode(repeat.body());
+            if (repeat.body() instanceof Sequence) {
+                body = "(?:" + body + ")";
+            }
+            String quantifier;
+            if (repeat.min() == 0 && repeat.max() == Repeat.UNBOUNDED) {
+                quantifier = "*";
+            } else if (repeat.min() == 1 && repeat.max() == Repeat.UNBOUNDED) {
+                quantifier = "+";
+            } else if (repeat.min() == 0 && repeat.max() == 1) {
+                quantifier = "?";
+            } else if (repeat.max() == Repeat.UNBOUNDED) {
+                quantifier = "{" + repeat.min() + ",}";
+            } else if (repeat.min() == repeat.max()) {
+                quantifier = "{" + repeat.min() + "}";
+            } else {
+                quantifier = "{" + repeat.min() + "," + repeat.max() + "}";
+            }
+            String suffix = switch (repeat.greediness()) {
+                case GREEDY -> "";
+                case LAZY -> "?";
+                case POSSESSIVE -> "+";
+            };
+            return body + quantifier + suffix;
+        }
+        if (node instanceof BackReference backReference) {
+            return "\\" + backReference.number();
+        }
+        if (node instanceof Opaque opaque) {
+            return opaque.construct();
+        }
+        if (node instanceof Lookaround lookaround) {
+            return "(?" + (lookaround.behind() ? "<" : "") + (lookaround.negative() ? "!" : "=")
+                + renderNode(lookaround.body()) + ")";
+        }
+        if (node instanceof Assertion assertion) {
+            return switch (assertion.kind()) {
+                case BEGIN_INPUT, BEGIN_LINE -> "^";
+                case END_INPUT_BEFORE_TERMINATOR, END_LINE -> "$";
+                case END_INPUT -> "\\z";
+                case WORD_BOUNDARY -> "\\b";
+                case NOT_WORD_BOUNDARY -> "\\B";
+                case PREVIOUS_MATCH_END -> "\\G";
+            };
+        }
+        return "";
+    }
+
+    private static String renderSet(CharSet set) {
+        if (!set.isExact()) {
+            return "\\p{..}";
+        }
+        CharSet folded = set.foldAsciiCase();
+        if (folded.equals(DIGIT)) {
+            return "\\d";
+        }
+        if (folded.equals(WORD)) {
+            return "\\w";
+        }
+        if (folded.equals(SPACE)) {
+            return "\\s";
+        }
+        if (folded.equals(DOT) || folded.equals(CharSet.ALL)) {
+            return ".";
+        }
+        int single = set.singleCodePoint();
+        if (single >= 0) {
+            return renderChar(single);
+        }
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < set.rangeCount(); i++) {
+            int low = set.rangeLow(i);
+            int high = set.rangeHigh(i);
+            sb.append(renderChar(low));
+            if (high > low) {
+                sb.append(high > low + 1 ? "-" : "").append(renderChar(high));
+            }
+        }
+        return sb.append("]").toString();
+    }
+
+    private static String renderChar(int codePoint) {
+        if (codePoint < 0x20 || codePoint > 0x7E) {
+            return String.format("\\x{%X}", codePoint);
+        }
+        if ("\\^$.|?*+()[]{}-".indexOf(codePoint) >= 0) {
+            return "\\" + (char) codePoint;
+        }
+        return String.valueOf((char) codePoint);
+    }
+}
@@ -0,0 +1,34 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Enums.RedosRisk;
+
+import java.util.List;
+
+/**
+ * Result of checking a pattern for catastrophic backtracking.
+ *
+ * @param risk                 worst risk found by the static analysis
+ * @param findings             human-readable description of each risky construct
+ * @param worstCaseNanos       longest match time observed on adversarial inputs
+ * @param worstCaseSteps       most characters read by a single adversarial match
+ * @param worstCaseInputLength length of the input that took longest
+ * @param worstCasePumpLength  length of the repeated run inside that input
+ * @param fuzzBudgetExceeded   true if some adversarial input hit the matching step or time budget
+ */
+public record RedosReport(
+    RedosRisk risk,
+    List<String> findings,
+    long worstCaseNanos,
+    long worstCaseSteps,
+    int worstCaseInputLength,
+    int worstCasePumpLength,
+    boolean fuzzBudgetExceeded) {
+
+    public RedosReport {
+        findings = List.copyOf(findings);
+    }
+
+    public long worstCaseMicros() {
+        return worstCaseNanos / 1_000;
+    }
+}
@@ -0,0 +1,97 @@
+package com.regexflow.backend.Engine;
+
+import java.util.List;
+
+/**
+ * Syntax tree of a java.util.regex pattern, produced by {@link RegexParser}.
+ * Case-insensitivity is already folded into {@link CharClass} sets and {@link Literal} flags,
+ * and line/dotall flags are already resolved into the node kinds, so consumers never need
+ * to track inline flags themselves.
+ */
+public sealed interface RegexNode {
+
+    /**
+     * Matches the empty string
+     */
+    record Empty() implements RegexNode {
+    }
+
+    /**
+     * A single code point. When ignoreCase is set, ASCII letters also match their other case.
+     */
+    record Literal(int codePoint, boolean ignoreCase) implements RegexNode {
+    }
+
+    /**
+     * A character class, '.', or a predefined class such as \d
+     */
+    record CharClass(CharSet set) implements RegexNode {
+    }
+
+    record Sequence(List<RegexNode> items) implements RegexNode {
+    }
+
+    record Alternation(List<RegexNode> branches) implements RegexNode {
+    }
+
+    /**
+     * Capturing group; name is null for unnamed groups
+     */
+    record Group(RegexNode body, int number, String name) implements RegexNode {
+    }
+
+    /**
+     * Quantified node; max is {@link #UNBOUNDED} for *, + and {n,}
+     */
+    record Repeat(RegexNode body, int min, int max, Greediness greediness) implements RegexNode {
+        public static final int UNBOUNDED = -1;
+    }
+
+    record Assertion(AssertionKind kind) implements RegexNode {
+    }
+
+    record Lookaround(RegexNode body, boolean behind, boolean negative) implements RegexNode {
+    }
+
+    /**
+     * Atomic group (?>...)
+     */
+    record Atomic(RegexNode body) implements RegexNode {
+    }
+
+    /**
+     * Back reference by number (\1) or name (\k<name>); number is resolved for both
+     */
+    record BackReference(int number, String name) implements RegexNode {
+    }
+
+    /**
+     * A construct that is not modelled (e.g. \R, \X, \b{g}). It consumes input when
+     * zeroWidth is false; analysis treats it as "anything", matching engines reject it.
+     */
+    record Opaque(String construct, boolean zeroWidth) implements RegexNode {
+    }
+
+    enum Greediness {
+        GREEDY,
+        LAZY,
+        POSSESSIVE
+    }
+
+    enum AssertionKind {
+        // ^ and \A without MULTILINE
+        BEGIN_INPUT,
+        // ^ with MULTILINE
+        BEGIN_LINE,
+        // $ and \Z without MULTILINE: end of input, or before a final line terminator
+        END_INPUT_BEFORE_TERMINATOR,
+        // $ with MULTILINE
+        END_LINE,
+        // \z
+        END_INPUT,
+        WORD_BOUNDARY,
+        NOT_WORD_BOUNDARY,
+        // \G
+        PREVIOUS_MATCH_END
+    }
+}
@@ -0,0 +1,881 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Engine.RegexNode.Alternation;
+import com.regexflow.backend.Engine.RegexNode.Assertion;
+import com.regexflow.backend.Engine.RegexNode.AssertionKind;
+import com.regexflow.backend.Engine.RegexNode.Atomic;
+import com.regexflow.backend.Engine.RegexNode.BackReference;
+import com.regexflow.backend.Engine.RegexNode.CharClass;
+import com.regexflow.backend.Engine.RegexNode.Empty;
+import com.regexflow.backend.Engine.RegexNode.Greediness;
+import com.regexflow.backend.Engine.RegexNode.Group;
+import com.regexflow.backend.Engine.RegexNode.Literal;
+import com.regexflow.backend.Engine.RegexNode.Lookaround;
+import com.regexflow.backend.Engine.RegexNode.Opaque;
+import com.regexflow.backend.Engine.RegexNode.Repeat;
+import com.regexflow.backend.Engine.RegexNode.Sequence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses java.util.regex syntax into a {@link RegexNode} tree.
+ *
+ * The parser follows Pattern's own rules for group numbering, character classes
+ * (nesting, intersection, negation), quoting, inline flags and comments mode, so the group
+ * table it produces matches what the compiled Pattern uses. Patterns are expected to have
+ * been compiled by Pattern first; anything the parser cannot follow raises
+ * {@link RegexSyntaxException}.
+ */
+public final class RegexParser {
+
+    /**
+     * Constructs found while parsing that a linear-time engine cannot execute exactly
+     */
+    public enum Feature {
+        BACK_REFERENCE,
+        LOOKAROUND,
+        ATOMIC_GROUP,
+        POSSESSIVE_QUANTIFIER,
+        PREVIOUS_MATCH_END,
+        UNICODE_CASE,
+        UNICODE_CHARACTER_CLASS,
+        UNIX_LINES,
+        UNMODELLED_CONSTRUCT
+    }
+
+    /**
+     * Parse result: the tree, the total number of capturing groups, named group numbers
+     * in declaration order and the features used.
+     */
+    public record ParsedRegex(RegexNode root, int groupCount, Map<String, Integer> namedGroups, Set<Feature> features) {
+    }
+
+    public static class RegexSyntaxException extends RuntimeException {
+        public RegexSyntaxException(String message, int index) {
+            super(message + " near index " + index);
+        }
+    }
+
+    private static final int FLAG_CASE_INSENSITIVE = 1;
+    private static final int FLAG_MULTILINE = 2;
+    private static final int FLAG_DOTALL = 4;
+    private static final int FLAG_COMMENTS = 8;
+    private static final int FLAG_UNICODE_CASE = 16;
+    private static final int FLAG_UNIX_LINES = 32;
+    private static final int FLAG_UNICODE_CHARACTER_CLASS = 64;
+
+    private static final CharSet DIGIT = CharSet.range('0', '9');
+    private static final CharSet WORD = CharSet.ofRanges('a', 'z', 'A', 'Z', '0', '9', '_', '_');
+    private static final CharSet SPACE = CharSet.ofRanges(' ', ' ', '\t', '\r', 0x0B, 0x0B);
+    private static final CharSet HORIZONTAL_SPACE = CharSet.ofRanges(' ', ' ', '\t', '\t', 0xA0, 0xA0,
+        0x1680, 0x1680, 0x180E, 0x180E, 0x2000, 0x200A, 0x202F, 0x202F, 0x205F, 0x205F, 0x3000, 0x3000);
+    private static final CharSet VERTICAL_SPACE = CharSet.ofRanges('\n', '\r', 0x85, 0x85, 0x2028, 0x2029);
+    private static final CharSet LINE_TERMINATORS = CharSet.ofRanges('\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029);
+
+    private final String pattern;
+    private int pos;
+    private int flags;
+    private int groupCount;
+    private final Map<String, Integer> namedGroups = new LinkedHashMap<>();
+    private final EnumSet<Feature> features = EnumSet.noneOf(Feature.class);
+
+    private RegexParser(String pattern, int flags) {
+        this.pattern = pattern;
+        this.flags = flags;
+    }
+
+    /**
+     * Parses a pattern compiled with {@link java.util.regex.Pattern#CASE_INSENSITIVE},
+     * the flag every template is matched with.
+     */
+    public static ParsedRegex parse(String pattern) {
+        return parse(pattern, FLAG_CASE_INSENSITIVE);
+    }
+
+    static ParsedRegex parse(String pattern, int initialFlags) {
+        RegexParser parser = new RegexParser(pattern, initialFlags);
+        RegexNode root = parser.parseAlternation();
+        if (parser.pos < pattern.length()) {
+            throw new RegexSyntaxException("Unmatched closing ')'", parser.pos);
+        }
+        return new ParsedRegex(root, parser.groupCount,
+            Collections.unmodifiableMap(parser.namedGroups), Collections.unmodifiableSet(parser.features));
+    }
+
+    // ---------------------------------------------------------------- structure
+
+    private RegexNode parseAlternation() {
+        List<RegexNode> branches = new ArrayList<>();
+        // Inline flags such as (?i) last until the end of the enclosing group, across branches
+        int savedFlags = flags;
+        branches.add(parseSequence());
+        while (more() && peek() == '|') {
+            pos++;
+            branches.add(parseSequence());
+        }
+        flags = savedFlags;
+        return branches.size() == 1 ? branches.get(0) : new Alternation(List.copyOf(branches));
+    }
+
+    private RegexNode parseSequence() {
+        List<RegexNode> items = new ArrayList<>();
+        while (true) {
+            skipCommentsAndWhitespace();
+            if (!more() || peek() == '|' || peek() == ')') {
+                break;
+            }
+            // A \Q...\E run parses to a sequence whose items belong to the enclosing sequence
+            boolean quoted = pattern.startsWith("\\Q", pos);
+            RegexNode atom = parseAtom();
+            if (atom == null) {
+                // Inline flag group such as (?i), or an empty \Q\E. Pattern strips the latter before
+                // parsing, so a quantifier after it applies to the previous atom.
+                if (quoted && !items.isEmpty() && !(items.get(items.size() - 1) instanceof Repeat)) {
+                    items.add(parseQuantifier(items.remove(items.size() - 1), false));
+                }
+                continue;
+            }
+            atom = parseQuantifier(atom, quoted);
+            if (quoted && atom instanceof Sequence run) {
+                items.addAll(run.items());
+            } else {
+                items.add(atom);
+            }
+        }
+        if (items.isEmpty()) {
+            return new Empty();
+        }
+        return items.size() == 1 ? items.get(0) : new Sequence(List.copyOf(items));
+    }
+
+    /**
+     * Applies the quantifier following an atom, if any. Like Pattern, at most one quantifier is
+     * taken; a second one starts a new atom.
+     */
+    private RegexNode parseQuantifier(RegexNode atom, boolean quoted) {
+        skipCommentsAndWhitespace();
+        if (!more()) {
+            return atom;
+        }
+        int min;
+        int max;
+        char c = peek();
+        if (c == '*') {
+            min = 0;
+            max = Repeat.UNBOUNDED;
+            pos++;
+        } else if (c == '+') {
+            min = 1;
+            max = Repeat.UNBOUNDED;
+            pos++;
+        } else if (c == '?') {
+            min = 0;
+            max = 1;
+            pos++;
+        } else if (c == '{') {
+            int start = pos;
+            pos++;
+            min = readInt();
+            if (min < 0) {
+                throw new RegexSyntaxException("Illegal repetition", start);
+            }
+            if (more() && peek() == ',') {
+                pos++;
+                max = more() && peek() == '}' ? Repeat.UNBOUNDED : readInt();
+                if (max == -2) {
+                    throw new RegexSyntaxException("Illegal repetition", start);
+                }
+            } else {
+                max = min;
+            }
+            expect('}');
+        } else {
+            return atom;
+        }
+
+        Greediness greediness = Greediness.GREEDY;
+        skipCommentsAndWhitespace();
+        if (more() && peek() == '?') {
+            pos++;
+            greediness = Greediness.LAZY;
+        } else if (more() && peek() == '+') {
+            pos++;
+            greediness = Greediness.POSSESSIVE;
+            features.add(Feature.POSSESSIVE_QUANTIFIER);
+        }
+        if (quoted && atom instanceof Sequence run) {
+            // A quantifier after \Q...\E applies to the last quoted character only
+            List<RegexNode> items = new ArrayList<>(run.items());
+            RegexNode last = items.remove(items.size() - 1);
+            items.add(new Repeat(last, min, max, greediness));
+            return new Sequence(List.copyOf(items));
+        }
+        return new Repeat(atom, min, max, greediness);
+    }
+
+    /**
+     * Returns null for a standalone inline flag group, which only changes parser state
+     */
+    private RegexNode parseAtom() {
+        char c = next();
+        switch (c) {
+            case '(':
+                return parseGroup();
+            case '[':
+                return new CharClass(parseClass());
+            case '.':
+                return new CharClass(dotSet());
+            case '^':
+                return new Assertion(has(FLAG_MULTILINE) ? AssertionKind.BEGIN_LINE : AssertionKind.BEGIN_INPUT);
+            case '$':
+                if (has(FLAG_UNIX_LINES)) {
+                    features.add(Feature.UNIX_LINES);
+                }
+                return new Assertion(has(FLAG_MULTILINE) ? AssertionKind.END_LINE : AssertionKind.END_INPUT_BEFORE_TERMINATOR);
+            case '\\':
+                return parseEscape();
+            case '*':
+            case '+':
+            case '?':
+                throw new RegexSyntaxException("Dangling meta character '" + c + "'", pos - 1);
+            case '{':
+                // Pattern reads a {n} that follows nothing (or another quantifier) as repeating the empty string
+                pos--;
+                return new Empty();
+            default:
+                pos--;
+                return literal(nextCodePoint());
+        }
+    }
+
+    private RegexNode parseGroup() {
+        if (!more() || peek() != '?') {
+            int number = ++groupCount;
+            RegexNode body = parseAlternation();
+            expect(')');
+            return new Group(body, number, null);
+        }
+        pos++;
+        char kind = next();
+        switch (kind) {
+            case ':': {
+                RegexNode body = parseAlternation();
+                expect(')');
+                return body;
+            }
+            case '=':
+            case '!': {
+                features.add(Feature.LOOKAROUND);
+                RegexNode body = parseAlternation();
+                expect(')');
+                return new Lookaround(body, false, kind == '!');
+            }
+            case '>': {
+                features.add(Feature.ATOMIC_GROUP);
+                RegexNode body = parseAlternation();
+                expect(')');
+                return new Atomic(body);
+            }
+            case '<': {
+                if (more() && (peek() == '=' || peek() == '!')) {
+                    boolean negative = next() == '!';
+                    features.add(Feature.LOOKAROUND);
+                    RegexNode body = parseAlternation();
+                    expect(')');
+                    return new Lookaround(body, true, negative);
+                }
+                String name = readGroupName('>');
+                int number = ++groupCount;
+                namedGroups.put(name, number);
+                RegexNode body = parseAlternation();
+                expect(')');
+                return new Group(body, number, name);
+            }
+            default: {
+                pos--;
+                return parseFlagGroup();
+            }
+        }
+    }
+
+    private RegexNode parseFlagGroup() {
+        int start = pos - 2;
+        boolean enable = true;
+        int newFlags = flags;
+        while (more()) {
+            char c = next();
+            if (c == '-') {
+                enable = false;
+                continue;
+            }
+            if (c == ')') {
+                flags = newFlags;
+                return null;
+            }
+            if (c == ':') {
+                int saved = flags;
+                flags = newFlags;
+                RegexNode body = parseAlternation();
+                expect(')');
+                flags = saved;
+                return body;
+            }
+            int flag = switch (c) {
+                case 'i' -> FLAG_CASE_INSENSITIVE;
+                case 'm' -> FLAG_MULTILINE;
+                case 's' -> FLAG_DOTALL;
+                case 'x' -> FLAG_COMMENTS;
+                case 'u' -> FLAG_UNICODE_CASE;
+                case 'd' -> FLAG_UNIX_LINES;
+                case 'U' -> FLAG_UNICODE_CHARACTER_CLASS;
+                case 'c' -> 0; // CANON_EQ is not supported inline by Pattern either
+                default -> throw new RegexSyntaxException("Unknown inline modifier", pos - 1);
+            };
+            newFlags = enable ? newFlags | flag : newFlags & ~flag;
+        }
+        throw new RegexSyntaxException("Unclosed group", start);
+    }
+
+    // ---------------------------------------------------------------- escapes
+
+    private RegexNode parseEscape() {
+        int start = pos - 1;
+        char c = next();
+        switch (c) {
+            case 'Q':
+                return parseQuoted();
+            case 'd':
+            case 'D':
+            case 'w':
+            case 'W':
+            case 's':
+            case 'S':
+            case 'h':
+            case 'H':
+            case 'v':
+            case 'V':
+            case 'p':
+            case 'P':
+                pos = start;
+                return new CharClass(parseClassEscape());
+            case 'b':
+                if (more() && peek() == '{') {
+                    skipPast('}');
+                    features.add(Feature.UNMODELLED_CONSTRUCT);
+                    return new Opaque("\\b{g}", true);
+                }
+                unicodeWordBoundaryCheck();
+                return new Assertion(AssertionKind.WORD_BOUNDARY);
+            case 'B':
+                unicodeWordBoundaryCheck();
+                return new Assertion(AssertionKind.NOT_WORD_BOUNDARY);
+            case 'A':
+                return new Assertion(AssertionKind.BEGIN_INPUT);
+            case 'z':
+                return new Assertion(AssertionKind.END_INPUT);
+            case 'Z':
+                if (has(FLAG_UNIX_LINES)) {
+                    features.add(Feature.UNIX_LINES);
+                }
+                return new Assertion(AssertionKind.END_INPUT_BEFORE_TERMINATOR);
+            case 'G':
+                features.add(Feature.PREVIOUS_MATCH_END);
+                return new Assertion(AssertionKind.PREVIOUS_MATCH_END);
+            case 'R':
+                features.add(Feature.UNMODELLED_CONSTRUCT);
+                return new Opaque("\\R", false);
+            case 'X':
+                features.add(Feature.UNMODELLED_CONSTRUCT);
+                return new Opaque("\\X", false);
+            case 'k': {
+                expect('<');
+                String name = readGroupName('>');
+                Integer number = namedGroups.get(name);
+                if (number == null) {
+                    throw new RegexSyntaxException("Named capturing group <" + name + "> does not exist", start);
+                }
+                features.add(Feature.BACK_REFERENCE);
+                return new BackReference(number, name);
+            }
+            default:
+                if (c >= '1' && c <= '9') {
+                    int number = c - '0';
+                    while (more() && Character.isDigit(peek())) {
+                        int candidate = number * 10 + (peek() - '0');
+                        if (candidate > groupCount) {
+                            break;
+                        }
+                        number = candidate;
+                        pos++;
+                    }
+                    features.add(Feature.BACK_REFERENCE);
+                    return new BackReference(number, null);
+                }
+                pos--;
+                return literal(parseCharEscape(start));
+        }
+    }
+
+    private void unicodeWordBoundaryCheck() {
+        if (has(FLAG_UNICODE_CHARACTER_CLASS)) {
+            features.add(Feature.UNICODE_CHARACTER_CLASS);
+        }
+    }
+
+    private RegexNode parseQuoted() {
+        int end = pattern.indexOf("\\E", pos);
+        String quoted = end < 0 ? pattern.substring(pos) : pattern.substring(pos, end);
+        pos = end < 0 ? pattern.length() : end + 2;
+        List<RegexNode> items = new ArrayList<>();
+        quoted.codePoints().forEach(cp -> items.add(literal(cp)));
+        if (items.isEmpty()) {
+            return null;
+        }
+        return items.size() == 1 ? items.get(0) : new Sequence(List.copyOf(items));
+    }
+
+    /**
+     * Escapes that denote a single code point: \t, \x41, A, \0101, \cA, \N{...}, \. etc.
+     * The current position is on the character after the backslash.
+     */
+    private int parseCharEscape(int start) {
+        char c = next();
+        switch (c) {
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            case 'a':
+                return 0x07;
+            case 'e':
+                return 0x1B;
+            case '0': {
+                int value = 0;
+                int digits = 0;
+                int maxDigits = more() && peek() <= '3' ? 3 : 2;
+                while (digits < maxDigits && more() && peek() >= '0' && peek() <= '7') {
+                    value = value * 8 + (next() - '0');
+                    digits++;
+                }
+                if (digits == 0) {
+                    throw new RegexSyntaxException("Illegal octal escape sequence", start);
+                }
+                return value;
+            }
+            case 'x': {
+                if (more() && peek() == '{') {
+                    pos++;
+                    int end = pattern.indexOf('}', pos);
+                    if (end < 0) {
+                        throw new RegexSyntaxException("Unclosed hexadecimal escape sequence", start);
+                    }
+                    int value = Integer.parseInt(pattern.substring(pos, end), 16);
+                    pos = end + 1;
+                    return value;
+                }
+                return readHex(2, start);
+            }
+            case 'u': {
+                int value = readHex(4, start);
+                // A surrogate pair written as two \\u escapes is one code point
+                if (Character.isHighSurrogate((char) value) && pattern.startsWith("\\u", pos)) {
+                    int saved = pos;
+                    pos += 2;
+                    int low = readHex(4, start);
+                    if (Character.isLowSurrogate((char) low)) {
+                        return Character.toCodePoint((char) value, (char) low);
+                    }
+                    pos = saved;
+                }
+                return value;
+            }
+            case 'c':
+                return next() ^ 64;
+            case 'N': {
+                expect('{');
+                int end = pattern.indexOf('}', pos);
+                if (end < 0) {
+                    throw new RegexSyntaxException("Unclosed character name escape sequence", start);
+                }
+                String name = pattern.substring(pos, end);
+                pos = end + 1;
+                try {
+                    return Character.codePointOf(name);
+                } catch (IllegalArgumentException e) {
+                    throw new RegexSyntaxException("Unknown character name [" + name + "]", start);
+                }
+            }
+            default:
+                if (Character.isLetterOrDigit(c)) {
+                    throw new RegexSyntaxException("Illegal/unsupported escape sequence", start);
+                }
+                pos--;
+                return nextCodePoint();
+        }
+    }
+
+    // ---------------------------------------------------------------- character classes
+
+    /**
+     * Parses a class after its opening '['. Follows Pattern: a leading '^' negates the whole
+     * class, nested classes are unions, and '&&' intersects everything before it with the
+     * rest of the class.
+     */
+    private CharSet parseClass() {
+        int start = pos - 1;
+        boolean negate = false;
+        if (more() && peek() == '^') {
+            pos++;
+            negate = true;
+        }
+        CharSet result = null;
+        CharSet current = CharSet.EMPTY;
+        boolean first = true;
+        while (true) {
+            skipClassWhitespace();
+            if (!more()) {
+                throw new RegexSyntaxException("Unclosed character class", start);
+            }
+            char c = peek();
+            if (c == ']' && !first) {
+                pos++;
+                break;
+            }
+            first = false;
+            if (c == '[') {
+                pos++;
+                current = current.union(parseClass());
+                continue;
+            }
+            if (c == '&' && pattern.startsWith("&&", pos)) {
+                pos += 2;
+                result = result == null ? current : result.intersect(current);
+                // The right operand of && runs until the next && or the end of this class
+                current = parseIntersectionOperand(start);
+                if (current == null) {
+                    // Empty right-hand side, e.g. [a&&], is ignored by Pattern
+                    current = result;
+                    result = null;
+                }
+                continue;
+            }
+            if (c == '\\' && pos + 1 < pattern.length() && "dDwWsShHvVpP".indexOf(pattern.charAt(pos + 1)) >= 0) {
+                current = current.union(parseClassEscape());
+                continue;
+            }
+            if (c == '\\' && pattern.startsWith("\\Q", pos)) {
+                pos += 2;
+                int end = pattern.indexOf("\\E", pos);
+                String quoted = end < 0 ? pattern.substring(pos) : pattern.substring(pos, end);
+                pos = end < 0 ? pattern.length() : end + 2;
+                for (int cp : quoted.codePoints().toArray()) {
+                    current = current.union(foldIfIgnoringCase(CharSet.of(cp)));
+                }
+                continue;
+            }
+            int low = classChar();
+            skipClassWhitespace();
+            if (more() && peek() == '-' && pos + 1 < pattern.length()
+                && pattern.charAt(pos + 1) != ']' && pattern.charAt(pos + 1) != '[') {
+                pos++;
+                skipClassWhitespace();
+                int high = classChar();
+                if (high < low) {
+                    throw new RegexSyntaxException("Illegal character range", pos);
+                }
+                current = current.union(foldIfIgnoringCase(CharSet.range(low, high)));
+            } else {
+                current = current.union(foldIfIgnoringCase(CharSet.of(low)));
+            }
+        }
+        CharSet set = result == null ? current : result.intersect(current);
+        return negate ? set.complement() : set;
+    }
+
+    /**
+     * Parses the right operand of '&&' up to (not including) the next '&&' or the closing ']'.
+     * Returns null if the operand is empty.
+     */
+    private CharSet parseIntersectionOperand(int start) {
+        CharSet operand = null;
+        while (true) {
+            skipClassWhitespace();
+            if (!more()) {
+                throw new RegexSyntaxException("Unclosed character class", start);
+            }
+            char c = peek();
+            if (c == ']' || pattern.startsWith("&&", pos)) {
+                return operand;
+            }
+            CharSet part;
+            if (c == '[') {
+                pos++;
+                part = parseClass();
+            } else if (c == '\\' && pos + 1 < pattern.length() && "dDwWsShHvVpP".indexOf(pattern.charAt(pos + 1)) >= 0) {
+                part = parseClassEscape();
+            } else {
+                int low = classChar();
+                if (more() && peek() == '-' && pos + 1 < pattern.length()
+                    && pattern.charAt(pos + 1) != ']' && pattern.charAt(pos + 1) != '[') {
+                    pos++;
+                    int high = classChar();
+                    part = foldIfIgnoringCase(CharSet.range(low, high));
+                } else {
+                    part = foldIfIgnoringCase(CharSet.of(low));
+                }
+            }
+            operand = operand == null ? part : operand.union(part);
+        }
+    }
+
+    private int classChar() {
+        if (peek() == '\\') {
+            int start = pos;
+            pos++;
+            return parseCharEscape(start);
+        }
+        return nextCodePoint();
+    }
+
+    /**
+     * Predefined classes and properties: \d \D \w \W \s \S \h \H \v \V \p{..} \P{..}.
+     * The current position is on the backslash.
+     */
+    private CharSet parseClassEscape() {
+        pos++;
+        char c = next();
+        boolean unicodeClasses = has(FLAG_UNICODE_CHARACTER_CLASS);
+        if (unicodeClasses && "dDwWsS".indexOf(c) >= 0) {
+            features.add(Feature.UNICODE_CHARACTER_CLASS);
+            return CharSet.UNKNOWN;
+        }
+        switch (c) {
+            case 'd':
+                return DIGIT;
+            case 'D':
+                return DIGIT.complement();
+            case 'w':
+                return WORD;
+            case 'W':
+                return WORD.complement();
+            case 's':
+                return SPACE.union(CharSet.ofRanges('\n', '\n', '\f', '\f'));
+            case 'S':
+                return SPACE.union(CharSet.ofRanges('\n', '\n', '\f', '\f')).complement();
+            case 'h':
+                return HORIZONTAL_SPACE;
+            case 'H':
+                return HORIZONTAL_SPACE.complement();
+            case 'v':
+                return VERTICAL_SPACE.union(CharSet.ofRanges(0x0B, 0x0C));
+            case 'V':
+                return VERTICAL_SPACE.union(CharSet.ofRanges(0x0B, 0x0C)).complement();
+            default: {
+                boolean negate = c == 'P';
+                String name;
+                if (more() && peek() == '{') {
+                    pos++;
+                    int end = pattern.indexOf('}', pos);
+                    if (end < 0) {
+                        throw new RegexSyntaxException("Unclosed character family", pos);
+                    }
+                    name = pattern.substring(pos, end);
+                    pos = end + 1;
+                } else {
+                    name = String.valueOf(next());
+                }
+                CharSet set = propertySet(name);
+                if (!set.isExact()) {
+                    features.add(Feature.UNMODELLED_CONSTRUCT);
+                }
+                return negate ? set.complement() : set;
+            }
+        }
+    }
+
+    /**
+     * POSIX character classes (US-ASCII only, as in Pattern without UNICODE_CHARACTER_CLASS).
+     * Other Unicode properties are not modelled and over-approximate to every code point.
+     */
+    private CharSet propertySet(String name) {
+        if (has(FLAG_UNICODE_CHARACTER_CLASS)) {
+            features.add(Feature.UNICODE_CHARACTER_CLASS);
+            return CharSet.UNKNOWN;
+        }
+        boolean ignoreCase = has(FLAG_CASE_INSENSITIVE);
+        return switch (name) {
+            case "Lower" -> ignoreCase ? CharSet.ofRanges('a', 'z', 'A', 'Z') : CharSet.range('a', 'z');
+            case "Upper" -> ignoreCase ? CharSet.ofRanges('a', 'z', 'A', 'Z') : CharSet.range('A', 'Z');
+            case "ASCII" -> CharSet.range(0, 0x7F);
+            case "Alpha" -> CharSet.ofRanges('a', 'z', 'A', 'Z');
+            case "Digit" -> DIGIT;
+            case "Alnum" -> CharSet.ofRanges('a', 'z', 'A', 'Z', '0', '9');
+            case "Punct" -> CharSet.ofRanges('!', '/', ':', '@', '[', '`', '{', '~');
+            case "Graph" -> CharSet.range(0x21, 0x7E);
+            case "Print" -> CharSet.range(0x20, 0x7E);
+            case "Blank" -> CharSet.ofRanges(' ', ' ', '\t', '\t');
+            case "Cntrl" -> CharSet.ofRanges(0, 0x1F, 0x7F, 0x7F);
+            case "XDigit" -> CharSet.ofRanges('0', '9', 'a', 'f', 'A', 'F');
+            case "Space" -> CharSet.ofRanges(' ', ' ', '\t', '\r');
+            default -> CharSet.UNKNOWN;
+        };
+    }
+
+    private CharSet dotSet() {
+        if (has(FLAG_DOTALL)) {
+            return CharSet.ALL;
+        }
+        if (has(FLAG_UNIX_LINES)) {
+            features.add(Feature.UNIX_LINES);
+            return CharSet.of('\n').complement();
+        }
+        return LINE_TERMINATORS.complement();
+    }
+
+    private CharSet foldIfIgnoringCase(CharSet set) {
+        if (!has(FLAG_CASE_INSENSITIVE)) {
+            return set;
+        }
+        if (has(FLAG_UNICODE_CASE)) {
+            features.add(Feature.UNICODE_CASE);
+            return set.foldAsciiCase().inexact();
+        }
+        return set.foldAsciiCase();
+    }
+
+    private RegexNode literal(int codePoint) {
+        boolean ignoreCase = has(FLAG_CASE_INSENSITIVE);
+        // With UNICODE_CASE, ASCII letters also match non-ASCII ones, e.g. k the Kelvin sign (U+212A)
+        if (ignoreCase && has(FLAG_UNICODE_CASE) && (codePoint > 0x7F || Character.isLetter(codePoint))) {
+            features.add(Feature.UNICODE_CASE);
+        }
+        return new Literal(codePoint, ignoreCase);
+    }
+
+    // ---------------------------------------------------------------- lexing helpers
+
+    private boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    private boolean more() {
+        return pos < pattern.length();
+    }
+
+    private char peek() {
+        return pattern.charAt(pos);
+    }
+
+    private char next() {
+        if (!more()) {
+            throw new RegexSyntaxException("Unexpected end of pattern", pos);
+        }
+        return pattern.charAt(pos++);
+    }
+
+    private int nextCodePoint() {
+        int cp = pattern.codePointAt(pos);
+        pos += Character.charCount(cp);
+        return cp;
+    }
+
+    private void expect(char c) {
+        if (!more() || peek() != c) {
+            throw new RegexSyntaxException("Expected '" + c + "'", pos);
+        }
+        pos++;
+    }
+
+    private void skipPast(char c) {
+        int end = pattern.indexOf(c, pos);
+        pos = end < 0 ? pattern.length() : end + 1;
+    }
+
+    /**
+     * Reads a decimal number; returns -1 if there is none, -2 if it overflows
+     */
+    private int readInt() {
+        int start = pos;
+        long value = 0;
+        while (more() && Character.isDigit(peek())) {
+            value = value * 10 + (next() - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -2;
+            }
+        }
+        return pos == start ? -1 : (int) value;
+    }
+
+    private int readHex(int digits, int start) {
+        if (pos + digits > pattern.length()) {
+            throw new RegexSyntaxException("Illegal hexadecimal escape sequence", start);
+        }
+        try {
+            int value = Integer.parseInt(pattern.substring(pos, pos + digits), 16);
+            pos += digits;
+            return value;
+        } catch (NumberFormatException e) {
+            throw new RegexSyntaxException("Illegal hexadecimal escape sequence", start);
+        }
+    }
+
+    private String readGroupName(char terminator) {
+        int start = pos;
+        StringBuilder name = new StringBuilder();
+        while (true) {
+            // Pattern skips comments-mode whitespace even inside group names
+            skipCommentsAndWhitespace();
+            if (!more() || !isAsciiLetterOrDigit(peek())) {
+                break;
+            }
+            name.append(next());
+        }
+        if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+            throw new RegexSyntaxException("Capturing group name does not start with a Latin letter", start);
+        }
+        expect(terminator);
+        return name.toString();
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * In COMMENTS mode whitespace and #-comments outside classes are ignored
+     */
+    private void skipCommentsAndWhitespace() {
+        if (!has(FLAG_COMMENTS)) {
+            return;
+        }
+        while (more()) {
+            char c = peek();
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '#') {
+                while (more() && peek() != '\n' && peek() != '\r') {
+                    pos++;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * In COMMENTS mode Pattern also ignores whitespace (and comments) inside classes
+     */
+    private void skipClassWhitespace() {
+        skipCommentsAndWhitespace();
+    }
+}
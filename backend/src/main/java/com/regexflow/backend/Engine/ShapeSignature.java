@@ -0,0 +1,45 @@
+package com.regexflow.backend.Engine;
+
+/**
+ * The structure of an SMS with its variable parts blanked out.
+ *
+ * In one pass, every run of digits becomes "D", every run of letters becomes "W" and every run
+ * of whitespace becomes one space; punctuation is kept. Two SMS from the same bank template
+ * differ in amounts, dates and merchant names, so they usually share a signature:
+ * "Rs.1250.00 debited from A/c XX1234" and "Rs.99.00 debited from A/c XX9876" are both
+ * "W.D.D W W W/W WD".
+ */
+public final class ShapeSignature {
+
+    // Longer SMS are cut here; the first part carries the template's structure
+    static final int MAX_LENGTH = 256;
+
+    private ShapeSignature() {
+    }
+
+    public static String of(CharSequence text) {
+        StringBuilder signature = new StringBuilder(Math.min(text.length(), MAX_LENGTH));
+        char previous = 0;
+        for (int i = 0; i < text.length() && signature.length() < MAX_LENGTH; i++) {
+            char c = text.charAt(i);
+            char token;
+            if (Character.isDigit(c)) {
+                token = 'D';
+            } else if (Character.isLetter(c)) {
+                token = 'W';
+            } else if (Character.isWhitespace(c)) {
+                token = ' ';
+            } else {
+                // Punctuation is kept as is, and repeats are kept too ("..." is not ".")
+                signature.append(c);
+                previous = 0;
+                continue;
+            }
+            if (token != previous) {
+                signature.append(token);
+                previous = token;
+            }
+        }
+        return signature.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Enums.PatternComplexity;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facts about a template pattern that do not change until the pattern does.
+ * Computed by {@link TemplateAnalyzer} when a template is approved and stored on the template.
+ *
+ * @param groupCount       total number of capturing groups, named or not
+ * @param namedGroups      named group -> 1-based group number
+ * @param requiredLiterals lower-cased strings every match must contain, longest first
+ * @param anchored         true if every match must start at the beginning of the message
+ * @param complexity       cost class of the pattern
+ */
+public record TemplateAnalysis(
+    int groupCount,
+    Map<String, Integer> namedGroups,
+    List<String> requiredLiterals,
+    boolean anchored,
+    PatternComplexity complexity) {
+
+    public TemplateAnalysis {
+        namedGroups = Collections.unmodifiableMap(new LinkedHashMap<>(namedGroups));
+        requiredLiterals = List.copyOf(requiredLiterals);
+    }
+}
@@ -0,0 +1,278 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Engine.RegexNode.Alternation;
+import com.regexflow.backend.Engine.RegexNode.Assertion;
+import com.regexflow.backend.Engine.RegexNode.AssertionKind;
+import com.regexflow.backend.Engine.RegexNode.Atomic;
+import com.regexflow.backend.Engine.RegexNode.CharClass;
+import com.regexflow.backend.Engine.RegexNode.Empty;
+import com.regexflow.backend.Engine.RegexNode.Group;
+import com.regexflow.backend.Engine.RegexNode.Literal;
+import com.regexflow.backend.Engine.RegexNode.Lookaround;
+import com.regexflow.backend.Engine.RegexNode.Opaque;
+import com.regexflow.backend.Engine.RegexNode.Repeat;
+import com.regexflow.backend.Engine.RegexNode.Sequence;
+import com.regexflow.backend.Engine.RegexParser.Feature;
+import com.regexflow.backend.Engine.RegexParser.ParsedRegex;
+import com.regexflow.backend.Enums.PatternComplexity;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Computes the {@link TemplateAnalysis} of a template pattern from its parsed syntax tree.
+ */
+public final class TemplateAnalyzer {
+
+    private static final Set<Feature> NON_REGULAR_FEATURES = EnumSet.of(
+        Feature.BACK_REFERENCE, Feature.LOOKAROUND, Feature.ATOMIC_GROUP,
+        Feature.POSSESSIVE_QUANTIFIER, Feature.PREVIOUS_MATCH_END);
+
+    // Fixed repetitions such as \d{4} are expanded into literals only up to this length
+    private static final int MAX_EXPANDED_LITERAL = 64;
+
+    private TemplateAnalyzer() {
+    }
+
+    /**
+     * Analyzes a pattern matched with CASE_INSENSITIVE, as every template is.
+     * Throws {@link RegexParser.RegexSyntaxException} if the pattern cannot be parsed.
+     */
+    public static TemplateAnalysis analyze(String regex) {
+        return analyze(RegexParser.parse(regex));
+    }
+
+    static TemplateAnalysis analyze(ParsedRegex parsed) {
+        LiteralInfo literals = literalInfo(parsed.root());
+
+        Set<String> required = new LinkedHashSet<>(literals.required());
+        if (literals.exact() != null) {
+            required.add(literals.exact());
+        } else {
+            required.add(literals.prefix());
+            required.add(literals.suffix());
+        }
+        required.remove("");
+        if (parsed.features().contains(Feature.UNICODE_CASE)) {
+            // Literals are folded to ASCII lower case, which misses Unicode case matches such as
+            // the Kelvin sign for k or dotted capital I for i: the prefilter must not drop the template
+            required.clear();
+        }
+        List<String> requiredLiterals = new ArrayList<>(required);
+        requiredLiterals.sort(Comparator.comparingInt(String::length).reversed());
+
+        return new TemplateAnalysis(
+            parsed.groupCount(),
+            parsed.namedGroups(),
+            requiredLiterals,
+            isAnchored(parsed.root()),
+            complexity(parsed, literals));
+    }
+
+    private static PatternComplexity complexity(ParsedRegex parsed, LiteralInfo literals) {
+        if (parsed.features().stream().anyMatch(NON_REGULAR_FEATURES::contains)) {
+            return PatternComplexity.NON_REGULAR;
+        }
+        if (hasNestedUnboundedRepeat(parsed.root(), false)) {
+            return PatternComplexity.NESTED_QUANTIFIER;
+        }
+        if (literals.exact() != null) {
+            return PatternComplexity.LITERAL;
+        }
+        return PatternComplexity.REGULAR;
+    }
+
+    private static boolean hasNestedUnboundedRepeat(RegexNode node, boolean insideUnbounded) {
+        if (node instanceof Repeat repeat) {
+            boolean unbounded = repeat.max() == Repeat.UNBOUNDED;
+            if (unbounded && insideUnbounded) {
+                return true;
+            }
+            return hasNestedUnboundedRepeat(repeat.body(), insideUnbounded || unbounded);
+        }
+        for (RegexNode child : children(node)) {
+            if (hasNestedUnboundedRepeat(child, insideUnbounded)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if every match has to start at the beginning of the input (^ or \A)
+     */
+    static boolean isAnchored(RegexNode node) {
+        if (node instanceof Assertion assertion) {
+            return assertion.kind() == AssertionKind.BEGIN_INPUT;
+        }
+        if (node instanceof Group group) {
+            return isAnchored(group.body());
+        }
+        if (node instanceof Atomic atomic) {
+            return isAnchored(atomic.body());
+        }
+        if (node instanceof Alternation alternation) {
+            return alternation.branches().stream().allMatch(TemplateAnalyzer::isAnchored);
+        }
+        if (node instanceof Sequence sequence) {
+            for (RegexNode item : sequence.items()) {
+                if (isAnchored(item)) {
+                    return true;
+                }
+                if (!isZeroWidth(item)) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Direct sub-nodes of a node
+     */
+    static List<RegexNode> children(RegexNode node) {
+        if (node instanceof Sequence sequence) {
+            return sequence.items();
+        }
+        if (node instanceof Alternation alternation) {
+            return alternation.branches();
+        }
+        if (node instanceof Group group) {
+            return List.of(group.body());
+        }
+        if (node instanceof Repeat repeat) {
+            return List.of(repeat.body());
+        }
+        if (node instanceof Atomic atomic) {
+            return List.of(atomic.body());
+        }
+        if (node instanceof Lookaround lookaround) {
+            return List.of(lookaround.body());
+        }
+        return List.of();
+    }
+
+    private static boolean isZeroWidth(RegexNode node) {
+        return node instanceof Assertion || node instanceof Lookaround || node instanceof Empty
+            || (node instanceof Opaque opaque && opaque.zeroWidth());
+    }
+
+    /**
+     * Literal facts about a node.
+     *
+     * @param exact    the lower-cased string the node always matches, or null if it is not a fixed string
+     * @param prefix   lower-cased string every match of the node starts with
+     * @param suffix   lower-cased string every match of the node ends with
+     * @param required other lower-cased strings every match of the node contains
+     */
+    private record LiteralInfo(String exact, String prefix, String suffix, List<String> required) {
+        static final LiteralInfo NOTHING = new LiteralInfo(null, "", "", List.of());
+
+        static LiteralInfo exactly(String text) {
+            return new LiteralInfo(text, text, text, List.of());
+        }
+    }
+
+    private static LiteralInfo literalInfo(RegexNode node) {
+        if (node instanceof Empty || node instanceof Assertion || node instanceof Lookaround) {
+            return LiteralInfo.exactly("");
+        }
+        if (node instanceof Literal literal) {
+            return LiteralInfo.exactly(foldedString(literal.codePoint()));
+        }
+        if (node instanceof CharClass charClass) {
+            int codePoint = singleCaseFoldedCodePoint(charClass.set());
+            return codePoint < 0 ? LiteralInfo.NOTHING : LiteralInfo.exactly(foldedString(codePoint));
+        }
+        if (node instanceof Group group) {
+            return literalInfo(group.body());
+        }
+        if (node instanceof Atomic atomic) {
+            return literalInfo(atomic.body());
+        }
+        if (node instanceof Repeat repeat) {
+            return repeatInfo(repeat);
+        }
+        if (node instanceof Sequence sequence) {
+            return sequenceInfo(sequence.items());
+        }
+        if (node instanceof Opaque opaque && opaque.zeroWidth()) {
+            return LiteralInfo.exactly("");
+        }
+        // Alternations, back references and unmodelled constructs guarantee no literal
+        return LiteralInfo.NOTHING;
+    }
+
+    private static LiteralInfo repeatInfo(Repeat repeat) {
+        if (repeat.min() == 0) {
+            return LiteralInfo.NOTHING;
+        }
+        LiteralInfo body = literalInfo(repeat.body());
+        if (body.exact() != null) {
+            if (repeat.min() == repeat.max() && (long) body.exact().length() * repeat.min() <= MAX_EXPANDED_LITERAL) {
+                return LiteralInfo.exactly(body.exact().repeat(repeat.min()));
+            }
+            // At least one copy is always there, at both ends
+            return new LiteralInfo(null, body.exact(), body.exact(), List.of());
+        }
+        return new LiteralInfo(null, body.prefix(), body.suffix(), body.required());
+    }
+
+    private static LiteralInfo sequenceInfo(List<RegexNode> items) {
+        List<String> required = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        String prefix = null;
+        for (RegexNode item : items) {
+            LiteralInfo info = literalInfo(item);
+            if (info.exact() != null) {
+                run.append(info.exact());
+                continue;
+            }
+            run.append(info.prefix());
+            if (prefix == null) {
+                prefix = run.toString();
+            } else {
+                required.add(run.toString());
+            }
+            required.addAll(info.required());
+            run.setLength(0);
+            run.append(info.suffix());
+        }
+        if (prefix == null) {
+            return LiteralInfo.exactly(run.toString());
+        }
+        return new LiteralInfo(null, prefix, run.toString(), required);
+    }
+
+    /**
+     * The code point a class stands for if it is a single character or an ASCII case pair such as [aA]
+     */
+    private static int singleCaseFoldedCodePoint(CharSet set) {
+        if (!set.isExact()) {
+            return -1;
+        }
+        int single = set.singleCodePoint();
+        if (single >= 0) {
+            return single;
+        }
+        if (set.size() == 2 && set.rangeCount() == 2) {
+            int upper = set.rangeLow(0);
+            int lower = set.rangeLow(1);
+            if (upper >= 'A' && upper <= 'Z' && lower == upper + ('a' - 'A')) {
+                return lower;
+            }
+        }
+        return -1;
+    }
+
+    private static String foldedString(int codePoint) {
+        if (codePoint >= 'A' && codePoint <= 'Z') {
+            codePoint += 'a' - 'A';
+        }
+        return new String(Character.toChars(codePoint));
+    }
+}
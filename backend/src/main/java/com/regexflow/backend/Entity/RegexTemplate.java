@@ -1,6 +1,8 @@
 package com.regexflow.backend.Entity;
 
+import com.regexflow.backend.Enums.PatternComplexity;
 import com.regexflow.backend.Enums.PaymentType;
+import com.regexflow.backend.Enums.RedosRisk;
 import com.regexflow.backend.Enums.RegexTemplateStatus;
 import com.regexflow.backend.Enums.SmsType;
 import com.regexflow.backend.Enums.TransactionType;
@@ -66,4 +68,41 @@ public class RegexTemplate {
     @Column(nullable = false)
     private PaymentType paymentType;
 
+    // Pattern analysis, computed when the template is approved and cleared whenever the pattern is edited.
+    // Null on templates approved before the analysis existed; they are analyzed on first use instead.
+
+    // Named group -> group number, as JSON
+    @Column(name = "group_table", columnDefinition = "TEXT")
+    private String groupTable;
+
+    @Column(name = "group_count")
+    private Integer groupCount;
+
+    // Lower-cased literals every match must contain, as a JSON array
+    @Column(name = "required_literals", columnDefinition = "TEXT")
+    private String requiredLiterals;
+
+    @Column(name = "anchored")
+    private Boolean anchored;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "complexity_class")
+    private PatternComplexity complexityClass;
+
+    @Column(name = "analyzed_at")
+    private LocalDateTime analyzedAt;
+
+    // Backtracking check, run when the template is pushed for review and again at approval
+    @Enumerated(EnumType.STRING)
+    @Column(name = "redos_risk")
+    private RedosRisk redosRisk;
+
+    // One finding per line
+    @Column(name = "redos_findings", columnDefinition = "TEXT")
+    private String redosFindings;
+
+    // Longest match time observed on adversarial inputs
+    @Column(name = "worst_case_match_micros")
+    private Long worstCaseMatchMicros;
+
 }
@@ -7,12 +7,19 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sms")
+@Table(name = "sms", uniqueConstraints = {
+    // A resent SMS, or a retried request, is stored once per user (see SmsDeduplicator)
+    @UniqueConstraint(name = "uk_sms_user_content_hash", columnNames = {"user_id", "content_hash"}),
+    @UniqueConstraint(name = "uk_sms_user_idempotency_key", columnNames = {"user_id", "idempotency_key"})
+})
 @Getter
 @Setter
 public class Sms {
+    // Ids come from a sequence (a table on MySQL), allocated 50 at a time, so that inserts can be
+    // batched; IDENTITY would force one insert statement per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sms_seq")
+    @SequenceGenerator(name = "sms_seq", sequenceName = "sms_seq", allocationSize = 50)
     @Column(name = "sms_id", nullable = false)
     private Long smsId;
 
@@ -38,6 +45,14 @@ public class Sms {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Hash of the sender header and normalised text; null on SMS stored before deduplication
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Idempotency-Key header of the request that submitted it, if any
+    @Column(name = "idempotency_key", length = 128)
+    private String idempotencyKey;
+
     @PrePersist
     public void prePersist() {
         if (this.createdAt == null) {
@@ -7,13 +7,22 @@ import lombok.Setter;
 
 import java.time.LocalDateTime;
 
+/**
+ * A request to makers for a template, shared by every unmatched SMS of the same sender and
+ * shape ({@link com.regexflow.backend.Engine.ShapeSignature}) while it is PENDING.
+ * sms, smsText and requestedBy are the SMS that opened it; later ones only bump
+ * occurrenceCount and lastSeenAt and may take a place among the sample SMS ids.
+ */
 @Entity
-@Table(name = "template_request_notifications")
+@Table(name = "template_request_notifications",
+    uniqueConstraints = @UniqueConstraint(name = "uk_template_request_coalesce_key", columnNames = "coalesce_key"))
 @Getter
 @Setter
 public class TemplateRequestNotification {
+    // Sequence ids, so notifications are inserted in batches like Sms
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "template_request_notification_seq")
+    @SequenceGenerator(name = "template_request_notification_seq", sequenceName = "template_request_notification_seq", allocationSize = 50)
     @Column(name = "notification_id", nullable = false)
     private Long notificationId;
 
@@ -42,6 +51,24 @@ public class TemplateRequestNotification {
     @Column(name = "resolved_at")
     private LocalDateTime resolvedAt;
 
+    // Hash of (senderHeader, shape) while PENDING, null once resolved so the next unmatched SMS
+    // opens a new request. Null on requests stored before coalescing, which count once.
+    @Column(name = "coalesce_key", length = 64)
+    private String coalesceKey;
+
+    @Column(name = "occurrence_count")
+    private Long occurrenceCount;
+
+    @Column(name = "first_seen_at")
+    private LocalDateTime firstSeenAt;
+
+    @Column(name = "last_seen_at")
+    private LocalDateTime lastSeenAt;
+
+    // Comma-separated ids of a uniform random sample of the unmatched SMS
+    @Column(name = "sample_sms_ids")
+    private String sampleSmsIds;
+
     @PrePersist
     public void prePersist() {
         if (this.createdAt == null) {
@@ -0,0 +1,32 @@
+package com.regexflow.backend.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One bump of {@link TemplateSetVersion}: which sender's VERIFIED templates changed, and when.
+ * Old rows are deleted by {@link com.regexflow.backend.Service.TemplateRegistrySync#pruneChanges()}.
+ */
+@Entity
+@Table(name = "template_set_changes")
+@Getter
+@Setter
+public class TemplateSetChange {
+    @Id
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "sender_header", nullable = false)
+    private String senderHeader;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.changedAt == null) this.changedAt = LocalDateTime.now();
+    }
+}
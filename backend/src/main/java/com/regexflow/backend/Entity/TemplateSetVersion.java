@@ -0,0 +1,26 @@
+package com.regexflow.backend.Entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Single-row counter of changes to the set of VERIFIED templates, shared by all backend nodes.
+ * It is bumped in the transaction that approves or rejects a template; the row lock taken by the
+ * bump makes changes commit in version order.
+ */
+@Entity
+@Table(name = "template_set_version")
+@Getter
+@Setter
+public class TemplateSetVersion {
+    // The only row
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private Integer id;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
@@ -0,0 +1,176 @@
+package com.regexflow.backend.Enums;
+
+import com.regexflow.backend.Dto.ExtractedFieldsDto;
+import com.regexflow.backend.Dto.FieldResult;
+import com.regexflow.backend.Dto.RegexProcessResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Every named group the parser knows how to extract, and the schema of the field everywhere it
+ * is returned: a new extractable field is one entry here plus its {@link RegexProcessResponse} property.
+ * The ordinal is the field's slot in compiled execution plans and {@code FieldMatch} results;
+ * groupName is the name makers use in templates, e.g. (?<amount>...), and the key in stored
+ * extracted fields; label is what the frontend shows, under the heading of its section. Fields
+ * with a summary setter are also copied to their own property of {@link ExtractedFieldsDto}.
+ */
+public enum ExtractableField {
+
+    // Basic Transaction Fields
+    BANK_AC_ID("bankAcId", "Bank A/C ID", Section.TRANSACTION, RegexProcessResponse::setBankAcId),
+    AMOUNT("amount", "Amount", Section.TRANSACTION, RegexProcessResponse::setAmount, ExtractedFieldsDto::setAmount),
+    AMOUNT_NEGATIVE("amountNegative", "Amount Negative", Section.TRANSACTION, RegexProcessResponse::setAmountNegative),
+    DATE("date", "Date", Section.TRANSACTION, RegexProcessResponse::setDate, ExtractedFieldsDto::setDate),
+    MERCHANT("merchant", "Merchant", Section.TRANSACTION, RegexProcessResponse::setMerchant, ExtractedFieldsDto::setMerchant),
+    TXN_NOTE("txnNote", "Transaction Note", Section.TRANSACTION, RegexProcessResponse::setTxnNote),
+    BALANCE("balance", "Balance", Section.TRANSACTION, RegexProcessResponse::setBalance, ExtractedFieldsDto::setBalance),
+    BALANCE_NEGATIVE("balanceNegative", "Balance Negative", Section.TRANSACTION, RegexProcessResponse::setBalanceNegative),
+
+    // Sender/Receiver Details
+    SENDER_NAME("senderName", "Sender Name", Section.PARTIES, RegexProcessResponse::setSenderName),
+    S_BANK("sBank", "Sender Bank", Section.PARTIES, RegexProcessResponse::setSBank),
+    S_AC_TYPE("sAcType", "Sender A/C Type", Section.PARTIES, RegexProcessResponse::setSAcType),
+    S_AC_ID("sAcId", "Sender A/C ID", Section.PARTIES, RegexProcessResponse::setSAcId),
+    RECEIVER_NAME("receiverName", "Receiver Name", Section.PARTIES, RegexProcessResponse::setReceiverName),
+    R_BANK("rBank", "Receiver Bank", Section.PARTIES, RegexProcessResponse::setRBank),
+
+    // General Information
+    AVAIL_LIMIT("availLimit", "Available Limit", Section.GENERAL, RegexProcessResponse::setAvailLimit),
+    CREDIT_LIMIT("creditLimit", "Credit Limit", Section.GENERAL, RegexProcessResponse::setCreditLimit),
+    PAYMENT_TYPE("paymentType", "Payment Mode", Section.GENERAL, RegexProcessResponse::setPaymentType),
+    CITY("city", "City", Section.GENERAL, RegexProcessResponse::setCity),
+
+    // Biller Details
+    BILLER_AC_ID("billerAcId", "Biller A/C ID", Section.BILLER, RegexProcessResponse::setBillerAcId),
+    BILL_ID("billId", "Bill ID", Section.BILLER, RegexProcessResponse::setBillId),
+    BILL_DATE("billDate", "Bill Date", Section.BILLER, RegexProcessResponse::setBillDate),
+    BILL_PERIOD("billPeriod", "Bill Period", Section.BILLER, RegexProcessResponse::setBillPeriod),
+    DUE_DATE("dueDate", "Due Date", Section.BILLER, RegexProcessResponse::setDueDate),
+    MIN_AMT_DUE("minAmtDue", "Min Amount Due", Section.BILLER, RegexProcessResponse::setMinAmtDue),
+    TOT_AMT_DUE("totAmtDue", "Total Amount Due", Section.BILLER, RegexProcessResponse::setTotAmtDue),
+
+    // FD Details
+    PRINCIPAL_AMOUNT("principalAmount", "Principal Amount", Section.FIXED_DEPOSIT, RegexProcessResponse::setPrincipalAmount),
+    FREQUENCY("frequency", "Frequency", Section.FIXED_DEPOSIT, RegexProcessResponse::setFrequency),
+    MATURITY_DATE("maturityDate", "Maturity Date", Section.FIXED_DEPOSIT, RegexProcessResponse::setMaturityDate),
+    MATURITY_AMOUNT("maturityAmount", "Maturity Amount", Section.FIXED_DEPOSIT, RegexProcessResponse::setMaturityAmount),
+    RATE_OF_INTEREST("rateOfInterest", "Rate of Interest", Section.FIXED_DEPOSIT, RegexProcessResponse::setRateOfInterest),
+
+    // MF Details
+    MF_NAV("mfNav", "MF NAV", Section.MUTUAL_FUND, RegexProcessResponse::setMfNav),
+    MF_UNITS("mfUnits", "MF Units", Section.MUTUAL_FUND, RegexProcessResponse::setMfUnits),
+    MF_ARN("mfArn", "MF ARN", Section.MUTUAL_FUND, RegexProcessResponse::setMfArn),
+    MF_BAL_UNITS("mfBalUnits", "MF Balance Units", Section.MUTUAL_FUND, RegexProcessResponse::setMfBalUnits),
+    MF_SCHEME_BAL("mfSchemeBal", "MF Scheme Balance", Section.MUTUAL_FUND, RegexProcessResponse::setMfSchemeBal),
+
+    // Order Details
+    AMOUNT_PAID("amountPaid", "Amount Paid", Section.ORDER, RegexProcessResponse::setAmountPaid),
+    OFFER_AMOUNT("offerAmount", "Offer Amount", Section.ORDER, RegexProcessResponse::setOfferAmount),
+    MIN_PURCHASE_AMT("minPurchaseAmt", "Min Purchase Amount", Section.ORDER, RegexProcessResponse::setMinPurchaseAmt);
+
+    private static final Map<String, ExtractableField> BY_GROUP_NAME = new HashMap<>();
+
+    static {
+        for (ExtractableField field : values()) {
+            BY_GROUP_NAME.put(field.groupName, field);
+        }
+    }
+
+    private final String groupName;
+    private final String label;
+    private final Section section;
+    private final BiConsumer<RegexProcessResponse, FieldResult> setter;
+    private final BiConsumer<ExtractedFieldsDto, String> summarySetter;
+
+    ExtractableField(String groupName, String label, Section section,
+                     BiConsumer<RegexProcessResponse, FieldResult> setter) {
+        this(groupName, label, section, setter, null);
+    }
+
+    ExtractableField(String groupName, String label, Section section,
+                     BiConsumer<RegexProcessResponse, FieldResult> setter,
+                     BiConsumer<ExtractedFieldsDto, String> summarySetter) {
+        this.groupName = groupName;
+        this.label = label;
+        this.section = section;
+        this.setter = setter;
+        this.summarySetter = summarySetter;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Section getSection() {
+        return section;
+    }
+
+    public void set(RegexProcessResponse response, FieldResult result) {
+        setter.accept(response, result);
+    }
+
+    /**
+     * Copies the value to the field's own property of the DTO, if it has one
+     */
+    public void summarize(ExtractedFieldsDto dto, String value) {
+        if (summarySetter != null) {
+            summarySetter.accept(dto, value);
+        }
+    }
+
+    /**
+     * Returns the field for a named group, or null if the name is not a known field
+     */
+    public static ExtractableField fromGroupName(String groupName) {
+        return BY_GROUP_NAME.get(groupName);
+    }
+
+    /**
+     * The schema in ordinal order, as served to the frontend: groupName, label, the heading of
+     * its section and whether the field has its own property in extracted fields
+     */
+    public static List<Map<String, Object>> schema() {
+        List<Map<String, Object>> schema = new ArrayList<>();
+        for (ExtractableField field : values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("groupName", field.groupName);
+            entry.put("label", field.label);
+            entry.put("section", field.section.getHeading());
+            entry.put("summary", field.summarySetter != null);
+            schema.add(entry);
+        }
+        return schema;
+    }
+
+    /**
+     * The heading fields are grouped under where they are listed, in ordinal order
+     */
+    public enum Section {
+        TRANSACTION("Bank A/C Details"),
+        PARTIES("Sender/Receiver Details"),
+        GENERAL("General Information"),
+        BILLER("Biller Details"),
+        FIXED_DEPOSIT("FD Details"),
+        MUTUAL_FUND("MF Details"),
+        ORDER("Order Details");
+
+        private final String heading;
+
+        Section(String heading) {
+            this.heading = heading;
+        }
+
+        public String getHeading() {
+            return heading;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.regexflow.backend.Enums;
+
+public enum IngestionStatus {
+    QUEUED,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,11 @@
+package com.regexflow.backend.Enums;
+
+/**
+ * Regex engine a compiled template is matched with, chosen automatically from its pattern
+ */
+public enum MatchEngine {
+    // Pike VM over the parsed pattern: linear time, no backtracking
+    LINEAR,
+    // java.util.regex, for patterns using constructs the linear engine does not support
+    BACKTRACKING
+}
@@ -0,0 +1,15 @@
+package com.regexflow.backend.Enums;
+
+/**
+ * Cost class of a template pattern, computed when the template is approved
+ */
+public enum PatternComplexity {
+    // Matches one fixed string (case-insensitively)
+    LITERAL,
+    // Regular pattern without nested unbounded repetition, matches in linear time
+    REGULAR,
+    // Unbounded repetition nested inside another, can backtrack exponentially
+    NESTED_QUANTIFIER,
+    // Back references, lookaround, atomic groups or possessive quantifiers: needs a backtracking engine
+    NON_REGULAR
+}
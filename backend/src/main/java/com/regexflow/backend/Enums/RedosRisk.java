@@ -0,0 +1,13 @@
+package com.regexflow.backend.Enums;
+
+/**
+ * How badly a pattern can backtrack, as found by the static ReDoS analysis
+ */
+public enum RedosRisk {
+    // No ambiguous quantifiers found
+    NONE,
+    // Adjacent overlapping quantifiers: matching time grows polynomially with the message
+    POLYNOMIAL,
+    // Ambiguous nested quantifiers: matching time can grow exponentially with the message
+    EXPONENTIAL
+}
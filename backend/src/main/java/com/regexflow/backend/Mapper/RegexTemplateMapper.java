@@ -37,6 +37,10 @@ public class RegexTemplateMapper {
             dto.setAuditLogId(template.getAuditLog().getAuditId());
         }
 
+        dto.setRedosRisk(template.getRedosRisk());
+        dto.setRedosFindings(template.getRedosFindings());
+        dto.setWorstCaseMatchMicros(template.getWorstCaseMatchMicros());
+
         return dto;
     }
 
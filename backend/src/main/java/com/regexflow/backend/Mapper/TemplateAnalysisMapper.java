@@ -0,0 +1,80 @@
+package com.regexflow.backend.Mapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.regexflow.backend.Engine.RedosReport;
+import com.regexflow.backend.Engine.TemplateAnalysis;
+import com.regexflow.backend.Entity.RegexTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class TemplateAnalysisMapper {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Stores the analysis in the template's analysis columns
+     */
+    public static void applyToEntity(TemplateAnalysis analysis, RegexTemplate template) {
+        try {
+            template.setGroupTable(OBJECT_MAPPER.writeValueAsString(analysis.namedGroups()));
+            template.setRequiredLiterals(OBJECT_MAPPER.writeValueAsString(analysis.requiredLiterals()));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize template analysis: " + e.getMessage());
+        }
+        template.setGroupCount(analysis.groupCount());
+        template.setAnchored(analysis.anchored());
+        template.setComplexityClass(analysis.complexity());
+        template.setAnalyzedAt(LocalDateTime.now());
+    }
+
+    /**
+     * Clears the analysis columns, e.g. after the pattern was edited
+     */
+    public static void clearOnEntity(RegexTemplate template) {
+        template.setGroupTable(null);
+        template.setGroupCount(null);
+        template.setRequiredLiterals(null);
+        template.setAnchored(null);
+        template.setComplexityClass(null);
+        template.setAnalyzedAt(null);
+    }
+
+    /**
+     * Stores the result of the backtracking check in the template's ReDoS columns
+     */
+    public static void applyRedosReport(RedosReport report, RegexTemplate template) {
+        template.setRedosRisk(report.risk());
+        template.setRedosFindings(report.findings().isEmpty() ? null : String.join("\n", report.findings()));
+        template.setWorstCaseMatchMicros(report.worstCaseMicros());
+    }
+
+    /**
+     * Reads the stored analysis back; null if the template has none or it is unreadable
+     */
+    public static TemplateAnalysis fromEntity(RegexTemplate template) {
+        if (template == null || template.getAnalyzedAt() == null || template.getGroupTable() == null
+            || template.getGroupCount() == null || template.getComplexityClass() == null) {
+            return null;
+        }
+
+        try {
+            LinkedHashMap<String, Integer> groupTable = OBJECT_MAPPER.readValue(
+                template.getGroupTable(), new TypeReference<LinkedHashMap<String, Integer>>() {});
+            List<String> requiredLiterals = template.getRequiredLiterals() == null
+                ? List.of()
+                : OBJECT_MAPPER.readValue(template.getRequiredLiterals(), new TypeReference<List<String>>() {});
+            return new TemplateAnalysis(
+                template.getGroupCount(),
+                groupTable,
+                requiredLiterals,
+                Boolean.TRUE.equals(template.getAnchored()),
+                template.getComplexityClass());
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
@@ -3,11 +3,20 @@ package com.regexflow.backend.Repository;
 import com.regexflow.backend.Entity.Sms;
 import com.regexflow.backend.Entity.Users;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface SmsRepository extends JpaRepository<Sms, Long> {
     List<Sms> findByUser(Users user);
     
     List<Sms> findByUserOrderByCreatedAtDesc(Users user);
+
+    @Query("select s from Sms s where s.user.uId = :userId and s.contentHash = :contentHash")
+    Optional<Sms> findByUserIdAndContentHash(@Param("userId") Long userId, @Param("contentHash") String contentHash);
+
+    @Query("select s from Sms s where s.user.uId = :userId and s.idempotencyKey = :idempotencyKey")
+    Optional<Sms> findByUserIdAndIdempotencyKey(@Param("userId") Long userId, @Param("idempotencyKey") String idempotencyKey);
 }
@@ -3,11 +3,34 @@ package com.regexflow.backend.Repository;
 import com.regexflow.backend.Entity.TemplateRequestNotification;
 import com.regexflow.backend.Enums.NotificationStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface TemplateRequestNotificationRepository extends JpaRepository<TemplateRequestNotification, Long> {
     List<TemplateRequestNotification> findByStatus(NotificationStatus status);
     
     List<TemplateRequestNotification> findByStatusOrderByCreatedAtDesc(NotificationStatus status);
+
+    List<TemplateRequestNotification> findByStatusOrderByLastSeenAtDesc(NotificationStatus status);
+
+    Optional<TemplateRequestNotification> findByCoalesceKey(String coalesceKey);
+
+    /**
+     * Counts occurrences on the open request with the key in one statement; 0 if there is none
+     */
+    @Modifying
+    @Query("update TemplateRequestNotification n set n.occurrenceCount = n.occurrenceCount + :occurrences, "
+        + "n.lastSeenAt = :seenAt where n.coalesceKey = :coalesceKey")
+    int recordOccurrences(@Param("coalesceKey") String coalesceKey,
+                          @Param("occurrences") long occurrences,
+                          @Param("seenAt") LocalDateTime seenAt);
+
+    @Modifying
+    @Query("update TemplateRequestNotification n set n.sampleSmsIds = :sampleSmsIds where n.notificationId = :id")
+    int updateSampleSmsIds(@Param("id") Long id, @Param("sampleSmsIds") String sampleSmsIds);
 }
@@ -0,0 +1,19 @@
+package com.regexflow.backend.Repository;
+
+import com.regexflow.backend.Entity.TemplateSetChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface TemplateSetChangeRepository extends JpaRepository<TemplateSetChange, Long> {
+    List<TemplateSetChange> findByVersionGreaterThanOrderByVersionAsc(Long version);
+
+    @Modifying
+    @Transactional
+    @Query("delete from TemplateSetChange c where c.version <= :version")
+    int deleteUpToVersion(@Param("version") Long version);
+}
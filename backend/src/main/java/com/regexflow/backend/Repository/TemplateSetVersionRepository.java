@@ -0,0 +1,18 @@
+package com.regexflow.backend.Repository;
+
+import com.regexflow.backend.Entity.TemplateSetVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface TemplateSetVersionRepository extends JpaRepository<TemplateSetVersion, Integer> {
+    @Modifying
+    @Query("update TemplateSetVersion v set v.version = v.version + 1 where v.id = :id")
+    int increment(@Param("id") Integer id);
+
+    @Query("select v.version from TemplateSetVersion v where v.id = :id")
+    Optional<Long> findVersionById(@Param("id") Integer id);
+}
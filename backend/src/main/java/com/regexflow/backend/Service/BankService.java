@@ -5,6 +5,7 @@ import com.regexflow.backend.Entity.Bank;
 import com.regexflow.backend.Mapper.BankMapper;
 import com.regexflow.backend.Repository.BankRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 import java.util.List;
@@ -27,6 +28,8 @@ public class BankService {
         return BankMapper.toDto(savedBank);
     }
 
+    // Reads each bank's templates, which are loaded lazily
+    @Transactional(readOnly = true)
     public List<BankDto> getAllBanks() {
         return bankRepository.findAll()
             .stream()
@@ -0,0 +1,192 @@
+package com.regexflow.backend.Service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Concurrent map bounded to {@code maxSize} entries, shared by the matching caches.
+ *
+ * Entries are queued in the order they were added and evicted from the front of the queue
+ * ("second chance"): an entry read since it was queued is moved to the back once instead of
+ * evicted, so entries in use stay and the rest go oldest first, close to least recently used.
+ * Reads are lock-free and only set a flag; eviction costs O(1) per added entry, with no scan.
+ * One thread evicts at a time (the others skip it), so concurrent writers never evict more than
+ * needed; the map may exceed its bound by the writers that raced the evicting thread, until the
+ * next insert. Removed entries stay queued until they reach the front; once the queue holds
+ * twice the bound, one pass drops them, keeping the entries left in order and never evicting one.
+ */
+final class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<K, Node<K, V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Node<K, V>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder evictions = new LongAdder();
+
+    BoundedCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The cached value, or null
+     */
+    V get(K key) {
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        return node.value;
+    }
+
+    /**
+     * Caches the value unless the key already has one; returns the value already cached, or null
+     */
+    V putIfAbsent(K key, V value) {
+        Node<K, V> node = new Node<>(key, value);
+        Node<K, V> existing = entries.putIfAbsent(key, node);
+        if (existing != null) {
+            return existing.value;
+        }
+        added(node);
+        return null;
+    }
+
+    /**
+     * Caches the value, replacing the key's current one in place
+     */
+    void put(K key, V value) {
+        Node<K, V> current = entries.get(key);
+        if (current == null) {
+            Node<K, V> node = new Node<>(key, value);
+            current = entries.putIfAbsent(key, node);
+            if (current == null) {
+                added(node);
+                return;
+            }
+        }
+        current.value = value;
+    }
+
+    /**
+     * Removes the key if it is still cached with this very value
+     */
+    boolean remove(K key, V value) {
+        boolean[] removed = new boolean[1];
+        entries.computeIfPresent(key, (k, current) -> {
+            if (current.value == value) {
+                removed[0] = true;
+                return null;
+            }
+            return current;
+        });
+        return removed[0];
+    }
+
+    void removeIf(Predicate<K> keys) {
+        entries.keySet().removeIf(keys);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int maxSize() {
+        return maxSize;
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    List<V> values() {
+        return entries.values().stream().map(node -> node.value).toList();
+    }
+
+    private void added(Node<K, V> node) {
+        queue.add(node);
+        queued.incrementAndGet();
+        if (entries.size() <= maxSize && queued.get() <= 2 * maxSize) {
+            return;
+        }
+        if (!evictionLock.tryLock()) {
+            // Another writer is evicting and checks the size again after each entry
+            return;
+        }
+        try {
+            // Bounds the second chances, so eviction ends even while readers keep marking entries
+            int secondChances = queued.get();
+            while (entries.size() > maxSize) {
+                Node<K, V> oldest = queue.poll();
+                if (oldest == null) {
+                    return;
+                }
+                if (entries.get(oldest.key) != oldest) {
+                    // Removed since it was queued (and maybe added again as a new entry)
+                    queued.decrementAndGet();
+                    continue;
+                }
+                if (oldest.referenced && secondChances-- > 0) {
+                    // Read since queued: one more round at the back of the queue
+                    oldest.referenced = false;
+                    queue.add(oldest);
+                    continue;
+                }
+                queued.decrementAndGet();
+                if (entries.remove(oldest.key, oldest)) {
+                    evictions.increment();
+                }
+            }
+            if (queued.get() > 2 * maxSize) {
+                dropRemovedNodes();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * One pass over the queue that drops the nodes of removed entries and requeues the rest in
+     * order. Only runs with more than maxSize removed nodes queued, so its cost stays O(1) per add.
+     */
+    private void dropRemovedNodes() {
+        int nodes = queued.get();
+        for (int i = 0; i < nodes; i++) {
+            Node<K, V> node = queue.poll();
+            if (node == null) {
+                return;
+            }
+            if (entries.get(node.key) != node) {
+                queued.decrementAndGet();
+            } else {
+                queue.add(node);
+            }
+        }
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private volatile V value;
+        private volatile boolean referenced;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -1,35 +1,55 @@
 package com.regexflow.backend.Service;
 
 import com.regexflow.backend.Dto.RegexTemplateDto;
+import com.regexflow.backend.Engine.RegexParser;
+import com.regexflow.backend.Engine.TemplateAnalysis;
+import com.regexflow.backend.Engine.TemplateAnalyzer;
 import com.regexflow.backend.Entity.AuditLog;
 import com.regexflow.backend.Entity.RegexTemplate;
 import com.regexflow.backend.Entity.Users;
 import com.regexflow.backend.Enums.AuditStatus;
 import com.regexflow.backend.Enums.RegexTemplateStatus;
 import com.regexflow.backend.Mapper.RegexTemplateMapper;
+import com.regexflow.backend.Mapper.TemplateAnalysisMapper;
 import com.regexflow.backend.Repository.AuditLogRepository;
 import com.regexflow.backend.Repository.RegexTemplateRepository;
 import com.regexflow.backend.Repository.UserRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 @Service
 public class CheckerService {
     private final RegexTemplateRepository regexTemplateRepository;
     private final UserRepository userRepository;
     private final AuditLogRepository auditLogRepository;
+    private final CompiledPatternCache compiledPatternCache;
+    private final RedosGuard redosGuard;
+    private final TemplateWinStats templateWinStats;
+    private final TemplateRegistrySync templateRegistrySync;
 
     public CheckerService(
             RegexTemplateRepository regexTemplateRepository,
             UserRepository userRepository,
-            AuditLogRepository auditLogRepository) {
+            AuditLogRepository auditLogRepository,
+            CompiledPatternCache compiledPatternCache,
+            RedosGuard redosGuard,
+            TemplateWinStats templateWinStats,
+            TemplateRegistrySync templateRegistrySync) {
         this.regexTemplateRepository = regexTemplateRepository;
         this.userRepository = userRepository;
         this.auditLogRepository = auditLogRepository;
+        this.compiledPatternCache = compiledPatternCache;
+        this.redosGuard = redosGuard;
+        this.templateWinStats = templateWinStats;
+        this.templateRegistrySync = templateRegistrySync;
     }
 
     /**
@@ -61,9 +81,18 @@ public class CheckerService {
         Users checker = userRepository.findById(checkerId)
             .orElseThrow(() -> new RuntimeException("Checker not found with id: " + checkerId));
 
+        // Re-check backtracking: the template may have been pushed before the check existed
+        TemplateAnalysisMapper.applyRedosReport(
+            redosGuard.requireSafe(template.getPattern(), template.getSampleRawMsg()), template);
+
+        // Analyze the pattern once, so matching can reuse the group table, literals and cost class
+        TemplateAnalysisMapper.applyToEntity(analyzePattern(template.getPattern()), template);
+
         // Update template status to VERIFIED
         template.setStatus(RegexTemplateStatus.VERIFIED);
         RegexTemplate savedTemplate = regexTemplateRepository.save(template);
+        compiledPatternCache.invalidateTemplate(templateId);
+        refreshSenderMatcher(savedTemplate.getSenderHeader());
 
         // Check if audit log already exists for this template
         Optional<AuditLog> existingAuditLogOpt = auditLogRepository.findByTemplate(savedTemplate);
@@ -87,6 +116,17 @@ public class CheckerService {
         return RegexTemplateMapper.toDto(savedTemplate);
     }
 
+    private TemplateAnalysis analyzePattern(String pattern) {
+        try {
+            Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
+            return TemplateAnalyzer.analyze(pattern);
+        } catch (PatternSyntaxException e) {
+            throw new RuntimeException("Template pattern is not a valid regex: " + e.getDescription());
+        } catch (RegexParser.RegexSyntaxException e) {
+            throw new RuntimeException("Template pattern could not be analyzed: " + e.getMessage());
+        }
+    }
+
     /**
      * Reject a template - changes status from PENDING back to DRAFT
      * and creates an audit log with REJECTED status
@@ -109,6 +149,9 @@ public class CheckerService {
         // Update template status back to DRAFT so maker can revise it
         template.setStatus(RegexTemplateStatus.DRAFT);
         RegexTemplate savedTemplate = regexTemplateRepository.save(template);
+        compiledPatternCache.invalidateTemplate(templateId);
+        refreshSenderMatcher(savedTemplate.getSenderHeader());
+        templateWinStats.forgetTemplate(savedTemplate.getSenderHeader(), templateId);
 
         // Check if audit log already exists for this template
         Optional<AuditLog> existingAuditLogOpt = auditLogRepository.findByTemplate(savedTemplate);
@@ -150,4 +193,19 @@ public class CheckerService {
             .orElseThrow(() -> new RuntimeException("Template not found with id: " + templateId));
         return RegexTemplateMapper.toDto(template);
     }
+
+    /**
+     * Records the change of the sender's VERIFIED templates for the other nodes, and refreshes
+     * this node's registry and matchers once the transaction commits, so a rolled-back approval
+     * never reaches matching
+     */
+    private void refreshSenderMatcher(String senderHeader) {
+        templateRegistrySync.recordChange(senderHeader);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                templateRegistrySync.refreshSender(senderHeader);
+            }
+        });
+    }
 }
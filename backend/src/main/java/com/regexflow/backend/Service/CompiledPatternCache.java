@@ -0,0 +1,114 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.CompiledTemplate;
+import com.regexflow.backend.Engine.TemplateAnalysis;
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.regexflow.backend.Enums.MatchEngine;
+import com.regexflow.backend.Mapper.TemplateAnalysisMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent cache of compiled template patterns.
+ *
+ * Entries are keyed by template id and pattern text, so a template whose pattern changes
+ * can never be served a stale compiled pattern. Lookups are lock-free; when the cache is
+ * full, patterns not used recently are evicted first ({@link BoundedCache}).
+ */
+@Component
+public class CompiledPatternCache {
+
+    private final BoundedCache<Key, CompiledTemplate> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CompiledPatternCache(@Value("${regexflow.pattern-cache.max-size:512}") int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pattern cache size must be positive");
+        }
+        this.entries = new BoundedCache<>(maxSize);
+    }
+
+    /**
+     * Returns the compiled form of the pattern, compiling it on a miss.
+     * templateId may be null for ad-hoc patterns (e.g. the maker's "Test Regex" button).
+     * Throws {@link java.util.regex.PatternSyntaxException} for invalid patterns; those are not cached.
+     */
+    public CompiledTemplate get(Long templateId, String regex) {
+        return get(templateId, regex, null);
+    }
+
+    /**
+     * Returns the compiled form of a stored template. The analysis persisted at approval
+     * time is reused, so a miss only compiles the pattern instead of re-analyzing it.
+     */
+    public CompiledTemplate get(RegexTemplate template) {
+        CompiledTemplate cached = entries.get(new Key(template.getTemplateId(), template.getPattern()));
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        return get(template.getTemplateId(), template.getPattern(), TemplateAnalysisMapper.fromEntity(template));
+    }
+
+    private CompiledTemplate get(Long templateId, String regex, TemplateAnalysis storedAnalysis) {
+        Key key = new Key(templateId, regex);
+        CompiledTemplate cached = entries.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        CompiledTemplate compiled = CompiledTemplate.compile(regex, storedAnalysis);
+        CompiledTemplate existing = entries.putIfAbsent(key, compiled);
+        if (existing != null) {
+            // Another thread compiled the same pattern first, keep theirs
+            return existing;
+        }
+        return compiled;
+    }
+
+    /**
+     * Drops every compiled pattern of the given template
+     */
+    public void invalidateTemplate(Long templateId) {
+        if (templateId == null) {
+            return;
+        }
+        entries.removeIf(key -> templateId.equals(key.templateId()));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", entries.maxSize());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", entries.evictions());
+        // Cached patterns per engine, e.g. how many templates run without backtracking
+        Map<MatchEngine, Integer> engines = new EnumMap<>(MatchEngine.class);
+        for (CompiledTemplate compiled : entries.values()) {
+            engines.merge(compiled.getEngine(), 1, Integer::sum);
+        }
+        stats.put("engines", engines);
+        return stats;
+    }
+
+    private record Key(Long templateId, String regex) {
+    }
+}
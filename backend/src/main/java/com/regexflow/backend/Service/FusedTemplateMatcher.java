@@ -0,0 +1,185 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.CompiledTemplate;
+import com.regexflow.backend.Engine.FieldMatch;
+import com.regexflow.backend.Engine.LinearProgram;
+import com.regexflow.backend.Engine.MatchBudget;
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.regexflow.backend.Enums.MatchEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Matches an SMS against all of a sender's templates in a single scan.
+ *
+ * The {@link LinearProgram}s of a sender's VERIFIED templates are fused into one program with
+ * a branch per template. Each branch keeps its own capture slots, so templates that declare the
+ * same group names (every template has an "amount") never collide and need no renaming.
+ * Templates that need java.util.regex are not fused and are matched one by one as before.
+ *
+ * A sender's fused program is built off to the side and then swapped in, so concurrent SMS
+ * always see either the old or the new template set. It is rebuilt when a template of the
+ * sender is approved or rejected, and whenever an SMS arrives with a template set (ids and
+ * patterns) that differs from the one it was built for.
+ */
+@Component
+public class FusedTemplateMatcher {
+
+    // Fusing pays off only when there are at least this many linear templates
+    private static final int MIN_FUSED_TEMPLATES = 2;
+
+    private final CompiledPatternCache compiledPatternCache;
+    private final boolean enabled;
+    private final ConcurrentHashMap<String, SenderProgram> senders = new ConcurrentHashMap<>();
+
+    private final LongAdder scans = new LongAdder();
+    private final LongAdder templatesMatched = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    public FusedTemplateMatcher(
+            CompiledPatternCache compiledPatternCache,
+            @Value("${regexflow.matching.fused-matcher.enabled:true}") boolean enabled) {
+        this.compiledPatternCache = compiledPatternCache;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Matches the SMS against the fused program of the sender, restricted to the candidate
+     * templates. Returns a result for every candidate the fused program covers
+     * ({@link FieldMatch#none()} for those that did not match); candidates missing from it must be
+     * matched individually. Throws {@link com.regexflow.backend.Engine.MatchBudgetExceededException}
+     * if the scan runs out of budget.
+     */
+    public Map<Long, FieldMatch> match(String senderHeader, List<RegexTemplate> templates,
+                                                 List<RegexTemplate> candidates, String smsText, MatchBudget budget) {
+        if (!enabled || smsText == null || candidates.size() < MIN_FUSED_TEMPLATES
+                || !LinearProgram.supportsInput(smsText)) {
+            return Map.of();
+        }
+        SenderProgram program = programFor(senderHeader, templates);
+        if (program == null) {
+            return Map.of();
+        }
+
+        BitSet branches = new BitSet(program.templateIds().size());
+        for (RegexTemplate candidate : candidates) {
+            Integer branch = program.branchOf().get(candidate.getTemplateId());
+            if (branch != null) {
+                branches.set(branch);
+            }
+        }
+        if (branches.cardinality() < MIN_FUSED_TEMPLATES) {
+            return Map.of();
+        }
+
+        // One budget covers the whole scan, which reads the SMS once for all templates
+        CharSequence text = budget.forTemplate(smsText);
+        int[][] matches = program.program().findAll(text, branches);
+        scans.increment();
+        templatesMatched.add(branches.cardinality());
+
+        Map<Long, FieldMatch> results = new HashMap<>();
+        for (int b = branches.nextSetBit(0); b >= 0; b = branches.nextSetBit(b + 1)) {
+            FieldMatch match = matches[b] != null
+                ? program.compiled().get(b).extract(matches[b], smsText)
+                : FieldMatch.none();
+            results.put(program.templateIds().get(b), match);
+        }
+        return results;
+    }
+
+    /**
+     * Rebuilds the sender's fused program from its current VERIFIED templates and swaps it in
+     */
+    public void refreshSender(String senderHeader, List<RegexTemplate> verifiedTemplates) {
+        if (!enabled || senderHeader == null) {
+            return;
+        }
+        SenderProgram program = build(verifiedTemplates);
+        if (program == null) {
+            senders.remove(senderHeader);
+        } else {
+            senders.put(senderHeader, program);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("senders", senders.size());
+        stats.put("fusedTemplates", senders.values().stream().mapToInt(program -> program.templateIds().size()).sum());
+        stats.put("scans", scans.sum());
+        stats.put("templatesMatched", templatesMatched.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        return stats;
+    }
+
+    private SenderProgram programFor(String senderHeader, List<RegexTemplate> templates) {
+        List<TemplateKey> keys = keysOf(templates);
+        SenderProgram program = senders.get(senderHeader);
+        if (program != null && program.keys().equals(keys)) {
+            return program;
+        }
+        program = build(templates);
+        if (program != null) {
+            senders.put(senderHeader, program);
+        }
+        return program;
+    }
+
+    private SenderProgram build(List<RegexTemplate> templates) {
+        List<Long> templateIds = new ArrayList<>();
+        List<CompiledTemplate> compiled = new ArrayList<>();
+        List<LinearProgram> programs = new ArrayList<>();
+        for (RegexTemplate template : templates) {
+            CompiledTemplate candidate;
+            try {
+                candidate = compiledPatternCache.get(template);
+            } catch (RuntimeException e) {
+                // Invalid pattern: left to the per-template loop, which skips it
+                continue;
+            }
+            if (candidate.getEngine() == MatchEngine.LINEAR) {
+                templateIds.add(template.getTemplateId());
+                compiled.add(candidate);
+                programs.add(candidate.getLinearProgram());
+            }
+        }
+        if (programs.size() < MIN_FUSED_TEMPLATES) {
+            return null;
+        }
+
+        Map<Long, Integer> branchOf = new HashMap<>();
+        for (int b = 0; b < templateIds.size(); b++) {
+            branchOf.put(templateIds.get(b), b);
+        }
+        rebuilds.increment();
+        return new SenderProgram(keysOf(templates), LinearProgram.fuse(programs),
+            List.copyOf(templateIds), List.copyOf(compiled), Map.copyOf(branchOf));
+    }
+
+    private static List<TemplateKey> keysOf(List<RegexTemplate> templates) {
+        return templates.stream()
+            .map(template -> new TemplateKey(template.getTemplateId(), template.getPattern()))
+            .toList();
+    }
+
+    private record TemplateKey(Long templateId, String pattern) {
+    }
+
+    /**
+     * A sender's fused program; branch b matches template templateIds[b] with compiled[b]'s plan
+     */
+    private record SenderProgram(List<TemplateKey> keys, LinearProgram program, List<Long> templateIds,
+                                 List<CompiledTemplate> compiled, Map<Long, Integer> branchOf) {
+    }
+}
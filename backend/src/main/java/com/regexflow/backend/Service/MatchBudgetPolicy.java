@@ -0,0 +1,52 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.MatchBudget;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configured limits for regex matching, handed out as a fresh {@link MatchBudget} per SMS.
+ */
+@Component
+public class MatchBudgetPolicy {
+
+    private final long stepsPerTemplate;
+    private final long nanosPerTemplate;
+    private final long nanosPerSms;
+
+    public MatchBudgetPolicy(
+            @Value("${regexflow.matching.template-step-budget:1000000}") long stepsPerTemplate,
+            @Value("${regexflow.matching.template-time-budget-ms:50}") long templateTimeBudgetMs,
+            @Value("${regexflow.matching.sms-deadline-ms:250}") long smsDeadlineMs) {
+        if (stepsPerTemplate <= 0 || templateTimeBudgetMs <= 0 || smsDeadlineMs <= 0) {
+            throw new IllegalArgumentException("Matching budgets must be positive");
+        }
+        this.stepsPerTemplate = stepsPerTemplate;
+        this.nanosPerTemplate = TimeUnit.MILLISECONDS.toNanos(templateTimeBudgetMs);
+        this.nanosPerSms = TimeUnit.MILLISECONDS.toNanos(smsDeadlineMs);
+    }
+
+    /**
+     * Budget for matching one SMS against all of its candidate templates
+     */
+    public MatchBudget startSms() {
+        return MatchBudget.start(stepsPerTemplate, nanosPerTemplate, nanosPerSms);
+    }
+
+    /**
+     * Budget for a single ad-hoc match, e.g. the maker's "Test Regex"
+     */
+    public MatchBudget startSingleMatch() {
+        return MatchBudget.start(stepsPerTemplate, nanosPerTemplate, nanosPerTemplate);
+    }
+
+    public long getStepsPerTemplate() {
+        return stepsPerTemplate;
+    }
+
+    public long getNanosPerTemplate() {
+        return nanosPerTemplate;
+    }
+}
@@ -0,0 +1,98 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.MatchBudgetExceededException;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the SMS matching pipeline, exposed at GET /metrics/matching
+ */
+@Component
+public class MatchingMetrics {
+
+    private final LongAdder smsProcessed = new LongAdder();
+    private final LongAdder templatesTried = new LongAdder();
+    private final LongAdder templatesSkippedByPrefilter = new LongAdder();
+    private final LongAdder templatesSkippedByFieldBound = new LongAdder();
+    private final LongAdder templatesMatchedOneByOne = new LongAdder();
+    private final LongAdder templateMatchNanos = new LongAdder();
+    private final LongAdder smsWithBudgetExceeded = new LongAdder();
+    private final Map<MatchBudgetExceededException.Reason, LongAdder> budgetExceeded =
+        new EnumMap<>(MatchBudgetExceededException.Reason.class);
+
+    public MatchingMetrics() {
+        for (MatchBudgetExceededException.Reason reason : MatchBudgetExceededException.Reason.values()) {
+            budgetExceeded.put(reason, new LongAdder());
+        }
+    }
+
+    public void recordSmsProcessed() {
+        smsProcessed.increment();
+    }
+
+    public void recordTemplateTried() {
+        templatesTried.increment();
+    }
+
+    /**
+     * Templates of the sender that the literal prefilter ruled out for an SMS
+     */
+    public void recordTemplatesSkippedByPrefilter(int count) {
+        templatesSkippedByPrefilter.add(count);
+    }
+
+    /**
+     * Templates not tried for an SMS because the best match already had as many fields as they declare
+     */
+    public void recordTemplatesSkippedByFieldBound(int count) {
+        templatesSkippedByFieldBound.add(count);
+    }
+
+    /**
+     * Time spent matching one template on its own, used to estimate what skipping templates saves
+     */
+    public void recordTemplateMatchNanos(long nanos) {
+        templatesMatchedOneByOne.increment();
+        templateMatchNanos.add(nanos);
+    }
+
+    /**
+     * A template match was aborted for the given reason
+     */
+    public void recordBudgetExceeded(MatchBudgetExceededException.Reason reason) {
+        budgetExceeded.get(reason).increment();
+    }
+
+    /**
+     * An SMS had at least one template aborted, so its result may be incomplete
+     */
+    public void recordSmsWithBudgetExceeded() {
+        smsWithBudgetExceeded.increment();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("smsProcessed", smsProcessed.sum());
+        stats.put("templatesTried", templatesTried.sum());
+        stats.put("averageTemplatesTriedPerSms", smsProcessed.sum() == 0 ? 0 : (double) templatesTried.sum() / smsProcessed.sum());
+        stats.put("templatesSkippedByPrefilter", templatesSkippedByPrefilter.sum());
+        stats.put("templatesSkippedByFieldBound", templatesSkippedByFieldBound.sum());
+        // Skipped templates times the average cost of matching one template
+        long matched = templatesMatchedOneByOne.sum();
+        long sms = smsProcessed.sum();
+        double averageMatchMicros = matched == 0 ? 0 : templateMatchNanos.sum() / 1_000.0 / matched;
+        double savedMicros = templatesSkippedByFieldBound.sum() * averageMatchMicros;
+        stats.put("averageTemplateMatchMicros", averageMatchMicros);
+        stats.put("estimatedCpuSavedByFieldBoundMicros", savedMicros);
+        stats.put("estimatedCpuSavedPerSmsMicros", sms == 0 ? 0 : savedMicros / sms);
+        stats.put("smsWithBudgetExceeded", smsWithBudgetExceeded.sum());
+        Map<String, Long> exceeded = new LinkedHashMap<>();
+        budgetExceeded.forEach((reason, count) -> exceeded.put(reason.name(), count.sum()));
+        stats.put("budgetExceeded", exceeded);
+        return stats;
+    }
+}
@@ -0,0 +1,151 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.FieldMatch;
+import com.regexflow.backend.Entity.RegexTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent cache from (sender header, SMS text, sender's template set) to the result
+ * of matching that text: the winning template with the offsets of its fields, or no match.
+ * Off by default ({@code regexflow.matching.parse-cache.enabled}).
+ *
+ * SmsService takes a cached result for a byte-identical SMS (the same broadcast sent to many
+ * customers) without running any regex. Only results of matching that ran to completion within
+ * its budget are cached: the winner of those is the template with the most fields, then the
+ * lowest id, so it depends on the text and template set alone. A result cut short by the budget
+ * depends on timing and is never cached. The template set is the list
+ * {@link VerifiedTemplateRegistry} published for the sender, which is replaced on every reload:
+ * an entry is only returned for the very list it was computed against, so it never applies
+ * across template versions, even while a reload races a lookup. A sender's entries are also
+ * dropped whenever its set changes, so they do not hold old templates until evicted.
+ *
+ * The SMS text is not kept: keys hold a SHA-256 digest of the exact text (no whitespace folding
+ * as in {@link SmsDeduplicator#contentHash}, since field offsets need the very same characters),
+ * and cached matches hold only offsets, read against the text of the SMS being looked up.
+ * When the cache is full, results not used recently are dropped first ({@link BoundedCache}).
+ */
+@Component
+public class ParseResultCache {
+
+    private final boolean enabled;
+    private final BoundedCache<Key, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleMisses = new LongAdder();
+
+    public ParseResultCache(
+            @Value("${regexflow.matching.parse-cache.enabled:false}") boolean enabled,
+            @Value("${regexflow.matching.parse-cache.max-size:10000}") int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Parse result cache size must be positive");
+        }
+        this.enabled = enabled;
+        this.entries = new BoundedCache<>(maxSize);
+    }
+
+    /**
+     * The result of matching this text against exactly these templates, or null if not cached
+     */
+    public Result get(String senderHeader, String smsText, List<RegexTemplate> templates) {
+        if (!enabled) {
+            return null;
+        }
+        if (senderHeader == null || smsText == null) {
+            return null;
+        }
+        Key key = new Key(senderHeader, textDigest(smsText));
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.templates != templates) {
+            // Computed against another version of the sender's templates
+            entries.remove(key, entry);
+            staleMisses.increment();
+            return null;
+        }
+        hits.increment();
+        return new Result(entry.result.template(), entry.result.match().withText(smsText));
+    }
+
+    /**
+     * Caches the best match of the text against these templates; a null template means none matched
+     */
+    public void put(String senderHeader, String smsText, List<RegexTemplate> templates,
+                    RegexTemplate template, FieldMatch match) {
+        if (!enabled || senderHeader == null || smsText == null) {
+            return;
+        }
+        Key key = new Key(senderHeader, textDigest(smsText));
+        Result result = template != null
+            ? new Result(template, match.withText(null))
+            : new Result(null, FieldMatch.none());
+        entries.put(key, new Entry(templates, result));
+    }
+
+    /**
+     * Drops every result of the sender, e.g. when its set of VERIFIED templates changes
+     */
+    public void invalidateSender(String senderHeader) {
+        if (senderHeader == null) {
+            return;
+        }
+        entries.removeIf(key -> senderHeader.equals(key.senderHeader()));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum() + staleMisses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", entries.size());
+        stats.put("maxSize", entries.maxSize());
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.sum());
+        // Entries found for an older template set of the sender, dropped instead of used
+        stats.put("staleMisses", staleMisses.sum());
+        stats.put("hitRatio", lookups == 0 ? 0 : (double) hitCount / lookups);
+        stats.put("evictions", entries.evictions());
+        return stats;
+    }
+
+    /**
+     * SHA-256 of the exact SMS text
+     */
+    static String textDigest(String smsText) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(smsText.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The winning template and where its fields are in the text; template null if none matched
+     */
+    public record Result(RegexTemplate template, FieldMatch match) {
+    }
+
+    private record Key(String senderHeader, String textDigest) {
+    }
+
+    private record Entry(List<RegexTemplate> templates, Result result) {
+    }
+}
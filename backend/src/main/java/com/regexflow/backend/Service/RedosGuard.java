@@ -0,0 +1,99 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.AdversarialInputFuzzer;
+import com.regexflow.backend.Engine.RedosAnalyzer;
+import com.regexflow.backend.Engine.RedosReport;
+import com.regexflow.backend.Engine.RegexParser;
+import com.regexflow.backend.Enums.RedosRisk;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps patterns that backtrack catastrophically out of the VERIFIED set.
+ *
+ * A pattern is checked statically for ambiguous quantifiers, then timed against adversarial
+ * inputs under the same step and time budget that SMS matching uses. It is rejected if the
+ * static analysis finds exponential backtracking, or if a short adversarial run (at most
+ * regexflow.redos.block-pump-length characters) already exhausts the budget. Longer inputs
+ * only feed the reported worst case: polynomial patterns slow down on very long messages, but
+ * the matching budget caps them at runtime.
+ */
+@Component
+public class RedosGuard {
+
+    private final MatchBudgetPolicy matchBudgetPolicy;
+    private final int maxInputLength;
+    private final int blockPumpLength;
+    private final boolean blockExponential;
+
+    public RedosGuard(
+            MatchBudgetPolicy matchBudgetPolicy,
+            @Value("${regexflow.redos.max-input-length:1024}") int maxInputLength,
+            @Value("${regexflow.redos.block-pump-length:64}") int blockPumpLength,
+            @Value("${regexflow.redos.block-exponential:true}") boolean blockExponential) {
+        this.matchBudgetPolicy = matchBudgetPolicy;
+        this.maxInputLength = maxInputLength;
+        this.blockPumpLength = blockPumpLength;
+        this.blockExponential = blockExponential;
+    }
+
+    /**
+     * Static analysis plus adversarial timing of a pattern, matched case-insensitively like every template
+     */
+    public RedosReport inspect(String regex, String sampleMessage) {
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        } catch (PatternSyntaxException e) {
+            throw new RuntimeException("Pattern is not a valid regex: " + e.getDescription());
+        }
+        RegexParser.ParsedRegex parsed;
+        try {
+            parsed = RegexParser.parse(regex);
+        } catch (RegexParser.RegexSyntaxException e) {
+            throw new RuntimeException("Pattern could not be analyzed: " + e.getMessage());
+        }
+
+        List<RedosAnalyzer.Finding> findings = RedosAnalyzer.analyze(parsed.root());
+        AdversarialInputFuzzer.Result fuzz = AdversarialInputFuzzer.fuzz(
+            pattern, parsed.root(), findings, sampleMessage, maxInputLength,
+            matchBudgetPolicy.getStepsPerTemplate(), matchBudgetPolicy.getNanosPerTemplate());
+
+        return new RedosReport(
+            RedosAnalyzer.worstRisk(findings),
+            findings.stream().map(RedosAnalyzer.Finding::description).distinct().toList(),
+            fuzz.worstNanos(),
+            fuzz.worstSteps(),
+            fuzz.worstInputLength(),
+            fuzz.pumpLength(),
+            fuzz.budgetExceeded());
+    }
+
+    /**
+     * Inspects the pattern and throws if it is too risky to push or approve
+     */
+    public RedosReport requireSafe(String regex, String sampleMessage) {
+        RedosReport report = inspect(regex, sampleMessage);
+        if (report.fuzzBudgetExceeded() && report.worstCasePumpLength() <= blockPumpLength) {
+            throw new RuntimeException("Pattern rejected: an adversarial " + report.worstCaseInputLength()
+                + "-character message exceeded the matching budget (" + report.worstCaseSteps() + " steps in "
+                + report.worstCaseMicros() / 1000 + " ms)" + describeFindings(report));
+        }
+        if (blockExponential && report.risk() == RedosRisk.EXPONENTIAL) {
+            throw new RuntimeException("Pattern rejected: risk of catastrophic backtracking" + describeFindings(report));
+        }
+        return report;
+    }
+
+    private static String describeFindings(RedosReport report) {
+        if (report.findings().isEmpty()) {
+            return "";
+        }
+        return ". " + report.findings().stream().collect(Collectors.joining("; "));
+    }
+}
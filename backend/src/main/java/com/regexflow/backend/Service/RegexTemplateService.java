@@ -1,11 +1,13 @@
 package com.regexflow.backend.Service;
 
 import com.regexflow.backend.Dto.RegexTemplateDto;
+import com.regexflow.backend.Engine.RedosReport;
 import com.regexflow.backend.Entity.Bank;
 import com.regexflow.backend.Entity.RegexTemplate;
 import com.regexflow.backend.Entity.Users;
 import com.regexflow.backend.Enums.RegexTemplateStatus;
 import com.regexflow.backend.Mapper.RegexTemplateMapper;
+import com.regexflow.backend.Mapper.TemplateAnalysisMapper;
 import com.regexflow.backend.Repository.BankRepository;
 import com.regexflow.backend.Repository.RegexTemplateRepository;
 import com.regexflow.backend.Repository.UserRepository;
@@ -19,14 +21,20 @@ public class RegexTemplateService {
     private final RegexTemplateRepository regexTemplateRepository;
     private final UserRepository userRepository;
     private final BankRepository bankRepository;
+    private final CompiledPatternCache compiledPatternCache;
+    private final RedosGuard redosGuard;
 
     public RegexTemplateService(
             RegexTemplateRepository regexTemplateRepository,
             UserRepository userRepository,
-            BankRepository bankRepository) {
+            BankRepository bankRepository,
+            CompiledPatternCache compiledPatternCache,
+            RedosGuard redosGuard) {
         this.regexTemplateRepository = regexTemplateRepository;
         this.userRepository = userRepository;
         this.bankRepository = bankRepository;
+        this.compiledPatternCache = compiledPatternCache;
+        this.redosGuard = redosGuard;
     }
 
     public List<RegexTemplateDto> getAllRegexTemplates() {
@@ -134,6 +142,9 @@ public class RegexTemplateService {
         Bank bank = bankRepository.findById(dto.getBankId())
             .orElseThrow(() -> new RuntimeException("Bank not found with id: " + dto.getBankId()));
 
+        // Patterns that backtrack catastrophically never reach the checker
+        RedosReport redosReport = redosGuard.requireSafe(dto.getPattern(), dto.getSampleRawMsg());
+
         // Update template fields
         existingTemplate.setSenderHeader(dto.getSenderHeader());
         existingTemplate.setPattern(dto.getPattern());
@@ -143,8 +154,13 @@ public class RegexTemplateService {
         existingTemplate.setPaymentType(dto.getPaymentType());
         existingTemplate.setBank(bank);
         existingTemplate.setStatus(RegexTemplateStatus.PENDING);
+        // Analysis belongs to the approved pattern; it is recomputed on the next approval
+        TemplateAnalysisMapper.clearOnEntity(existingTemplate);
+        TemplateAnalysisMapper.applyRedosReport(redosReport, existingTemplate);
 
         RegexTemplate updatedTemplate = regexTemplateRepository.save(existingTemplate);
+        // The pattern may have been edited, drop any compiled copy of the old one
+        compiledPatternCache.invalidateTemplate(templateId);
         return RegexTemplateMapper.toDto(updatedTemplate);
     }
 
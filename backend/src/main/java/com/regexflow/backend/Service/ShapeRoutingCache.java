@@ -0,0 +1,105 @@
+package com.regexflow.backend.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent cache from (sender header, {@link com.regexflow.backend.Engine.ShapeSignature})
+ * to the template that was the best match for the last SMS of that shape.
+ *
+ * SmsService matches the routed template first and starts from its match as the best so far, so
+ * the field bound stops matching once no template ranked after it could win; the route only
+ * decides how soon matching stops, never which template is the best match. Lookups are
+ * lock-free; when the cache is full, routes not used recently are evicted first
+ * ({@link BoundedCache}). A sender's routes are dropped whenever one of its templates is
+ * approved or rejected.
+ */
+@Component
+public class ShapeRoutingCache {
+
+    private final BoundedCache<Key, Route> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder confirmed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public ShapeRoutingCache(@Value("${regexflow.matching.shape-cache.max-size:4096}") int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Shape cache size must be positive");
+        }
+        this.entries = new BoundedCache<>(maxSize);
+    }
+
+    /**
+     * The template that won last time for this shape, or null
+     */
+    public Route get(String senderHeader, String signature) {
+        Route route = entries.get(new Key(senderHeader, signature));
+        if (route == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return route;
+    }
+
+    /**
+     * Records whether the routed template turned out to be the best match
+     */
+    public void recordConfirmation(boolean accepted) {
+        (accepted ? confirmed : rejected).increment();
+    }
+
+    public void put(String senderHeader, String signature, Long templateId) {
+        if (templateId == null) {
+            return;
+        }
+        entries.put(new Key(senderHeader, signature), new Route(templateId));
+    }
+
+    /**
+     * Drops every route of the sender, e.g. when its set of VERIFIED templates changes
+     */
+    public void invalidateSender(String senderHeader) {
+        if (senderHeader == null) {
+            return;
+        }
+        entries.removeIf(key -> senderHeader.equals(key.senderHeader()));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        long confirmedCount = confirmed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", entries.maxSize());
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.sum());
+        stats.put("hitRatio", lookups == 0 ? 0 : (double) hitCount / lookups);
+        stats.put("confirmed", confirmedCount);
+        stats.put("rejected", rejected.sum());
+        // Share of all lookups whose routed template was the best match
+        stats.put("routedRatio", lookups == 0 ? 0 : (double) confirmedCount / lookups);
+        stats.put("evictions", entries.evictions());
+        return stats;
+    }
+
+    /**
+     * The template that won for the shape
+     */
+    public record Route(Long templateId) {
+    }
+
+    private record Key(String senderHeader, String signature) {
+    }
+}
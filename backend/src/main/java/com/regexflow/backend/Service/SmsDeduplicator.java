@@ -0,0 +1,119 @@
+package com.regexflow.backend.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Recognises SMS a user already submitted, so a resend (phone retry, app reinstall, client
+ * timeout) returns the stored result instead of being matched and stored again.
+ *
+ * An SMS is identified by its content hash, a hash of the sender header and the text with
+ * whitespace normalised, and optionally by the client's idempotency key; both are unique per
+ * user in the sms table. This keeps the ids of recently stored SMS under both, bounded to
+ * {@code max-size} entries ({@link BoundedCache}), so most duplicates are answered with
+ * one read by id. Older duplicates, and ones stored by another node, are caught by the unique
+ * index when they are inserted.
+ */
+@Component
+public class SmsDeduplicator {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final BoundedCache<Key, Long> recent;
+
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder recentHits = new LongAdder();
+    private final LongAdder indexHits = new LongAdder();
+
+    public SmsDeduplicator(@Value("${regexflow.sms.dedup.max-size:100000}") int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("SMS dedup filter size must be positive");
+        }
+        this.recent = new BoundedCache<>(maxSize);
+    }
+
+    /**
+     * Hex SHA-256 of the sender header and the SMS text, trimmed and with runs of whitespace as one space
+     */
+    public static String contentHash(String senderHeader, String smsText) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(senderHeader.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(WHITESPACE.matcher(smsText.trim()).replaceAll(" ").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The id of the user's recently stored SMS with this idempotency key (if given) or content
+     * hash, or null if there is none
+     */
+    public Long recentSmsId(Long userId, String contentHash, String idempotencyKey) {
+        checked.increment();
+        Long smsId = idempotencyKey != null ? recent.get(Key.idempotency(userId, idempotencyKey)) : null;
+        if (smsId == null) {
+            smsId = recent.get(Key.content(userId, contentHash));
+        }
+        if (smsId != null) {
+            recentHits.increment();
+        }
+        return smsId;
+    }
+
+    /**
+     * Remembers a stored SMS under its content hash and idempotency key
+     */
+    public void remember(Long userId, String contentHash, String idempotencyKey, Long smsId) {
+        if (smsId == null) {
+            return;
+        }
+        recent.put(Key.content(userId, contentHash), smsId);
+        if (idempotencyKey != null) {
+            recent.put(Key.idempotency(userId, idempotencyKey), smsId);
+        }
+    }
+
+    /**
+     * Records a duplicate that was not in the recent set and was only found by the unique index
+     */
+    public void recordIndexHit() {
+        indexHits.increment();
+    }
+
+    public Map<String, Object> stats() {
+        long checkedCount = checked.sum();
+        long duplicates = recentHits.sum() + indexHits.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", recent.size());
+        stats.put("maxSize", recent.maxSize());
+        stats.put("checked", checkedCount);
+        stats.put("recentHits", recentHits.sum());
+        // Duplicates the recent set no longer (or never) held, caught when inserting them
+        stats.put("indexHits", indexHits.sum());
+        stats.put("hitRate", checkedCount == 0 ? 0 : (double) duplicates / checkedCount);
+        stats.put("evictions", recent.evictions());
+        return stats;
+    }
+
+    private record Key(Long userId, boolean idempotencyKey, String value) {
+        static Key content(Long userId, String contentHash) {
+            return new Key(userId, false, contentHash);
+        }
+
+        static Key idempotency(Long userId, String idempotencyKey) {
+            return new Key(userId, true, idempotencyKey);
+        }
+    }
+}
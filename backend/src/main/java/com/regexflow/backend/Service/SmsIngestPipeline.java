@@ -0,0 +1,133 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Dto.SmsSubmissionResponse;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-blocking SMS submission (profile {@code nonblocking-ingest}): the three phases of
+ * {@link SmsService#processSms} run as stages on pools sized for their work, and no request
+ * thread waits for any of them.
+ *
+ * Reading the user and storing the SMS block on JDBC, so they run on a small database pool
+ * sized like the connection pool; matching is CPU-bound and runs on a pool with one thread per
+ * core. At most {@code max-in-flight} SMS are between admission and their response; beyond that
+ * {@link #submit} refuses at once, so a client that sends faster than the database writes gets
+ * 429s instead of growing queues. The stage queues are as large as that limit, so an admitted SMS
+ * is never dropped between stages.
+ */
+@Service
+@Profile("nonblocking-ingest")
+public class SmsIngestPipeline {
+
+    private final SmsService smsService;
+    private final ThreadPoolExecutor databasePool;
+    private final ThreadPoolExecutor computePool;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+    @Autowired
+    public SmsIngestPipeline(
+            SmsService smsService,
+            @Value("${regexflow.sms.pipeline.database-threads:10}") int databaseThreads,
+            @Value("${regexflow.sms.pipeline.compute-threads:0}") int computeThreads,
+            @Value("${regexflow.sms.pipeline.max-in-flight:1000}") int maxInFlight) {
+        if (databaseThreads <= 0 || computeThreads < 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("Pipeline database threads and in-flight limit must be positive");
+        }
+        this.smsService = smsService;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.databasePool = pool("sms-pipeline-db-", databaseThreads, maxInFlight);
+        this.computePool = pool("sms-pipeline-match-",
+            computeThreads == 0 ? Runtime.getRuntime().availableProcessors() : computeThreads, maxInFlight);
+    }
+
+    /**
+     * Starts processing the SMS; the future completes with the stored SMS's response, or
+     * exceptionally with the error {@link SmsService#processSms} would have thrown.
+     * Returns null if {@code max-in-flight} SMS are already being processed.
+     */
+    public CompletableFuture<SmsSubmissionResponse> submit(String smsText, Long userId) {
+        if (!inFlight.tryAcquire()) {
+            rejected.increment();
+            return null;
+        }
+        accepted.increment();
+        long start = System.nanoTime();
+        // An SMS the user recently submitted is answered with its stored result, without matching
+        return CompletableFuture.supplyAsync(() -> smsService.findRecentDuplicate(userId, smsText, null), databasePool)
+            .thenCompose(duplicate -> duplicate != null
+                ? CompletableFuture.completedFuture(duplicate)
+                : CompletableFuture.supplyAsync(() -> smsService.loadUser(userId), databasePool)
+                    .thenApplyAsync(user -> smsService.evaluate(smsText, user), computePool)
+                    .thenApplyAsync(submission -> smsService.store(List.of(submission)).get(0), databasePool))
+            .whenComplete((response, error) -> {
+                inFlight.release();
+                long latency = System.nanoTime() - start;
+                latencyNanos.add(latency);
+                maxLatencyNanos.accumulate(latency);
+                if (error == null) {
+                    completed.increment();
+                } else {
+                    failed.increment();
+                }
+            });
+    }
+
+    public Map<String, Object> stats() {
+        long finished = completed.sum() + failed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxInFlight", maxInFlight);
+        stats.put("inFlight", maxInFlight - inFlight.availablePermits());
+        stats.put("databaseQueueDepth", databasePool.getQueue().size());
+        stats.put("matchingQueueDepth", computePool.getQueue().size());
+        stats.put("accepted", accepted.sum());
+        // Refused with 429 because max-in-flight SMS were being processed
+        stats.put("rejected", rejected.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("averageLatencyMillis", finished == 0 ? 0 : latencyNanos.sum() / 1e6 / finished);
+        stats.put("maxLatencyMillis", maxLatencyNanos.get() / 1e6);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        databasePool.shutdown();
+        computePool.shutdown();
+    }
+
+    private static ThreadPoolExecutor pool(String namePrefix, int threads, int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+}
@@ -0,0 +1,272 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Dto.SmsIngestionStatusDto;
+import com.regexflow.backend.Dto.SmsSubmissionResponse;
+import com.regexflow.backend.Enums.IngestionStatus;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous SMS submission: {@link SmsService#processSms} runs on a fixed pool of workers
+ * instead of the request thread.
+ *
+ * Submissions wait in a bounded queue; when it is full, {@link #submit} refuses at once rather
+ * than blocking the caller, so a matching spike turns into fast 429s instead of piling up
+ * request threads. Each submission gets an id under which its status and result can be fetched
+ * until {@code result-retention-minutes} after it finished.
+ *
+ * An SMS is written to the {@link SmsWriteAheadLog} before it is acknowledged and marked done
+ * once processed. SMS the log still holds at startup, accepted but never stored before a crash
+ * or deploy, are processed again once the application is ready. The server already accepts
+ * requests by then, so new submissions may be stored before the replayed ones.
+ *
+ * With {@code spring.threads.virtual.enabled} on a Java 21+ runtime, workers are virtual threads,
+ * so a worker waiting on the database does not hold a platform thread.
+ */
+@Component
+public class SmsIngestionQueue {
+
+    private final SmsService smsService;
+    private final SmsWriteAheadLog writeAheadLog;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long retentionNanos;
+    private final boolean virtualThreads;
+    private final ConcurrentHashMap<String, Ingestion> ingestions = new ConcurrentHashMap<>();
+    private final AtomicLong lastEvictionNanos = new AtomicLong(System.nanoTime());
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder processingNanos = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+
+    @Autowired
+    public SmsIngestionQueue(
+            SmsService smsService,
+            SmsWriteAheadLog writeAheadLog,
+            @Value("${regexflow.sms.ingest.workers:4}") int workers,
+            @Value("${regexflow.sms.ingest.queue-capacity:1000}") int queueCapacity,
+            @Value("${regexflow.sms.ingest.result-retention-minutes:10}") long retentionMinutes,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (workers <= 0 || queueCapacity <= 0 || retentionMinutes <= 0) {
+            throw new IllegalArgumentException("Ingestion workers, queue capacity and retention must be positive");
+        }
+        this.smsService = smsService;
+        this.writeAheadLog = writeAheadLog;
+        this.queueCapacity = queueCapacity;
+        this.retentionNanos = TimeUnit.MINUTES.toNanos(retentionMinutes);
+        this.virtualThreads = virtualThreads && Runtime.version().feature() >= 21;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), workerThreadFactory(this.virtualThreads),
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queues the SMS for processing and returns its QUEUED status, or null if the queue is full
+     */
+    public SmsIngestionStatusDto submit(String smsText, Long userId) {
+        evictExpiredIfDue();
+        if (executor.getQueue().remainingCapacity() == 0) {
+            // Refuse before paying for the log write
+            rejected.increment();
+            return null;
+        }
+        Ingestion ingestion = new Ingestion(UUID.randomUUID().toString(), userId);
+        ingestion.logSequence = writeAheadLog.append(userId, smsText);
+        ingestions.put(ingestion.id, ingestion);
+        // Taken before a worker can pick it up, so the caller is always told it was queued
+        SmsIngestionStatusDto queued = ingestion.toDto();
+        try {
+            executor.execute(() -> process(ingestion, smsText));
+        } catch (RejectedExecutionException e) {
+            // The client is told to retry, so the logged SMS must not be replayed as well
+            writeAheadLog.markDone(ingestion.logSequence);
+            ingestions.remove(ingestion.id);
+            rejected.increment();
+            return null;
+        }
+        accepted.increment();
+        return queued;
+    }
+
+    /**
+     * Current status of the user's submission, or null if there is none with this id
+     */
+    public SmsIngestionStatusDto status(String ingestionId, Long userId) {
+        Ingestion ingestion = find(ingestionId, userId);
+        return ingestion != null ? ingestion.toDto() : null;
+    }
+
+    /**
+     * Completes with the final status once the user's submission is processed (at once if it
+     * already is), or null if there is no submission with this id
+     */
+    public CompletableFuture<SmsIngestionStatusDto> completion(String ingestionId, Long userId) {
+        Ingestion ingestion = find(ingestionId, userId);
+        return ingestion != null ? ingestion.done.thenApply(ignored -> ingestion.toDto()) : null;
+    }
+
+    public Map<String, Object> stats() {
+        long started = completed.sum() + failed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("workers", executor.getMaximumPoolSize());
+        stats.put("virtualThreads", virtualThreads);
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("accepted", accepted.sum());
+        // Refused with 429 because the queue was full
+        stats.put("rejected", rejected.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("averageQueueWaitMillis", started == 0 ? 0 : queueWaitNanos.sum() / 1e6 / started);
+        stats.put("maxQueueWaitMillis", maxQueueWaitNanos.get() / 1e6);
+        stats.put("averageProcessingMillis", started == 0 ? 0 : processingNanos.sum() / 1e6 / started);
+        stats.put("retainedResults", ingestions.size());
+        // Accepted before the last shutdown but not stored, processed again at startup
+        stats.put("replayed", replayed.sum());
+        return stats;
+    }
+
+    /**
+     * Processes the SMS left in the write-ahead log by the previous run, in the order they were accepted
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayWriteAheadLog() {
+        for (SmsWriteAheadLog.LoggedSms logged : writeAheadLog.drainRecovered()) {
+            try {
+                smsService.processSms(logged.smsText(), logged.userId());
+                writeAheadLog.markDone(logged.sequence());
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    writeAheadLog.markDone(logged.sequence());
+                }
+            }
+            replayed.increment();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void process(Ingestion ingestion, String smsText) {
+        long start = System.nanoTime();
+        long waited = start - ingestion.submittedNanos;
+        queueWaitNanos.add(waited);
+        maxQueueWaitNanos.accumulate(waited);
+        ingestion.status = IngestionStatus.PROCESSING;
+        // Counted before finishing, so whoever waits on the result sees the counters include it
+        try {
+            ingestion.result = smsService.processSms(smsText, ingestion.userId);
+            writeAheadLog.markDone(ingestion.logSequence);
+            processingNanos.add(System.nanoTime() - start);
+            completed.increment();
+            ingestion.finish(IngestionStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            ingestion.error = e.getMessage();
+            if (!isTransient(e)) {
+                writeAheadLog.markDone(ingestion.logSequence);
+            }
+            processingNanos.add(System.nanoTime() - start);
+            failed.increment();
+            ingestion.finish(IngestionStatus.FAILED);
+        }
+    }
+
+    private static ThreadFactory workerThreadFactory(boolean virtualThreads) {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor("sms-ingest-").getVirtualThreadFactory();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "sms-ingest-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Database failures leave the SMS in the log, to be processed again at the next startup;
+     * any other failure (e.g. an unknown user) would only fail again
+     */
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof DataAccessException || e instanceof TransactionException;
+    }
+
+    private Ingestion find(String ingestionId, Long userId) {
+        Ingestion ingestion = ingestions.get(ingestionId);
+        return ingestion != null && ingestion.userId.equals(userId) ? ingestion : null;
+    }
+
+    /**
+     * Drops results kept longer than the retention. Runs at most once a second, on a submitting
+     * thread, so the scan stays off the result lookups.
+     */
+    private void evictExpiredIfDue() {
+        long now = System.nanoTime();
+        long last = lastEvictionNanos.get();
+        if (now - last < TimeUnit.SECONDS.toNanos(1) || !lastEvictionNanos.compareAndSet(last, now)) {
+            return;
+        }
+        ingestions.values().removeIf(ingestion -> ingestion.done.isDone() && now - ingestion.finishedNanos > retentionNanos);
+    }
+
+    private static final class Ingestion {
+        private final String id;
+        private final Long userId;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final long submittedNanos = System.nanoTime();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile IngestionStatus status = IngestionStatus.QUEUED;
+        private volatile SmsSubmissionResponse result;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+        private volatile long finishedNanos;
+        private long logSequence;
+
+        private Ingestion(String id, Long userId) {
+            this.id = id;
+            this.userId = userId;
+        }
+
+        private void finish(IngestionStatus finalStatus) {
+            completedAt = LocalDateTime.now();
+            finishedNanos = System.nanoTime();
+            status = finalStatus;
+            done.complete(null);
+        }
+
+        private SmsIngestionStatusDto toDto() {
+            return new SmsIngestionStatusDto(id, status, result, error, submittedAt, completedAt);
+        }
+    }
+}
@@ -3,144 +3,392 @@ package com.regexflow.backend.Service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.regexflow.backend.Dto.*;
+import com.regexflow.backend.Engine.FieldMatch;
+import com.regexflow.backend.Engine.MatchBudget;
+import com.regexflow.backend.Engine.MatchBudgetExceededException;
+import com.regexflow.backend.Engine.ShapeSignature;
 import com.regexflow.backend.Entity.RegexTemplate;
 import com.regexflow.backend.Entity.Sms;
 import com.regexflow.backend.Entity.TemplateRequestNotification;
 import com.regexflow.backend.Entity.Users;
+import com.regexflow.backend.Enums.ExtractableField;
 import com.regexflow.backend.Enums.NotificationStatus;
-import com.regexflow.backend.Enums.RegexTemplateStatus;
-import com.regexflow.backend.Repository.RegexTemplateRepository;
 import com.regexflow.backend.Repository.SmsRepository;
 import com.regexflow.backend.Repository.TemplateRequestNotificationRepository;
 import com.regexflow.backend.Repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Service
 public class SmsService {
+    private static final ExtractableField[] EXTRACTABLE_FIELDS = ExtractableField.values();
+
     private final SmsRepository smsRepository;
-    private final RegexTemplateRepository regexTemplateRepository;
     private final TemplateRequestNotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final RegexProcessService regexProcessService;
     private final ObjectMapper objectMapper;
+    private final MatchBudgetPolicy matchBudgetPolicy;
+    private final MatchingMetrics matchingMetrics;
+    private final TemplatePrefilter templatePrefilter;
+    private final FusedTemplateMatcher fusedTemplateMatcher;
+    private final CompiledPatternCache compiledPatternCache;
+    private final TemplateWinStats templateWinStats;
+    private final ShapeRoutingCache shapeRoutingCache;
+    private final VerifiedTemplateRegistry verifiedTemplateRegistry;
+    private final TemplateEvaluationPool templateEvaluationPool;
+    private final TemplateRequestCoalescer templateRequestCoalescer;
+    private final SmsDeduplicator smsDeduplicator;
+    private final ParseResultCache parseResultCache;
+    private final TransactionTemplate transactionTemplate;
 
     public SmsService(
             SmsRepository smsRepository,
-            RegexTemplateRepository regexTemplateRepository,
             TemplateRequestNotificationRepository notificationRepository,
             UserRepository userRepository,
             RegexProcessService regexProcessService,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            MatchBudgetPolicy matchBudgetPolicy,
+            MatchingMetrics matchingMetrics,
+            TemplatePrefilter templatePrefilter,
+            FusedTemplateMatcher fusedTemplateMatcher,
+            CompiledPatternCache compiledPatternCache,
+            TemplateWinStats templateWinStats,
+            ShapeRoutingCache shapeRoutingCache,
+            VerifiedTemplateRegistry verifiedTemplateRegistry,
+            TemplateEvaluationPool templateEvaluationPool,
+            TemplateRequestCoalescer templateRequestCoalescer,
+            SmsDeduplicator smsDeduplicator,
+            ParseResultCache parseResultCache,
+            PlatformTransactionManager transactionManager) {
         this.smsRepository = smsRepository;
-        this.regexTemplateRepository = regexTemplateRepository;
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
         this.regexProcessService = regexProcessService;
         this.objectMapper = objectMapper;
+        this.matchBudgetPolicy = matchBudgetPolicy;
+        this.matchingMetrics = matchingMetrics;
+        this.templatePrefilter = templatePrefilter;
+        this.fusedTemplateMatcher = fusedTemplateMatcher;
+        this.compiledPatternCache = compiledPatternCache;
+        this.templateWinStats = templateWinStats;
+        this.shapeRoutingCache = shapeRoutingCache;
+        this.verifiedTemplateRegistry = verifiedTemplateRegistry;
+        this.templateEvaluationPool = templateEvaluationPool;
+        this.templateRequestCoalescer = templateRequestCoalescer;
+        this.smsDeduplicator = smsDeduplicator;
+        this.parseResultCache = parseResultCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
+    /**
+     * Matches the SMS against its sender's VERIFIED templates and stores it.
+     *
+     * Runs in three phases so a database connection is only held for short reads and writes,
+     * never while regexes run: read (the user; templates come from memory), compute (matching and
+     * field extraction, outside any transaction) and write (the SMS in one short transaction, then,
+     * if makers must be notified, its count on the sender's template request in another).
+     * An SMS the user already submitted is not matched again: the stored result is returned.
+     */
     public SmsSubmissionResponse processSms(String smsText, Long userId) {
-        // Extract sender header (text before first colon)
-        String senderHeader = extractSenderHeader(smsText);
+        return processSms(smsText, userId, null);
+    }
+
+    /**
+     * Like {@link #processSms(String, Long)}; a repeated idempotency key returns the result of the
+     * SMS first submitted with it, whatever the text
+     */
+    public SmsSubmissionResponse processSms(String smsText, Long userId, String idempotencyKey) {
+        SmsSubmissionResponse duplicate = findRecentDuplicate(userId, smsText, idempotencyKey);
+        if (duplicate != null) {
+            return duplicate;
+        }
+        Users user = loadUser(userId);
+        Submission submission = evaluate(smsText, user);
+        submission.sms().setIdempotencyKey(idempotencyKey);
+        return store(List.of(submission)).get(0);
+    }
+    
+    /**
+     * Processes several SMS of one user like {@link #processSms}, returning their results in input
+     * order. SMS are grouped by sender header so each sender's templates are looked up once, and
+     * all SMS are inserted in one write transaction, in JDBC batches; unmatched SMS of the same
+     * sender and shape then add to one template request.
+     */
+    public List<SmsSubmissionResponse> processSmsBatch(List<String> smsTexts, Long userId) {
+        if (smsTexts == null || smsTexts.isEmpty()) {
+            throw new RuntimeException("At least one SMS is required");
+        }
         
-        // Find user
-        Users user = userRepository.findById(userId)
+        Users user = loadUser(userId);
+        
+        // Input positions of each sender's SMS, senders in order of first appearance
+        Map<String, List<Integer>> positionsBySender = new LinkedHashMap<>();
+        for (int i = 0; i < smsTexts.size(); i++) {
+            positionsBySender.computeIfAbsent(extractSenderHeader(smsTexts.get(i)), key -> new ArrayList<>()).add(i);
+        }
+        
+        // SMS already stored, and repeats within the batch, are answered without matching them again
+        SmsSubmissionResponse[] responses = new SmsSubmissionResponse[smsTexts.size()];
+        Map<String, Integer> firstPositionByHash = new HashMap<>();
+        int[] firstPosition = new int[smsTexts.size()];
+        List<Integer> storedPositions = new ArrayList<>();
+        List<Submission> submissions = new ArrayList<>();
+        positionsBySender.forEach((senderHeader, positions) -> {
+            List<RegexTemplate> templates = verifiedTemplateRegistry.templates(senderHeader);
+            for (int position : positions) {
+                String smsText = smsTexts.get(position);
+                firstPosition[position] = firstPositionByHash.computeIfAbsent(
+                    SmsDeduplicator.contentHash(senderHeader, smsText), hash -> position);
+                if (firstPosition[position] != position) {
+                    continue;
+                }
+                responses[position] = findRecentDuplicate(userId, smsText, null);
+                if (responses[position] == null) {
+                    storedPositions.add(position);
+                    submissions.add(evaluate(smsText, senderHeader, templates, user));
+                }
+            }
+        });
+        List<SmsSubmissionResponse> stored = submissions.isEmpty() ? List.of() : store(submissions);
+        for (int i = 0; i < stored.size(); i++) {
+            responses[storedPositions.get(i)] = stored.get(i);
+        }
+        for (int position = 0; position < responses.length; position++) {
+            if (responses[position] == null) {
+                responses[position] = asDuplicate(responses[firstPosition[position]]);
+            }
+        }
+        return Arrays.asList(responses);
+    }
+    
+    /**
+     * Read phase: the submitting user
+     */
+    Users loadUser(Long userId) {
+        return userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+    }
+    
+    /**
+     * Compute phase for one SMS: looks up its sender's templates (from memory) and evaluates it
+     */
+    Submission evaluate(String smsText, Users user) {
+        // Extract sender header (text before first colon)
+        String senderHeader = extractSenderHeader(smsText);
         
-        // Find all VERIFIED templates with matching sender header
-        List<RegexTemplate> templates = regexTemplateRepository.findBySenderHeaderAndStatus(
-            senderHeader, RegexTemplateStatus.VERIFIED);
+        // All VERIFIED templates with matching sender header, from memory
+        List<RegexTemplate> templates = verifiedTemplateRegistry.templates(senderHeader);
         
+        return evaluate(smsText, senderHeader, templates, user);
+    }
+    
+    /**
+     * Compute phase: finds the best template for the SMS and prepares the entity to store and the
+     * response to return, without touching the database
+     */
+    private Submission evaluate(String smsText, String senderHeader, List<RegexTemplate> templates, Users user) {
         Sms sms = new Sms();
         sms.setSmsText(smsText);
         sms.setSenderHeader(senderHeader);
         sms.setUser(user);
+        sms.setContentHash(SmsDeduplicator.contentHash(senderHeader, smsText));
         
         SmsSubmissionResponse response = new SmsSubmissionResponse();
         
         if (templates.isEmpty()) {
             // No templates found - store SMS without template and create notification
-            Sms savedSms = smsRepository.save(sms);
-            
-            // Create notification for makers
-            TemplateRequestNotification notification = new TemplateRequestNotification();
-            notification.setSms(savedSms);
-            notification.setSmsText(smsText);
-            notification.setSenderHeader(senderHeader);
-            notification.setRequestedBy(user);
-            notification.setStatus(NotificationStatus.PENDING);
-            notificationRepository.save(notification);
-            
-            response.setSmsId(savedSms.getSmsId());
-            response.setSmsText(savedSms.getSmsText());
             response.setHasMatch(false);
             response.setMessage("No available template for sender: " + senderHeader + ". Maker has been notified.");
-            response.setCreatedAt(savedSms.getCreatedAt());
-            return response;
+            return new Submission(sms, true, response);
+        }
+        
+        matchingMetrics.recordSmsProcessed();
+        
+        // The same text was matched before against this very template set: take its result
+        ParseResultCache.Result cached = parseResultCache.get(senderHeader, smsText, templates);
+        if (cached != null) {
+            if (cached.template() != null) {
+                templateWinStats.recordWin(senderHeader, cached.template().getTemplateId());
+            }
+            response.setMatchBudgetExceeded(false);
+            return toSubmission(sms, response, smsText, cached.template(), cached.match());
         }
         
         // Try each template pattern against SMS and find best match
         RegexTemplate bestTemplate = null;
-        RegexProcessResponse bestMatchResponse = null;
+        FieldMatch bestMatch = null;
         int maxFieldsCount = 0;
         
-        for (RegexTemplate template : templates) {
+        // Every template gets a step/time budget, and all of them share one deadline for this SMS
+        MatchBudget budget = matchBudgetPolicy.startSms();
+        boolean budgetExceeded = false;
+        
+        // Only templates whose fixed text (e.g. "debited from") all occurs in the SMS can match
+        List<RegexTemplate> candidates = templatePrefilter.candidates(senderHeader, templates, smsText);
+        matchingMetrics.recordTemplatesSkippedByPrefilter(templates.size() - candidates.size());
+        
+        // Templates that can extract the most fields go first, and among those the ones that usually
+        // win. The best match is the one with the most fields, then the lowest template id, whatever
+        // order templates are tried in; once the next template (and the rest of its tier) could at
+        // best tie with a lower-id best match, no remaining template can beat it.
+        List<RankedTemplate> ranked = rankCandidates(senderHeader, candidates);
+        long[] lowestIdLeftInTier = lowestIdLeftInTier(ranked);
+        
+        // An SMS shaped like one seen before (same text with other numbers and names) is first
+        // matched against the template that won for that shape, and that match is the best so far:
+        // the field bound below then stops matching as soon as no other template could beat it.
+        String shape = ShapeSignature.of(smsText);
+        ShapeRoutingCache.Route route = shapeRoutingCache.get(senderHeader, shape);
+        int routedIndex = route != null ? indexOf(ranked, route.templateId()) : -1;
+        RegexTemplate routedTemplate = routedIndex >= 0 ? ranked.get(routedIndex).template() : null;
+        FieldMatch routedMatch = null;
+        if (routedTemplate != null) {
             try {
-                RegexProcessRequest request = new RegexProcessRequest();
-                request.setRegexPattern(template.getPattern());
-                request.setRawMsg(smsText);
-                request.setSmsType(template.getSmsType());
-                request.setPaymentType(template.getPaymentType());
-                request.setTransactionType(template.getTransactionType());
-                
-                RegexProcessResponse matchResponse = regexProcessService.processRegex(request);
+                routedMatch = evaluateTemplate(routedTemplate, senderHeader, smsText, budget, Map.of(), null);
+                if (routedMatch.getFieldCount() > 0) {
+                    bestTemplate = routedTemplate;
+                    bestMatch = routedMatch;
+                    maxFieldsCount = routedMatch.getFieldCount();
+                }
+            } catch (MatchBudgetExceededException e) {
+                matchingMetrics.recordBudgetExceeded(e.getReason());
+                budgetExceeded = true;
+            }
+        }
+        
+        // Nothing to scan or start when the routed match already settles it
+        boolean settled = ranked.isEmpty() || boundReached(ranked, lowestIdLeftInTier, 0, maxFieldsCount, bestTemplate);
+        Map<Long, FieldMatch> fusedMatches = Map.of();
+        List<CompletableFuture<FieldMatch>> started = null;
+        if (!settled) {
+            // Linear-time candidates are matched together in one scan of the SMS; the rest one by one
+            try {
+                fusedMatches = fusedTemplateMatcher.match(senderHeader, templates, candidates, smsText, budget);
+            } catch (MatchBudgetExceededException e) {
+                // Fall back to the per-template loop, where each template gets its own budget
+                matchingMetrics.recordBudgetExceeded(e.getReason());
+                budgetExceeded = true;
+            }
+            
+            // With many templates left to match one by one, they may all be started at once on the
+            // shared pool. Their results are still taken in ranked order with the same stopping
+            // rules, so the best match is the one the serial loop finds.
+            started = startInParallel(ranked, routedTemplate, routedMatch, fusedMatches, smsText, budget);
+        }
+        int consumed = 0;
+        for (int i = 0; i < ranked.size(); i++) {
+            RegexTemplate template = ranked.get(i).template();
+            if (boundReached(ranked, lowestIdLeftInTier, i, maxFieldsCount, bestTemplate)) {
+                // The routed template, if still ahead, was matched already rather than skipped
+                matchingMetrics.recordTemplatesSkippedByFieldBound(ranked.size() - i - (routedIndex >= i ? 1 : 0));
+                break;
+            }
+            if (maxFieldsCount == ranked.get(i).declaredFieldCount() && tieOrder(template) > tieOrder(bestTemplate)) {
+                // Could at best tie, and the best match has the lower id
+                if (i != routedIndex) {
+                    matchingMetrics.recordTemplatesSkippedByFieldBound(1);
+                }
+                if (started != null) {
+                    templateEvaluationPool.cancelUnused(started.subList(i, i + 1), 0);
+                    // Handled: the final cancelUnused below must not count it again
+                    started.set(i, null);
+                }
+                continue;
+            }
+            if (budget.isSmsDeadlinePassed()) {
+                matchingMetrics.recordBudgetExceeded(MatchBudgetExceededException.Reason.SMS_DEADLINE);
+                budgetExceeded = true;
+                break;
+            }
+            consumed = i + 1;
+            try {
+                // The routed template was already matched above
+                FieldMatch match = template == routedTemplate && routedMatch != null
+                    ? routedMatch
+                    : evaluateTemplate(template, senderHeader, smsText, budget, fusedMatches,
+                        started != null ? started.get(i) : null);
                 
-                // Count non-null extracted fields
-                int fieldsCount = countExtractedFields(matchResponse);
+                // Count extracted fields; values are only copied out for the best match.
+                // More fields wins, and on a tie the lower template id.
+                int fieldsCount = match.getFieldCount();
                 
-                if (fieldsCount > maxFieldsCount) {
+                if (fieldsCount > maxFieldsCount
+                        || (fieldsCount > 0 && fieldsCount == maxFieldsCount && tieOrder(template) < tieOrder(bestTemplate))) {
                     maxFieldsCount = fieldsCount;
                     bestTemplate = template;
-                    bestMatchResponse = matchResponse;
+                    bestMatch = match;
+                }
+            } catch (MatchBudgetExceededException e) {
+                // Too expensive for this SMS: skip the template, and stop once the SMS deadline is gone
+                matchingMetrics.recordBudgetExceeded(e.getReason());
+                budgetExceeded = true;
+                if (e.getReason() == MatchBudgetExceededException.Reason.SMS_DEADLINE) {
+                    break;
                 }
-            } catch (Exception e) {
-                // Skip this template if pattern matching fails
-                continue;
             }
         }
+        if (started != null) {
+            templateEvaluationPool.cancelUnused(started, consumed);
+        }
+        if (routedTemplate != null) {
+            shapeRoutingCache.recordConfirmation(bestTemplate == routedTemplate);
+        }
+        if (bestTemplate != null && maxFieldsCount > 0 && bestTemplate != routedTemplate) {
+            shapeRoutingCache.put(senderHeader, shape, bestTemplate.getTemplateId());
+        }
+        if (budgetExceeded) {
+            matchingMetrics.recordSmsWithBudgetExceeded();
+        }
+        if (bestTemplate != null) {
+            templateWinStats.recordWin(senderHeader, bestTemplate.getTemplateId());
+        }
+        response.setMatchBudgetExceeded(budgetExceeded);
+        
+        if ((bestTemplate == null || maxFieldsCount == 0) && budgetExceeded) {
+            // Matching was cut short, so "no template matched" is not known. Store the SMS
+            // without raising a template request; the budget counters record what happened.
+            response.setHasMatch(false);
+            response.setMessage("Matching stopped before a template matched: regex time budget exceeded.");
+            return new Submission(sms, false, response);
+        }
         
         if (bestTemplate == null || maxFieldsCount == 0) {
+            bestTemplate = null;
+        }
+        if (!budgetExceeded) {
+            // Every template that could win was matched, so the result holds for this text and set
+            parseResultCache.put(senderHeader, smsText, templates, bestTemplate, bestMatch);
+        }
+        return toSubmission(sms, response, smsText, bestTemplate, bestMatch);
+    }
+    
+    /**
+     * The entity to store and the response for an SMS whose best match is known; a null template
+     * means no template matched
+     */
+    private Submission toSubmission(Sms sms, SmsSubmissionResponse response, String smsText,
+                                    RegexTemplate bestTemplate, FieldMatch bestMatch) {
+        if (bestTemplate == null) {
             // No template matched - store SMS without template and create notification
-            Sms savedSms = smsRepository.save(sms);
-            
-            // Create notification for makers
-            TemplateRequestNotification notification = new TemplateRequestNotification();
-            notification.setSms(savedSms);
-            notification.setSmsText(smsText);
-            notification.setSenderHeader(senderHeader);
-            notification.setRequestedBy(user);
-            notification.setStatus(NotificationStatus.PENDING);
-            notificationRepository.save(notification);
-            
-            response.setSmsId(savedSms.getSmsId());
-            response.setSmsText(savedSms.getSmsText());
             response.setHasMatch(false);
             response.setMessage("No template matched the SMS pattern. Maker has been notified.");
-            response.setCreatedAt(savedSms.getCreatedAt());
-            return response;
+            return new Submission(sms, true, response);
         }
         
         // Store SMS with matched template
         sms.setMatchedTemplate(bestTemplate);
         
-        // Convert RegexProcessResponse to ExtractedFieldsDto
-        ExtractedFieldsDto extractedFields = convertToExtractedFieldsDto(bestMatchResponse, smsText, bestTemplate.getSmsType());
+        // Convert the best match to ExtractedFieldsDto
+        ExtractedFieldsDto extractedFields = convertToExtractedFieldsDto(bestMatch, smsText, bestTemplate.getSmsType());
         
         // Store extracted fields as JSON
         try {
@@ -151,67 +399,302 @@ public class SmsService {
             sms.setExtractedFields("{}");
         }
         
-        Sms savedSms = smsRepository.save(sms);
-        
-        response.setSmsId(savedSms.getSmsId());
-        response.setSmsText(savedSms.getSmsText());
         response.setHasMatch(true);
         response.setMatchedTemplateId(bestTemplate.getTemplateId());
         response.setMatchedTemplateSenderHeader(bestTemplate.getSenderHeader());
         response.setExtractedFields(extractedFields);
         response.setMessage("Template matched successfully");
-        response.setCreatedAt(savedSms.getCreatedAt());
-        
-        return response;
+        return new Submission(sms, false, response);
     }
     
+    
     public List<SmsSubmissionResponse> getSmsHistory(Long userId) {
         Users user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         
         List<Sms> smsList = smsRepository.findByUserOrderByCreatedAtDesc(user);
         
-        return smsList.stream().map(sms -> {
-            SmsSubmissionResponse response = new SmsSubmissionResponse();
-            response.setSmsId(sms.getSmsId());
-            response.setSmsText(sms.getSmsText());
-            response.setHasMatch(sms.getMatchedTemplate() != null);
-            response.setCreatedAt(sms.getCreatedAt());
+        return smsList.stream().map(this::toResponse).collect(Collectors.toList());
+    }
+    
+    /**
+     * The response for a stored SMS, with its extracted fields read back from their JSON
+     */
+    private SmsSubmissionResponse toResponse(Sms sms) {
+        SmsSubmissionResponse response = new SmsSubmissionResponse();
+        response.setSmsId(sms.getSmsId());
+        response.setSmsText(sms.getSmsText());
+        response.setHasMatch(sms.getMatchedTemplate() != null);
+        response.setCreatedAt(sms.getCreatedAt());
+        
+        if (sms.getMatchedTemplate() != null) {
+            response.setMatchedTemplateId(sms.getMatchedTemplate().getTemplateId());
+            response.setMatchedTemplateSenderHeader(sms.getMatchedTemplate().getSenderHeader());
             
-            if (sms.getMatchedTemplate() != null) {
-                response.setMatchedTemplateId(sms.getMatchedTemplate().getTemplateId());
-                response.setMatchedTemplateSenderHeader(sms.getMatchedTemplate().getSenderHeader());
-                
-                // Parse extracted fields from JSON
-                if (sms.getExtractedFields() != null && !sms.getExtractedFields().isEmpty()) {
-                    try {
-                        Map<String, String> fieldsMap = objectMapper.readValue(
-                            sms.getExtractedFields(), 
-                            objectMapper.getTypeFactory().constructMapType(Map.class, String.class, String.class)
-                        );
-                        ExtractedFieldsDto extractedFields = new ExtractedFieldsDto();
-                        extractedFields.setFields(fieldsMap);
-                        extractedFields.setAmount(fieldsMap.get("amount"));
-                        extractedFields.setDate(fieldsMap.get("date"));
-                        extractedFields.setMerchant(fieldsMap.get("merchant"));
-                        extractedFields.setBalance(fieldsMap.get("balance"));
-                        
-                        // Set smsType from the matched template (most reliable)
-                        if (sms.getMatchedTemplate().getSmsType() != null) {
-                            extractedFields.setSmsType(sms.getMatchedTemplate().getSmsType().name());
-                            extractedFields.setTransactionType(sms.getMatchedTemplate().getSmsType().name());
-                        }
-                        
-                        response.setExtractedFields(extractedFields);
-                    } catch (JsonProcessingException e) {
-                        // If parsing fails, set empty extracted fields
-                        response.setExtractedFields(new ExtractedFieldsDto());
+            // Parse extracted fields from JSON
+            if (sms.getExtractedFields() != null && !sms.getExtractedFields().isEmpty()) {
+                try {
+                    Map<String, String> fieldsMap = objectMapper.readValue(
+                        sms.getExtractedFields(), 
+                        objectMapper.getTypeFactory().constructMapType(Map.class, String.class, String.class)
+                    );
+                    ExtractedFieldsDto extractedFields = new ExtractedFieldsDto();
+                    extractedFields.setFields(fieldsMap);
+                    extractedFields.setAmount(fieldsMap.get("amount"));
+                    extractedFields.setDate(fieldsMap.get("date"));
+                    extractedFields.setMerchant(fieldsMap.get("merchant"));
+                    extractedFields.setBalance(fieldsMap.get("balance"));
+                    
+                    // Set smsType from the matched template (most reliable)
+                    if (sms.getMatchedTemplate().getSmsType() != null) {
+                        extractedFields.setSmsType(sms.getMatchedTemplate().getSmsType().name());
+                        extractedFields.setTransactionType(sms.getMatchedTemplate().getSmsType().name());
                     }
+                    
+                    response.setExtractedFields(extractedFields);
+                } catch (JsonProcessingException e) {
+                    // If parsing fails, set empty extracted fields
+                    response.setExtractedFields(new ExtractedFieldsDto());
                 }
             }
-            
-            return response;
-        }).collect(Collectors.toList());
+        }
+        
+        return response;
+    }
+    
+    /**
+     * Write phase: inserts the SMS in one short transaction and completes their responses with the
+     * stored ids, then records those that ask makers for a template on their sender's open
+     * template request.
+     * An SMS the user already stored (same content hash or idempotency key) is not inserted again;
+     * its response is the stored SMS's.
+     */
+    List<SmsSubmissionResponse> store(List<Submission> submissions) {
+        List<Sms> saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                List<Sms> rows = new ArrayList<>(submissions.size());
+                for (Submission submission : submissions) {
+                    rows.add(smsRepository.save(submission.sms()));
+                }
+                return rows;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A duplicate the recent set did not know, e.g. stored by another node: the unique
+            // index rejected it. Stores the others and answers each duplicate with its original.
+            if (submissions.size() > 1) {
+                List<SmsSubmissionResponse> responses = new ArrayList<>(submissions.size());
+                for (Submission submission : submissions) {
+                    // The rolled-back insert left its sequence id on the entity; new again
+                    submission.sms().setSmsId(null);
+                    responses.addAll(store(List.of(submission)));
+                }
+                return responses;
+            }
+            SmsSubmissionResponse original = findStoredDuplicate(submissions.get(0).sms());
+            if (original == null) {
+                throw e;
+            }
+            smsDeduplicator.recordIndexHit();
+            return List.of(original);
+        }
+
+        List<SmsSubmissionResponse> responses = new ArrayList<>(submissions.size());
+        List<Sms> unmatched = new ArrayList<>();
+        for (int i = 0; i < submissions.size(); i++) {
+            Submission submission = submissions.get(i);
+            Sms savedSms = saved.get(i);
+            if (submission.notifyMakers()) {
+                unmatched.add(savedSms);
+            }
+            smsDeduplicator.remember(submission.sms().getUser().getUId(), submission.sms().getContentHash(),
+                submission.sms().getIdempotencyKey(), savedSms.getSmsId());
+            SmsSubmissionResponse response = submission.response();
+            response.setSmsId(savedSms.getSmsId());
+            response.setSmsText(savedSms.getSmsText());
+            response.setCreatedAt(savedSms.getCreatedAt());
+            responses.add(response);
+        }
+        if (!unmatched.isEmpty()) {
+            templateRequestCoalescer.record(unmatched);
+        }
+        return responses;
+    }
+
+    /**
+     * The stored result of an SMS the user recently submitted (by idempotency key or content), or null
+     */
+    SmsSubmissionResponse findRecentDuplicate(Long userId, String smsText, String idempotencyKey) {
+        String contentHash = SmsDeduplicator.contentHash(extractSenderHeader(smsText), smsText);
+        Long smsId = smsDeduplicator.recentSmsId(userId, contentHash, idempotencyKey);
+        if (smsId == null) {
+            return null;
+        }
+        return smsRepository.findById(smsId).map(sms -> asDuplicate(toResponse(sms))).orElse(null);
+    }
+
+    /**
+     * The stored result of the SMS the unique index found this one to repeat, or null
+     */
+    private SmsSubmissionResponse findStoredDuplicate(Sms sms) {
+        Long userId = sms.getUser().getUId();
+        Optional<Sms> original = sms.getIdempotencyKey() != null
+            ? smsRepository.findByUserIdAndIdempotencyKey(userId, sms.getIdempotencyKey())
+            : Optional.empty();
+        if (original.isEmpty()) {
+            original = smsRepository.findByUserIdAndContentHash(userId, sms.getContentHash());
+        }
+        return original.map(stored -> {
+            smsDeduplicator.remember(userId, sms.getContentHash(), sms.getIdempotencyKey(), stored.getSmsId());
+            return asDuplicate(toResponse(stored));
+        }).orElse(null);
+    }
+
+    private static SmsSubmissionResponse asDuplicate(SmsSubmissionResponse original) {
+        SmsSubmissionResponse response = new SmsSubmissionResponse(original.getSmsId(), original.getSmsText(),
+            original.getHasMatch(), original.getMatchedTemplateId(), original.getMatchedTemplateSenderHeader(),
+            original.getExtractedFields(), original.getMessage(), original.getMatchBudgetExceeded(),
+            original.getCreatedAt(), true);
+        response.setMessage("SMS already submitted; this is the result stored for it.");
+        return response;
+    }
+
+    /**
+     * Matches one template against the SMS, taking its result from the fused scan if it has one,
+     * or from its parallel task if it was started on the pool (null if not).
+     * A template whose pattern cannot be matched at all counts as not matching.
+     */
+    private FieldMatch evaluateTemplate(RegexTemplate template, String senderHeader, String smsText,
+                                        MatchBudget budget, Map<Long, FieldMatch> fusedMatches,
+                                        CompletableFuture<FieldMatch> started) {
+        matchingMetrics.recordTemplateTried();
+        templateWinStats.recordAttempt(senderHeader, template.getTemplateId());
+        FieldMatch match = fusedMatches.get(template.getTemplateId());
+        if (match != null) {
+            return match;
+        }
+        if (started != null) {
+            try {
+                return started.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof MatchBudgetExceededException exceeded) {
+                    throw exceeded;
+                }
+                return FieldMatch.none();
+            }
+        }
+        return matchTemplate(template, smsText, budget);
+    }
+
+    /**
+     * Starts every template the ranked loop may match one by one on the shared pool, if there
+     * are enough of them; returns the tasks by rank (null where a template is not matched one by
+     * one), or null to match serially
+     */
+    private List<CompletableFuture<FieldMatch>> startInParallel(List<RankedTemplate> ranked, RegexTemplate routedTemplate,
+                                                                FieldMatch routedMatch, Map<Long, FieldMatch> fusedMatches,
+                                                                String smsText, MatchBudget budget) {
+        List<RegexTemplate> oneByOne = new ArrayList<>(ranked.size());
+        for (RankedTemplate candidate : ranked) {
+            RegexTemplate template = candidate.template();
+            boolean alreadyMatched = (template == routedTemplate && routedMatch != null)
+                || fusedMatches.containsKey(template.getTemplateId());
+            // A template declaring no fields ends the loop before it is tried
+            oneByOne.add(alreadyMatched || candidate.declaredFieldCount() == 0 ? null : template);
+        }
+        if (!templateEvaluationPool.shouldFanOut((int) oneByOne.stream().filter(Objects::nonNull).count())) {
+            return null;
+        }
+        templateEvaluationPool.recordFanOut();
+        List<CompletableFuture<FieldMatch>> started = new ArrayList<>(oneByOne.size());
+        for (RegexTemplate template : oneByOne) {
+            started.add(template == null ? null : templateEvaluationPool.submit(() -> matchTemplate(template, smsText, budget)));
+        }
+        return started;
+    }
+
+    private FieldMatch matchTemplate(RegexTemplate template, String smsText, MatchBudget budget) {
+        try {
+            long start = System.nanoTime();
+            FieldMatch match = regexProcessService.processTemplate(template, smsText, budget);
+            matchingMetrics.recordTemplateMatchNanos(System.nanoTime() - start);
+            return match;
+        } catch (MatchBudgetExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            return FieldMatch.none();
+        }
+    }
+
+    private static int indexOf(List<RankedTemplate> ranked, Long templateId) {
+        for (int i = 0; i < ranked.size(); i++) {
+            Long id = ranked.get(i).template().getTemplateId();
+            if (id != null && id.equals(templateId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether no template from ranked position i on can beat the best match: it has more fields
+     * than they declare, or as many and a lower id than every one of them declaring as many
+     */
+    private static boolean boundReached(List<RankedTemplate> ranked, long[] lowestIdLeftInTier, int i,
+                                        int maxFieldsCount, RegexTemplate bestTemplate) {
+        int bound = ranked.get(i).declaredFieldCount();
+        return bound == 0 || maxFieldsCount > bound
+            || (maxFieldsCount == bound && tieOrder(bestTemplate) <= lowestIdLeftInTier[i]);
+    }
+
+    /**
+     * Orders templates for trying by the number of known fields they declare, most first, which
+     * is the most fields a match can extract. Among those, templates with more recent wins for the
+     * sender ({@link TemplateWinStats}) go first, so the early exit tends to come sooner; then the
+     * lower template id. This order only decides how soon matching stops, never which template
+     * wins: that is the most fields, then the lowest template id, on every node.
+     */
+    private List<RankedTemplate> rankCandidates(String senderHeader, List<RegexTemplate> templates) {
+        return templates.stream()
+            .map(template -> new RankedTemplate(template, declaredFieldCount(template),
+                templateWinStats.score(senderHeader, template.getTemplateId())))
+            .sorted(Comparator.comparingInt(RankedTemplate::declaredFieldCount)
+                .thenComparingDouble(RankedTemplate::winScore)
+                .reversed()
+                .thenComparing(ranked -> ranked.template().getTemplateId(), Comparator.nullsLast(Comparator.naturalOrder())))
+            .toList();
+    }
+
+    /**
+     * For each ranked position, the lowest template id (see {@link #tieOrder}) from there to the
+     * end of its tier of templates declaring as many fields
+     */
+    private static long[] lowestIdLeftInTier(List<RankedTemplate> ranked) {
+        long[] lowest = new long[ranked.size()];
+        for (int i = ranked.size() - 1; i >= 0; i--) {
+            long id = tieOrder(ranked.get(i).template());
+            boolean sameTierNext = i + 1 < ranked.size()
+                && ranked.get(i + 1).declaredFieldCount() == ranked.get(i).declaredFieldCount();
+            lowest[i] = sameTierNext ? Math.min(id, lowest[i + 1]) : id;
+        }
+        return lowest;
+    }
+
+    /**
+     * The key that breaks ties between matches with as many fields: lower template id first,
+     * templates without an id last
+     */
+    private static long tieOrder(RegexTemplate template) {
+        return template == null || template.getTemplateId() == null ? Long.MAX_VALUE : template.getTemplateId();
+    }
+
+    private int declaredFieldCount(RegexTemplate template) {
+        try {
+            return compiledPatternCache.get(template).getDeclaredFieldCount();
+        } catch (Exception e) {
+            // Invalid pattern: it cannot match, so it never needs to be tried
+            return 0;
+        }
     }
     
     private String extractSenderHeader(String smsText) {
@@ -229,30 +712,9 @@ public class SmsService {
         return words.length > 0 ? words[0] : "";
     }
     
-    private int countExtractedFields(RegexProcessResponse response) {
-        int count = 0;
-        try {
-            Field[] fields = RegexProcessResponse.class.getDeclaredFields();
-            for (Field field : fields) {
-                field.setAccessible(true);
-                Object value = field.get(response);
-                if (value instanceof FieldResult) {
-                    FieldResult fieldResult = (FieldResult) value;
-                    if (fieldResult.getValue() != null && fieldResult.getIndex() >= 0) {
-                        count++;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            // If reflection fails, return 0
-            return 0;
-        }
-        return count;
-    }
-    
     public List<TemplateRequestNotificationDto> getPendingNotifications() {
         List<TemplateRequestNotification> notifications = notificationRepository
-            .findByStatusOrderByCreatedAtDesc(NotificationStatus.PENDING);
+            .findByStatusOrderByLastSeenAtDesc(NotificationStatus.PENDING);
         
         return notifications.stream().map(notification -> {
             TemplateRequestNotificationDto dto = new TemplateRequestNotificationDto();
@@ -265,6 +727,13 @@ public class SmsService {
             dto.setStatus(notification.getStatus());
             dto.setCreatedAt(notification.getCreatedAt());
             dto.setResolvedAt(notification.getResolvedAt());
+            // Requests stored before coalescing stand for their one SMS
+            dto.setOccurrenceCount(notification.getOccurrenceCount() != null ? notification.getOccurrenceCount() : 1L);
+            dto.setFirstSeenAt(notification.getFirstSeenAt() != null ? notification.getFirstSeenAt() : notification.getCreatedAt());
+            dto.setLastSeenAt(notification.getLastSeenAt() != null ? notification.getLastSeenAt() : notification.getCreatedAt());
+            dto.setSampleSmsIds(notification.getSampleSmsIds() != null && !notification.getSampleSmsIds().isEmpty()
+                ? Arrays.stream(notification.getSampleSmsIds().split(",")).map(Long::valueOf).collect(Collectors.toList())
+                : List.of(notification.getSms().getSmsId()));
             return dto;
         }).collect(Collectors.toList());
     }
@@ -276,35 +745,23 @@ public class SmsService {
         
         notification.setStatus(NotificationStatus.RESOLVED);
         notification.setResolvedAt(java.time.LocalDateTime.now());
+        // Frees the key, so the sender's next unmatched SMS of this shape opens a new request
+        notification.setCoalesceKey(null);
         notificationRepository.save(notification);
     }
     
-    private ExtractedFieldsDto convertToExtractedFieldsDto(RegexProcessResponse response, String smsText, com.regexflow.backend.Enums.SmsType templateSmsType) {
+    private ExtractedFieldsDto convertToExtractedFieldsDto(FieldMatch match, String smsText, com.regexflow.backend.Enums.SmsType templateSmsType) {
         ExtractedFieldsDto dto = new ExtractedFieldsDto();
-        Map<String, String> fieldsMap = new HashMap<>();
+        // Ordinal order, so stored JSON lists fields in schema order
+        Map<String, String> fieldsMap = new LinkedHashMap<>();
         
         try {
-            Field[] fields = RegexProcessResponse.class.getDeclaredFields();
-            for (Field field : fields) {
-                field.setAccessible(true);
-                Object value = field.get(response);
-                if (value instanceof FieldResult) {
-                    FieldResult fieldResult = (FieldResult) value;
-                    if (fieldResult.getValue() != null && fieldResult.getIndex() >= 0) {
-                        String fieldName = field.getName();
-                        fieldsMap.put(fieldName, fieldResult.getValue());
-                        
-                        // Set common fields for easy access
-                        if ("amount".equals(fieldName)) {
-                            dto.setAmount(fieldResult.getValue());
-                        } else if ("date".equals(fieldName)) {
-                            dto.setDate(fieldResult.getValue());
-                        } else if ("merchant".equals(fieldName)) {
-                            dto.setMerchant(fieldResult.getValue());
-                        } else if ("balance".equals(fieldName)) {
-                            dto.setBalance(fieldResult.getValue());
-                        }
-                    }
+            for (ExtractableField field : EXTRACTABLE_FIELDS) {
+                String value = match.getValue(field);
+                if (value != null) {
+                    fieldsMap.put(field.getGroupName(), value);
+                    // Set common fields for easy access
+                    field.summarize(dto, value);
                 }
             }
             
@@ -316,7 +773,7 @@ public class SmsService {
                 transactionType = templateSmsType.name(); // DEBIT, CREDIT, LOAN, or SERVICE
             }
             // Fallback: Check for amountNegative field (indicates debit)
-            else if (fieldsMap.containsKey("amountNegative") && fieldsMap.get("amountNegative") != null) {
+            else if (match.has(ExtractableField.AMOUNT_NEGATIVE)) {
                 transactionType = "DEBIT";
             } 
             // Fallback: Check SMS text for keywords (case-insensitive)
@@ -370,4 +827,13 @@ public class SmsService {
         dto.setFields(fieldsMap);
         return dto;
     }
+
+    /**
+     * An evaluated SMS waiting for the write phase
+     */
+    record Submission(Sms sms, boolean notifyMakers, SmsSubmissionResponse response) {
+    }
+
+    private record RankedTemplate(RegexTemplate template, int declaredFieldCount, double winScore) {
+    }
 }
@@ -0,0 +1,481 @@
+package com.regexflow.backend.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log on local disk of SMS accepted for asynchronous processing, so that an SMS
+ * acknowledged with 202 survives a crash or deploy before it reaches the database.
+ *
+ * {@link #append} returns once the SMS is on disk (fsync). Appends are written by one writer
+ * thread: everything that arrived while the previous fsync ran is written and forced together
+ * (group commit), so concurrent submitters share one fsync. When the SMS has been stored,
+ * {@link #markDone} appends a marker for it. At startup the log is read back and every SMS
+ * without a marker is handed out once by {@link #drainRecovered} to be processed again.
+ *
+ * The log is a series of segment files of about {@code segment-size-mb}. A checkpoint deletes
+ * every closed segment whose SMS are all done. Each record is {@code [length][crc32][payload]};
+ * a record cut short by a crash fails its length or checksum and the log is truncated there.
+ * A group whose write or fsync fails is cut off the segment before anything else is written, so
+ * no acknowledged SMS ever follows a torn record.
+ */
+@Component
+public class SmsWriteAheadLog {
+
+    static final byte ACCEPTED = 1;
+    static final byte DONE = 2;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{10})\\.log");
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int MAX_PAYLOAD_BYTES = 1 << 20;
+    private static final int MAX_GROUP_SIZE = 1024;
+
+    private final Path directory;
+    private final long segmentSizeBytes;
+    private final boolean enabled;
+
+    private final BlockingQueue<PendingRecord> pending = new LinkedBlockingQueue<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<Long> notDone = new ConcurrentSkipListSet<>();
+    private volatile List<LoggedSms> recovered = List.of();
+    private volatile boolean running;
+    private Thread writer;
+    // Guards open, close and the recovered list; open and close do file IO and wait for the writer
+    private final ReentrantLock lifecycleLock = new ReentrantLock();
+
+    // Written by the writer thread only (and by open before it starts)
+    private volatile Segment active;
+    private long nextSequence = 1;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder groupCommits = new LongAdder();
+    private final LongAdder groupedRecords = new LongAdder();
+    private final LongAdder fsyncNanos = new LongAdder();
+    private final LongAccumulator maxFsyncNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder segmentsDeleted = new LongAdder();
+    private final LongAdder truncatedBytes = new LongAdder();
+
+    @Autowired
+    public SmsWriteAheadLog(
+            @Value("${regexflow.sms.wal.enabled:true}") boolean enabled,
+            @Value("${regexflow.sms.wal.dir:./sms-wal}") String directory,
+            @Value("${regexflow.sms.wal.segment-size-mb:64}") long segmentSizeMb) {
+        this(enabled, Paths.get(directory), segmentSizeMb * 1024 * 1024);
+    }
+
+    SmsWriteAheadLog(boolean enabled, Path directory, long segmentSizeBytes) {
+        if (segmentSizeBytes <= 0) {
+            throw new IllegalArgumentException("Write-ahead log segment size must be positive");
+        }
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSizeBytes = segmentSizeBytes;
+    }
+
+    /**
+     * Reads back the existing segments, then starts a new segment and the writer thread
+     */
+    @PostConstruct
+    public void open() {
+        lifecycleLock.lock();
+        try {
+            if (!enabled || running) {
+                return;
+            }
+            Files.createDirectories(directory);
+            recover();
+            int nextIndex = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+            active = openSegment(nextIndex);
+            running = true;
+            writer = new Thread(this::writeLoop, "sms-wal-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot open SMS write-ahead log in " + directory + ": " + e.getMessage(), e);
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the SMS to the log and returns its sequence once it is on disk; 0 if the log is disabled
+     */
+    public long append(Long userId, String smsText) {
+        if (!enabled) {
+            return 0;
+        }
+        byte[] text = smsText.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(1 + Long.BYTES * 2 + text.length);
+        payload.put(ACCEPTED).putLong(0).putLong(userId).put(text);
+        if (payload.capacity() > MAX_PAYLOAD_BYTES) {
+            throw new RuntimeException("SMS is too long for the write-ahead log");
+        }
+        PendingRecord record = new PendingRecord(payload.array(), new CompletableFuture<>());
+        if (!enqueue(record)) {
+            throw new RuntimeException("SMS write-ahead log is closed");
+        }
+        try {
+            return record.written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while writing the SMS write-ahead log");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Cannot write the SMS write-ahead log: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Records that the SMS no longer needs replaying: it was stored, or processing it failed for
+     * good. Does not wait for the disk; at worst a crash replays it once more.
+     */
+    public void markDone(long sequence) {
+        if (!enabled || sequence <= 0) {
+            return;
+        }
+        notDone.remove(sequence);
+        ByteBuffer payload = ByteBuffer.allocate(1 + Long.BYTES);
+        payload.put(DONE).putLong(sequence);
+        // Once closed the marker is dropped: the SMS is replayed once more at startup
+        enqueue(new PendingRecord(payload.array(), null));
+    }
+
+    /**
+     * SMS logged before the last shutdown and never marked done, in log order. Returned once;
+     * later calls return an empty list.
+     */
+    public List<LoggedSms> drainRecovered() {
+        lifecycleLock.lock();
+        try {
+            List<LoggedSms> entries = recovered;
+            recovered = List.of();
+            return entries;
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes closed segments that hold only SMS already marked done
+     */
+    @Scheduled(fixedDelayString = "${regexflow.sms.wal.checkpoint-interval-ms:10000}",
+        initialDelayString = "${regexflow.sms.wal.checkpoint-interval-ms:10000}")
+    public void checkpoint() {
+        if (!running) {
+            return;
+        }
+        Segment current = active;
+        Long oldestNotDone = notDone.isEmpty() ? null : notDone.first();
+        for (Segment segment : segments.values()) {
+            if (segment == current || (oldestNotDone != null && segment.lastSequence >= oldestNotDone)) {
+                // Segments hold increasing sequences, so no later segment can be deleted either
+                return;
+            }
+            try {
+                Files.deleteIfExists(segment.path);
+                segments.remove(segment.index);
+                segmentsDeleted.increment();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lifecycleLock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+                List<PendingRecord> unwritten = new ArrayList<>();
+                pending.drainTo(unwritten);
+                unwritten.stream()
+                    .filter(record -> record.written != null)
+                    .forEach(record -> record.written.completeExceptionally(new IOException("SMS write-ahead log is closed")));
+                active.channel.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // Everything acknowledged was already forced to disk
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long commits = groupCommits.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("segments", segments.size());
+        stats.put("appends", appends.sum());
+        // SMS logged but not yet marked done; they keep their segments from being deleted
+        stats.put("notDone", notDone.size());
+        stats.put("groupCommits", commits);
+        stats.put("averageGroupSize", commits == 0 ? 0 : (double) groupedRecords.sum() / commits);
+        stats.put("averageFsyncMillis", commits == 0 ? 0 : fsyncNanos.sum() / 1e6 / commits);
+        stats.put("maxFsyncMillis", maxFsyncNanos.get() / 1e6);
+        stats.put("segmentsDeleted", segmentsDeleted.sum());
+        // Torn or corrupt tail cut off when the log was read back
+        stats.put("truncatedBytes", truncatedBytes.sum());
+        return stats;
+    }
+
+    /**
+     * Hands the record to the writer; false if the log is closed. A record added while
+     * {@link #close()} runs is either still taken back here or failed by close, so no appender
+     * waits for a record nobody will write.
+     */
+    private boolean enqueue(PendingRecord record) {
+        if (!running) {
+            return false;
+        }
+        pending.add(record);
+        if (!running && pending.remove(record)) {
+            // Closed after the check: the writer may be gone and close may have drained already
+            return false;
+        }
+        return true;
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> group = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingRecord first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                pending.drainTo(group, MAX_GROUP_SIZE - 1);
+                writeGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the records with one gathering write and, if any is an SMS, one fsync
+     */
+    private void writeGroup(List<PendingRecord> group) {
+        long groupStart = -1;
+        try {
+            if (!active.channel.isOpen() || active.channel.size() >= segmentSizeBytes) {
+                active.channel.close();
+                active = openSegment(active.index + 1);
+            }
+            groupStart = active.channel.size();
+            ByteBuffer[] buffers = new ByteBuffer[group.size()];
+            long[] sequences = new long[group.size()];
+            boolean anyAccepted = false;
+            for (int i = 0; i < group.size(); i++) {
+                byte[] payload = group.get(i).payload;
+                if (payload[0] == ACCEPTED) {
+                    sequences[i] = nextSequence++;
+                    ByteBuffer.wrap(payload).putLong(1, sequences[i]);
+                    anyAccepted = true;
+                }
+                buffers[i] = frame(payload);
+            }
+            long remaining = 0;
+            for (ByteBuffer buffer : buffers) {
+                remaining += buffer.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= active.channel.write(buffers);
+            }
+            if (anyAccepted) {
+                long start = System.nanoTime();
+                active.channel.force(false);
+                long elapsed = System.nanoTime() - start;
+                fsyncNanos.add(elapsed);
+                maxFsyncNanos.accumulate(elapsed);
+                groupCommits.increment();
+                groupedRecords.add(group.size());
+            }
+            for (int i = 0; i < group.size(); i++) {
+                PendingRecord record = group.get(i);
+                if (record.written != null) {
+                    notDone.add(sequences[i]);
+                    active.lastSequence = sequences[i];
+                    appends.increment();
+                    record.written.complete(sequences[i]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (groupStart >= 0) {
+                discardFailedGroup(groupStart);
+            }
+            group.stream()
+                .filter(record -> record.written != null)
+                .forEach(record -> record.written.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Cuts what a failed group wrote off the active segment. If that fails too, the segment is
+     * closed and the next group starts a new one; its torn tail is truncated when read back.
+     */
+    private void discardFailedGroup(long groupStart) {
+        try {
+            active.channel.truncate(groupStart);
+            return;
+        } catch (IOException | RuntimeException e) {
+            // Left to the close below
+        }
+        try {
+            active.channel.close();
+        } catch (IOException e) {
+            // Not written to again either way
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                .sorted()
+                .toList();
+        }
+        Map<Long, LoggedSms> accepted = new LinkedHashMap<>();
+        for (Path file : files) {
+            Matcher name = SEGMENT_NAME.matcher(file.getFileName().toString());
+            name.matches();
+            Segment segment = new Segment(Integer.parseInt(name.group(1)), file, null);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                readSegment(channel, segment, accepted);
+            }
+            segments.put(segment.index, segment);
+        }
+        accepted.keySet().forEach(notDone::add);
+        recovered = List.copyOf(accepted.values());
+    }
+
+    private void readSegment(FileChannel channel, Segment segment, Map<Long, LoggedSms> accepted) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position < size) {
+            header.clear();
+            if (size - position < HEADER_BYTES || channel.read(header, position) < HEADER_BYTES) {
+                break;
+            }
+            int length = header.getInt(0);
+            int checksum = header.getInt(Integer.BYTES);
+            if (length <= 0 || length > MAX_PAYLOAD_BYTES || size - position - HEADER_BYTES < length) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, position + HEADER_BYTES);
+            if (checksum(payload.array()) != checksum) {
+                break;
+            }
+            payload.flip();
+            byte type = payload.get();
+            long sequence = payload.getLong();
+            if (type == ACCEPTED) {
+                long userId = payload.getLong();
+                String smsText = StandardCharsets.UTF_8.decode(payload).toString();
+                accepted.put(sequence, new LoggedSms(sequence, userId, smsText));
+                segment.lastSequence = sequence;
+                nextSequence = Math.max(nextSequence, sequence + 1);
+            } else if (type == DONE) {
+                accepted.remove(sequence);
+            }
+            position += HEADER_BYTES + length;
+        }
+        if (position < size) {
+            truncatedBytes.add(size - position);
+            channel.truncate(position);
+            channel.force(true);
+        }
+    }
+
+    private Segment openSegment(int index) throws IOException {
+        Path path = directory.resolve(String.format("segment-%010d.log", index));
+        FileChannel channel = openChannel(path);
+        Segment segment = new Segment(index, path, channel);
+        segments.put(index, segment);
+        return segment;
+    }
+
+    /**
+     * Opens a segment for appending; tests override it to make writes fail
+     */
+    FileChannel openChannel(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).putInt(checksum(payload)).put(payload);
+        return buffer.flip();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * An SMS read back from the log
+     */
+    public record LoggedSms(long sequence, Long userId, String smsText) {
+    }
+
+    private record PendingRecord(byte[] payload, CompletableFuture<Long> written) {
+    }
+
+    private static final class Segment {
+        private final int index;
+        private final Path path;
+        private final FileChannel channel;
+        // Highest SMS sequence written to the segment, 0 if none
+        private volatile long lastSequence;
+
+        private Segment(int index, Path path, FileChannel channel) {
+            this.index = index;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.regexflow.backend.Service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Shared pool for matching one SMS against many templates at once.
+ *
+ * Off by default. When enabled, an SMS with at least {@code min-templates} templates left to
+ * match one by one has them all submitted here up front, and {@link SmsService} then takes the
+ * results in its usual ranked order, applying the same stopping rules as the serial loop; the
+ * tasks it no longer needs are cancelled. Tasks that have not started yet never run; a task
+ * already running finishes within its template budget. This pays off when there are idle cores
+ * (backfills, a single busy client); under full load the serial loop, which stops early, uses
+ * less CPU per SMS.
+ */
+@Component
+public class TemplateEvaluationPool {
+
+    private final boolean enabled;
+    private final int minTemplates;
+    private final ForkJoinPool pool;
+
+    private final LongAdder smsFannedOut = new LongAdder();
+    private final LongAdder tasksSubmitted = new LongAdder();
+    private final LongAdder tasksCancelled = new LongAdder();
+    private final LongAdder tasksUnused = new LongAdder();
+
+    @Autowired
+    public TemplateEvaluationPool(
+            @Value("${regexflow.matching.parallel.enabled:false}") boolean enabled,
+            @Value("${regexflow.matching.parallel.min-templates:16}") int minTemplates,
+            @Value("${regexflow.matching.parallel.threads:0}") int threads) {
+        if (minTemplates <= 0 || threads < 0) {
+            throw new IllegalArgumentException("Parallel matching threshold must be positive and threads not negative");
+        }
+        this.enabled = enabled;
+        this.minTemplates = minTemplates;
+        this.pool = enabled ? new ForkJoinPool(threads == 0 ? Runtime.getRuntime().availableProcessors() : threads) : null;
+    }
+
+    /**
+     * Whether an SMS with this many templates to match one by one should be matched in parallel
+     */
+    public boolean shouldFanOut(int templatesToMatch) {
+        return enabled && templatesToMatch >= minTemplates;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        tasksSubmitted.increment();
+        return CompletableFuture.supplyAsync(task, pool);
+    }
+
+    /**
+     * Counts an SMS whose templates were submitted together
+     */
+    public void recordFanOut() {
+        smsFannedOut.increment();
+    }
+
+    /**
+     * Cancels the tasks of an SMS whose results were not needed, e.g. because a template that
+     * cannot be beaten matched first. Null entries (templates not submitted) are ignored.
+     */
+    public void cancelUnused(List<? extends CompletableFuture<?>> tasks, int fromIndex) {
+        for (int i = fromIndex; i < tasks.size(); i++) {
+            CompletableFuture<?> task = tasks.get(i);
+            if (task == null) {
+                continue;
+            }
+            if (task.cancel(false)) {
+                tasksCancelled.increment();
+            } else {
+                tasksUnused.increment();
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("minTemplates", minTemplates);
+        stats.put("threads", pool != null ? pool.getParallelism() : 0);
+        stats.put("smsFannedOut", smsFannedOut.sum());
+        stats.put("tasksSubmitted", tasksSubmitted.sum());
+        // Cancelled before they started
+        stats.put("tasksCancelled", tasksCancelled.sum());
+        // Ran (or were running) although the result was not needed: CPU spent on speculation
+        stats.put("tasksUnused", tasksUnused.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.CompiledTemplate;
+import com.regexflow.backend.Engine.LiteralPrefilter;
+import com.regexflow.backend.Entity.RegexTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Narrows a sender's VERIFIED templates down to the ones that can match an SMS, using one
+ * {@link LiteralPrefilter} per sender header.
+ *
+ * A sender's prefilter is built from the required literals stored with each template and is
+ * rebuilt whenever the sender's template set changes (a template approved, rejected or edited),
+ * which is detected by comparing template ids and patterns on every lookup.
+ */
+@Component
+public class TemplatePrefilter {
+
+    private final CompiledPatternCache compiledPatternCache;
+    private final ConcurrentHashMap<String, SenderPrefilter> prefilters = new ConcurrentHashMap<>();
+
+    public TemplatePrefilter(CompiledPatternCache compiledPatternCache) {
+        this.compiledPatternCache = compiledPatternCache;
+    }
+
+    /**
+     * The templates whose required literals all occur in the SMS, in their original order
+     */
+    public List<RegexTemplate> candidates(String senderHeader, List<RegexTemplate> templates, String smsText) {
+        if (smsText == null || templates.isEmpty()) {
+            return templates;
+        }
+        List<TemplateKey> keys = templates.stream()
+            .map(template -> new TemplateKey(template.getTemplateId(), template.getPattern()))
+            .toList();
+        SenderPrefilter prefilter = prefilters.get(senderHeader);
+        if (prefilter == null || !prefilter.keys().equals(keys)) {
+            prefilter = new SenderPrefilter(keys, build(templates));
+            prefilters.put(senderHeader, prefilter);
+        }
+
+        BitSet candidates = prefilter.prefilter().candidates(smsText);
+        List<RegexTemplate> result = new ArrayList<>(candidates.cardinality());
+        for (int t = candidates.nextSetBit(0); t >= 0; t = candidates.nextSetBit(t + 1)) {
+            result.add(templates.get(t));
+        }
+        return result;
+    }
+
+    private LiteralPrefilter build(List<RegexTemplate> templates) {
+        List<List<String>> requiredLiterals = new ArrayList<>(templates.size());
+        for (RegexTemplate template : templates) {
+            requiredLiterals.add(requiredLiterals(template));
+        }
+        return LiteralPrefilter.build(requiredLiterals);
+    }
+
+    /**
+     * Literals from the template's analysis, or null (always a candidate) if it has none
+     */
+    private List<String> requiredLiterals(RegexTemplate template) {
+        try {
+            CompiledTemplate compiled = compiledPatternCache.get(template);
+            return compiled.getAnalysis() != null ? compiled.getAnalysis().requiredLiterals() : null;
+        } catch (RuntimeException e) {
+            // Invalid pattern: let matching deal with it as before
+            return null;
+        }
+    }
+
+    private record TemplateKey(Long templateId, String pattern) {
+    }
+
+    private record SenderPrefilter(List<TemplateKey> keys, LiteralPrefilter prefilter) {
+    }
+}
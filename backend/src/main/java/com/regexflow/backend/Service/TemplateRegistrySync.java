@@ -0,0 +1,246 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.regexflow.backend.Entity.TemplateSetChange;
+import com.regexflow.backend.Entity.TemplateSetVersion;
+import com.regexflow.backend.Repository.TemplateSetChangeRepository;
+import com.regexflow.backend.Repository.TemplateSetVersionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps this node's {@link VerifiedTemplateRegistry} in step with template changes made on any node.
+ *
+ * Approving or rejecting a template bumps the shared {@link TemplateSetVersion} row and records a
+ * {@link TemplateSetChange} with the sender, in the same transaction. Every node polls the version
+ * row (one primary-key read) and, when it moved, reloads only the senders changed since the
+ * version it last applied. If the change rows do not cover every version in between, the whole
+ * registry is reloaded instead. The node that made the change refreshes the sender as soon as its
+ * transaction commits, without waiting for the poll. Change rows more than {@code retained-changes}
+ * versions behind the current one are deleted periodically; a node that far behind resyncs.
+ */
+@Component
+public class TemplateRegistrySync {
+
+    private final TemplateSetVersionRepository templateSetVersionRepository;
+    private final TemplateSetChangeRepository templateSetChangeRepository;
+    private final VerifiedTemplateRegistry verifiedTemplateRegistry;
+    private final FusedTemplateMatcher fusedTemplateMatcher;
+    private final ShapeRoutingCache shapeRoutingCache;
+    private final ParseResultCache parseResultCache;
+    private final long retainedChanges;
+
+    // Last version whose changes this node has loaded, and the newest version seen in the database
+    private volatile long appliedVersion;
+    private volatile long databaseVersion;
+    // Serializes load and polls, which query the database
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder changesApplied = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder changesPruned = new LongAdder();
+    private final LongAdder reloadLatencyMillis = new LongAdder();
+    private final LongAccumulator maxReloadLatencyMillis = new LongAccumulator(Math::max, 0);
+
+    public TemplateRegistrySync(TemplateSetVersionRepository templateSetVersionRepository,
+                                TemplateSetChangeRepository templateSetChangeRepository,
+                                VerifiedTemplateRegistry verifiedTemplateRegistry,
+                                FusedTemplateMatcher fusedTemplateMatcher,
+                                ShapeRoutingCache shapeRoutingCache,
+                                ParseResultCache parseResultCache,
+                                @Value("${regexflow.template-registry.retained-changes:1000}") long retainedChanges) {
+        if (retainedChanges <= 0) {
+            throw new IllegalArgumentException("Retained template set changes must be positive");
+        }
+        this.templateSetVersionRepository = templateSetVersionRepository;
+        this.templateSetChangeRepository = templateSetChangeRepository;
+        this.verifiedTemplateRegistry = verifiedTemplateRegistry;
+        this.fusedTemplateMatcher = fusedTemplateMatcher;
+        this.shapeRoutingCache = shapeRoutingCache;
+        this.parseResultCache = parseResultCache;
+        this.retainedChanges = retainedChanges;
+    }
+
+    /**
+     * Loads the registry at startup. The version is read first, so a change committed while the
+     * registry loads is applied again by the next poll rather than missed.
+     */
+    @PostConstruct
+    public void load() {
+        syncLock.lock();
+        try {
+            long version = currentVersion();
+            verifiedTemplateRegistry.reloadAll();
+            appliedVersion = version;
+            databaseVersion = version;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Records that the sender's VERIFIED templates change in the current transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long recordChange(String senderHeader) {
+        if (templateSetVersionRepository.increment(TemplateSetVersion.ID) == 0) {
+            throw new RuntimeException("Template set version row is missing");
+        }
+        // Read back with a query: the entity, if loaded earlier in this transaction, is stale
+        long version = templateSetVersionRepository.findVersionById(TemplateSetVersion.ID)
+            .orElseThrow(() -> new RuntimeException("Template set version row is missing"));
+        TemplateSetChange change = new TemplateSetChange();
+        change.setVersion(version);
+        change.setSenderHeader(senderHeader);
+        templateSetChangeRepository.save(change);
+        return version;
+    }
+
+    /**
+     * Reloads the sender's VERIFIED templates into the registry, rebuilds its fused matcher and
+     * drops its shape routes and cached parse results, so the next SMS sees the new set
+     */
+    public void refreshSender(String senderHeader) {
+        List<RegexTemplate> verified = verifiedTemplateRegistry.reloadSender(senderHeader);
+        shapeRoutingCache.invalidateSender(senderHeader);
+        parseResultCache.invalidateSender(senderHeader);
+        fusedTemplateMatcher.refreshSender(senderHeader, verified);
+    }
+
+    /**
+     * Applies the changes other nodes (and this one) committed since the last poll
+     */
+    @Scheduled(fixedDelayString = "${regexflow.template-registry.poll-interval-ms:1000}",
+        initialDelayString = "${regexflow.template-registry.poll-interval-ms:1000}")
+    public void poll() {
+        syncLock.lock();
+        try {
+            pollLocked();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void pollLocked() {
+        polls.increment();
+        long version = currentVersion();
+        databaseVersion = version;
+        long applied = appliedVersion;
+        if (version <= applied) {
+            return;
+        }
+
+        List<TemplateSetChange> changes = templateSetChangeRepository.findByVersionGreaterThanOrderByVersionAsc(applied);
+        if (!coversEveryVersion(changes, applied, version)) {
+            // Fused matchers notice their sender's new template set on the next SMS by themselves
+            verifiedTemplateRegistry.reloadAll();
+            shapeRoutingCache.invalidateAll();
+            parseResultCache.invalidateAll();
+            resyncs.increment();
+            appliedVersion = changes.isEmpty() ? version : Math.max(version, changes.get(changes.size() - 1).getVersion());
+            return;
+        }
+
+        Set<String> senders = new LinkedHashSet<>();
+        changes.forEach(change -> senders.add(change.getSenderHeader()));
+        senders.forEach(this::refreshSender);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (TemplateSetChange change : changes) {
+            long latency = Math.max(0, Duration.between(change.getChangedAt(), now).toMillis());
+            reloadLatencyMillis.add(latency);
+            maxReloadLatencyMillis.accumulate(latency);
+        }
+        changesApplied.add(changes.size());
+        appliedVersion = changes.get(changes.size() - 1).getVersion();
+    }
+
+    /**
+     * Deletes change rows more than {@code retained-changes} versions behind the current version.
+     * Every node may run it; the deletes are idempotent.
+     */
+    @Scheduled(fixedDelayString = "${regexflow.template-registry.prune-interval-ms:3600000}",
+        initialDelayString = "${regexflow.template-registry.prune-interval-ms:3600000}")
+    public void pruneChanges() {
+        long keepAfter = currentVersion() - retainedChanges;
+        if (keepAfter <= 0) {
+            return;
+        }
+        changesPruned.add(templateSetChangeRepository.deleteUpToVersion(keepAfter));
+    }
+
+    public Map<String, Object> stats() {
+        long applied = appliedVersion;
+        long inDatabase = databaseVersion;
+        long changes = changesApplied.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("appliedVersion", applied);
+        stats.put("databaseVersion", inDatabase);
+        // Versions committed on some node but not yet loaded here, as of the last poll
+        stats.put("versionSkew", Math.max(0, inDatabase - applied));
+        stats.put("polls", polls.sum());
+        stats.put("changesApplied", changes);
+        // Full reloads because change rows were missing
+        stats.put("resyncs", resyncs.sum());
+        stats.put("retainedChanges", retainedChanges);
+        stats.put("changesPruned", changesPruned.sum());
+        // From the change being recorded on any node to this node loading it
+        stats.put("averageReloadLatencyMillis", changes == 0 ? 0 : (double) reloadLatencyMillis.sum() / changes);
+        stats.put("maxReloadLatencyMillis", maxReloadLatencyMillis.get());
+        return stats;
+    }
+
+    /**
+     * The change rows read after the version row may include later versions, but every version
+     * from just after the applied one up to the version read must be there
+     */
+    private static boolean coversEveryVersion(List<TemplateSetChange> changes, long applied, long version) {
+        long expected = applied + 1;
+        for (TemplateSetChange change : changes) {
+            if (change.getVersion() != expected) {
+                return false;
+            }
+            expected++;
+        }
+        return expected > version;
+    }
+
+    /**
+     * The shared version, creating its row on the first start of the first node
+     */
+    private long currentVersion() {
+        return templateSetVersionRepository.findVersionById(TemplateSetVersion.ID)
+            .orElseGet(this::createVersionRow);
+    }
+
+    private long createVersionRow() {
+        TemplateSetVersion row = new TemplateSetVersion();
+        row.setId(TemplateSetVersion.ID);
+        row.setVersion(0L);
+        try {
+            templateSetVersionRepository.saveAndFlush(row);
+            return 0L;
+        } catch (DataIntegrityViolationException e) {
+            // Another node created it at the same time
+            return templateSetVersionRepository.findVersionById(TemplateSetVersion.ID)
+                .orElseThrow(() -> e);
+        }
+    }
+}
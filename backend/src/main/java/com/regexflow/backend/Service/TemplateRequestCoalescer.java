@@ -0,0 +1,210 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.ShapeSignature;
+import com.regexflow.backend.Entity.Sms;
+import com.regexflow.backend.Entity.TemplateRequestNotification;
+import com.regexflow.backend.Enums.NotificationStatus;
+import com.regexflow.backend.Repository.TemplateRequestNotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Turns unmatched SMS into template requests for makers, one per (sender, shape) while it is
+ * pending, so a new bank sender seen by thousands of customers is one row that counts them.
+ *
+ * Each request is keyed by a hash of the sender header and the SMS's {@link ShapeSignature}.
+ * Recording occurrences is an atomic increment of the open request's counter; only when there is
+ * none is a request inserted, and the unique key makes a concurrent insert of the same request
+ * fail, after which the occurrences are counted on the row that won. The increment holds the
+ * row's lock until commit, so the sample of SMS ids (reservoir sampling, so every unmatched SMS
+ * is equally likely to be kept) is updated under it. Rows are locked in key order, so two batches
+ * with requests in common do not deadlock; one that still loses a lock is retried.
+ *
+ * Runs after the SMS are committed, in its own short transaction: a request that cannot be
+ * recorded does not lose the SMS, it is counted as failed.
+ */
+@Service
+public class TemplateRequestCoalescer {
+
+    private static final int ATTEMPTS = 3;
+
+    private final TemplateRequestNotificationRepository notificationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int sampleSize;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder insertConflicts = new LongAdder();
+    private final LongAdder lockConflicts = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public TemplateRequestCoalescer(
+            TemplateRequestNotificationRepository notificationRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${regexflow.template-requests.sample-size:5}") int sampleSize) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("Template request sample size must be positive");
+        }
+        this.notificationRepository = notificationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Records stored SMS that no template matched against their senders' open template requests
+     */
+    public void record(List<Sms> unmatched) {
+        if (unmatched.isEmpty()) {
+            return;
+        }
+        // Sorted, so every transaction locks the rows it shares with another in the same order
+        Map<String, List<Sms>> byKey = new TreeMap<>();
+        for (Sms sms : unmatched) {
+            byKey.computeIfAbsent(coalesceKey(sms.getSenderHeader(), sms.getSmsText()), key -> new ArrayList<>()).add(sms);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                int[] openedAndCoalesced = transactionTemplate.execute(status -> {
+                    int[] counts = new int[2];
+                    byKey.forEach((key, occurrences) -> {
+                        if (upsert(key, occurrences)) {
+                            counts[0]++;
+                            counts[1] += occurrences.size() - 1;
+                        } else {
+                            counts[1] += occurrences.size();
+                        }
+                    });
+                    return counts;
+                });
+                opened.add(openedAndCoalesced[0]);
+                coalesced.add(openedAndCoalesced[1]);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Another node or thread opened one of the requests first: count on its row
+                insertConflicts.increment();
+                if (attempt == ATTEMPTS) {
+                    failed.add(unmatched.size());
+                    return;
+                }
+            } catch (PessimisticLockingFailureException e) {
+                // Lock wait timeout or deadlock victim: the transaction was rolled back, so try again
+                lockConflicts.increment();
+                if (attempt == ATTEMPTS) {
+                    failed.add(unmatched.size());
+                    return;
+                }
+            } catch (DataAccessException e) {
+                failed.add(unmatched.size());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hash of the sender and shape; hex SHA-256, so it fits an indexed column whatever the SMS length
+     */
+    public static String coalesceKey(String senderHeader, String smsText) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(senderHeader.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(ShapeSignature.of(smsText).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Adds the SMS ids seen after the first {@code seenBefore} occurrences to the sample.
+     * Returns the new comma-separated sample, or null if it did not change.
+     */
+    static String sample(String sampleSmsIds, long seenBefore, List<Long> smsIds, int sampleSize) {
+        List<Long> sample = new ArrayList<>(sampleSize);
+        if (sampleSmsIds != null && !sampleSmsIds.isEmpty()) {
+            Arrays.stream(sampleSmsIds.split(",")).map(Long::valueOf).forEach(sample::add);
+        }
+        boolean changed = false;
+        long seen = seenBefore;
+        for (Long smsId : smsIds) {
+            seen++;
+            if (sample.size() < sampleSize) {
+                sample.add(smsId);
+                changed = true;
+            } else {
+                // Keeps the seen-th occurrence with probability sampleSize / seen
+                long slot = ThreadLocalRandom.current().nextLong(seen);
+                if (slot < sampleSize) {
+                    sample.set((int) slot, smsId);
+                    changed = true;
+                }
+            }
+        }
+        return changed ? sample.stream().map(String::valueOf).collect(Collectors.joining(",")) : null;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sampleSize", sampleSize);
+        stats.put("opened", opened.sum());
+        // Unmatched SMS counted on an already open request instead of adding a row
+        stats.put("coalesced", coalesced.sum());
+        stats.put("insertConflicts", insertConflicts.sum());
+        stats.put("lockConflicts", lockConflicts.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+
+    /**
+     * Counts the occurrences on the open request, or opens it; returns true if it was opened
+     */
+    private boolean upsert(String key, List<Sms> occurrences) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> smsIds = occurrences.stream().map(Sms::getSmsId).collect(Collectors.toList());
+        if (notificationRepository.recordOccurrences(key, occurrences.size(), now) == 0) {
+            Sms first = occurrences.get(0);
+            TemplateRequestNotification notification = new TemplateRequestNotification();
+            notification.setSms(first);
+            notification.setSmsText(first.getSmsText());
+            notification.setSenderHeader(first.getSenderHeader());
+            notification.setRequestedBy(first.getUser());
+            notification.setStatus(NotificationStatus.PENDING);
+            notification.setCoalesceKey(key);
+            notification.setOccurrenceCount((long) occurrences.size());
+            notification.setFirstSeenAt(now);
+            notification.setLastSeenAt(now);
+            notification.setSampleSmsIds(sample(null, 0, smsIds, sampleSize));
+            // Flushed here, so losing the race to open it fails this attempt rather than the commit
+            notificationRepository.saveAndFlush(notification);
+            return true;
+        }
+        notificationRepository.findByCoalesceKey(key).ifPresent(notification -> {
+            long seenBefore = notification.getOccurrenceCount() - occurrences.size();
+            String sampleSmsIds = sample(notification.getSampleSmsIds(), seenBefore, smsIds, sampleSize);
+            if (sampleSmsIds != null) {
+                notificationRepository.updateSampleSmsIds(notification.getNotificationId(), sampleSmsIds);
+            }
+        });
+        return false;
+    }
+}
@@ -0,0 +1,169 @@
+package com.regexflow.backend.Service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * How often each template of a sender was tried and how often it was the best match.
+ *
+ * SmsService tries templates that usually win first, so its early exit stops sooner. Counts are
+ * {@link LongAdder}s, so recording from concurrent SMS never blocks. They decay with a configurable
+ * half-life: every sixth of a half-life the first SMS of the sender to notice folds the fresh
+ * counts into the decayed totals, so a template that stops winning (or a new one that starts)
+ * re-ranks within a few half-lives. Increments that race with a fold may be lost, which is
+ * harmless for a ranking.
+ */
+@Component
+public class TemplateWinStats {
+
+    private static final int FOLDS_PER_HALF_LIFE = 6;
+
+    private final LongSupplier clock;
+    private final long halfLifeNanos;
+    private final long foldIntervalNanos;
+    private final ConcurrentHashMap<String, SenderStats> senders = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TemplateWinStats(@Value("${regexflow.matching.win-stats.half-life-minutes:60}") long halfLifeMinutes) {
+        this(halfLifeMinutes, System::nanoTime);
+    }
+
+    TemplateWinStats(long halfLifeMinutes, LongSupplier clock) {
+        if (halfLifeMinutes <= 0) {
+            throw new IllegalArgumentException("Win stats half-life must be positive");
+        }
+        this.clock = clock;
+        this.halfLifeNanos = TimeUnit.MINUTES.toNanos(halfLifeMinutes);
+        this.foldIntervalNanos = halfLifeNanos / FOLDS_PER_HALF_LIFE;
+    }
+
+    /**
+     * The template was matched against an SMS of the sender
+     */
+    public void recordAttempt(String senderHeader, Long templateId) {
+        stats(senderHeader, templateId).attempts.increment();
+    }
+
+    /**
+     * The template was the best match for an SMS of the sender
+     */
+    public void recordWin(String senderHeader, Long templateId) {
+        stats(senderHeader, templateId).wins.increment();
+    }
+
+    /**
+     * Decayed number of wins; higher means the template should be tried earlier
+     */
+    public double score(String senderHeader, Long templateId) {
+        SenderStats sender = senders.get(senderHeader);
+        if (sender == null) {
+            return 0;
+        }
+        sender.foldIfDue();
+        TemplateStats template = sender.templates.get(templateId);
+        return template != null ? template.wins() : 0;
+    }
+
+    /**
+     * Per sender, its templates from most to least winning with decayed wins, attempts and win rate
+     */
+    public Map<String, List<Map<String, Object>>> ranking() {
+        Map<String, List<Map<String, Object>>> ranking = new LinkedHashMap<>();
+        senders.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> ranking.put(entry.getKey(), ranking(entry.getValue())));
+        return ranking;
+    }
+
+    private List<Map<String, Object>> ranking(SenderStats sender) {
+        sender.foldIfDue();
+        List<Map<String, Object>> templates = new ArrayList<>();
+        sender.templates.entrySet().stream()
+            .sorted(Comparator.comparingDouble((Map.Entry<Long, TemplateStats> entry) -> entry.getValue().wins()).reversed()
+                .thenComparing(Map.Entry.comparingByKey()))
+            .forEach(entry -> {
+                double wins = entry.getValue().wins();
+                double attempts = entry.getValue().attempts();
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("templateId", entry.getKey());
+                row.put("wins", wins);
+                row.put("attempts", attempts);
+                row.put("winRate", attempts == 0 ? 0 : wins / attempts);
+                templates.add(row);
+            });
+        return templates;
+    }
+
+    /**
+     * Drops the counts of a template, e.g. when it stops being VERIFIED
+     */
+    public void forgetTemplate(String senderHeader, Long templateId) {
+        SenderStats sender = senders.get(senderHeader);
+        if (sender != null) {
+            sender.templates.remove(templateId);
+        }
+    }
+
+    private TemplateStats stats(String senderHeader, Long templateId) {
+        SenderStats sender = senders.computeIfAbsent(senderHeader, key -> new SenderStats(clock.getAsLong()));
+        sender.foldIfDue();
+        return sender.templates.computeIfAbsent(templateId, key -> new TemplateStats());
+    }
+
+    private final class SenderStats {
+        private final ConcurrentHashMap<Long, TemplateStats> templates = new ConcurrentHashMap<>();
+        private final AtomicLong lastFoldNanos;
+
+        private SenderStats(long now) {
+            this.lastFoldNanos = new AtomicLong(now);
+        }
+
+        private void foldIfDue() {
+            long last = lastFoldNanos.get();
+            long now = clock.getAsLong();
+            // Only the thread that moves lastFoldNanos folds, the others carry on without waiting
+            if (now - last < foldIntervalNanos || !lastFoldNanos.compareAndSet(last, now)) {
+                return;
+            }
+            double factor = Math.pow(0.5, (double) (now - last) / halfLifeNanos);
+            templates.values().forEach(template -> template.fold(factor));
+        }
+    }
+
+    private static final class TemplateStats {
+        private final LongAdder wins = new LongAdder();
+        private final LongAdder attempts = new LongAdder();
+        // Counts up to the last fold, decayed; written only by the folding thread
+        private volatile double decayedWins;
+        private volatile double decayedAttempts;
+
+        /**
+         * Fresh counts are decayed as if recorded at the previous fold. They are at most one fold
+         * interval younger, because any later SMS would have triggered the fold itself.
+         */
+        private void fold(double factor) {
+            decayedWins = (decayedWins + wins.sumThenReset()) * factor;
+            decayedAttempts = (decayedAttempts + attempts.sumThenReset()) * factor;
+        }
+
+        private double wins() {
+            return decayedWins + wins.sum();
+        }
+
+        private double attempts() {
+            return decayedAttempts + attempts.sum();
+        }
+    }
+}
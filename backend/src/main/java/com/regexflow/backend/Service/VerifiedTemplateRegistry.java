@@ -0,0 +1,128 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.regexflow.backend.Enums.RegexTemplateStatus;
+import com.regexflow.backend.Repository.RegexTemplateRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * All VERIFIED templates, grouped by sender header, so that matching an SMS reads no templates
+ * from the database.
+ *
+ * The registry is loaded at startup by {@link TemplateRegistrySync} and published as an
+ * immutable snapshot that readers get with one volatile read. When a template is approved or
+ * rejected, only its sender is reloaded (on every node, see {@link TemplateRegistrySync}), into a
+ * copy of the snapshot that then replaces the current one (copy-on-write). A sender's list is
+ * never modified, only replaced by a new one on reload, so {@link ParseResultCache} can tell
+ * results computed against an older set of templates by the list itself.
+ * Because the snapshot holds every VERIFIED template, a sender missing from it is known to have
+ * none: those lookups are answered from the snapshot too and counted as unknown senders.
+ * Patterns are compiled into {@link CompiledPatternCache} as templates are loaded, so the first
+ * SMS of a sender does not pay for it.
+ */
+@Component
+public class VerifiedTemplateRegistry {
+
+    private final RegexTemplateRepository regexTemplateRepository;
+    private final CompiledPatternCache compiledPatternCache;
+
+    private volatile Map<String, List<RegexTemplate>> snapshot = Map.of();
+    // Serializes reloads, which read the database
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder unknownSenderLookups = new LongAdder();
+    private final LongAdder senderReloads = new LongAdder();
+    private final LongAdder fullReloads = new LongAdder();
+
+    public VerifiedTemplateRegistry(RegexTemplateRepository regexTemplateRepository,
+                                    CompiledPatternCache compiledPatternCache) {
+        this.regexTemplateRepository = regexTemplateRepository;
+        this.compiledPatternCache = compiledPatternCache;
+    }
+
+    /**
+     * Replaces the snapshot with every VERIFIED template in the database
+     */
+    public void reloadAll() {
+        reloadLock.lock();
+        try {
+            Map<String, List<RegexTemplate>> bySender = regexTemplateRepository.findByStatus(RegexTemplateStatus.VERIFIED)
+                .stream()
+                .collect(Collectors.groupingBy(RegexTemplate::getSenderHeader));
+            Map<String, List<RegexTemplate>> loaded = new HashMap<>();
+            bySender.forEach((senderHeader, templates) -> loaded.put(senderHeader, publish(templates)));
+            snapshot = Map.copyOf(loaded);
+            fullReloads.increment();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Reloads one sender's VERIFIED templates, e.g. after one of them was approved or rejected,
+     * and returns them
+     */
+    public List<RegexTemplate> reloadSender(String senderHeader) {
+        reloadLock.lock();
+        try {
+            List<RegexTemplate> templates = publish(
+                regexTemplateRepository.findBySenderHeaderAndStatus(senderHeader, RegexTemplateStatus.VERIFIED));
+            Map<String, List<RegexTemplate>> next = new HashMap<>(snapshot);
+            if (templates.isEmpty()) {
+                next.remove(senderHeader);
+            } else {
+                next.put(senderHeader, templates);
+            }
+            snapshot = Map.copyOf(next);
+            senderReloads.increment();
+            return templates;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * The sender's VERIFIED templates; empty for a sender without any
+     */
+    public List<RegexTemplate> templates(String senderHeader) {
+        lookups.increment();
+        List<RegexTemplate> templates = snapshot.get(senderHeader);
+        if (templates == null) {
+            unknownSenderLookups.increment();
+            return List.of();
+        }
+        return templates;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, List<RegexTemplate>> current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("senders", current.size());
+        stats.put("templates", current.values().stream().mapToInt(List::size).sum());
+        stats.put("lookups", lookups.sum());
+        stats.put("unknownSenderLookups", unknownSenderLookups.sum());
+        stats.put("senderReloads", senderReloads.sum());
+        stats.put("fullReloads", fullReloads.sum());
+        return stats;
+    }
+
+    private List<RegexTemplate> publish(List<RegexTemplate> templates) {
+        for (RegexTemplate template : templates) {
+            try {
+                compiledPatternCache.get(template);
+            } catch (RuntimeException e) {
+                // Matching treats a template that does not compile as not matching; keep it listed
+            }
+        }
+        return List.copyOf(templates);
+    }
+}
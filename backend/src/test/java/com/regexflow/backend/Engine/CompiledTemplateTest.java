@@ -0,0 +1,110 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Dto.RegexProcessResponse;
+import com.regexflow.backend.Enums.ExtractableField;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Matcher;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CompiledTemplate Tests")
+class CompiledTemplateTest {
+
+    private RegexProcessResponse extract(CompiledTemplate compiled, String message) {
+        Matcher matcher = compiled.getPattern().matcher(message);
+        assertTrue(matcher.find());
+        return compiled.extract(matcher, message).toResponse();
+    }
+
+    @Nested
+    @DisplayName("Execution Plan Tests")
+    class ExecutionPlanTests {
+
+        @Test
+        @DisplayName("Should plan only the known fields the pattern declares")
+        void compile_ShouldCountDeclaredKnownFields() {
+            // Act
+            CompiledTemplate compiled = CompiledTemplate.compile(
+                "Rs\\.?(?<amount>[\\d,]+) at (?<merchant>\\w+) (?<unknownGroup>\\w+)");
+
+            // Assert
+            assertEquals(2, compiled.getDeclaredFieldCount());
+        }
+
+        @Test
+        @DisplayName("Should extract by group number with unnamed groups in between")
+        void extract_WithUnnamedGroups_ShouldUseGroupNumbers() {
+            // Arrange
+            CompiledTemplate compiled = CompiledTemplate.compile(
+                "(Rs|INR)\\.?\\s*(?<amount>[\\d,]+)(\\.\\d{2})? .*Bal (?<balance>[\\d,]+)");
+
+            // Act
+            RegexProcessResponse response = extract(compiled, "INR 1,000.00 debited. Bal 5,000");
+
+            // Assert
+            assertEquals("1,000", response.getAmount().getValue());
+            assertEquals(2, response.getAmount().getIndex());
+            assertEquals("5,000", response.getBalance().getValue());
+            assertEquals(4, response.getBalance().getIndex());
+            assertNull(response.getMerchant().getValue());
+        }
+
+        @Test
+        @DisplayName("Should skip declared groups that did not participate in the match")
+        void extract_WithOptionalGroup_ShouldSkipNonParticipatingGroup() {
+            // Arrange
+            CompiledTemplate compiled = CompiledTemplate.compile(
+                "Rs\\.(?<amount>\\d+)( at (?<merchant>\\w+))?");
+
+            // Act
+            RegexProcessResponse response = extract(compiled, "Rs.250 debited");
+
+            // Assert
+            assertEquals("250", response.getAmount().getValue());
+            assertNull(response.getMerchant().getValue());
+            assertEquals(-1, response.getMerchant().getIndex());
+        }
+    }
+
+    @Nested
+    @DisplayName("Field Match Tests")
+    class FieldMatchTests {
+
+        @Test
+        @DisplayName("Should return the shared empty result when nothing matches")
+        void match_NoMatch_ShouldReturnNone() {
+            // Arrange
+            CompiledTemplate compiled = CompiledTemplate.compile("Rs\\.(?<amount>\\d+) debited");
+
+            // Act
+            FieldMatch match = compiled.match("Rs.250 credited");
+
+            // Assert
+            assertSame(FieldMatch.none(), match);
+            assertEquals(0, match.getFieldCount());
+            assertNull(match.toResponse().getAmount().getValue());
+        }
+
+        @Test
+        @DisplayName("Should record field offsets and group numbers in the SMS")
+        void match_ShouldRecordOffsetsPerField() {
+            // Arrange
+            CompiledTemplate compiled = CompiledTemplate.compile("(Rs|INR)\\.(?<amount>\\d+) at (?<merchant>\\w+)");
+
+            // Act
+            FieldMatch match = compiled.match("Paid INR.250 at Swiggy");
+
+            // Assert
+            assertEquals(2, match.getFieldCount());
+            assertTrue(match.has(ExtractableField.AMOUNT));
+            assertFalse(match.has(ExtractableField.BALANCE));
+            assertEquals("250", match.getValue(ExtractableField.AMOUNT));
+            assertEquals(2, match.getGroup(ExtractableField.AMOUNT));
+            assertEquals("Swiggy", match.getValue(ExtractableField.MERCHANT));
+            assertEquals(-1, match.getGroup(ExtractableField.BALANCE));
+        }
+    }
+}
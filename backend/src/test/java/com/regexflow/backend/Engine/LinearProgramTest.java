@@ -0,0 +1,352 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Dto.RegexProcessResponse;
+import com.regexflow.backend.Enums.ExtractableField;
+import com.regexflow.backend.Enums.MatchEngine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LinearProgram Tests")
+class LinearProgramTest {
+
+    private static LinearProgram compile(String regex) {
+        return LinearProgram.compile(RegexParser.parse(regex));
+    }
+
+    /**
+     * Group offsets java.util.regex reports for the first match, in LinearProgram's layout
+     */
+    private static int[] backtrackingCaptures(String regex, String text) {
+        Matcher matcher = Pattern.compile(regex, Pattern.CASE_INSENSITIVE).matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        int[] captures = new int[2 * (matcher.groupCount() + 1)];
+        for (int g = 0; g <= matcher.groupCount(); g++) {
+            captures[2 * g] = matcher.start(g);
+            captures[2 * g + 1] = matcher.end(g);
+        }
+        return captures;
+    }
+
+    @Nested
+    @DisplayName("Engine Selection Tests")
+    class EngineSelectionTests {
+
+        @Test
+        @DisplayName("Should route regular templates to the linear engine")
+        void compile_RegularTemplate_ShouldUseLinearEngine() {
+            // Act
+            CompiledTemplate compiled = CompiledTemplate.compile(
+                "(Rs|INR)\\.?\\s*(?<amount>[\\d,]+)(\\.\\d{2})? .*Bal (?<balance>[\\d,]+)");
+
+            // Assert
+            assertEquals(MatchEngine.LINEAR, compiled.getEngine());
+        }
+
+        @Test
+        @DisplayName("Should fall back to java.util.regex for unsupported constructs")
+        void compile_UnsupportedConstructs_ShouldUseBacktrackingEngine() {
+            assertEquals(MatchEngine.BACKTRACKING, CompiledTemplate.compile("(?<first>a)\\k<first>").getEngine());
+            assertEquals(MatchEngine.BACKTRACKING, CompiledTemplate.compile("Rs\\.(?<amount>\\d+)(?= debited)").getEngine());
+            assertEquals(MatchEngine.BACKTRACKING, CompiledTemplate.compile("(?<amount>\\d++)").getEngine());
+            assertEquals(MatchEngine.BACKTRACKING, CompiledTemplate.compile("(?<amount>\\p{L}+)").getEngine());
+        }
+
+        @Test
+        @DisplayName("Should not compile loops over sub-patterns that can match the empty string")
+        void compile_NullableLoopBody_ShouldReturnNull() {
+            assertNull(compile("(a?)+"));
+            assertNull(compile("(?:a|b*){2,3}"));
+            assertNotNull(compile("(a?)?"));
+        }
+
+        @Test
+        @DisplayName("Should not compile capturing groups inside a loop")
+        void compile_GroupInsideLoop_ShouldReturnNull() {
+            assertNull(compile("Rs\\.(?<amount>(\\d+,?)+) debited"));
+            assertNull(compile("(?:(\\w)\\s){2}"));
+            assertNotNull(compile("Rs\\.(?<amount>\\d+)( on \\d+)?"));
+        }
+
+        @Test
+        @DisplayName("Should leave oversized expansions to java.util.regex")
+        void compile_HugeCountedRepeat_ShouldReturnNull() {
+            assertNull(compile("(?:\\d{1,100}){1,100}"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Matching Tests")
+    class MatchingTests {
+
+        @Test
+        @DisplayName("Should read each character once where java.util.regex backtracks")
+        void find_BacktrackingPattern_ShouldStayLinear() {
+            // Arrange
+            CompiledTemplate compiled = CompiledTemplate.compile("(?<amount>\\d*\\d*\\d*\\d*)x");
+            BudgetedCharSequence text = new BudgetedCharSequence("1".repeat(200) + "a", 100_000,
+                System.nanoTime() + 1_000_000_000L, MatchBudgetExceededException.Reason.SMS_DEADLINE);
+
+            // Act
+            FieldMatch match = compiled.match(text);
+
+            // Assert
+            assertEquals(MatchEngine.LINEAR, compiled.getEngine());
+            assertSame(FieldMatch.none(), match);
+            assertTrue(text.getSteps() < 1_000);
+        }
+
+        @Test
+        @DisplayName("Should hand messages with supplementary characters to java.util.regex")
+        void match_SupplementaryCharacters_ShouldFallBack() {
+            // Arrange
+            CompiledTemplate compiled = CompiledTemplate.compile("Rs\\.(?<amount>\\d+).(?<merchant>\\w+)");
+
+            // Act
+            FieldMatch match = compiled.match("Rs.250\uD83D\uDE00Swiggy");
+
+            // Assert
+            assertFalse(LinearProgram.supportsInput("Rs.250\uD83D\uDE00Swiggy"));
+            assertEquals(2, match.getFieldCount());
+            assertEquals("Swiggy", match.getValue(ExtractableField.MERCHANT));
+        }
+    }
+
+    @Nested
+    @DisplayName("Differential Tests")
+    class DifferentialTests {
+
+        /**
+         * Templates and messages from the service and engine test suites
+         */
+        @ParameterizedTest
+        @CsvSource(delimiter = '|', quoteCharacter = '\'', value = {
+            "(?:Rs\\.?\\s*)(?<amount>[\\d,]+)|Your account has been debited Rs. 1,500.00",
+            "(?<amount>RS\\.?\\s*[\\d,]+)|Your account has been debited rs. 1500",
+            "(?<amount>[\\d,]+\\.?\\d*)\\s*debited.*A/c\\s*(?<bankAcId>XX\\d+).*(?<date>\\d{2}-\\w{3}-\\d{2})|Rs 1,200.50 debited from A/c XX1234 on 05-Jan-24",
+            "(?<amount>\\$[\\d,]+)|Paid $1,250 at store",
+            "(\\w+)\\s(?<amount>\\d+)\\s(?<balance>\\d+)|TESTBK 500 1000",
+            "A/c\\s*(?<bankAcId>\\d+)|Your A/c 1234567890 has been debited",
+            "A/c\\s*(?<bankAcId>\\d+).*debited.*Rs\\.?\\s*(?<amount>[\\d,]+).*Bal:\\s*Rs\\.?\\s*(?<balance>[\\d,]+)|A/c 1234 debited Rs.500. Bal: Rs. 10,000",
+            "Avl Lmt:\\s*Rs\\.?\\s*(?<availLimit>[\\d,]+)|Credit Card spent Rs.5000. Avl Lmt: Rs. 45,000",
+            "Bal:\\s*Rs\\.?\\s*(?<balance>[\\d,]+\\.?\\d*)|Debited Rs.500. Bal: Rs. 10,000.50",
+            "Bill No:\\s*(?<billId>[A-Za-z0-9]+)|Bill No: ELEC123456 paid successfully",
+            "Credit Limit:\\s*Rs\\.?\\s*(?<creditLimit>[\\d,]+)|Your Credit Limit: Rs. 50,000",
+            "Due Date:\\s*(?<dueDate>\\d{2}-\\d{2}-\\d{4})|Bill amount Rs.1500. Due Date: 25-01-2024",
+            "Maturity:\\s*(?<maturityDate>\\d{2}/\\d{2}/\\d{4})|FD Maturity: 15/01/2025",
+            "NAV:\\s*Rs\\.?\\s*(?<mfNav>[\\d.]+)|MF Purchase. NAV: Rs. 125.50",
+            "Principal:\\s*Rs\\.?\\s*(?<principalAmount>[\\d,]+)|FD created. Principal: Rs. 1,00,000",
+            "ROI:\\s*(?<rateOfInterest>[\\d.]+)%|FD created at ROI: 7.5%",
+            "Ref:\\s*(?<txnNote>[A-Za-z0-9]+)|Debited Rs.500. Ref: TXN123456789",
+            "Rs\\.(?<amount>[\\d,]+\\.?\\d*) debited|TESTBK: Rs.1,000.75 debited",
+            "Rs\\.(?<amount>\\d+) debited from A/c (?<bankAcId>\\w+)( on \\d+)?|TESTBK: Rs.1000 debited from A/c XX12 on 05",
+            "Rs\\.(?<amount>\\d+)( at (?<merchant>\\w+))?|Rs.250 at Swiggy",
+            "Rs\\.(?<amount>\\d+)( at (?<merchant>\\w+))?|Rs.250 debited",
+            "Rs\\.?(?<amount>[\\d,]+) at (?<merchant>\\w+) (?<unknownGroup>\\w+)|Rs.99 at Zomato today",
+            "Rs\\.?\\s*(?<amount>[\\d,]+).*Bal:\\s*Rs\\.?\\s*(?<balance>[\\d,]+)|Debited Rs. 1,500 Bal: Rs.20,000",
+            "Rs\\.?\\s*(?<amount>[\\d,]+\\.?\\d*).*(?<merchant>[A-Za-z]+\\s*[A-Za-z]*)|Rs. 500.00 paid to Amazon Store",
+            "Rs\\.\\s*(?<amount>[\\d,]+\\.\\d{2})|Amount: Rs. 1,234.56",
+            "Rs\\.\\s?(?<amount>[\\d,]+) on \\d{2}|Rs. 1,000 on 12",
+            "Total Due:\\s*Rs\\.?\\s*(?<totAmtDue>[\\d,]+\\.?\\d*)|Your bill. Total Due: Rs. 2,500.00",
+            "Units:\\s*(?<mfUnits>[\\d.]+)|MF Purchase. Units: 79.68 allotted",
+            "[(](?<amount>\\d+)[)] (?<merchant>\\w+)|Paid (450) Uber",
+            "\\Q(not a group)\\E(?<amount>\\d+)|(not a group)42",
+            "at\\s*(?<city>[A-Za-z]+)|Transaction at Mumbai for Rs.500",
+            "from\\s*(?<senderName>[A-Za-z\\s]+)|Received Rs.1000 from John Doe via UPI",
+            "on\\s*(?<date>\\d{2}/\\d{2}/\\d{4})|Transaction on 15/01/2024 for Rs.500",
+            "to\\s*(?<receiverName>[A-Za-z\\s]+)|Paid Rs.500 to Jane Smith via UPI",
+            "via\\s*(?<paymentType>[A-Za-z]+)|Paid Rs.500 via UPI",
+            "Rs\\.(?<amount>\\d+) debited|Some message",
+            "Rs\\.(?<amount>\\d+) debited|''"
+        })
+        @DisplayName("Should extract the same fields as java.util.regex on the template corpus")
+        void match_TemplateCorpus_ShouldAgreeWithBacktrackingEngine(String regex, String message) {
+            // Arrange
+            CompiledTemplate compiled = CompiledTemplate.compile(regex);
+            Matcher matcher = compiled.getPattern().matcher(message);
+            RegexProcessResponse expected = matcher.find()
+                ? compiled.extract(matcher, message).toResponse()
+                : new RegexProcessResponse();
+
+            // Act
+            RegexProcessResponse actual = compiled.match(message).toResponse();
+
+            // Assert
+            assertEquals(MatchEngine.LINEAR, compiled.getEngine());
+            assertEquals(expected, actual);
+        }
+
+        @Test
+        @DisplayName("Should report the same group offsets as java.util.regex on random patterns")
+        void find_RandomPatterns_ShouldAgreeWithBacktrackingEngine() {
+            // Arrange
+            Random random = new Random(20240611L);
+            String[] alphabet = {"a", "A", "b", "1", "2", ",", ".", " ", "_", "\n", "\r", "\u00e9", "\u0301"};
+            int compared = 0;
+
+            // Act & Assert
+            for (int i = 0; i < 4_000; i++) {
+                String regex = new RandomPattern(random).generate();
+                LinearProgram program;
+                try {
+                    Pattern.compile(regex);
+                    program = compile(regex);
+                } catch (RuntimeException e) {
+                    // e.g. a duplicate random group name
+                    continue;
+                }
+                if (program == null) {
+                    continue;
+                }
+                for (int j = 0; j < 12; j++) {
+                    StringBuilder text = new StringBuilder();
+                    int length = random.nextInt(10);
+                    for (int k = 0; k < length; k++) {
+                        text.append(alphabet[random.nextInt(alphabet.length)]);
+                    }
+                    int[] expected = backtrackingCaptures(regex, text.toString());
+                    int[] actual = program.find(text.toString());
+                    assertArrayEquals(expected, actual,
+                        () -> "Pattern " + regex + " on '" + text + "': expected " + Arrays.toString(expected)
+                            + " but was " + Arrays.toString(actual));
+                    compared++;
+                }
+            }
+            assertTrue(compared > 20_000, "Too few patterns were supported: " + compared);
+        }
+
+        @Test
+        @DisplayName("Should match every branch of a fused program like the branch on its own")
+        void findAll_FusedRandomPatterns_ShouldAgreeWithEachProgram() {
+            // Arrange
+            Random random = new Random(20240618L);
+            String[] alphabet = {"a", "A", "b", "1", "2", ",", ".", " ", "_", "\n", "\u00e9"};
+            int compared = 0;
+
+            // Act & Assert
+            for (int i = 0; i < 1_500; i++) {
+                List<String> regexes = new ArrayList<>();
+                List<LinearProgram> programs = new ArrayList<>();
+                int size = 2 + random.nextInt(5);
+                while (programs.size() < size) {
+                    String regex = new RandomPattern(random).generate();
+                    LinearProgram program;
+                    try {
+                        Pattern.compile(regex);
+                        program = compile(regex);
+                    } catch (RuntimeException e) {
+                        continue;
+                    }
+                    if (program != null) {
+                        regexes.add(regex);
+                        programs.add(program);
+                    }
+                }
+                LinearProgram fused = LinearProgram.fuse(programs);
+                assertEquals(size, fused.getBranchCount());
+
+                for (int j = 0; j < 8; j++) {
+                    StringBuilder text = new StringBuilder();
+                    int length = random.nextInt(10);
+                    for (int k = 0; k < length; k++) {
+                        text.append(alphabet[random.nextInt(alphabet.length)]);
+                    }
+                    // Sometimes only a subset of the branches, as after the literal prefilter
+                    BitSet branches = new BitSet();
+                    for (int b = 0; b < size; b++) {
+                        if (j % 2 == 0 || random.nextBoolean()) {
+                            branches.set(b);
+                        }
+                    }
+                    int[][] actual = fused.findAll(text.toString(), branches);
+                    for (int b = 0; b < size; b++) {
+                        int[] expected = branches.get(b) ? programs.get(b).find(text.toString()) : null;
+                        String regex = regexes.get(b);
+                        int[] branchActual = actual[b];
+                        assertArrayEquals(expected, branchActual,
+                            () -> "Branch " + regex + " on '" + text + "': expected " + Arrays.toString(expected)
+                                + " but was " + Arrays.toString(branchActual));
+                        compared++;
+                    }
+                }
+            }
+            assertTrue(compared > 20_000, "Too few branches were compared: " + compared);
+        }
+    }
+
+    /**
+     * Small random patterns over the constructs the linear engine supports
+     */
+    private static final class RandomPattern {
+        private static final String[] ATOMS = {
+            "a", "b", "A", "1", ",", "\\.", ".", "[ab]", "[^a]", "[a-b1]", "\\d", "\\w", "\\s", "\\W", "\\n", "\\u00e9"
+        };
+        private static final String[] ASSERTIONS = {"^", "$", "\\b", "\\B", "\\z", "\\Z", "\\A"};
+        private static final String[] QUANTIFIERS = {"*", "+", "?", "{2}", "{0,2}", "{1,3}", "{1,}"};
+        private static final String[] FLAGS = {"", "", "", "(?m)", "(?s)", "(?-i)"};
+
+        private final Random random;
+
+        private RandomPattern(Random random) {
+            this.random = random;
+        }
+
+        private String generate() {
+            return FLAGS[random.nextInt(FLAGS.length)] + alternation(3);
+        }
+
+        private String alternation(int depth) {
+            StringBuilder out = new StringBuilder(sequence(depth));
+            while (random.nextInt(4) == 0) {
+                out.append('|').append(sequence(depth));
+            }
+            return out.toString();
+        }
+
+        private String sequence(int depth) {
+            StringBuilder out = new StringBuilder();
+            int items = random.nextInt(4);
+            for (int i = 0; i < items; i++) {
+                out.append(item(depth));
+            }
+            return out.toString();
+        }
+
+        private String item(int depth) {
+            int kind = random.nextInt(10);
+            String atom;
+            if (kind < 5 || depth == 0) {
+                atom = ATOMS[random.nextInt(ATOMS.length)];
+            } else if (kind == 5) {
+                return ASSERTIONS[random.nextInt(ASSERTIONS.length)];
+            } else if (kind == 6) {
+                atom = "(?:" + alternation(depth - 1) + ")";
+            } else if (kind == 7) {
+                atom = "(?<g" + random.nextInt(1_000) + ">" + alternation(depth - 1) + ")";
+            } else {
+                atom = "(" + alternation(depth - 1) + ")";
+            }
+            if (random.nextInt(3) == 0) {
+                atom += QUANTIFIERS[random.nextInt(QUANTIFIERS.length)];
+                if (random.nextInt(4) == 0) {
+                    atom += "?";
+                }
+            }
+            return atom;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.regexflow.backend.Engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LiteralPrefilter Tests")
+class LiteralPrefilterTest {
+
+    @Nested
+    @DisplayName("Aho-Corasick Tests")
+    class AhoCorasickTests {
+
+        @Test
+        @DisplayName("Should find overlapping keywords and keywords inside other keywords")
+        void findAll_OverlappingKeywords_ShouldFindEach() {
+            // Arrange
+            AhoCorasick automaton = AhoCorasick.build(List.of("he", "she", "hers", "his", "debited from"));
+
+            // Act
+            BitSet found = automaton.findAll("ushers were DEBITED FROM");
+
+            // Assert
+            assertEquals("{0, 1, 2, 4}", found.toString());
+        }
+
+        @Test
+        @DisplayName("Should fold ASCII case only, like CASE_INSENSITIVE")
+        void findAll_NonAsciiCase_ShouldNotFold() {
+            // Arrange
+            AhoCorasick automaton = AhoCorasick.build(List.of("café", "rs."));
+
+            // Act & Assert
+            assertEquals("{0, 1}", automaton.findAll("CAFé RS.").toString());
+            assertEquals("{}", automaton.findAll("CAFÉ").toString());
+        }
+    }
+
+    @Nested
+    @DisplayName("Candidate Tests")
+    class CandidateTests {
+
+        @Test
+        @DisplayName("Should keep only templates whose required literals all occur")
+        void candidates_ShouldRequireEveryLiteral() {
+            // Arrange
+            LiteralPrefilter prefilter = LiteralPrefilter.build(Arrays.asList(
+                TemplateAnalyzer.analyze("Rs\\.(?<amount>\\d+) debited from A/c (?<bankAcId>XX\\d+)").requiredLiterals(),
+                TemplateAnalyzer.analyze("Rs\\.(?<amount>\\d+) credited to A/c (?<bankAcId>XX\\d+)").requiredLiterals(),
+                TemplateAnalyzer.analyze("(?<amount>\\d+)").requiredLiterals(),
+                null));
+
+            // Act
+            BitSet candidates = prefilter.candidates("TESTBK: rs.500 DEBITED FROM a/c XX1234");
+
+            // Assert
+            assertEquals("{0, 2, 3}", candidates.toString());
+        }
+
+        @Test
+        @DisplayName("Should never rule out a template that matches")
+        void candidates_ShouldKeepEveryMatchingTemplate() {
+            // Arrange
+            List<String> patterns = List.of(
+                "Rs\\.?\\s*(?<amount>[\\d,]+).*Bal:\\s*Rs\\.?\\s*(?<balance>[\\d,]+)",
+                "(?:INR|Rs)\\s*(?<amount>\\d+) (?:debited|spent)",
+                "A/c\\s*(?<bankAcId>\\d+)",
+                "(?-i)UPI Ref (?<txnNote>\\d+)",
+                "(?:Txn){2} (?<amount>\\d+)");
+            List<String> messages = List.of(
+                "Debited Rs. 1,500 Bal: Rs.20,000", "inr 40 SPENT", "Your a/C 1234", "upi ref 99",
+                "UPI Ref 99", "TXNtxn 5", "nothing here");
+            LiteralPrefilter prefilter = LiteralPrefilter.build(
+                patterns.stream().map(p -> TemplateAnalyzer.analyze(p).requiredLiterals()).toList());
+
+            for (String message : messages) {
+                // Act
+                BitSet candidates = prefilter.candidates(message);
+
+                // Assert
+                for (int t = 0; t < patterns.size(); t++) {
+                    if (CompiledTemplate.compile(patterns.get(t)).getPattern().matcher(message).find()) {
+                        assertTrue(candidates.get(t), patterns.get(t) + " ruled out for " + message);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Enums.RedosRisk;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RedosAnalyzer Tests")
+class RedosAnalyzerTest {
+
+    private RedosRisk riskOf(String regex) {
+        return RedosAnalyzer.worstRisk(RedosAnalyzer.analyze(RegexParser.parse(regex).root()));
+    }
+
+    @Nested
+    @DisplayName("Static Analysis Tests")
+    class StaticAnalysisTests {
+
+        @Test
+        @DisplayName("Should flag nested quantifiers that can fill an iteration as exponential")
+        void analyze_NestedQuantifiers_ShouldBeExponential() {
+            assertEquals(RedosRisk.EXPONENTIAL, riskOf("(\\d+,?)+"));
+            assertEquals(RedosRisk.EXPONENTIAL, riskOf("^(\\w+\\s?)*$"));
+            assertEquals(RedosRisk.EXPONENTIAL, riskOf("(x+x+)+y"));
+        }
+
+        @Test
+        @DisplayName("Should flag overlapping alternatives inside a loop as exponential")
+        void analyze_OverlappingAlternatives_ShouldBeExponential() {
+            assertEquals(RedosRisk.EXPONENTIAL, riskOf("(\\w|\\d)+!"));
+            assertEquals(RedosRisk.EXPONENTIAL, riskOf("(?:a|A)*b"));
+        }
+
+        @Test
+        @DisplayName("Should flag adjacent overlapping loops as polynomial")
+        void analyze_AdjacentLoops_ShouldBePolynomial() {
+            assertEquals(RedosRisk.POLYNOMIAL, riskOf("Rs\\.(?<amount>[\\d,]+\\.?\\d*) debited"));
+        }
+
+        @Test
+        @DisplayName("Should not flag unambiguous, atomic or possessive loops")
+        void analyze_SafePatterns_ShouldBeNone() {
+            assertEquals(RedosRisk.NONE, riskOf("Rs\\.(?<amount>\\d+) debited from A/c (?<bankAcId>XX\\d+)"));
+            assertEquals(RedosRisk.NONE, riskOf("(\\d+,)+"));
+            assertEquals(RedosRisk.NONE, riskOf("(?>(\\d+,?)+)"));
+            assertEquals(RedosRisk.NONE, riskOf("(\\d++,?)+"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Adversarial Fuzzing Tests")
+    class FuzzingTests {
+
+        @Test
+        @DisplayName("Should exhaust the budget on a short adversarial input for a blow-up pattern")
+        void fuzz_PolynomialBlowUp_ShouldExceedBudgetOnShortInput() {
+            // Arrange
+            String regex = "\\d*\\d*\\d*\\d*x";
+            RegexNode root = RegexParser.parse(regex).root();
+            List<RedosAnalyzer.Finding> findings = RedosAnalyzer.analyze(root);
+
+            // Act
+            AdversarialInputFuzzer.Result result = AdversarialInputFuzzer.fuzz(
+                Pattern.compile(regex), root, findings, null, 1024, 200_000, 1_000_000_000L);
+
+            // Assert
+            assertTrue(result.budgetExceeded());
+            assertTrue(result.pumpLength() <= 64);
+        }
+
+        @Test
+        @DisplayName("Should stay far below the budget for a plain template")
+        void fuzz_PlainTemplate_ShouldStayWithinBudget() {
+            // Arrange
+            String regex = "Rs\\.(?<amount>\\d+) debited from A/c (?<bankAcId>XX\\d+)";
+            RegexNode root = RegexParser.parse(regex).root();
+
+            // Act
+            AdversarialInputFuzzer.Result result = AdversarialInputFuzzer.fuzz(
+                Pattern.compile(regex, Pattern.CASE_INSENSITIVE), root, List.of(),
+                "HDFC: Rs.100 debited from A/c XX1234", 1024, 200_000, 1_000_000_000L);
+
+            // Assert
+            assertFalse(result.budgetExceeded());
+            assertTrue(result.worstSteps() < 200_000);
+        }
+
+        @Test
+        @DisplayName("Should build the prefix that leads up to the pumped loop")
+        void prefixBefore_ShouldWitnessPrecedingNodes() {
+            // Arrange
+            RegexNode root = RegexParser.parse("Rs\\.\\s?(?<amount>[\\d,]+) on \\d{2}").root();
+            RedosAnalyzer.Finding loop = new RedosAnalyzer.Finding(RedosRisk.NONE, "",
+                (RegexNode.Repeat) ((RegexNode.Group) ((RegexNode.Sequence) root).items().get(4)).body(), '1');
+
+            // Act
+            String prefix = AdversarialInputFuzzer.prefixBefore(root, loop.repeat());
+
+            // Assert
+            assertEquals("Rs.", prefix);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.regexflow.backend.Engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShapeSignature Tests")
+class ShapeSignatureTest {
+
+    @Test
+    @DisplayName("Should give SMS of the same template the same signature")
+    void of_SameTemplateDifferentValues_ShouldMatch() {
+        // Act
+        String first = ShapeSignature.of("HDFCBK: Rs.1250.00 debited from A/c XX1234 on 12-06-24");
+        String second = ShapeSignature.of("HDFCBK: Rs.99.00 debited from A/c XX9876 on 01-01-25");
+
+        // Assert
+        assertEquals("W: W.D.D W W W/W WD W D-D-D", first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    @DisplayName("Should tell apart SMS whose punctuation differs")
+    void of_DifferentPunctuation_ShouldDiffer() {
+        // Act & Assert
+        assertNotEquals(ShapeSignature.of("Rs.1,250.00 debited"), ShapeSignature.of("Rs.99.00 debited"));
+        assertEquals("W.D.D W", ShapeSignature.of("Rs.99.00  \t debited"));
+    }
+
+    @Test
+    @DisplayName("Should cut long SMS at the maximum length")
+    void of_LongText_ShouldBeBounded() {
+        // Act
+        String signature = ShapeSignature.of(".".repeat(1_000));
+
+        // Assert
+        assertEquals(ShapeSignature.MAX_LENGTH, signature.length());
+    }
+}
@@ -0,0 +1,123 @@
+package com.regexflow.backend.Engine;
+
+import com.regexflow.backend.Enums.PatternComplexity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TemplateAnalyzer Tests")
+class TemplateAnalyzerTest {
+
+    @Nested
+    @DisplayName("Group Table Tests")
+    class GroupTableTests {
+
+        @Test
+        @DisplayName("Should not count parentheses inside character classes as groups")
+        void analyze_ParenthesisInCharClass_ShouldNotCountAsGroup() {
+            // Act
+            TemplateAnalysis analysis = TemplateAnalyzer.analyze("[(](?<amount>\\d+)[)] (?<merchant>\\w+)");
+
+            // Assert
+            assertEquals(2, analysis.groupCount());
+            assertEquals(1, analysis.namedGroups().get("amount"));
+            assertEquals(2, analysis.namedGroups().get("merchant"));
+        }
+
+        @Test
+        @DisplayName("Should number groups exactly as java.util.regex does")
+        void analyze_ShouldAgreeWithPatternGroupCount() {
+            // Arrange
+            List<String> patterns = List.of(
+                "(a)(?:b)(?<c>c)(?=d)(?!e)(?<=f)(?<!g)(?>h)",
+                "\\((?<amount>\\d+)\\)",
+                "[\\[(](x)[]()]",
+                "\\Q(not a group)\\E(?<amount>\\d+)",
+                "(?x) ( a ) # (comment group)\n (?<b> b )",
+                "[a-z&&[^(]](y)",
+                "(?i:(a)|(b))\\2",
+                "(?<first>a)\\k<first>");
+
+            for (String regex : patterns) {
+                // Act
+                TemplateAnalysis analysis = TemplateAnalyzer.analyze(regex);
+
+                // Assert
+                assertEquals(Pattern.compile(regex).matcher("").groupCount(), analysis.groupCount(), regex);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Required Literal Tests")
+    class RequiredLiteralTests {
+
+        @Test
+        @DisplayName("Should collect lower-cased literals every match contains, longest first")
+        void analyze_ShouldCollectRequiredLiterals() {
+            // Act
+            TemplateAnalysis analysis = TemplateAnalyzer.analyze(
+                "Rs\\.(?<amount>\\d+) debited from A/c (?<bankAcId>\\w+)( on \\d+)?");
+
+            // Assert
+            assertEquals(List.of(" debited from a/c ", "rs."), analysis.requiredLiterals());
+        }
+
+        @Test
+        @DisplayName("Should not require literals from optional parts or alternations")
+        void analyze_OptionalAndAlternation_ShouldNotBeRequired() {
+            // Act
+            TemplateAnalysis analysis = TemplateAnalyzer.analyze("(?:credited|debited)(?: via UPI)? Rs\\.\\d+");
+
+            // Assert
+            assertEquals(List.of(" rs."), analysis.requiredLiterals());
+        }
+
+        @Test
+        @DisplayName("Should not require literals when case folding is Unicode-aware")
+        void analyze_UnicodeCase_ShouldNotRequireLiterals() {
+            // Arrange: the Kelvin sign (U+212A) matches k, the dotted capital I (U+0130) matches i
+            List<String[]> patternsAndTexts = List.of(
+                new String[] {"(?u)(?<amount>\\d+) kg", "12 \u212Ag"},
+                new String[] {"(?u)(?<amount>\\d+) debit", "12 DEB\u0130T"});
+
+            for (String[] patternAndText : patternsAndTexts) {
+                // Act
+                TemplateAnalysis analysis = TemplateAnalyzer.analyze(patternAndText[0]);
+
+                // Assert
+                assertTrue(Pattern.compile(patternAndText[0], Pattern.CASE_INSENSITIVE)
+                    .matcher(patternAndText[1]).find(), patternAndText[0]);
+                assertEquals(List.of(), analysis.requiredLiterals(), patternAndText[0]);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Anchoring And Complexity Tests")
+    class AnchoringAndComplexityTests {
+
+        @Test
+        @DisplayName("Should detect patterns anchored at the start")
+        void analyze_ShouldDetectAnchoring() {
+            assertTrue(TemplateAnalyzer.analyze("^Rs\\.\\d+").anchored());
+            assertTrue(TemplateAnalyzer.analyze("(?:^A|\\AB)c").anchored());
+            assertFalse(TemplateAnalyzer.analyze("Rs\\.\\d+$").anchored());
+            assertFalse(TemplateAnalyzer.analyze("(?m)^Rs").anchored());
+        }
+
+        @Test
+        @DisplayName("Should classify pattern cost")
+        void analyze_ShouldClassifyComplexity() {
+            assertEquals(PatternComplexity.LITERAL, TemplateAnalyzer.analyze("Account blocked").complexity());
+            assertEquals(PatternComplexity.REGULAR, TemplateAnalyzer.analyze("Rs\\.(?<amount>[\\d,]+)").complexity());
+            assertEquals(PatternComplexity.NESTED_QUANTIFIER, TemplateAnalyzer.analyze("(\\w+\\s?)+$").complexity());
+            assertEquals(PatternComplexity.NON_REGULAR, TemplateAnalyzer.analyze("(\\d)\\1").complexity());
+        }
+    }
+}
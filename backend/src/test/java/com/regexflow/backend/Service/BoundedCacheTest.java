@@ -0,0 +1,147 @@
+package com.regexflow.backend.Service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BoundedCache Tests")
+class BoundedCacheTest {
+
+    @Test
+    @DisplayName("Should evict entries not read since they were added before entries in use")
+    void put_WhenFull_ShouldKeepEntriesReadSinceAdded() {
+        // Arrange
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+
+        // Act
+        cache.put("c", 3);
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1L, cache.evictions());
+    }
+
+    @Test
+    @DisplayName("Should replace the value of a cached key without evicting anything")
+    void put_SameKey_ShouldReplaceInPlace() {
+        // Arrange
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        // Act
+        cache.put("a", 10);
+
+        // Assert
+        assertEquals(10, cache.get("a"));
+        assertEquals(2, cache.get("b"));
+        assertEquals(0L, cache.evictions());
+    }
+
+    @Test
+    @DisplayName("Should only remove a key still cached with the given value")
+    void remove_ReplacedValue_ShouldKeepEntry() {
+        // Arrange
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+        Integer first = 1000;
+        cache.put("a", first);
+        cache.put("a", 2000);
+
+        // Act
+        boolean removed = cache.remove("a", first);
+
+        // Assert
+        assertFalse(removed);
+        assertEquals(2000, cache.get("a"));
+    }
+
+    @Test
+    @DisplayName("Should stay within bounds while keys are removed and added again")
+    void put_AfterRemovals_ShouldStayBounded() {
+        // Arrange
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(4);
+
+        // Act
+        for (int round = 0; round < 1000; round++) {
+            cache.put(round % 3, round);
+            cache.removeIf(key -> key == 0);
+        }
+        for (int key = 10; key < 20; key++) {
+            cache.put(key, key);
+        }
+
+        // Assert
+        assertEquals(4, cache.size());
+        assertEquals(19, cache.get(19));
+    }
+
+    @Test
+    @DisplayName("Should never evict a live entry while the cache holds fewer entries than its bound")
+    void put_AfterRepeatedInvalidation_ShouldKeepOtherEntries() {
+        // Arrange: entries of two senders, one of which is invalidated and refilled again and again
+        BoundedCache<String, Integer> cache = new BoundedCache<>(4);
+        cache.put("B1", 1);
+        cache.put("B2", 2);
+        cache.put("A1", 3);
+        cache.put("A2", 4);
+
+        // Act
+        for (int round = 0; round < 3; round++) {
+            cache.removeIf(key -> key.startsWith("A"));
+            cache.put("A1", 3);
+            cache.put("A2", 4);
+        }
+
+        // Assert
+        assertEquals(4, cache.size());
+        assertEquals(1, cache.get("B1"));
+        assertEquals(2, cache.get("B2"));
+        assertEquals(0L, cache.evictions());
+    }
+
+    @Test
+    @DisplayName("Should not evict more than needed when writers insert concurrently")
+    void put_Concurrently_ShouldNotOverEvict() throws Exception {
+        // Arrange
+        int threads = 8;
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(100);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch startTogether = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 10_000;
+            done.add(executor.submit(() -> {
+                startTogether.await();
+                for (int i = 0; i < 2_000; i++) {
+                    cache.put(offset + i, i);
+                }
+                return null;
+            }));
+        }
+        startTogether.countDown();
+        for (Future<?> future : done) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Assert: at most the writers that raced the evicting thread above the bound, never below
+        assertTrue(cache.size() >= 100, "size " + cache.size());
+        assertTrue(cache.size() <= 100 + threads, "size " + cache.size());
+        assertEquals(threads * 2_000L - cache.size(), cache.evictions());
+    }
+}
@@ -0,0 +1,135 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.CompiledTemplate;
+import com.regexflow.backend.Engine.TemplateAnalyzer;
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.regexflow.backend.Mapper.TemplateAnalysisMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CompiledPatternCache Tests")
+class CompiledPatternCacheTest {
+
+    private CompiledPatternCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CompiledPatternCache(2);
+    }
+
+    @Nested
+    @DisplayName("Lookup Tests")
+    class LookupTests {
+
+        @Test
+        @DisplayName("Should return the same compiled pattern on repeated lookups")
+        void get_SameTemplateAndPattern_ShouldHitCache() {
+            // Act
+            CompiledTemplate first = cache.get(1L, "Rs\\.?\\s*(?<amount>[\\d,]+)");
+            CompiledTemplate second = cache.get(1L, "Rs\\.?\\s*(?<amount>[\\d,]+)");
+
+            // Assert
+            assertSame(first, second);
+            Map<String, Object> stats = cache.stats();
+            assertEquals(1L, stats.get("hits"));
+            assertEquals(1L, stats.get("misses"));
+        }
+
+        @Test
+        @DisplayName("Should compile again when the template pattern changes")
+        void get_SameTemplateDifferentPattern_ShouldMiss() {
+            // Act
+            CompiledTemplate first = cache.get(1L, "(?<amount>\\d+)");
+            CompiledTemplate second = cache.get(1L, "(?<balance>\\d+)");
+
+            // Assert
+            assertNotSame(first, second);
+            assertEquals(2L, cache.stats().get("misses"));
+        }
+
+        @Test
+        @DisplayName("Should keep group numbers of the compiled pattern")
+        void get_ShouldExposeGroupNumbers() {
+            // Act
+            CompiledTemplate compiled = cache.get(1L, "(\\w+)\\s(?<amount>\\d+)\\s(?<balance>\\d+)");
+
+            // Assert
+            assertEquals(2, compiled.getAnalysis().namedGroups().get("amount"));
+            assertEquals(3, compiled.getAnalysis().namedGroups().get("balance"));
+        }
+
+        @Test
+        @DisplayName("Should reuse the analysis stored on an approved template")
+        void get_TemplateWithStoredAnalysis_ShouldReuseIt() {
+            // Arrange
+            RegexTemplate template = new RegexTemplate();
+            template.setTemplateId(7L);
+            template.setPattern("Rs\\.(?<amount>\\d+) debited");
+            TemplateAnalysisMapper.applyToEntity(TemplateAnalyzer.analyze(template.getPattern()), template);
+            template.setRequiredLiterals("[\"stored\"]");
+
+            // Act
+            CompiledTemplate compiled = cache.get(template);
+
+            // Assert
+            assertEquals(List.of("stored"), compiled.getAnalysis().requiredLiterals());
+            assertEquals(1, compiled.getAnalysis().namedGroups().get("amount"));
+            assertSame(compiled, cache.get(template));
+        }
+
+        @Test
+        @DisplayName("Should not cache invalid patterns")
+        void get_InvalidPattern_ShouldThrowAndNotCache() {
+            // Act & Assert
+            assertThrows(PatternSyntaxException.class, () -> cache.get(1L, "[invalid(regex"));
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Eviction And Invalidation Tests")
+    class EvictionTests {
+
+        @Test
+        @DisplayName("Should evict least recently used entry when full")
+        void get_WhenFull_ShouldEvictLeastRecentlyUsed() throws InterruptedException {
+            // Arrange
+            CompiledTemplate first = cache.get(1L, "(?<amount>\\d+)");
+            cache.get(2L, "(?<balance>\\d+)");
+            Thread.sleep(1);
+            cache.get(1L, "(?<amount>\\d+)"); // template 1 is now the most recently used
+
+            // Act
+            cache.get(3L, "(?<date>\\d+)");
+
+            // Assert
+            assertEquals(2, cache.size());
+            assertEquals(1L, cache.stats().get("evictions"));
+            assertSame(first, cache.get(1L, "(?<amount>\\d+)"));
+        }
+
+        @Test
+        @DisplayName("Should drop all entries of an invalidated template")
+        void invalidateTemplate_ShouldRemoveTemplateEntries() {
+            // Arrange
+            cache.get(1L, "(?<amount>\\d+)");
+            cache.get(2L, "(?<balance>\\d+)");
+
+            // Act
+            cache.invalidateTemplate(1L);
+
+            // Assert
+            assertEquals(1, cache.size());
+            cache.get(2L, "(?<balance>\\d+)");
+            assertEquals(1L, cache.stats().get("hits"));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.FieldMatch;
+import com.regexflow.backend.Engine.MatchBudget;
+import com.regexflow.backend.Entity.RegexTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares one fused scan per SMS against the per-template loop for a sender with many templates.
+ * Not a unit test: run its main method by hand on the test classpath, optionally passing the
+ * number of templates and iterations.
+ */
+public class FusedTemplateMatcherBenchmark {
+
+    private static final String[] VERBS = {"debited from", "credited to", "spent on", "refunded to", "withdrawn from"};
+    private static final String[] SMS = {
+        "HDFCBK: Rs.1,250.00 debited from A/c XX1234 on 12-06-24. Avl Bal Rs.9,870.50",
+        "HDFCBK: Rs.499.00 spent on Card XX9876 at AMAZON on 13-06-24. Avl Lmt Rs.45,000.00",
+        "HDFCBK: Rs.10,000.00 credited to A/c XX1234 on 14-06-24 by NEFT. Avl Bal Rs.19,870.50",
+        "HDFCBK: OTP for txn of Rs.2,000.00 is 482913. Do not share it with anyone."
+    };
+
+    public static void main(String[] args) {
+        int templateCount = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        List<RegexTemplate> templates = new ArrayList<>();
+        for (int t = 0; t < templateCount; t++) {
+            RegexTemplate template = new RegexTemplate();
+            template.setTemplateId((long) t);
+            template.setSenderHeader("HDFCBK");
+            template.setPattern("Rs\\.(?<amount>[\\d,]+\\.\\d{2}) " + VERBS[t % VERBS.length]
+                + " (?:A/c|Card) (?<bankAcId>XX\\d{" + (4 + t / VERBS.length) + "}).*?Avl (?:Bal|Lmt) Rs\\.(?<balance>[\\d,]+\\.\\d{2})");
+            templates.add(template);
+        }
+
+        CompiledPatternCache cache = new CompiledPatternCache(templateCount + 16);
+        RegexProcessService regexProcessService = new RegexProcessService(cache, new MatchBudgetPolicy(1_000_000, 50, 250));
+        FusedTemplateMatcher fusedTemplateMatcher = new FusedTemplateMatcher(cache, true);
+
+        for (int round = 0; round < 3; round++) {
+            long perTemplate = time(iterations, sms -> {
+                MatchBudget budget = MatchBudget.start(1_000_000, 50_000_000L, 250_000_000L);
+                int found = 0;
+                for (RegexTemplate template : templates) {
+                    if (regexProcessService.processTemplate(template, sms, budget).getFieldCount() > 0) {
+                        found++;
+                    }
+                }
+                return found;
+            });
+            long fused = time(iterations, sms -> {
+                MatchBudget budget = MatchBudget.start(1_000_000, 50_000_000L, 250_000_000L);
+                Map<Long, FieldMatch> responses =
+                    fusedTemplateMatcher.match("HDFCBK", templates, templates, sms, budget);
+                return (int) responses.values().stream().filter(match -> match.getFieldCount() > 0).count();
+            });
+            System.out.printf("%d templates: per-template loop %.2f us/SMS, fused scan %.2f us/SMS (%.1fx)%n",
+                templateCount, perTemplate / 1000.0 / iterations, fused / 1000.0 / iterations,
+                (double) perTemplate / fused);
+        }
+    }
+
+    private static long time(int iterations, SmsMatcher matcher) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += matcher.match(SMS[i % SMS.length]);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink < 0) {
+            System.out.println(sink);
+        }
+        return elapsed;
+    }
+
+    private interface SmsMatcher {
+        int match(String sms);
+    }
+}
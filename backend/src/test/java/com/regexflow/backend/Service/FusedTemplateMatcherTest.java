@@ -0,0 +1,166 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.FieldMatch;
+import com.regexflow.backend.Engine.MatchBudget;
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.regexflow.backend.Enums.ExtractableField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FusedTemplateMatcher Tests")
+class FusedTemplateMatcherTest {
+
+    private static final String DEBIT_SMS = "HDFCBK: Rs.1,250.00 debited from A/c XX1234. Avl Bal Rs.9,870.50";
+
+    private CompiledPatternCache compiledPatternCache;
+    private RegexProcessService regexProcessService;
+    private FusedTemplateMatcher fusedTemplateMatcher;
+
+    @BeforeEach
+    void setUp() {
+        compiledPatternCache = new CompiledPatternCache(64);
+        regexProcessService = new RegexProcessService(compiledPatternCache, new MatchBudgetPolicy(1_000_000, 1_000, 5_000));
+        fusedTemplateMatcher = new FusedTemplateMatcher(compiledPatternCache, true);
+    }
+
+    private static RegexTemplate template(long id, String pattern) {
+        RegexTemplate template = new RegexTemplate();
+        template.setTemplateId(id);
+        template.setSenderHeader("HDFCBK");
+        template.setPattern(pattern);
+        return template;
+    }
+
+    private static MatchBudget budget() {
+        return MatchBudget.start(1_000_000, 1_000_000_000L, 5_000_000_000L);
+    }
+
+    private List<RegexTemplate> senderTemplates() {
+        return List.of(
+            template(1L, "Rs\\.(?<amount>[\\d,]+\\.\\d{2}) debited from A/c (?<bankAcId>\\w+)"),
+            template(2L, "Rs\\.(?<amount>[\\d,]+\\.\\d{2}) credited to A/c (?<bankAcId>\\w+)"),
+            template(3L, "Avl Bal Rs\\.(?<balance>[\\d,]+\\.\\d{2})"),
+            // Backreference: needs java.util.regex, so it is not fused
+            template(4L, "(?<merchant>\\w+) \\k<merchant>"));
+    }
+
+    @Nested
+    @DisplayName("Matching Tests")
+    class MatchingTests {
+
+        @Test
+        @DisplayName("Should extract the same fields as matching each template on its own")
+        void match_SenderTemplates_ShouldAgreeWithPerTemplateMatching() {
+            // Arrange
+            List<RegexTemplate> templates = senderTemplates();
+
+            // Act
+            Map<Long, FieldMatch> responses =
+                fusedTemplateMatcher.match("HDFCBK", templates, templates, DEBIT_SMS, budget());
+
+            // Assert
+            assertEquals(3, responses.size());
+            assertFalse(responses.containsKey(4L));
+            for (RegexTemplate template : templates.subList(0, 3)) {
+                FieldMatch expected = regexProcessService.processTemplate(template, DEBIT_SMS, budget());
+                assertEquals(expected.toResponse(), responses.get(template.getTemplateId()).toResponse());
+            }
+            assertEquals("1,250.00", responses.get(1L).getValue(ExtractableField.AMOUNT));
+            assertSame(FieldMatch.none(), responses.get(2L));
+            assertEquals("9,870.50", responses.get(3L).getValue(ExtractableField.BALANCE));
+        }
+
+        @Test
+        @DisplayName("Should only report the candidate templates")
+        void match_CandidateSubset_ShouldSkipOtherTemplates() {
+            // Arrange
+            List<RegexTemplate> templates = senderTemplates();
+            List<RegexTemplate> candidates = List.of(templates.get(0), templates.get(2));
+
+            // Act
+            Map<Long, FieldMatch> responses =
+                fusedTemplateMatcher.match("HDFCBK", templates, candidates, DEBIT_SMS, budget());
+
+            // Assert
+            assertEquals(Map.of(1L, responses.get(1L), 3L, responses.get(3L)), responses);
+        }
+
+        @Test
+        @DisplayName("Should leave every template to the per-template loop when disabled")
+        void match_Disabled_ShouldReturnEmpty() {
+            // Arrange
+            FusedTemplateMatcher disabled = new FusedTemplateMatcher(compiledPatternCache, false);
+            List<RegexTemplate> templates = senderTemplates();
+
+            // Act
+            Map<Long, FieldMatch> responses =
+                disabled.match("HDFCBK", templates, templates, DEBIT_SMS, budget());
+
+            // Assert
+            assertTrue(responses.isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Rebuild Tests")
+    class RebuildTests {
+
+        @Test
+        @DisplayName("Should reuse the fused program while the sender's templates are unchanged")
+        void match_SameTemplates_ShouldBuildOnce() {
+            // Arrange
+            List<RegexTemplate> templates = senderTemplates();
+
+            // Act
+            fusedTemplateMatcher.match("HDFCBK", templates, templates, DEBIT_SMS, budget());
+            fusedTemplateMatcher.match("HDFCBK", templates, templates, DEBIT_SMS, budget());
+
+            // Assert
+            Map<String, Object> stats = fusedTemplateMatcher.stats();
+            assertEquals(1L, stats.get("rebuilds"));
+            assertEquals(2L, stats.get("scans"));
+            assertEquals(3, stats.get("fusedTemplates"));
+        }
+
+        @Test
+        @DisplayName("Should use the new template set after a refresh")
+        void refreshSender_ChangedTemplate_ShouldSwapProgram() {
+            // Arrange
+            List<RegexTemplate> templates = senderTemplates();
+            fusedTemplateMatcher.match("HDFCBK", templates, templates, DEBIT_SMS, budget());
+            List<RegexTemplate> updated = List.of(
+                templates.get(0),
+                template(3L, "Avl Bal Rs\\.(?<balance>[\\d,]+)"));
+
+            // Act
+            fusedTemplateMatcher.refreshSender("HDFCBK", updated);
+            Map<Long, FieldMatch> responses =
+                fusedTemplateMatcher.match("HDFCBK", updated, updated, DEBIT_SMS, budget());
+
+            // Assert
+            assertEquals("9,870", responses.get(3L).getValue(ExtractableField.BALANCE));
+            assertEquals(2L, fusedTemplateMatcher.stats().get("rebuilds"));
+        }
+
+        @Test
+        @DisplayName("Should drop the sender when fewer than two templates can be fused")
+        void refreshSender_SingleTemplate_ShouldRemoveSender() {
+            // Arrange
+            List<RegexTemplate> templates = senderTemplates();
+            fusedTemplateMatcher.match("HDFCBK", templates, templates, DEBIT_SMS, budget());
+
+            // Act
+            fusedTemplateMatcher.refreshSender("HDFCBK", List.of(templates.get(0)));
+
+            // Assert
+            assertEquals(0, fusedTemplateMatcher.stats().get("senders"));
+        }
+    }
+}
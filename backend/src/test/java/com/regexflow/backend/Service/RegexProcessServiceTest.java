@@ -1,7 +1,12 @@
 package com.regexflow.backend.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.regexflow.backend.Dto.RegexProcessRequest;
 import com.regexflow.backend.Dto.RegexProcessResponse;
+import com.regexflow.backend.Engine.FieldMatch;
+import com.regexflow.backend.Engine.MatchBudgetExceededException;
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.regexflow.backend.Enums.ExtractableField;
 import com.regexflow.backend.Enums.PaymentType;
 import com.regexflow.backend.Enums.SmsType;
 import com.regexflow.backend.Enums.TransactionType;
@@ -11,6 +16,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,6 +25,12 @@ import static org.junit.jupiter.api.Assertions.*;
 @DisplayName("RegexProcessService Tests")
 class RegexProcessServiceTest {
 
+    @Spy
+    private CompiledPatternCache compiledPatternCache = new CompiledPatternCache(64);
+
+    @Spy
+    private MatchBudgetPolicy matchBudgetPolicy = new MatchBudgetPolicy(100_000, 1_000, 1_000);
+
     @InjectMocks
     private RegexProcessService regexProcessService;
 
@@ -87,6 +99,34 @@ class RegexProcessServiceTest {
             assertEquals(-1, response.getAmount().getIndex());
         }
 
+        @Test
+        @DisplayName("Should write only the captured fields to JSON")
+        void processRegex_ShouldSerializeSparseJson() throws Exception {
+            // Arrange
+            request.setRegexPattern("Rs\\.\\s*(?<amount>[\\d,.]+)( at (?<merchant>\\w+))?");
+            request.setRawMsg("Your account has been debited Rs. 1,500.00");
+
+            // Act
+            String json = new ObjectMapper().writeValueAsString(regexProcessService.processRegex(request));
+
+            // Assert
+            assertEquals("{\"amount\":{\"value\":\"1,500.00\",\"index\":1}}", json);
+        }
+
+        @Test
+        @DisplayName("Should key JSON fields by their group names")
+        void processRegex_ShouldSerializeGroupNames() throws Exception {
+            // Arrange
+            request.setRegexPattern("from (?<sBank>\\w+) to (?<rBank>\\w+)");
+            request.setRawMsg("Rs 500 from HDFC to SBI");
+
+            // Act
+            String json = new ObjectMapper().writeValueAsString(regexProcessService.processRegex(request));
+
+            // Assert
+            assertEquals("{\"sBank\":{\"value\":\"HDFC\",\"index\":1},\"rBank\":{\"value\":\"SBI\",\"index\":2}}", json);
+        }
+
         @Test
         @DisplayName("Should handle case insensitive matching")
         void processRegex_ShouldHandleCaseInsensitiveMatching() {
@@ -549,4 +589,53 @@ class RegexProcessServiceTest {
             assertEquals("15-Jan-24", response.getDate().getValue());
         }
     }
+
+    @Nested
+    @DisplayName("Match Budget Tests")
+    class MatchBudgetTests {
+
+        @Test
+        @DisplayName("Should abort polynomial backtracking once the step budget is spent")
+        void processRegex_CatastrophicPattern_ShouldThrowBudgetExceeded() {
+            // Arrange: the lookahead keeps the pattern on java.util.regex
+            request.setRegexPattern("(?<amount>\\d*\\d*\\d*\\d*)(?=x)");
+            request.setRawMsg("1".repeat(200) + "a");
+
+            // Act & Assert
+            MatchBudgetExceededException exception = assertThrows(MatchBudgetExceededException.class,
+                () -> regexProcessService.processRegex(request));
+            assertEquals(MatchBudgetExceededException.Reason.STEP_BUDGET, exception.getReason());
+        }
+
+        @Test
+        @DisplayName("Should match the same pattern without backtracking on the linear engine")
+        void processRegex_CatastrophicRegularPattern_ShouldNotExceedBudget() {
+            // Arrange
+            request.setRegexPattern("(?<amount>\\d*\\d*\\d*\\d*)x");
+            request.setRawMsg("1".repeat(200) + "a");
+
+            // Act
+            RegexProcessResponse response = regexProcessService.processRegex(request);
+
+            // Assert
+            assertNull(response.getAmount().getValue());
+        }
+
+        @Test
+        @DisplayName("Should stay within budget for ordinary templates")
+        void processTemplate_OrdinaryPattern_ShouldMatch() {
+            // Arrange
+            RegexTemplate template = new RegexTemplate();
+            template.setTemplateId(1L);
+            template.setPattern("Rs\\.?\\s*(?<amount>[\\d,]+)");
+
+            // Act
+            FieldMatch match = regexProcessService.processTemplate(
+                template, "Rs. 1,500 debited", matchBudgetPolicy.startSms());
+
+            // Assert
+            assertEquals(1, match.getFieldCount());
+            assertEquals("1,500", match.getValue(ExtractableField.AMOUNT));
+        }
+    }
 }
@@ -15,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
@@ -40,6 +41,12 @@ class RegexTemplateServiceTest {
     @Mock
     private BankRepository bankRepository;
 
+    @Mock
+    private CompiledPatternCache compiledPatternCache;
+
+    @Spy
+    private RedosGuard redosGuard = new RedosGuard(new MatchBudgetPolicy(1_000_000, 1_000, 1_000), 1024, 64, true);
+
     @InjectMocks
     private RegexTemplateService regexTemplateService;
 
@@ -339,7 +346,26 @@ class RegexTemplateServiceTest {
             // Assert
             assertNotNull(result);
             assertEquals(RegexTemplateStatus.PENDING, result.getStatus());
+            assertEquals(RedosRisk.NONE, result.getRedosRisk());
+            assertNotNull(result.getWorstCaseMatchMicros());
             verify(regexTemplateRepository).save(any(RegexTemplate.class));
+            verify(compiledPatternCache).invalidateTemplate(1L);
+        }
+
+        @Test
+        @DisplayName("Should reject patterns with catastrophic backtracking")
+        void updateToPending_WithNestedQuantifiers_ShouldThrowException() {
+            // Arrange
+            testTemplateDto.setSampleRawMsg("TESTBK: Rs.1,000 debited");
+            testTemplateDto.setPattern("Rs\\.(?<amount>(\\d+,?)+) debited");
+            when(regexTemplateRepository.findById(1L)).thenReturn(Optional.of(testTemplate));
+            when(bankRepository.findById(1L)).thenReturn(Optional.of(testBank));
+
+            // Act & Assert
+            RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> regexTemplateService.updateToPending(1L, testTemplateDto, 1L));
+            assertTrue(exception.getMessage().startsWith("Pattern rejected"));
+            verify(regexTemplateRepository, never()).save(any(RegexTemplate.class));
         }
 
         @Test
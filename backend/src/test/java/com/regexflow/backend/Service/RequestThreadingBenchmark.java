@@ -0,0 +1,168 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.MatchBudget;
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compares throughput and latency percentiles of SMS submissions handled on a platform thread
+ * pool the size of Tomcat's default (200) against one virtual thread per request, and, on
+ * virtual threads, inserts guarded by striped synchronized blocks (which pin the carrier thread
+ * while they block, so at most one insert per carrier is in progress) against the same sections
+ * guarded by ReentrantLocks.
+ * Each request matches the SMS, then inserts it through a Hikari pool, sleeping while it holds
+ * the connection to stand in for the MySQL round trip.
+ * Not a unit test: run its main method by hand on the test classpath, optionally passing the
+ * number of requests in flight, the requests per run and the simulated round trip in ms.
+ * Virtual thread runs need a Java 21+ runtime and are skipped on older ones.
+ */
+public class RequestThreadingBenchmark {
+
+    private static final String SMS = "HDFCBK: Rs.1,250.00 debited from A/c XX1234 on 12-06-24. Avl Bal Rs.9,870.50";
+    // Sections guarded per stripe, like a per-sender or per-connection lock in real code
+    private static final int STRIPES = 16;
+    private static final Object[] MONITORS = new Object[STRIPES];
+    private static final ReentrantLock[] LOCKS = new ReentrantLock[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            MONITORS[i] = new Object();
+            LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    private enum Guard { NONE, SYNCHRONIZED, LOCK }
+
+    public static void main(String[] args) throws Exception {
+        int inFlight = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        long roundTripMillis = args.length > 2 ? Long.parseLong(args[2]) : 2;
+
+        List<RegexTemplate> templates = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            RegexTemplate template = new RegexTemplate();
+            template.setTemplateId((long) t);
+            template.setSenderHeader("HDFCBK");
+            template.setPattern("Rs\\.(?<amount>[\\d,]+\\.\\d{2}) debited from A/c (?<bankAcId>XX\\d{" + (4 + t) + "})");
+            templates.add(template);
+        }
+        RegexProcessService regexProcessService =
+            new RegexProcessService(new CompiledPatternCache(64), new MatchBudgetPolicy(1_000_000, 50, 250));
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:threading-benchmark;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(50);
+        config.setConnectionTimeout(TimeUnit.MINUTES.toMillis(5));
+        boolean virtualSupported = Runtime.version().feature() >= 21;
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("create table sms (sms_id bigint auto_increment primary key, sms_text varchar(512))");
+            }
+            for (int round = 0; round < 3; round++) {
+                run("platform pool of 200      ", Executors.newFixedThreadPool(200), Guard.NONE,
+                    dataSource, regexProcessService, templates, inFlight, requests, roundTripMillis);
+                if (!virtualSupported) {
+                    System.out.println("virtual threads: skipped, Java " + Runtime.version().feature() + " has none");
+                    continue;
+                }
+                run("virtual threads           ", virtualPerTask(), Guard.NONE,
+                    dataSource, regexProcessService, templates, inFlight, requests, roundTripMillis);
+                run("virtual, synchronized I/O ", virtualPerTask(), Guard.SYNCHRONIZED,
+                    dataSource, regexProcessService, templates, inFlight, requests, roundTripMillis);
+                run("virtual, ReentrantLock I/O", virtualPerTask(), Guard.LOCK,
+                    dataSource, regexProcessService, templates, inFlight, requests, roundTripMillis);
+            }
+        }
+    }
+
+    private static ExecutorService virtualPerTask() {
+        // Virtual threads are cheap to start, so the cached pool effectively starts one per request
+        return Executors.newCachedThreadPool(new VirtualThreadTaskExecutor("benchmark-").getVirtualThreadFactory());
+    }
+
+    private static void run(String label, ExecutorService executor, Guard guard, HikariDataSource dataSource,
+                            RegexProcessService regexProcessService, List<RegexTemplate> templates,
+                            int inFlight, int requests, long roundTripMillis) throws Exception {
+        long[] latencies = new long[requests];
+        long start = System.nanoTime();
+        // Clients keep inFlight requests open, each starting the next when its response comes back
+        ExecutorService clients = Executors.newFixedThreadPool(inFlight);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < inFlight; c++) {
+            int client = c;
+            futures.add(clients.submit(() -> {
+                for (int i = client; i < requests; i += inFlight) {
+                    long sent = System.nanoTime();
+                    executor.submit(() -> {
+                        handle(guard, dataSource, regexProcessService, templates, roundTripMillis);
+                        return null;
+                    }).get();
+                    latencies[i] = System.nanoTime() - sent;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        clients.shutdown();
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%s: %.0f req/s, p50 %.1f ms, p99 %.1f ms (%d in flight, %d ms round trip)%n",
+            label, requests / (elapsed / 1e9), latencies[requests / 2] / 1e6,
+            latencies[(int) (requests * 0.99)] / 1e6, inFlight, roundTripMillis);
+    }
+
+    private static void handle(Guard guard, HikariDataSource dataSource, RegexProcessService regexProcessService,
+                               List<RegexTemplate> templates, long roundTripMillis) throws Exception {
+        MatchBudget budget = MatchBudget.start(1_000_000, 50_000_000L, 250_000_000L);
+        for (RegexTemplate template : templates) {
+            regexProcessService.processTemplate(template, SMS, budget);
+        }
+        int stripe = (int) (Thread.currentThread().getId() % STRIPES);
+        switch (guard) {
+            case SYNCHRONIZED -> {
+                // Blocking inside a monitor pins the virtual thread to its carrier
+                synchronized (MONITORS[stripe]) {
+                    insert(dataSource, roundTripMillis);
+                }
+            }
+            case LOCK -> {
+                LOCKS[stripe].lock();
+                try {
+                    insert(dataSource, roundTripMillis);
+                } finally {
+                    LOCKS[stripe].unlock();
+                }
+            }
+            default -> insert(dataSource, roundTripMillis);
+        }
+    }
+
+    private static void insert(HikariDataSource dataSource, long roundTripMillis) throws SQLException, InterruptedException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("insert into sms (sms_text) values (?)")) {
+            statement.setString(1, SMS);
+            statement.executeUpdate();
+            Thread.sleep(roundTripMillis);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Dto.SmsIngestionStatusDto;
+import com.regexflow.backend.Dto.SmsSubmissionResponse;
+import com.regexflow.backend.Enums.IngestionStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SmsIngestionQueue Tests")
+class SmsIngestionQueueTest {
+
+    @Mock
+    private SmsService smsService;
+
+    @Mock
+    private SmsWriteAheadLog writeAheadLog;
+
+    private SmsIngestionQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Nested
+    @DisplayName("Processing Tests")
+    class ProcessingTests {
+
+        @Test
+        @DisplayName("Should process a queued SMS and keep its result for the submitting user")
+        void submit_ShouldCompleteWithResult() throws Exception {
+            // Arrange
+            queue = new SmsIngestionQueue(smsService, writeAheadLog, 2, 10, 10, false);
+            SmsSubmissionResponse response = new SmsSubmissionResponse();
+            response.setSmsText("HDFCBK: Rs.100 debited");
+            when(smsService.processSms("HDFCBK: Rs.100 debited", 1L)).thenReturn(response);
+
+            // Act
+            SmsIngestionStatusDto submitted = queue.submit("HDFCBK: Rs.100 debited", 1L);
+            SmsIngestionStatusDto completed = queue.completion(submitted.getIngestionId(), 1L).get(5, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals(IngestionStatus.QUEUED, submitted.getStatus());
+            assertEquals(IngestionStatus.COMPLETED, completed.getStatus());
+            assertSame(response, completed.getResult());
+            assertNotNull(completed.getCompletedAt());
+            assertNull(queue.status(submitted.getIngestionId(), 2L));
+            assertEquals(1L, queue.stats().get("completed"));
+        }
+
+        @Test
+        @DisplayName("Should report the error of an SMS that failed to process")
+        void submit_WhenProcessingFails_ShouldCompleteAsFailed() throws Exception {
+            // Arrange
+            queue = new SmsIngestionQueue(smsService, writeAheadLog, 1, 10, 10, false);
+            when(smsService.processSms("bad", 1L)).thenThrow(new RuntimeException("User not found"));
+
+            // Act
+            SmsIngestionStatusDto submitted = queue.submit("bad", 1L);
+            SmsIngestionStatusDto completed = queue.completion(submitted.getIngestionId(), 1L).get(5, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals(IngestionStatus.FAILED, completed.getStatus());
+            assertEquals("User not found", completed.getError());
+            assertEquals(1L, queue.stats().get("failed"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Backpressure Tests")
+    class BackpressureTests {
+
+        @Test
+        @DisplayName("Should refuse a submission when every worker is busy and the queue is full")
+        void submit_WhenQueueFull_ShouldReject() throws Exception {
+            // Arrange
+            queue = new SmsIngestionQueue(smsService, writeAheadLog, 1, 1, 10, false);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            when(smsService.processSms(anyString(), eq(1L))).thenAnswer(invocation -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return new SmsSubmissionResponse();
+            });
+
+            // Act
+            SmsIngestionStatusDto running = queue.submit("first", 1L);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            SmsIngestionStatusDto queued = queue.submit("second", 1L);
+            SmsIngestionStatusDto rejected = queue.submit("third", 1L);
+            int depthWhileFull = (int) queue.stats().get("queueDepth");
+            release.countDown();
+            queue.completion(queued.getIngestionId(), 1L).get(5, TimeUnit.SECONDS);
+
+            // Assert
+            assertNotNull(running);
+            assertNull(rejected);
+            assertEquals(1, depthWhileFull);
+            assertEquals(2L, queue.stats().get("accepted"));
+            assertEquals(1L, queue.stats().get("rejected"));
+            verify(smsService, never()).processSms("third", 1L);
+            verify(writeAheadLog, never()).append(1L, "third");
+        }
+    }
+
+    @Nested
+    @DisplayName("Write-Ahead Log Tests")
+    class WriteAheadLogTests {
+
+        @Test
+        @DisplayName("Should log an SMS before acknowledging it and mark it done once stored")
+        void submit_ShouldLogBeforeAcknowledgingAndMarkDone() throws Exception {
+            // Arrange
+            queue = new SmsIngestionQueue(smsService, writeAheadLog, 1, 10, 10, false);
+            when(writeAheadLog.append(1L, "HDFCBK: Rs.100 debited")).thenReturn(7L);
+            when(smsService.processSms("HDFCBK: Rs.100 debited", 1L)).thenReturn(new SmsSubmissionResponse());
+
+            // Act
+            SmsIngestionStatusDto submitted = queue.submit("HDFCBK: Rs.100 debited", 1L);
+            queue.completion(submitted.getIngestionId(), 1L).get(5, TimeUnit.SECONDS);
+
+            // Assert
+            verify(writeAheadLog).append(1L, "HDFCBK: Rs.100 debited");
+            verify(writeAheadLog).markDone(7L);
+        }
+
+        @Test
+        @DisplayName("Should process SMS left in the log at startup and keep those the database refused")
+        void replayWriteAheadLog_ShouldProcessRecoveredSms() {
+            // Arrange
+            queue = new SmsIngestionQueue(smsService, writeAheadLog, 1, 10, 10, false);
+            when(writeAheadLog.drainRecovered()).thenReturn(List.of(
+                new SmsWriteAheadLog.LoggedSms(3L, 1L, "stored"),
+                new SmsWriteAheadLog.LoggedSms(4L, 1L, "database down")));
+            when(smsService.processSms("stored", 1L)).thenReturn(new SmsSubmissionResponse());
+            when(smsService.processSms("database down", 1L)).thenThrow(new CannotCreateTransactionException("down"));
+
+            // Act
+            queue.replayWriteAheadLog();
+
+            // Assert
+            verify(writeAheadLog).markDone(3L);
+            verify(writeAheadLog, never()).markDone(4L);
+            assertEquals(2L, queue.stats().get("replayed"));
+        }
+    }
+}
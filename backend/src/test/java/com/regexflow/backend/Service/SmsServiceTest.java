@@ -3,12 +3,15 @@ package com.regexflow.backend.Service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.regexflow.backend.Dto.*;
+import com.regexflow.backend.Engine.FieldMatch;
+import com.regexflow.backend.Engine.MatchBudget;
+import com.regexflow.backend.Engine.MatchBudgetExceededException;
+import com.regexflow.backend.Engine.ShapeSignature;
 import com.regexflow.backend.Entity.RegexTemplate;
 import com.regexflow.backend.Entity.Sms;
 import com.regexflow.backend.Entity.TemplateRequestNotification;
 import com.regexflow.backend.Entity.Users;
 import com.regexflow.backend.Enums.*;
-import com.regexflow.backend.Repository.RegexTemplateRepository;
 import com.regexflow.backend.Repository.SmsRepository;
 import com.regexflow.backend.Repository.TemplateRequestNotificationRepository;
 import com.regexflow.backend.Repository.UserRepository;
@@ -17,13 +20,19 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -38,7 +47,11 @@ class SmsServiceTest {
     private SmsRepository smsRepository;
 
     @Mock
-    private RegexTemplateRepository regexTemplateRepository;
+    private VerifiedTemplateRegistry verifiedTemplateRegistry;
+
+    // Unstubbed: the write transaction runs its callback against a no-op transaction manager
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @Mock
     private TemplateRequestNotificationRepository notificationRepository;
@@ -52,6 +65,42 @@ class SmsServiceTest {
     @Spy
     private ObjectMapper objectMapper = new ObjectMapper();
 
+    @Spy
+    private MatchBudgetPolicy matchBudgetPolicy = new MatchBudgetPolicy(1_000_000, 1_000, 5_000);
+
+    @Spy
+    private MatchingMetrics matchingMetrics = new MatchingMetrics();
+
+    @Spy
+    private TemplatePrefilter templatePrefilter = new TemplatePrefilter(new CompiledPatternCache(64));
+
+    // Disabled, so every template goes through the mocked RegexProcessService
+    @Spy
+    private FusedTemplateMatcher fusedTemplateMatcher = new FusedTemplateMatcher(new CompiledPatternCache(64), false);
+
+    @Spy
+    private CompiledPatternCache compiledPatternCache = new CompiledPatternCache(64);
+
+    @Spy
+    private TemplateWinStats templateWinStats = new TemplateWinStats(60);
+
+    @Spy
+    private ShapeRoutingCache shapeRoutingCache = new ShapeRoutingCache(64);
+
+    @Mock
+    private TemplateRequestCoalescer templateRequestCoalescer;
+
+    @Spy
+    private SmsDeduplicator smsDeduplicator = new SmsDeduplicator(1000);
+
+    // Enabled here; off by default
+    @Spy
+    private ParseResultCache parseResultCache = new ParseResultCache(true, 64);
+
+    // Unstubbed: never fans out, so templates are matched serially unless a test says otherwise
+    @Mock
+    private TemplateEvaluationPool templateEvaluationPool;
+
     @InjectMocks
     private SmsService smsService;
 
@@ -59,6 +108,14 @@ class SmsServiceTest {
     private RegexTemplate testTemplate;
     private Sms testSms;
 
+    /**
+     * The match a template reports when it captures one field with the given value in the SMS
+     */
+    private static FieldMatch fieldMatch(String smsText, ExtractableField field, String value, int group) {
+        int start = smsText.indexOf(value);
+        return FieldMatch.builder(smsText).field(field, start, start + value.length(), group).build();
+    }
+
     @BeforeEach
     void setUp() {
         testUser = new Users();
@@ -95,13 +152,12 @@ class SmsServiceTest {
             // Arrange
             String smsText = "TESTBK: Rs.1000 debited from your account";
             
-            RegexProcessResponse processResponse = new RegexProcessResponse();
-            processResponse.setAmount(new FieldResult("1000", 1));
+            FieldMatch processResponse = fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1);
 
             when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-            when(regexTemplateRepository.findBySenderHeaderAndStatus("TESTBK", RegexTemplateStatus.VERIFIED))
+            when(verifiedTemplateRegistry.templates("TESTBK"))
                 .thenReturn(Collections.singletonList(testTemplate));
-            when(regexProcessService.processRegex(any(RegexProcessRequest.class))).thenReturn(processResponse);
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class))).thenReturn(processResponse);
             when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
                 Sms sms = invocation.getArgument(0);
                 sms.setSmsId(1L);
@@ -121,6 +177,40 @@ class SmsServiceTest {
             verify(smsRepository).save(any(Sms.class));
         }
 
+        @Test
+        @DisplayName("Should store every captured field under its group name and copy the summary fields")
+        void processSms_WithSeveralFields_ShouldFillFieldsInSchemaOrder() throws Exception {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 paid to Amazon, NAV 12.5";
+            FieldMatch processResponse = FieldMatch.builder(smsText)
+                .field(ExtractableField.MF_NAV, 36, 40, 3)
+                .field(ExtractableField.MERCHANT, 24, 30, 2)
+                .field(ExtractableField.AMOUNT, 11, 15, 1)
+                .build();
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Collections.singletonList(testTemplate));
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class))).thenReturn(processResponse);
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert
+            ExtractedFieldsDto extractedFields = response.getExtractedFields();
+            assertEquals(List.of("amount", "merchant", "mfNav"), new ArrayList<>(extractedFields.getFields().keySet()));
+            assertEquals("12.5", extractedFields.getFields().get("mfNav"));
+            assertEquals("1000", extractedFields.getAmount());
+            assertEquals("Amazon", extractedFields.getMerchant());
+            assertNull(extractedFields.getDate());
+            assertNull(extractedFields.getBalance());
+            ArgumentCaptor<Sms> stored = ArgumentCaptor.forClass(Sms.class);
+            verify(smsRepository).save(stored.capture());
+            assertEquals("{\"amount\":\"1000\",\"merchant\":\"Amazon\",\"mfNav\":\"12.5\"}",
+                stored.getValue().getExtractedFields());
+        }
+
         @Test
         @DisplayName("Should create notification when no template found")
         void processSms_WithNoMatchingTemplate_ShouldCreateNotification() {
@@ -128,7 +218,7 @@ class SmsServiceTest {
             String smsText = "UNKNOWN: Rs.500 debited";
 
             when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-            when(regexTemplateRepository.findBySenderHeaderAndStatus("UNKNOWN", RegexTemplateStatus.VERIFIED))
+            when(verifiedTemplateRegistry.templates("UNKNOWN"))
                 .thenReturn(Collections.emptyList());
             when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
                 Sms sms = invocation.getArgument(0);
@@ -136,8 +226,6 @@ class SmsServiceTest {
                 sms.setCreatedAt(LocalDateTime.now());
                 return sms;
             });
-            when(notificationRepository.save(any(TemplateRequestNotification.class)))
-                .thenReturn(new TemplateRequestNotification());
 
             // Act
             SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
@@ -146,29 +234,27 @@ class SmsServiceTest {
             assertNotNull(response);
             assertFalse(response.getHasMatch());
             assertTrue(response.getMessage().contains("No available template"));
-            verify(notificationRepository).save(any(TemplateRequestNotification.class));
+            verify(templateRequestCoalescer).record(argThat(unmatched -> unmatched.size() == 1));
         }
 
         @Test
         @DisplayName("Should create notification when template pattern does not match")
         void processSms_WhenPatternDoesNotMatch_ShouldCreateNotification() {
             // Arrange
-            String smsText = "TESTBK: Some unmatched message";
+            String smsText = "TESTBK: Rs. pending message";
             
-            RegexProcessResponse emptyResponse = new RegexProcessResponse();
+            FieldMatch emptyResponse = FieldMatch.none();
 
             when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-            when(regexTemplateRepository.findBySenderHeaderAndStatus("TESTBK", RegexTemplateStatus.VERIFIED))
+            when(verifiedTemplateRegistry.templates("TESTBK"))
                 .thenReturn(Collections.singletonList(testTemplate));
-            when(regexProcessService.processRegex(any(RegexProcessRequest.class))).thenReturn(emptyResponse);
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class))).thenReturn(emptyResponse);
             when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
                 Sms sms = invocation.getArgument(0);
                 sms.setSmsId(1L);
                 sms.setCreatedAt(LocalDateTime.now());
                 return sms;
             });
-            when(notificationRepository.save(any(TemplateRequestNotification.class)))
-                .thenReturn(new TemplateRequestNotification());
 
             // Act
             SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
@@ -177,7 +263,57 @@ class SmsServiceTest {
             assertNotNull(response);
             assertFalse(response.getHasMatch());
             assertTrue(response.getMessage().contains("No template matched"));
-            verify(notificationRepository).save(any(TemplateRequestNotification.class));
+            verify(templateRequestCoalescer).record(argThat(unmatched -> unmatched.size() == 1));
+        }
+
+        @Test
+        @DisplayName("Should report budget exhaustion instead of a missing template")
+        void processSms_WhenMatchBudgetExceeded_ShouldReportDistinctOutcome() {
+            // Arrange
+            String smsText = "TESTBK: Rs aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa!";
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Collections.singletonList(testTemplate));
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class)))
+                .thenThrow(new MatchBudgetExceededException(MatchBudgetExceededException.Reason.STEP_BUDGET, 1_000_000));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
+                Sms sms = invocation.getArgument(0);
+                sms.setSmsId(1L);
+                sms.setCreatedAt(LocalDateTime.now());
+                return sms;
+            });
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert
+            assertFalse(response.getHasMatch());
+            assertTrue(response.getMatchBudgetExceeded());
+            assertTrue(response.getMessage().contains("time budget exceeded"));
+            verify(templateRequestCoalescer, never()).record(any());
+            verify(matchingMetrics).recordBudgetExceeded(MatchBudgetExceededException.Reason.STEP_BUDGET);
+            verify(matchingMetrics).recordSmsWithBudgetExceeded();
+        }
+
+        @Test
+        @DisplayName("Should not run templates whose fixed text is missing from the SMS")
+        void processSms_WhenRequiredLiteralMissing_ShouldSkipTemplate() {
+            // Arrange
+            String smsText = "TESTBK: Your OTP is 123456";
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Collections.singletonList(testTemplate));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert
+            assertFalse(response.getHasMatch());
+            verify(regexProcessService, never()).processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class));
+            verify(matchingMetrics).recordTemplatesSkippedByPrefilter(1);
         }
 
         @Test
@@ -207,18 +343,15 @@ class SmsServiceTest {
             template2.setPaymentType(PaymentType.UPI);
             template2.setStatus(RegexTemplateStatus.VERIFIED);
 
-            RegexProcessResponse response1 = new RegexProcessResponse();
-            response1.setAmount(new FieldResult("1000", 1));
-
-            RegexProcessResponse response2 = new RegexProcessResponse();
-            response2.setAmount(new FieldResult("1000", 1));
-            response2.setBalance(new FieldResult("5000", 2));
+            FieldMatch response2 = FieldMatch.builder(smsText)
+                .field(ExtractableField.AMOUNT, smsText.indexOf("1000"), smsText.indexOf("1000") + 4, 1)
+                .field(ExtractableField.BALANCE, smsText.indexOf("5000"), smsText.indexOf("5000") + 4, 2)
+                .build();
 
             when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-            when(regexTemplateRepository.findBySenderHeaderAndStatus("TESTBK", RegexTemplateStatus.VERIFIED))
+            when(verifiedTemplateRegistry.templates("TESTBK"))
                 .thenReturn(Arrays.asList(testTemplate, template2));
-            when(regexProcessService.processRegex(any(RegexProcessRequest.class)))
-                .thenReturn(response1)
+            when(regexProcessService.processTemplate(eq(template2), anyString(), any(MatchBudget.class)))
                 .thenReturn(response2);
             when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
                 Sms sms = invocation.getArgument(0);
@@ -234,6 +367,346 @@ class SmsServiceTest {
             assertNotNull(response);
             assertTrue(response.getHasMatch());
             assertEquals(template2.getTemplateId(), response.getMatchedTemplateId());
+            // Two fields is all the one-field template could extract, so it is never tried
+            verify(regexProcessService, never()).processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class));
+            verify(matchingMetrics).recordTemplatesSkippedByFieldBound(1);
+        }
+
+        @Test
+        @DisplayName("Should pick the same template in parallel mode and cancel the matches no longer needed")
+        void processSms_InParallelMode_ShouldMatchSerialResultAndCancelRest() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited. Bal: Rs.5000";
+
+            RegexTemplate template2 = new RegexTemplate();
+            template2.setTemplateId(2L);
+            template2.setSenderHeader("TESTBK");
+            template2.setPattern("Rs\\.?\\s*(?<amount>[\\d,]+).*Bal:\\s*Rs\\.?\\s*(?<balance>[\\d,]+)");
+            template2.setSmsType(SmsType.DEBIT);
+            template2.setStatus(RegexTemplateStatus.VERIFIED);
+
+            FieldMatch response2 = FieldMatch.builder(smsText)
+                .field(ExtractableField.AMOUNT, smsText.indexOf("1000"), smsText.indexOf("1000") + 4, 1)
+                .field(ExtractableField.BALANCE, smsText.indexOf("5000"), smsText.indexOf("5000") + 4, 2)
+                .build();
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Arrays.asList(testTemplate, template2));
+            when(templateEvaluationPool.shouldFanOut(2)).thenReturn(true);
+            when(templateEvaluationPool.submit(any())).thenAnswer(invocation ->
+                CompletableFuture.supplyAsync(invocation.<Supplier<FieldMatch>>getArgument(0)));
+            when(regexProcessService.processTemplate(eq(template2), anyString(), any(MatchBudget.class)))
+                .thenReturn(response2);
+            lenient().when(regexProcessService.processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert
+            assertTrue(response.getHasMatch());
+            assertEquals(template2.getTemplateId(), response.getMatchedTemplateId());
+            verify(templateEvaluationPool, times(2)).submit(any());
+            // Only the two-field template's result was taken; the one-field template is past the bound
+            verify(templateEvaluationPool).cancelUnused(anyList(), eq(1));
+            verify(matchingMetrics).recordTemplatesSkippedByFieldBound(1);
+            verify(matchingMetrics, times(1)).recordTemplateTried();
+        }
+
+        @Test
+        @DisplayName("Should cancel a started template skipped by the tie rule only once")
+        void processSms_TieSkipThenDeadline_ShouldCancelSkippedTaskOnce() {
+            // Arrange: ranked 2, 3, 1; template 3 could at best tie with 2, then the SMS deadline passes
+            String smsText = "TESTBK: Rs.1000 debited";
+            RegexTemplate template2 = new RegexTemplate();
+            template2.setTemplateId(2L);
+            template2.setSenderHeader("TESTBK");
+            template2.setPattern("Rs\\.(?<amount>\\d+) debited");
+            template2.setStatus(RegexTemplateStatus.VERIFIED);
+            RegexTemplate template3 = new RegexTemplate();
+            template3.setTemplateId(3L);
+            template3.setSenderHeader("TESTBK");
+            template3.setPattern("(?<amount>\\d+) debited");
+            template3.setStatus(RegexTemplateStatus.VERIFIED);
+            templateWinStats.recordWin("TESTBK", 2L);
+            templateWinStats.recordWin("TESTBK", 2L);
+            templateWinStats.recordWin("TESTBK", 3L);
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Arrays.asList(testTemplate, template2, template3));
+            doReturn(MatchBudget.start(1_000_000, 5_000_000_000L, 200_000_000L)).when(matchBudgetPolicy).startSms();
+            when(templateEvaluationPool.shouldFanOut(3)).thenReturn(true);
+            when(templateEvaluationPool.submit(any())).thenAnswer(invocation ->
+                CompletableFuture.supplyAsync(invocation.<Supplier<FieldMatch>>getArgument(0)));
+            when(regexProcessService.processTemplate(eq(template2), anyString(), any(MatchBudget.class)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(400);
+                    return fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1);
+                });
+            lenient().when(regexProcessService.processTemplate(eq(template3), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            lenient().when(regexProcessService.processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert: the final cancel starts at template 3 but no longer holds its task
+            assertEquals(template2.getTemplateId(), response.getMatchedTemplateId());
+            assertTrue(response.getMatchBudgetExceeded());
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<CompletableFuture<?>>> remaining = ArgumentCaptor.forClass(List.class);
+            verify(templateEvaluationPool).cancelUnused(remaining.capture(), eq(1));
+            assertNull(remaining.getValue().get(1));
+            assertNotNull(remaining.getValue().get(2));
+        }
+
+        @Test
+        @DisplayName("Should try templates with fewer fields when the best match extracts less than they declare")
+        void processSms_WhenBestMatchBelowBound_ShouldTryNextTemplate() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited. Bal: Rs.5000";
+
+            RegexTemplate template2 = new RegexTemplate();
+            template2.setTemplateId(2L);
+            template2.setSenderHeader("TESTBK");
+            template2.setPattern("Rs\\.(?<amount>\\d+) debited.*Bal:\\s*(?<balance>\\d+)");
+            template2.setStatus(RegexTemplateStatus.VERIFIED);
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Arrays.asList(testTemplate, template2));
+            when(regexProcessService.processTemplate(eq(template2), anyString(), any(MatchBudget.class)))
+                .thenReturn(FieldMatch.none());
+            when(regexProcessService.processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert
+            assertTrue(response.getHasMatch());
+            assertEquals(testTemplate.getTemplateId(), response.getMatchedTemplateId());
+            verify(matchingMetrics, never()).recordTemplatesSkippedByFieldBound(anyInt());
+        }
+
+        @Test
+        @DisplayName("Should try the template that usually wins first among templates declaring as many fields")
+        void processSms_WithWinHistory_ShouldTryUsualWinnerFirst() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited";
+
+            RegexTemplate template2 = new RegexTemplate();
+            template2.setTemplateId(2L);
+            template2.setSenderHeader("TESTBK");
+            template2.setPattern("Rs\\.(?<amount>\\d+) debited");
+            template2.setStatus(RegexTemplateStatus.VERIFIED);
+            templateWinStats.recordWin("TESTBK", 2L);
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Arrays.asList(testTemplate, template2));
+            when(regexProcessService.processTemplate(eq(template2), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(regexProcessService.processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class)))
+                .thenReturn(FieldMatch.none());
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert: the lower id could still tie, so it is tried after the usual winner
+            assertEquals(template2.getTemplateId(), response.getMatchedTemplateId());
+            InOrder order = inOrder(regexProcessService);
+            order.verify(regexProcessService).processTemplate(eq(template2), anyString(), any(MatchBudget.class));
+            order.verify(regexProcessService).processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class));
+            assertEquals(2.0, templateWinStats.score("TESTBK", 2L));
+        }
+
+        @Test
+        @DisplayName("Should pick the lower template id on a tie whatever the win history")
+        void processSms_WhenUsualWinnerTies_ShouldPreferLowerTemplateId() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited";
+
+            RegexTemplate template2 = new RegexTemplate();
+            template2.setTemplateId(2L);
+            template2.setSenderHeader("TESTBK");
+            template2.setPattern("Rs\\.(?<amount>\\d+) debited");
+            template2.setStatus(RegexTemplateStatus.VERIFIED);
+            for (int i = 0; i < 10; i++) {
+                templateWinStats.recordWin("TESTBK", 2L);
+            }
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Arrays.asList(template2, testTemplate));
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert
+            assertEquals(testTemplate.getTemplateId(), response.getMatchedTemplateId());
+            verify(regexProcessService, times(2)).processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class));
+        }
+
+        @Test
+        @DisplayName("Should keep the lower template id when templates extract the same number of fields")
+        void processSms_WhenTemplatesTie_ShouldPreferLowerTemplateId() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited";
+
+            RegexTemplate template2 = new RegexTemplate();
+            template2.setTemplateId(2L);
+            template2.setSenderHeader("TESTBK");
+            template2.setPattern("Rs\\.(?<amount>\\d+) debited");
+            template2.setStatus(RegexTemplateStatus.VERIFIED);
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Arrays.asList(template2, testTemplate));
+            when(regexProcessService.processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert
+            assertEquals(testTemplate.getTemplateId(), response.getMatchedTemplateId());
+            verify(regexProcessService, never()).processTemplate(eq(template2), anyString(), any(MatchBudget.class));
+        }
+
+        @Test
+        @DisplayName("Should take the template routed by the SMS shape without trying the others when none could beat it")
+        void processSms_WithConfirmedShapeRoute_ShouldSkipOtherTemplates() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited";
+
+            RegexTemplate template2 = new RegexTemplate();
+            template2.setTemplateId(2L);
+            template2.setSenderHeader("TESTBK");
+            template2.setPattern("Rs\\.(?<amount>\\d+) debited");
+            template2.setStatus(RegexTemplateStatus.VERIFIED);
+            templateWinStats.recordWin("TESTBK", 2L);
+            shapeRoutingCache.put("TESTBK", ShapeSignature.of("TESTBK: Rs.2500 debited"), 1L);
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Arrays.asList(template2, testTemplate));
+            when(regexProcessService.processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert: template2 could only tie, and the routed template has the lower id
+            assertEquals(testTemplate.getTemplateId(), response.getMatchedTemplateId());
+            verify(regexProcessService, never()).processTemplate(eq(template2), anyString(), any(MatchBudget.class));
+            assertEquals(1L, shapeRoutingCache.stats().get("confirmed"));
+        }
+
+        @Test
+        @DisplayName("Should still try a template declaring more fields than the routed template extracted")
+        void processSms_WithShapeRouteAndRicherTemplate_ShouldTakeRicherMatch() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited bal 500";
+
+            RegexTemplate template3 = new RegexTemplate();
+            template3.setTemplateId(3L);
+            template3.setSenderHeader("TESTBK");
+            template3.setPattern("Rs\\.(?<amount>\\d+) debited bal (?<balance>\\d+)");
+            template3.setStatus(RegexTemplateStatus.VERIFIED);
+            shapeRoutingCache.put("TESTBK", ShapeSignature.of(smsText), 1L);
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Arrays.asList(testTemplate, template3));
+            when(regexProcessService.processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            int amountAt = smsText.indexOf("1000");
+            int balanceAt = smsText.indexOf("500");
+            when(regexProcessService.processTemplate(eq(template3), anyString(), any(MatchBudget.class)))
+                .thenReturn(FieldMatch.builder(smsText)
+                    .field(ExtractableField.AMOUNT, amountAt, amountAt + 4, 1)
+                    .field(ExtractableField.BALANCE, balanceAt, balanceAt + 3, 2)
+                    .build());
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert
+            assertEquals(template3.getTemplateId(), response.getMatchedTemplateId());
+            assertEquals(1L, shapeRoutingCache.stats().get("rejected"));
+            assertEquals(new ShapeRoutingCache.Route(3L), shapeRoutingCache.get("TESTBK", ShapeSignature.of(smsText)));
+        }
+
+        @Test
+        @DisplayName("Should fall back to all templates and re-route the shape when the routed template no longer matches")
+        void processSms_WithRejectedShapeRoute_ShouldFallBackAndUpdateRoute() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited";
+
+            RegexTemplate template2 = new RegexTemplate();
+            template2.setTemplateId(2L);
+            template2.setSenderHeader("TESTBK");
+            template2.setPattern("Rs\\.(?<amount>\\d+) debited");
+            template2.setStatus(RegexTemplateStatus.VERIFIED);
+            String shape = ShapeSignature.of(smsText);
+            shapeRoutingCache.put("TESTBK", shape, 2L);
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Arrays.asList(testTemplate, template2));
+            when(regexProcessService.processTemplate(eq(template2), anyString(), any(MatchBudget.class)))
+                .thenReturn(FieldMatch.none());
+            when(regexProcessService.processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert
+            assertEquals(testTemplate.getTemplateId(), response.getMatchedTemplateId());
+            verify(regexProcessService, times(1)).processTemplate(eq(template2), anyString(), any(MatchBudget.class));
+            assertEquals(1L, shapeRoutingCache.stats().get("rejected"));
+            assertEquals(new ShapeRoutingCache.Route(1L), shapeRoutingCache.get("TESTBK", shape));
+        }
+
+        @Test
+        @DisplayName("Should match the SMS before opening the one write transaction")
+        void processSms_WithMatchingTemplate_ShouldWriteInOneTransactionAfterMatching() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited from your account";
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(Collections.singletonList(testTemplate));
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            smsService.processSms(smsText, 1L);
+
+            // Assert
+            InOrder inOrder = inOrder(regexProcessService, transactionManager, smsRepository);
+            inOrder.verify(regexProcessService).processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class));
+            inOrder.verify(transactionManager).getTransaction(any());
+            inOrder.verify(smsRepository).save(any(Sms.class));
+            inOrder.verify(transactionManager).commit(any());
+            verify(transactionManager, times(1)).getTransaction(any());
         }
 
         @Test
@@ -243,7 +716,7 @@ class SmsServiceTest {
             String smsText = "HDFC-BANK: Your account debited";
 
             when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-            when(regexTemplateRepository.findBySenderHeaderAndStatus("HDFC-BANK", RegexTemplateStatus.VERIFIED))
+            when(verifiedTemplateRegistry.templates("HDFC-BANK"))
                 .thenReturn(Collections.emptyList());
             when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
                 Sms sms = invocation.getArgument(0);
@@ -252,15 +725,13 @@ class SmsServiceTest {
                 sms.setCreatedAt(LocalDateTime.now());
                 return sms;
             });
-            when(notificationRepository.save(any(TemplateRequestNotification.class)))
-                .thenReturn(new TemplateRequestNotification());
 
             // Act
             SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
 
             // Assert
             assertNotNull(response);
-            verify(regexTemplateRepository).findBySenderHeaderAndStatus("HDFC-BANK", RegexTemplateStatus.VERIFIED);
+            verify(verifiedTemplateRegistry).templates("HDFC-BANK");
         }
 
         @Test
@@ -270,7 +741,7 @@ class SmsServiceTest {
             String smsText = "TESTBANK Your account debited";
 
             when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-            when(regexTemplateRepository.findBySenderHeaderAndStatus("TESTBANK", RegexTemplateStatus.VERIFIED))
+            when(verifiedTemplateRegistry.templates("TESTBANK"))
                 .thenReturn(Collections.emptyList());
             when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
                 Sms sms = invocation.getArgument(0);
@@ -278,8 +749,6 @@ class SmsServiceTest {
                 sms.setCreatedAt(LocalDateTime.now());
                 return sms;
             });
-            when(notificationRepository.save(any(TemplateRequestNotification.class)))
-                .thenReturn(new TemplateRequestNotification());
 
             // Act
             SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
@@ -295,7 +764,7 @@ class SmsServiceTest {
             String smsText = "";
 
             when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-            when(regexTemplateRepository.findBySenderHeaderAndStatus("", RegexTemplateStatus.VERIFIED))
+            when(verifiedTemplateRegistry.templates(""))
                 .thenReturn(Collections.emptyList());
             when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
                 Sms sms = invocation.getArgument(0);
@@ -303,8 +772,6 @@ class SmsServiceTest {
                 sms.setCreatedAt(LocalDateTime.now());
                 return sms;
             });
-            when(notificationRepository.save(any(TemplateRequestNotification.class)))
-                .thenReturn(new TemplateRequestNotification());
 
             // Act
             SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
@@ -315,6 +782,305 @@ class SmsServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Process SMS Batch Tests")
+    class ProcessSmsBatchTests {
+
+        @Test
+        @DisplayName("Should return results in input order and look up each sender's templates once")
+        void processSmsBatch_MixedSenders_ShouldKeepInputOrder() {
+            // Arrange
+            List<String> smsTexts = Arrays.asList(
+                "TESTBK: Rs.1000 debited",
+                "OTHERBK: Rs.50 debited",
+                "TESTBK: Rs.2000 debited");
+            long[] nextId = {1};
+
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK")).thenReturn(Collections.singletonList(testTemplate));
+            when(verifiedTemplateRegistry.templates("OTHERBK")).thenReturn(Collections.emptyList());
+            when(regexProcessService.processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class)))
+                .thenAnswer(invocation -> {
+                    String smsText = invocation.getArgument(1);
+                    return fieldMatch(smsText, ExtractableField.AMOUNT, smsText.replaceAll("\\D", ""), 1);
+                });
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
+                Sms sms = invocation.getArgument(0);
+                sms.setSmsId(nextId[0]++);
+                return sms;
+            });
+
+            // Act
+            List<SmsSubmissionResponse> responses = smsService.processSmsBatch(smsTexts, 1L);
+
+            // Assert
+            assertEquals(3, responses.size());
+            assertEquals(smsTexts.get(0), responses.get(0).getSmsText());
+            assertEquals("1000", responses.get(0).getExtractedFields().getAmount());
+            assertFalse(responses.get(1).getHasMatch());
+            assertEquals("2000", responses.get(2).getExtractedFields().getAmount());
+            verify(verifiedTemplateRegistry, times(1)).templates("TESTBK");
+            verify(templateRequestCoalescer, times(1)).record(argThat(unmatched ->
+                unmatched.size() == 1 && "OTHERBK".equals(unmatched.get(0).getSenderHeader())));
+            verify(transactionManager, times(1)).getTransaction(any());
+            verify(userRepository, times(1)).findById(1L);
+        }
+
+        @Test
+        @DisplayName("Should reject an empty batch")
+        void processSmsBatch_Empty_ShouldThrowException() {
+            // Act & Assert
+            RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> smsService.processSmsBatch(Collections.emptyList(), 1L));
+            assertEquals("At least one SMS is required", exception.getMessage());
+            verifyNoInteractions(smsRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Duplicate SMS Tests")
+    class DuplicateSmsTests {
+
+        private void storeWithIds(long firstId) {
+            long[] nextId = {firstId};
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
+                Sms sms = invocation.getArgument(0);
+                sms.setSmsId(nextId[0]++);
+                sms.setCreatedAt(LocalDateTime.now());
+                return sms;
+            });
+        }
+
+        @Test
+        @DisplayName("Should return the stored result of a resent SMS without matching it again")
+        void processSms_Resent_ShouldReturnStoredResult() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited from your account";
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("TESTBK")).thenReturn(Collections.singletonList(testTemplate));
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            ArgumentCaptor<Sms> stored = ArgumentCaptor.forClass(Sms.class);
+            storeWithIds(7L);
+            SmsSubmissionResponse first = smsService.processSms(smsText, 1L);
+            verify(smsRepository).save(stored.capture());
+            when(smsRepository.findById(7L)).thenReturn(Optional.of(stored.getValue()));
+
+            // Act: same SMS with different spacing
+            SmsSubmissionResponse resent = smsService.processSms("  TESTBK:  Rs.1000 debited\nfrom your account ", 1L);
+
+            // Assert
+            assertNull(first.getDuplicate());
+            assertTrue(resent.getDuplicate());
+            assertEquals(7L, resent.getSmsId());
+            assertTrue(resent.getHasMatch());
+            assertEquals(testTemplate.getTemplateId(), resent.getMatchedTemplateId());
+            assertEquals("1000", resent.getExtractedFields().getAmount());
+            verify(regexProcessService, times(1)).processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class));
+            verify(smsRepository, times(1)).save(any(Sms.class));
+            verify(userRepository, times(1)).findById(1L);
+            assertEquals(1L, smsDeduplicator.stats().get("recentHits"));
+        }
+
+        @Test
+        @DisplayName("Should not treat the same text from another user as a duplicate")
+        void processSms_SameTextOtherUser_ShouldStoreBoth() {
+            // Arrange
+            Users otherUser = new Users();
+            otherUser.setUId(2L);
+            otherUser.setRole(UserRole.CUSTOMER);
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(userRepository.findById(2L)).thenReturn(Optional.of(otherUser));
+            when(verifiedTemplateRegistry.templates("UNKNOWN")).thenReturn(Collections.emptyList());
+            storeWithIds(1L);
+
+            // Act
+            SmsSubmissionResponse first = smsService.processSms("UNKNOWN: hello", 1L);
+            SmsSubmissionResponse second = smsService.processSms("UNKNOWN: hello", 2L);
+
+            // Assert
+            assertNotEquals(first.getSmsId(), second.getSmsId());
+            assertNull(second.getDuplicate());
+            verify(smsRepository, times(2)).save(any(Sms.class));
+        }
+
+        @Test
+        @DisplayName("Should return the first result for a repeated idempotency key whatever the text")
+        void processSms_RepeatedIdempotencyKey_ShouldReturnFirstResult() {
+            // Arrange
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("UNKNOWN")).thenReturn(Collections.emptyList());
+            ArgumentCaptor<Sms> stored = ArgumentCaptor.forClass(Sms.class);
+            storeWithIds(3L);
+            smsService.processSms("UNKNOWN: first attempt", 1L, "request-1");
+            verify(smsRepository).save(stored.capture());
+            when(smsRepository.findById(3L)).thenReturn(Optional.of(stored.getValue()));
+
+            // Act
+            SmsSubmissionResponse retried = smsService.processSms("UNKNOWN: edited before retrying", 1L, "request-1");
+
+            // Assert
+            assertTrue(retried.getDuplicate());
+            assertEquals(3L, retried.getSmsId());
+            assertEquals("UNKNOWN: first attempt", retried.getSmsText());
+            assertEquals("request-1", stored.getValue().getIdempotencyKey());
+            verify(templateRequestCoalescer, times(1)).record(any());
+        }
+
+        @Test
+        @DisplayName("Should answer a duplicate rejected by the unique index with the stored SMS")
+        void processSms_RejectedByUniqueIndex_ShouldReturnStoredSms() {
+            // Arrange
+            String smsText = "UNKNOWN: stored by another node";
+            Sms original = new Sms();
+            original.setSmsId(42L);
+            original.setSmsText(smsText);
+            original.setSenderHeader("UNKNOWN");
+            original.setUser(testUser);
+            original.setCreatedAt(LocalDateTime.now());
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("UNKNOWN")).thenReturn(Collections.emptyList());
+            when(smsRepository.save(any(Sms.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_sms_user_content_hash"));
+            when(smsRepository.findByUserIdAndContentHash(1L, SmsDeduplicator.contentHash("UNKNOWN", smsText)))
+                .thenReturn(Optional.of(original));
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 1L);
+
+            // Assert
+            assertTrue(response.getDuplicate());
+            assertEquals(42L, response.getSmsId());
+            assertFalse(response.getHasMatch());
+            verify(templateRequestCoalescer, never()).record(any());
+            assertEquals(1L, smsDeduplicator.stats().get("indexHits"));
+        }
+
+        @Test
+        @DisplayName("Should store an SMS repeated within a batch once")
+        void processSmsBatch_RepeatedSms_ShouldStoreOnce() {
+            // Arrange
+            List<String> smsTexts = Arrays.asList("UNKNOWN: hello", "UNKNOWN: other", "UNKNOWN:  hello");
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(verifiedTemplateRegistry.templates("UNKNOWN")).thenReturn(Collections.emptyList());
+            storeWithIds(10L);
+
+            // Act
+            List<SmsSubmissionResponse> responses = smsService.processSmsBatch(smsTexts, 1L);
+
+            // Assert
+            assertEquals(3, responses.size());
+            assertEquals(10L, responses.get(0).getSmsId());
+            assertEquals(11L, responses.get(1).getSmsId());
+            assertEquals(10L, responses.get(2).getSmsId());
+            assertTrue(responses.get(2).getDuplicate());
+            verify(smsRepository, times(2)).save(any(Sms.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Parse Result Cache Tests")
+    class ParseResultCacheTests {
+
+        private Users otherUser() {
+            Users user = new Users();
+            user.setUId(2L);
+            user.setName("Other User");
+            user.setEmail("other@example.com");
+            user.setRole(UserRole.CUSTOMER);
+            return user;
+        }
+
+        @Test
+        @DisplayName("Should take the cached result for the same SMS from another user without matching it again")
+        void processSms_SameTextSameTemplates_ShouldReuseCachedResult() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited from your account";
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(userRepository.findById(2L)).thenReturn(Optional.of(otherUser()));
+            when(verifiedTemplateRegistry.templates("TESTBK")).thenReturn(List.of(testTemplate));
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            smsService.processSms(smsText, 1L);
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(smsText, 2L);
+
+            // Assert
+            assertTrue(response.getHasMatch());
+            assertEquals(testTemplate.getTemplateId(), response.getMatchedTemplateId());
+            assertEquals("1000", response.getExtractedFields().getAmount());
+            assertFalse(response.getMatchBudgetExceeded());
+            verify(regexProcessService, times(1)).processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class));
+            ArgumentCaptor<Sms> stored = ArgumentCaptor.forClass(Sms.class);
+            verify(smsRepository, times(2)).save(stored.capture());
+            assertSame(testTemplate, stored.getAllValues().get(1).getMatchedTemplate());
+            assertEquals(stored.getAllValues().get(0).getExtractedFields(), stored.getAllValues().get(1).getExtractedFields());
+            assertEquals(1L, parseResultCache.stats().get("hits"));
+            verify(matchingMetrics, times(2)).recordSmsProcessed();
+            verify(templateWinStats, times(2)).recordWin("TESTBK", testTemplate.getTemplateId());
+        }
+
+        @Test
+        @DisplayName("Should match again an SMS that differs from a cached one only in whitespace")
+        void processSms_DifferentWhitespace_ShouldNotReuseCachedResult() {
+            // Arrange: field offsets of one text do not apply to the other
+            String smsText = "TESTBK: Rs.1000 debited from your account";
+            String spacedText = "TESTBK:  Rs.1000 debited from your account";
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(userRepository.findById(2L)).thenReturn(Optional.of(otherUser()));
+            when(verifiedTemplateRegistry.templates("TESTBK")).thenReturn(List.of(testTemplate));
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), eq(smsText), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), eq(spacedText), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(spacedText, ExtractableField.AMOUNT, "1000", 1));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            smsService.processSms(smsText, 1L);
+
+            // Act
+            SmsSubmissionResponse response = smsService.processSms(spacedText, 2L);
+
+            // Assert
+            assertEquals("1000", response.getExtractedFields().getAmount());
+            verify(regexProcessService, times(2)).processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class));
+            assertEquals(0L, parseResultCache.stats().get("hits"));
+        }
+
+        @Test
+        @DisplayName("Should match the SMS again once the sender's template set was reloaded")
+        void processSms_AfterTemplateSetReload_ShouldNotUseOlderResult() {
+            // Arrange
+            String smsText = "TESTBK: Rs.1000 debited from your account";
+            RegexTemplate template2 = new RegexTemplate();
+            template2.setTemplateId(2L);
+            template2.setSenderHeader("TESTBK");
+            template2.setPattern("Rs\\.(?<amount>\\d+) debited");
+            template2.setStatus(RegexTemplateStatus.VERIFIED);
+            when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(userRepository.findById(2L)).thenReturn(Optional.of(otherUser()));
+            // Each reload publishes a new list, even for the same templates
+            when(verifiedTemplateRegistry.templates("TESTBK"))
+                .thenReturn(List.of(testTemplate), List.of(template2));
+            when(regexProcessService.processTemplate(eq(testTemplate), anyString(), any(MatchBudget.class)))
+                .thenReturn(FieldMatch.none());
+            when(regexProcessService.processTemplate(eq(template2), anyString(), any(MatchBudget.class)))
+                .thenReturn(fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1));
+            when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            SmsSubmissionResponse before = smsService.processSms(smsText, 1L);
+
+            // Act
+            SmsSubmissionResponse after = smsService.processSms(smsText, 2L);
+
+            // Assert
+            assertFalse(before.getHasMatch());
+            assertTrue(after.getHasMatch());
+            assertEquals(template2.getTemplateId(), after.getMatchedTemplateId());
+            assertEquals(0L, parseResultCache.stats().get("hits"));
+            assertEquals(1L, parseResultCache.stats().get("staleMisses"));
+        }
+    }
+
     @Nested
     @DisplayName("Get SMS History Tests")
     class GetSmsHistoryTests {
@@ -452,7 +1218,7 @@ class SmsServiceTest {
             notification.setStatus(NotificationStatus.PENDING);
             notification.setCreatedAt(LocalDateTime.now());
 
-            when(notificationRepository.findByStatusOrderByCreatedAtDesc(NotificationStatus.PENDING))
+            when(notificationRepository.findByStatusOrderByLastSeenAtDesc(NotificationStatus.PENDING))
                 .thenReturn(Collections.singletonList(notification));
 
             // Act
@@ -465,13 +1231,47 @@ class SmsServiceTest {
             assertEquals(notification.getSmsText(), result.get(0).getSmsText());
             assertEquals(notification.getSenderHeader(), result.get(0).getSenderHeader());
             assertEquals(NotificationStatus.PENDING, result.get(0).getStatus());
+            // Stored before coalescing: stands for its one SMS
+            assertEquals(1L, result.get(0).getOccurrenceCount());
+            assertEquals(notification.getCreatedAt(), result.get(0).getLastSeenAt());
+            assertEquals(List.of(testSms.getSmsId()), result.get(0).getSampleSmsIds());
+        }
+
+        @Test
+        @DisplayName("Should return the occurrence count and sample SMS ids of a coalesced notification")
+        void getPendingNotifications_Coalesced_ShouldReturnOccurrences() {
+            // Arrange
+            TemplateRequestNotification notification = new TemplateRequestNotification();
+            notification.setNotificationId(1L);
+            notification.setSms(testSms);
+            notification.setSmsText("TESTBK: Rs.1000");
+            notification.setSenderHeader("TESTBK");
+            notification.setRequestedBy(testUser);
+            notification.setStatus(NotificationStatus.PENDING);
+            notification.setCreatedAt(LocalDateTime.now().minusDays(1));
+            notification.setFirstSeenAt(notification.getCreatedAt());
+            notification.setLastSeenAt(LocalDateTime.now());
+            notification.setOccurrenceCount(1250L);
+            notification.setSampleSmsIds("1,57,980");
+
+            when(notificationRepository.findByStatusOrderByLastSeenAtDesc(NotificationStatus.PENDING))
+                .thenReturn(Collections.singletonList(notification));
+
+            // Act
+            TemplateRequestNotificationDto result = smsService.getPendingNotifications().get(0);
+
+            // Assert
+            assertEquals(1250L, result.getOccurrenceCount());
+            assertEquals(notification.getFirstSeenAt(), result.getFirstSeenAt());
+            assertEquals(notification.getLastSeenAt(), result.getLastSeenAt());
+            assertEquals(List.of(1L, 57L, 980L), result.getSampleSmsIds());
         }
 
         @Test
         @DisplayName("Should return empty list when no pending notifications")
         void getPendingNotifications_WhenNoPending_ShouldReturnEmptyList() {
             // Arrange
-            when(notificationRepository.findByStatusOrderByCreatedAtDesc(NotificationStatus.PENDING))
+            when(notificationRepository.findByStatusOrderByLastSeenAtDesc(NotificationStatus.PENDING))
                 .thenReturn(Collections.emptyList());
 
             // Act
@@ -494,6 +1294,7 @@ class SmsServiceTest {
             TemplateRequestNotification notification = new TemplateRequestNotification();
             notification.setNotificationId(1L);
             notification.setStatus(NotificationStatus.PENDING);
+            notification.setCoalesceKey("key");
 
             when(notificationRepository.findById(1L)).thenReturn(Optional.of(notification));
             when(notificationRepository.save(any(TemplateRequestNotification.class)))
@@ -504,7 +1305,7 @@ class SmsServiceTest {
 
             // Assert
             verify(notificationRepository).save(argThat(n -> 
-                n.getStatus() == NotificationStatus.RESOLVED && n.getResolvedAt() != null
+                n.getStatus() == NotificationStatus.RESOLVED && n.getResolvedAt() != null && n.getCoalesceKey() == null
             ));
         }
 
@@ -532,13 +1333,12 @@ class SmsServiceTest {
             String smsText = "TESTBK: Rs.1000 debited";
             testTemplate.setSmsType(SmsType.DEBIT);
 
-            RegexProcessResponse processResponse = new RegexProcessResponse();
-            processResponse.setAmount(new FieldResult("1000", 1));
+            FieldMatch processResponse = fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1);
 
             when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-            when(regexTemplateRepository.findBySenderHeaderAndStatus("TESTBK", RegexTemplateStatus.VERIFIED))
+            when(verifiedTemplateRegistry.templates("TESTBK"))
                 .thenReturn(Collections.singletonList(testTemplate));
-            when(regexProcessService.processRegex(any(RegexProcessRequest.class))).thenReturn(processResponse);
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class))).thenReturn(processResponse);
             when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
                 Sms sms = invocation.getArgument(0);
                 sms.setSmsId(1L);
@@ -562,13 +1362,12 @@ class SmsServiceTest {
             String smsText = "TESTBK: Rs.1000 credited";
             testTemplate.setSmsType(SmsType.CREDIT);
 
-            RegexProcessResponse processResponse = new RegexProcessResponse();
-            processResponse.setAmount(new FieldResult("1000", 1));
+            FieldMatch processResponse = fieldMatch(smsText, ExtractableField.AMOUNT, "1000", 1);
 
             when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-            when(regexTemplateRepository.findBySenderHeaderAndStatus("TESTBK", RegexTemplateStatus.VERIFIED))
+            when(verifiedTemplateRegistry.templates("TESTBK"))
                 .thenReturn(Collections.singletonList(testTemplate));
-            when(regexProcessService.processRegex(any(RegexProcessRequest.class))).thenReturn(processResponse);
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class))).thenReturn(processResponse);
             when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
                 Sms sms = invocation.getArgument(0);
                 sms.setSmsId(1L);
@@ -592,13 +1391,12 @@ class SmsServiceTest {
             String smsText = "TESTBK: EMI Rs.5000 debited";
             testTemplate.setSmsType(SmsType.LOAN);
 
-            RegexProcessResponse processResponse = new RegexProcessResponse();
-            processResponse.setAmount(new FieldResult("5000", 1));
+            FieldMatch processResponse = fieldMatch(smsText, ExtractableField.AMOUNT, "5000", 1);
 
             when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-            when(regexTemplateRepository.findBySenderHeaderAndStatus("TESTBK", RegexTemplateStatus.VERIFIED))
+            when(verifiedTemplateRegistry.templates("TESTBK"))
                 .thenReturn(Collections.singletonList(testTemplate));
-            when(regexProcessService.processRegex(any(RegexProcessRequest.class))).thenReturn(processResponse);
+            when(regexProcessService.processTemplate(any(RegexTemplate.class), anyString(), any(MatchBudget.class))).thenReturn(processResponse);
             when(smsRepository.save(any(Sms.class))).thenAnswer(invocation -> {
                 Sms sms = invocation.getArgument(0);
                 sms.setSmsId(1L);
@@ -0,0 +1,135 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Engine.MatchBudget;
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Compares connection pool wait time when an SMS submission holds its connection across regex
+ * matching (the old end-to-end transaction) against taking one only for the final insert.
+ * Not a unit test: run its main method by hand on the test classpath, optionally passing the
+ * pool size, the number of concurrent submitters and the SMS per submitter.
+ */
+public class SmsTransactionScopeBenchmark {
+
+    private static final String[] VERBS = {"debited from", "credited to", "spent on", "refunded to", "withdrawn from"};
+    private static final String[] SMS = {
+        "HDFCBK: Rs.1,250.00 debited from A/c XX1234 on 12-06-24. Avl Bal Rs.9,870.50",
+        "HDFCBK: Rs.499.00 spent on Card XX9876 at AMAZON on 13-06-24. Avl Lmt Rs.45,000.00",
+        "HDFCBK: Rs.10,000.00 credited to A/c XX1234 on 14-06-24 by NEFT. Avl Bal Rs.19,870.50",
+        "HDFCBK: OTP for txn of Rs.2,000.00 is 482913. Do not share it with anyone."
+    };
+
+    public static void main(String[] args) throws Exception {
+        int poolSize = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int submitters = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int smsPerSubmitter = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        List<RegexTemplate> templates = new ArrayList<>();
+        for (int t = 0; t < 40; t++) {
+            RegexTemplate template = new RegexTemplate();
+            template.setTemplateId((long) t);
+            template.setSenderHeader("HDFCBK");
+            template.setPattern("Rs\\.(?<amount>[\\d,]+\\.\\d{2}) " + VERBS[t % VERBS.length]
+                + " (?:A/c|Card) (?<bankAcId>XX\\d{" + (4 + t / VERBS.length) + "}).*?Avl (?:Bal|Lmt) Rs\\.(?<balance>[\\d,]+\\.\\d{2})");
+            templates.add(template);
+        }
+        RegexProcessService regexProcessService =
+            new RegexProcessService(new CompiledPatternCache(64), new MatchBudgetPolicy(1_000_000, 50, 250));
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:sms-benchmark;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(poolSize);
+        config.setConnectionTimeout(TimeUnit.MINUTES.toMillis(5));
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("create table sms (sms_id bigint auto_increment primary key, sms_text varchar(512))");
+            }
+            for (int round = 0; round < 3; round++) {
+                run("connection held while matching", true, dataSource, regexProcessService, templates, submitters, smsPerSubmitter);
+                run("connection only for the insert ", false, dataSource, regexProcessService, templates, submitters, smsPerSubmitter);
+            }
+        }
+    }
+
+    private static void run(String label, boolean holdWhileMatching, HikariDataSource dataSource,
+                            RegexProcessService regexProcessService, List<RegexTemplate> templates,
+                            int submitters, int smsPerSubmitter) throws Exception {
+        AtomicLong waitNanos = new AtomicLong();
+        LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(submitters);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int s = 0; s < submitters; s++) {
+            int offset = s;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < smsPerSubmitter; i++) {
+                    String sms = SMS[(offset + i) % SMS.length];
+                    if (holdWhileMatching) {
+                        try (Connection connection = connection(dataSource, waitNanos, maxWaitNanos)) {
+                            match(regexProcessService, templates, sms);
+                            insert(connection, sms);
+                        }
+                    } else {
+                        match(regexProcessService, templates, sms);
+                        try (Connection connection = connection(dataSource, waitNanos, maxWaitNanos)) {
+                            insert(connection, sms);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        int total = submitters * smsPerSubmitter;
+        System.out.printf("%s: pool wait avg %.3f ms, max %.1f ms; %.0f SMS/s (pool %d, %d submitters)%n",
+            label, waitNanos.get() / 1e6 / total, maxWaitNanos.get() / 1e6,
+            total / (elapsed / 1e9), dataSource.getMaximumPoolSize(), submitters);
+    }
+
+    private static Connection connection(HikariDataSource dataSource, AtomicLong waitNanos,
+                                         LongAccumulator maxWaitNanos) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        long waited = System.nanoTime() - start;
+        waitNanos.addAndGet(waited);
+        maxWaitNanos.accumulate(waited);
+        return connection;
+    }
+
+    private static int match(RegexProcessService regexProcessService, List<RegexTemplate> templates, String sms) {
+        MatchBudget budget = MatchBudget.start(1_000_000, 50_000_000L, 250_000_000L);
+        int best = 0;
+        for (RegexTemplate template : templates) {
+            best = Math.max(best, regexProcessService.processTemplate(template, sms, budget).getFieldCount());
+        }
+        return best;
+    }
+
+    private static void insert(Connection connection, String sms) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("insert into sms (sms_text) values (?)")) {
+            statement.setString(1, sms);
+            statement.executeUpdate();
+        }
+    }
+}
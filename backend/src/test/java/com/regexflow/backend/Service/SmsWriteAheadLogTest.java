@@ -0,0 +1,325 @@
+package com.regexflow.backend.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SmsWriteAheadLog Tests")
+class SmsWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private SmsWriteAheadLog log;
+
+    @AfterEach
+    void tearDown() {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    private SmsWriteAheadLog reopen(long segmentSizeBytes) {
+        if (log != null) {
+            log.close();
+        }
+        log = new SmsWriteAheadLog(true, directory, segmentSizeBytes);
+        log.open();
+        return log;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Nested
+    @DisplayName("Replay Tests")
+    class ReplayTests {
+
+        @Test
+        @DisplayName("Should hand out SMS not marked done when the log is opened again")
+        void open_AfterRestart_ShouldRecoverSmsNotMarkedDone() {
+            // Arrange
+            reopen(1024 * 1024);
+            long stored = log.append(1L, "HDFCBK: Rs.100 debited");
+            long pending = log.append(2L, "SBIINB: Rs.250 credited ₹");
+            log.markDone(stored);
+
+            // Act
+            List<SmsWriteAheadLog.LoggedSms> recovered = reopen(1024 * 1024).drainRecovered();
+
+            // Assert
+            assertEquals(List.of(new SmsWriteAheadLog.LoggedSms(pending, 2L, "SBIINB: Rs.250 credited ₹")), recovered);
+            assertTrue(log.drainRecovered().isEmpty());
+            assertTrue(log.append(1L, "next") > pending);
+        }
+
+        @Test
+        @DisplayName("Should drop a record torn by a crash and keep the ones before it")
+        void open_WithTornTail_ShouldTruncateIt() throws IOException {
+            // Arrange
+            reopen(1024 * 1024);
+            long sequence = log.append(1L, "HDFCBK: Rs.100 debited");
+            log.close();
+            Path segment = segmentFiles().get(0);
+            long intactSize = Files.size(segment);
+            Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+            log = null;
+
+            // Act
+            List<SmsWriteAheadLog.LoggedSms> recovered = reopen(1024 * 1024).drainRecovered();
+
+            // Assert
+            assertEquals(List.of(sequence), recovered.stream().map(SmsWriteAheadLog.LoggedSms::sequence).toList());
+            assertEquals(intactSize, Files.size(segment));
+            assertEquals(7L, log.stats().get("truncatedBytes"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Group Commit Tests")
+    class GroupCommitTests {
+
+        @Test
+        @DisplayName("Should give concurrent appends distinct sequences with fewer fsyncs than appends")
+        void append_Concurrently_ShouldShareFsyncs() throws Exception {
+            // Arrange
+            reopen(1024 * 1024);
+            ExecutorService submitters = Executors.newFixedThreadPool(16);
+            List<Future<Long>> futures = new ArrayList<>();
+
+            // Act
+            for (int i = 0; i < 400; i++) {
+                String sms = "HDFCBK: Rs." + i + " debited";
+                futures.add(submitters.submit(() -> log.append(1L, sms)));
+            }
+            List<Long> sequences = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                sequences.add(future.get());
+            }
+            submitters.shutdown();
+
+            // Assert
+            assertEquals(400, sequences.stream().distinct().count());
+            assertEquals(400L, log.stats().get("appends"));
+            assertTrue((long) log.stats().get("groupCommits") <= 400L);
+            assertEquals(400, reopen(1024 * 1024).drainRecovered().size());
+        }
+
+        @Test
+        @DisplayName("Should return or fail every append racing close, never leave one waiting")
+        void append_WhileClosing_ShouldNeverHang() throws Exception {
+            // Arrange
+            reopen(1024 * 1024);
+            ExecutorService submitters = Executors.newFixedThreadPool(8);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(submitters.submit(() -> {
+                    int written = 0;
+                    while (true) {
+                        try {
+                            log.append(1L, "HDFCBK: Rs.1 debited");
+                            written++;
+                        } catch (RuntimeException e) {
+                            return written;
+                        }
+                    }
+                }));
+            }
+            Thread.sleep(50);
+
+            // Act
+            log.close();
+
+            // Assert
+            for (Future<Integer> future : futures) {
+                assertTrue(future.get(15, TimeUnit.SECONDS) >= 0);
+            }
+            submitters.shutdown();
+        }
+
+        @Test
+        @DisplayName("Should keep SMS appended after a write that failed partway, e.g. on a full disk")
+        void append_AfterFailedWrite_ShouldKeepLaterSms() {
+            // Arrange
+            List<FailingChannel> channels = new ArrayList<>();
+            log = new SmsWriteAheadLog(true, directory, 1024 * 1024) {
+                @Override
+                FileChannel openChannel(Path path) throws IOException {
+                    FailingChannel channel = new FailingChannel(super.openChannel(path));
+                    channels.add(channel);
+                    return channel;
+                }
+            };
+            log.open();
+            long before = log.append(1L, "HDFCBK: Rs.100 debited");
+            channels.get(0).failNextWrite = true;
+            assertThrows(RuntimeException.class, () -> log.append(2L, "SBIINB: Rs.250 credited"));
+
+            // Act
+            long after = log.append(3L, "ICICIB: Rs.75 debited");
+
+            // Assert
+            List<SmsWriteAheadLog.LoggedSms> recovered = reopen(1024 * 1024).drainRecovered();
+            assertEquals(List.of(before, after), recovered.stream().map(SmsWriteAheadLog.LoggedSms::sequence).toList());
+            assertEquals(0L, log.stats().get("truncatedBytes"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Checkpoint Tests")
+    class CheckpointTests {
+
+        @Test
+        @DisplayName("Should delete closed segments once all their SMS are done and keep the others")
+        void checkpoint_ShouldDeleteOnlyFullyDoneSegments() throws IOException {
+            // Arrange: a tiny segment size rolls to a new segment for every append
+            reopen(1);
+            long first = log.append(1L, "first");
+            long second = log.append(1L, "second");
+            log.append(1L, "third");
+            log.markDone(second);
+            log.markDone(first);
+            log.append(1L, "roll");
+            int segmentsBefore = segmentFiles().size();
+
+            // Act
+            log.checkpoint();
+
+            // Assert
+            assertEquals(segmentsBefore - 2, segmentFiles().size());
+            assertEquals(List.of("third", "roll"), reopen(1).drainRecovered().stream()
+                .map(SmsWriteAheadLog.LoggedSms::smsText)
+                .toList());
+        }
+    }
+
+    /**
+     * Channel whose next gathering write stops halfway through its first buffer and fails
+     */
+    private static final class FailingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private volatile boolean failNextWrite;
+
+        private FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            if (failNextWrite) {
+                failNextWrite = false;
+                ByteBuffer first = srcs[offset];
+                delegate.write(first.slice(first.position(), first.remaining() / 2));
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Entity.Sms;
+import com.regexflow.backend.Repository.TemplateRequestNotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TemplateRequestCoalescer Tests")
+class TemplateRequestCoalescerTest {
+
+    @Mock
+    private TemplateRequestNotificationRepository notificationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TemplateRequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(notificationRepository.findByCoalesceKey(anyString())).thenReturn(Optional.empty());
+        coalescer = new TemplateRequestCoalescer(notificationRepository, transactionManager, 5);
+    }
+
+    private static Sms sms(long smsId, String senderHeader, String smsText) {
+        Sms sms = new Sms();
+        sms.setSmsId(smsId);
+        sms.setSenderHeader(senderHeader);
+        sms.setSmsText(smsText);
+        return sms;
+    }
+
+    @Test
+    @DisplayName("Should update the requests of a batch in key order, whatever order the SMS arrived in")
+    void record_ShouldLockRequestsInKeyOrder() {
+        // Arrange
+        Sms first = sms(1L, "HDFCBK", "HDFCBK: Rs.100 debited");
+        Sms second = sms(2L, "SBIINB", "SBIINB: Rs.250 credited");
+        String firstKey = TemplateRequestCoalescer.coalesceKey("HDFCBK", first.getSmsText());
+        String secondKey = TemplateRequestCoalescer.coalesceKey("SBIINB", second.getSmsText());
+        List<String> sortedKeys = firstKey.compareTo(secondKey) < 0 ? List.of(firstKey, secondKey) : List.of(secondKey, firstKey);
+        when(notificationRepository.recordOccurrences(anyString(), anyLong(), any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        coalescer.record(List.of(first, second));
+        coalescer.record(List.of(second, first));
+
+        // Assert
+        InOrder inOrder = inOrder(notificationRepository);
+        for (int batch = 0; batch < 2; batch++) {
+            for (String key : sortedKeys) {
+                inOrder.verify(notificationRepository).recordOccurrences(eq(key), eq(1L), any(LocalDateTime.class));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should retry a batch that lost a row lock instead of dropping its occurrences")
+    void record_LockConflict_ShouldRetry() {
+        // Arrange
+        Sms sms = sms(1L, "HDFCBK", "HDFCBK: Rs.100 debited");
+        when(notificationRepository.recordOccurrences(anyString(), anyLong(), any(LocalDateTime.class)))
+            .thenThrow(new CannotAcquireLockException("Deadlock found when trying to get lock"))
+            .thenReturn(1);
+
+        // Act
+        coalescer.record(List.of(sms));
+
+        // Assert
+        verify(notificationRepository, times(2)).recordOccurrences(anyString(), eq(1L), any(LocalDateTime.class));
+        assertEquals(1L, coalescer.stats().get("lockConflicts"));
+        assertEquals(1L, coalescer.stats().get("coalesced"));
+        assertEquals(0L, coalescer.stats().get("failed"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.regexflow.backend.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TemplateWinStats Tests")
+class TemplateWinStatsTest {
+
+    private AtomicLong now;
+    private TemplateWinStats templateWinStats;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong();
+        templateWinStats = new TemplateWinStats(60, now::get);
+    }
+
+    @Nested
+    @DisplayName("Ranking Tests")
+    class RankingTests {
+
+        @Test
+        @DisplayName("Should rank the templates of a sender by wins")
+        void ranking_ShouldListMostWinningTemplateFirst() {
+            // Arrange
+            templateWinStats.recordAttempt("HDFCBK", 1L);
+            templateWinStats.recordAttempt("HDFCBK", 2L);
+            templateWinStats.recordWin("HDFCBK", 2L);
+            templateWinStats.recordAttempt("HDFCBK", 2L);
+            templateWinStats.recordWin("HDFCBK", 2L);
+
+            // Act
+            List<Map<String, Object>> ranking = templateWinStats.ranking().get("HDFCBK");
+
+            // Assert
+            assertEquals(2L, ranking.get(0).get("templateId"));
+            assertEquals(2.0, ranking.get(0).get("wins"));
+            assertEquals(1.0, ranking.get(0).get("winRate"));
+            assertEquals(1L, ranking.get(1).get("templateId"));
+            assertEquals(0.0, ranking.get(1).get("winRate"));
+        }
+
+        @Test
+        @DisplayName("Should score unknown senders and templates as zero")
+        void score_Unknown_ShouldBeZero() {
+            // Act & Assert
+            assertEquals(0.0, templateWinStats.score("UNKNOWN", 1L));
+            templateWinStats.recordWin("HDFCBK", 1L);
+            assertEquals(0.0, templateWinStats.score("HDFCBK", 2L));
+        }
+
+        @Test
+        @DisplayName("Should drop a forgotten template")
+        void forgetTemplate_ShouldRemoveCounts() {
+            // Arrange
+            templateWinStats.recordWin("HDFCBK", 1L);
+
+            // Act
+            templateWinStats.forgetTemplate("HDFCBK", 1L);
+
+            // Assert
+            assertEquals(0.0, templateWinStats.score("HDFCBK", 1L));
+            assertTrue(templateWinStats.ranking().get("HDFCBK").isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Decay Tests")
+    class DecayTests {
+
+        @Test
+        @DisplayName("Should halve wins every half-life")
+        void score_AfterHalfLife_ShouldHalve() {
+            // Arrange
+            for (int i = 0; i < 8; i++) {
+                templateWinStats.recordWin("HDFCBK", 1L);
+            }
+
+            // Act
+            now.addAndGet(TimeUnit.MINUTES.toNanos(60));
+            double afterOneHalfLife = templateWinStats.score("HDFCBK", 1L);
+            now.addAndGet(TimeUnit.MINUTES.toNanos(120));
+            double afterThreeHalfLives = templateWinStats.score("HDFCBK", 1L);
+
+            // Assert
+            assertEquals(4.0, afterOneHalfLife, 1e-9);
+            assertEquals(1.0, afterThreeHalfLives, 1e-9);
+        }
+
+        @Test
+        @DisplayName("Should let a new winner overtake an old one within a few half-lives")
+        void score_NewWinner_ShouldOvertakeOldWinner() {
+            // Arrange
+            for (int i = 0; i < 100; i++) {
+                templateWinStats.recordWin("HDFCBK", 1L);
+            }
+
+            // Act: template 2 wins 10 SMS every 10 minutes for 4 hours
+            for (int minute = 0; minute < 240; minute += 10) {
+                now.addAndGet(TimeUnit.MINUTES.toNanos(10));
+                for (int i = 0; i < 10; i++) {
+                    templateWinStats.recordWin("HDFCBK", 2L);
+                }
+            }
+
+            // Assert
+            assertTrue(templateWinStats.score("HDFCBK", 2L) > templateWinStats.score("HDFCBK", 1L));
+            assertEquals(2L, templateWinStats.ranking().get("HDFCBK").get(0).get("templateId"));
+        }
+
+        @Test
+        @DisplayName("Should not decay between folds")
+        void score_WithinFoldInterval_ShouldNotDecay() {
+            // Arrange
+            templateWinStats.recordWin("HDFCBK", 1L);
+
+            // Act
+            now.addAndGet(TimeUnit.MINUTES.toNanos(9));
+
+            // Assert
+            assertEquals(1.0, templateWinStats.score("HDFCBK", 1L));
+        }
+    }
+}
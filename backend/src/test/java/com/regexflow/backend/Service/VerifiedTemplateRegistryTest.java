@@ -0,0 +1,116 @@
+package com.regexflow.backend.Service;
+
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.regexflow.backend.Enums.RegexTemplateStatus;
+import com.regexflow.backend.Repository.RegexTemplateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("VerifiedTemplateRegistry Tests")
+class VerifiedTemplateRegistryTest {
+
+    @Mock
+    private RegexTemplateRepository regexTemplateRepository;
+
+    private CompiledPatternCache compiledPatternCache;
+    private VerifiedTemplateRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        compiledPatternCache = new CompiledPatternCache(64);
+        registry = new VerifiedTemplateRegistry(regexTemplateRepository, compiledPatternCache);
+    }
+
+    private static RegexTemplate template(long id, String senderHeader) {
+        RegexTemplate template = new RegexTemplate();
+        template.setTemplateId(id);
+        template.setSenderHeader(senderHeader);
+        template.setPattern("Rs\\.(?<amount>\\d+) debited");
+        template.setStatus(RegexTemplateStatus.VERIFIED);
+        return template;
+    }
+
+    @Nested
+    @DisplayName("Lookup Tests")
+    class LookupTests {
+
+        @Test
+        @DisplayName("Should answer lookups from the snapshot without reading the database")
+        void templates_AfterReloadAll_ShouldNotQueryRepository() {
+            // Arrange
+            RegexTemplate hdfc = template(1L, "HDFCBK");
+            RegexTemplate sbi = template(2L, "SBIINB");
+            when(regexTemplateRepository.findByStatus(RegexTemplateStatus.VERIFIED)).thenReturn(List.of(hdfc, sbi));
+            registry.reloadAll();
+
+            // Act
+            List<RegexTemplate> templates = registry.templates("HDFCBK");
+            List<RegexTemplate> unknown = registry.templates("UNKNOWN");
+
+            // Assert
+            assertEquals(List.of(hdfc), templates);
+            assertTrue(unknown.isEmpty());
+            verify(regexTemplateRepository, times(1)).findByStatus(RegexTemplateStatus.VERIFIED);
+            verifyNoMoreInteractions(regexTemplateRepository);
+            assertEquals(1L, registry.stats().get("unknownSenderLookups"));
+            assertEquals(2, compiledPatternCache.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Reload Tests")
+    class ReloadTests {
+
+        @Test
+        @DisplayName("Should replace only the reloaded sender's templates")
+        void reloadSender_NewTemplate_ShouldKeepOtherSenders() {
+            // Arrange
+            RegexTemplate hdfc = template(1L, "HDFCBK");
+            RegexTemplate sbi = template(2L, "SBIINB");
+            RegexTemplate hdfc2 = template(3L, "HDFCBK");
+            when(regexTemplateRepository.findByStatus(RegexTemplateStatus.VERIFIED)).thenReturn(List.of(hdfc, sbi));
+            when(regexTemplateRepository.findBySenderHeaderAndStatus("HDFCBK", RegexTemplateStatus.VERIFIED))
+                .thenReturn(List.of(hdfc, hdfc2));
+            registry.reloadAll();
+            List<RegexTemplate> before = registry.templates("HDFCBK");
+
+            // Act
+            List<RegexTemplate> reloaded = registry.reloadSender("HDFCBK");
+
+            // Assert
+            assertEquals(List.of(hdfc, hdfc2), reloaded);
+            assertEquals(List.of(hdfc, hdfc2), registry.templates("HDFCBK"));
+            assertEquals(List.of(sbi), registry.templates("SBIINB"));
+            // Readers holding the old snapshot keep seeing it unchanged
+            assertEquals(List.of(hdfc), before);
+        }
+
+        @Test
+        @DisplayName("Should forget a sender whose last template stopped being VERIFIED")
+        void reloadSender_NoTemplatesLeft_ShouldRemoveSender() {
+            // Arrange
+            when(regexTemplateRepository.findByStatus(RegexTemplateStatus.VERIFIED)).thenReturn(List.of(template(1L, "HDFCBK")));
+            when(regexTemplateRepository.findBySenderHeaderAndStatus("HDFCBK", RegexTemplateStatus.VERIFIED))
+                .thenReturn(List.of());
+            registry.reloadAll();
+
+            // Act
+            registry.reloadSender("HDFCBK");
+
+            // Assert
+            assertTrue(registry.templates("HDFCBK").isEmpty());
+            assertEquals(0, registry.stats().get("senders"));
+        }
+    }
+}
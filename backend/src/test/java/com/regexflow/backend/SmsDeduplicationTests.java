@@ -0,0 +1,88 @@
+package com.regexflow.backend;
+
+import com.regexflow.backend.Dto.SmsSubmissionResponse;
+import com.regexflow.backend.Entity.Sms;
+import com.regexflow.backend.Entity.Users;
+import com.regexflow.backend.Enums.UserRole;
+import com.regexflow.backend.Repository.SmsRepository;
+import com.regexflow.backend.Service.SmsDeduplicator;
+import com.regexflow.backend.Service.SmsService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Duplicate SMS against the unique indexes of an in-memory H2 database
+ */
+@DisplayName("SMS Deduplication Tests")
+class SmsDeduplicationTests {
+
+    private static ConfigurableApplicationContext context;
+    private static Users customer;
+
+    @BeforeAll
+    static void start() {
+        context = TestNodes.start("sms-dedup");
+        customer = TestNodes.user(context, "dedup@regexflow.com", UserRole.CUSTOMER);
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should return an SMS stored by another node instead of inserting it again")
+    void processSms_StoredElsewhere_ShouldReturnStoredSms() {
+        // Arrange: stored without going through this node's recent set
+        SmsRepository smsRepository = context.getBean(SmsRepository.class);
+        Sms elsewhere = new Sms();
+        elsewhere.setSmsText("OTHERNODE: Rs.10 debited");
+        elsewhere.setSenderHeader("OTHERNODE");
+        elsewhere.setUser(customer);
+        elsewhere.setContentHash(SmsDeduplicator.contentHash("OTHERNODE", "OTHERNODE: Rs.10 debited"));
+        elsewhere = smsRepository.save(elsewhere);
+        long storedBefore = smsRepository.count();
+
+        // Act
+        SmsSubmissionResponse response = context.getBean(SmsService.class)
+            .processSms("OTHERNODE: Rs.10  debited", customer.getUId());
+
+        // Assert
+        assertTrue(response.getDuplicate());
+        assertEquals(elsewhere.getSmsId(), response.getSmsId());
+        assertEquals(storedBefore, smsRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should store the other SMS of a batch when one of them is already stored")
+    void processSmsBatch_OneStoredElsewhere_ShouldStoreTheOthers() {
+        // Arrange
+        SmsRepository smsRepository = context.getBean(SmsRepository.class);
+        Sms elsewhere = new Sms();
+        elsewhere.setSmsText("BATCHNODE: first");
+        elsewhere.setSenderHeader("BATCHNODE");
+        elsewhere.setUser(customer);
+        elsewhere.setContentHash(SmsDeduplicator.contentHash("BATCHNODE", "BATCHNODE: first"));
+        elsewhere = smsRepository.save(elsewhere);
+        long storedBefore = smsRepository.count();
+
+        // Act
+        List<SmsSubmissionResponse> responses = context.getBean(SmsService.class)
+            .processSmsBatch(List.of("BATCHNODE: first", "BATCHNODE: second"), customer.getUId());
+
+        // Assert
+        assertEquals(elsewhere.getSmsId(), responses.get(0).getSmsId());
+        assertTrue(responses.get(0).getDuplicate());
+        assertNull(responses.get(1).getDuplicate());
+        assertEquals(storedBefore + 1, smsRepository.count());
+    }
+}
@@ -0,0 +1,101 @@
+package com.regexflow.backend;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares POST /sms/submit (a Tomcat thread per request for the whole submission) with
+ * POST /sms/submit/nonblocking (profile nonblocking-ingest) over HTTP at a high number of
+ * concurrent connections, reporting throughput, p50/p99 latency and 429s.
+ * Runs the backend on a random port against an in-memory H2 database. Not a unit test: run its
+ * main method by hand on the test classpath, optionally passing the connections and the
+ * requests per run.
+ */
+public class SmsIngestBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 40_000;
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles(TestNodes.PROFILE, "nonblocking-ingest")
+                .run(
+                    "--regexflow.test.database=ingest-benchmark",
+                    "--server.port=0",
+                    "--server.tomcat.max-connections=" + Math.max(8192, connections * 2),
+                    "--logging.level.root=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String base = "http://localhost:" + port;
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+            String cookie = register(client, base);
+
+            for (int round = 0; round < 3; round++) {
+                run("blocking     /sms/submit            ", client, base + "/sms/submit", cookie, connections, requests);
+                run("non-blocking /sms/submit/nonblocking", client, base + "/sms/submit/nonblocking", cookie, connections, requests);
+            }
+        }
+    }
+
+    private static String register(HttpClient client, String base) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                    "{\"name\": \"Benchmark\", \"email\": \"benchmark@regexflow.com\", \"password\": \"benchmark\"}"))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+        return response.headers().firstValue("Set-Cookie").orElseThrow().split(";")[0];
+    }
+
+    private static void run(String label, HttpClient client, String url, String cookie,
+                            int connections, int requests) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger tooManyRequests = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore open = new Semaphore(connections);
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[requests];
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            open.acquire();
+            int index = i;
+            long sent = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .header("Cookie", cookie)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"smsText\": \"BENCHBK: Rs." + i + ".00 debited from A/c XX1234\"}"))
+                .build();
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    latencies[index] = System.nanoTime() - sent;
+                    if (error != null || response.statusCode() >= 500 || response.statusCode() == 401) {
+                        errors.incrementAndGet();
+                    } else if (response.statusCode() == 429) {
+                        tooManyRequests.incrementAndGet();
+                    }
+                    open.release();
+                });
+        }
+        CompletableFuture.allOf(responses).exceptionally(error -> null).join();
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        System.out.printf("%s: %.0f req/s, p50 %.1f ms, p99 %.1f ms, 429s %d, errors %d (%d connections)%n",
+            label, requests / (elapsed / 1e9), latencies[requests / 2] / 1e6,
+            latencies[(int) (requests * 0.99)] / 1e6, tooManyRequests.get(), errors.get(), connections);
+    }
+}
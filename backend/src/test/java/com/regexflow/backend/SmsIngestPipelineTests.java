@@ -0,0 +1,112 @@
+package com.regexflow.backend;
+
+import com.regexflow.backend.Dto.SmsSubmissionResponse;
+import com.regexflow.backend.Entity.Bank;
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.regexflow.backend.Entity.Users;
+import com.regexflow.backend.Enums.PaymentType;
+import com.regexflow.backend.Enums.RegexTemplateStatus;
+import com.regexflow.backend.Enums.SmsType;
+import com.regexflow.backend.Enums.TransactionType;
+import com.regexflow.backend.Enums.UserRole;
+import com.regexflow.backend.Repository.BankRepository;
+import com.regexflow.backend.Repository.RegexTemplateRepository;
+import com.regexflow.backend.Repository.SmsRepository;
+import com.regexflow.backend.Service.SmsIngestPipeline;
+import com.regexflow.backend.Service.VerifiedTemplateRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The non-blocking submission pipeline against an in-memory H2 database
+ */
+@DisplayName("SMS Ingest Pipeline Tests")
+class SmsIngestPipelineTests {
+
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void start() {
+        context = TestNodes.start("ingest-pipeline",
+            "--spring.profiles.active=nonblocking-ingest",
+            "--regexflow.sms.pipeline.max-in-flight=64");
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should match and store concurrently submitted SMS")
+    void submit_Concurrently_ShouldMatchAndStoreEverySms() throws Exception {
+        // Arrange
+        Users customer = TestNodes.user(context, "pipeline@regexflow.com", UserRole.CUSTOMER);
+        RegexTemplate template = verifiedTemplate("PIPEBK");
+        context.getBean(VerifiedTemplateRegistry.class).reloadSender("PIPEBK");
+        SmsIngestPipeline pipeline = context.getBean(SmsIngestPipeline.class);
+        long storedBefore = context.getBean(SmsRepository.class).count();
+
+        // Act
+        List<CompletableFuture<SmsSubmissionResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            responses.add(pipeline.submit("PIPEBK: Rs." + (100 + i) + " debited", customer.getUId()));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        // Assert
+        for (int i = 0; i < responses.size(); i++) {
+            SmsSubmissionResponse response = responses.get(i).get();
+            assertTrue(response.getHasMatch());
+            assertEquals(template.getTemplateId(), response.getMatchedTemplateId());
+            assertEquals("PIPEBK: Rs." + (100 + i) + " debited", response.getSmsText());
+            assertNotNull(response.getSmsId());
+        }
+        assertEquals(storedBefore + 50, context.getBean(SmsRepository.class).count());
+        assertEquals(0, pipeline.stats().get("inFlight"));
+    }
+
+    @Test
+    @DisplayName("Should complete with the service's error for an unknown user")
+    void submit_UnknownUser_ShouldCompleteExceptionally() {
+        // Act
+        CompletableFuture<SmsSubmissionResponse> response =
+            context.getBean(SmsIngestPipeline.class).submit("PIPEBK: Rs.100 debited", 999_999L);
+
+        // Assert
+        ExecutionException e = assertThrows(ExecutionException.class, () -> response.get(30, TimeUnit.SECONDS));
+        assertEquals("User not found with id: 999999", e.getCause().getMessage());
+    }
+
+    private static RegexTemplate verifiedTemplate(String senderHeader) {
+        Bank bank = new Bank();
+        bank.setName("Pipeline Bank");
+        bank.setAddress("Mumbai");
+        bank = context.getBean(BankRepository.class).save(bank);
+
+        RegexTemplate template = new RegexTemplate();
+        template.setSenderHeader(senderHeader);
+        template.setPattern("Rs\\.(?<amount>\\d+) debited");
+        template.setSampleRawMsg(senderHeader + ": Rs.100 debited");
+        template.setSmsType(SmsType.DEBIT);
+        template.setTransactionType(TransactionType.UPI_DEBIT);
+        template.setPaymentType(PaymentType.UPI);
+        template.setStatus(RegexTemplateStatus.VERIFIED);
+        template.setCreatedBy(TestNodes.user(context, "pipeline-maker@regexflow.com", UserRole.MAKER));
+        template.setBank(bank);
+        return context.getBean(RegexTemplateRepository.class).save(template);
+    }
+}
@@ -0,0 +1,135 @@
+package com.regexflow.backend;
+
+import com.regexflow.backend.Entity.Bank;
+import com.regexflow.backend.Entity.RegexTemplate;
+import com.regexflow.backend.Entity.TemplateSetChange;
+import com.regexflow.backend.Entity.Users;
+import com.regexflow.backend.Enums.PaymentType;
+import com.regexflow.backend.Enums.RegexTemplateStatus;
+import com.regexflow.backend.Enums.SmsType;
+import com.regexflow.backend.Enums.TransactionType;
+import com.regexflow.backend.Enums.UserRole;
+import com.regexflow.backend.Repository.BankRepository;
+import com.regexflow.backend.Repository.RegexTemplateRepository;
+import com.regexflow.backend.Repository.TemplateSetChangeRepository;
+import com.regexflow.backend.Service.CheckerService;
+import com.regexflow.backend.Service.TemplateRegistrySync;
+import com.regexflow.backend.Service.VerifiedTemplateRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two backend nodes sharing one in-memory H2 database: a template approved on one node must
+ * reach the other node's template registry through the template set version.
+ */
+@DisplayName("Template Registry Sync Tests")
+class TemplateRegistrySyncTests {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return TestNodes.start("registry-sync",
+            // Polled and pruned by hand below
+            "--regexflow.template-registry.poll-interval-ms=3600000",
+            "--regexflow.template-registry.prune-interval-ms=3600000",
+            "--regexflow.template-registry.retained-changes=2");
+    }
+
+    @Test
+    @DisplayName("Should load a template approved on another node at the next poll")
+    void approveTemplate_OnOtherNode_ShouldReachRegistryAfterPoll() {
+        // Arrange
+        RegexTemplate template = pendingTemplate("HDFCBK");
+        Users checker = TestNodes.user(nodeA, "checker@regexflow.com", UserRole.CHECKER);
+        VerifiedTemplateRegistry registryB = nodeB.getBean(VerifiedTemplateRegistry.class);
+        TemplateRegistrySync syncB = nodeB.getBean(TemplateRegistrySync.class);
+
+        // Act
+        nodeA.getBean(CheckerService.class).approveTemplate(template.getTemplateId(), checker.getUId());
+        List<RegexTemplate> beforePoll = registryB.templates("HDFCBK");
+        syncB.poll();
+
+        // Assert
+        assertEquals(List.of(template.getTemplateId()), templateIds(nodeA.getBean(VerifiedTemplateRegistry.class).templates("HDFCBK")));
+        assertTrue(beforePoll.isEmpty());
+        assertEquals(List.of(template.getTemplateId()), templateIds(registryB.templates("HDFCBK")));
+        assertEquals(syncB.stats().get("databaseVersion"), syncB.stats().get("appliedVersion"));
+        assertEquals(0L, syncB.stats().get("versionSkew"));
+        assertEquals(1L, syncB.stats().get("changesApplied"));
+    }
+
+    @Test
+    @DisplayName("Should delete old change rows and resync a node that fell behind them")
+    void pruneChanges_NodeBehindRetainedChanges_ShouldResyncAtNextPoll() {
+        // Arrange
+        TemplateRegistrySync syncA = nodeA.getBean(TemplateRegistrySync.class);
+        TemplateRegistrySync syncB = nodeB.getBean(TemplateRegistrySync.class);
+        TemplateSetChangeRepository changeRepository = nodeA.getBean(TemplateSetChangeRepository.class);
+        long resyncsBefore = (Long) syncB.stats().get("resyncs");
+        long version = new TransactionTemplate(nodeA.getBean(PlatformTransactionManager.class)).execute(status -> {
+            syncA.recordChange("PRUNEBK");
+            syncA.recordChange("PRUNEBK");
+            return syncA.recordChange("PRUNEBK");
+        });
+
+        // Act
+        syncA.pruneChanges();
+        syncB.poll();
+
+        // Assert
+        List<Long> kept = changeRepository.findAll().stream().map(TemplateSetChange::getVersion).sorted().toList();
+        assertEquals(List.of(version - 1, version), kept);
+        assertTrue((Long) syncA.stats().get("changesPruned") >= 1L);
+        assertEquals(resyncsBefore + 1, syncB.stats().get("resyncs"));
+        assertEquals(version, syncB.stats().get("appliedVersion"));
+    }
+
+    private static List<Long> templateIds(List<RegexTemplate> templates) {
+        return templates.stream().map(RegexTemplate::getTemplateId).toList();
+    }
+
+    private static RegexTemplate pendingTemplate(String senderHeader) {
+        Bank bank = new Bank();
+        bank.setName("HDFC Bank");
+        bank.setAddress("Mumbai");
+        bank = nodeA.getBean(BankRepository.class).save(bank);
+
+        RegexTemplate template = new RegexTemplate();
+        template.setSenderHeader(senderHeader);
+        template.setPattern("Rs\\.(?<amount>\\d+) debited");
+        template.setSampleRawMsg(senderHeader + ": Rs.100 debited");
+        template.setSmsType(SmsType.DEBIT);
+        template.setTransactionType(TransactionType.UPI_DEBIT);
+        template.setPaymentType(PaymentType.UPI);
+        template.setStatus(RegexTemplateStatus.PENDING);
+        template.setCreatedBy(TestNodes.user(nodeA, "maker@regexflow.com", UserRole.MAKER));
+        template.setBank(bank);
+        return nodeA.getBean(RegexTemplateRepository.class).save(template);
+    }
+}
@@ -0,0 +1,159 @@
+package com.regexflow.backend;
+
+import com.regexflow.backend.Entity.Sms;
+import com.regexflow.backend.Entity.TemplateRequestNotification;
+import com.regexflow.backend.Entity.Users;
+import com.regexflow.backend.Enums.NotificationStatus;
+import com.regexflow.backend.Enums.UserRole;
+import com.regexflow.backend.Repository.SmsRepository;
+import com.regexflow.backend.Repository.TemplateRequestNotificationRepository;
+import com.regexflow.backend.Service.SmsService;
+import com.regexflow.backend.Service.TemplateRequestCoalescer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Template requests coalesced per sender and shape against an in-memory H2 database
+ */
+@DisplayName("Template Request Coalescer Tests")
+class TemplateRequestCoalescerTests {
+
+    private static ConfigurableApplicationContext context;
+    private static Users customer;
+
+    @BeforeAll
+    static void start() {
+        context = TestNodes.start("template-requests", "--regexflow.template-requests.sample-size=5");
+        customer = TestNodes.user(context, "coalescer@regexflow.com", UserRole.CUSTOMER);
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should count unmatched SMS of one sender and shape on one pending request")
+    void processSms_SameShape_ShouldCoalesceIntoOneRequest() {
+        // Arrange
+        SmsService smsService = context.getBean(SmsService.class);
+
+        // Act
+        for (int i = 0; i < 8; i++) {
+            smsService.processSms("NEWBK: Rs." + (100 + i) + " debited from A/c XX" + (1000 + i), customer.getUId());
+        }
+        smsService.processSms("NEWBK: Your OTP is 1234", customer.getUId());
+
+        // Assert
+        List<TemplateRequestNotification> requests = pending("NEWBK");
+        assertEquals(2, requests.size());
+        TemplateRequestNotification debits = requests.stream()
+            .filter(request -> request.getSmsText().contains("debited"))
+            .findFirst().orElseThrow();
+        assertEquals(8L, debits.getOccurrenceCount());
+        assertEquals("NEWBK: Rs.100 debited from A/c XX1000", debits.getSmsText());
+        assertFalse(debits.getLastSeenAt().isBefore(debits.getFirstSeenAt()));
+        List<Long> samples = sampleIds(debits);
+        assertEquals(5, samples.size());
+        Set<Long> debitSmsIds = context.getBean(SmsRepository.class).findAll().stream()
+            .filter(sms -> sms.getSmsText().startsWith("NEWBK: Rs."))
+            .map(Sms::getSmsId)
+            .collect(Collectors.toSet());
+        assertTrue(debitSmsIds.containsAll(samples));
+        assertEquals(5, Set.copyOf(samples).size());
+    }
+
+    @Test
+    @DisplayName("Should open one request when the first SMS of a shape arrive concurrently")
+    void record_ConcurrentFirstOccurrences_ShouldOpenOneRequest() throws Exception {
+        // Arrange
+        TemplateRequestCoalescer coalescer = context.getBean(TemplateRequestCoalescer.class);
+        List<Sms> stored = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            stored.add(storeSms("RACEBK: Rs." + (10 * i) + " credited"));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch startTogether = new CountDownLatch(1);
+        List<Future<Object>> done = new ArrayList<>();
+
+        // Act
+        for (Sms sms : stored) {
+            Callable<Object> record = () -> {
+                startTogether.await();
+                coalescer.record(List.of(sms));
+                return null;
+            };
+            done.add(executor.submit(record));
+        }
+        startTogether.countDown();
+        for (Future<Object> future : done) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        List<TemplateRequestNotification> requests = pending("RACEBK");
+        assertEquals(1, requests.size());
+        assertEquals(8L, requests.get(0).getOccurrenceCount());
+        assertEquals(5, sampleIds(requests.get(0)).size());
+    }
+
+    @Test
+    @DisplayName("Should open a new request for the shape once the pending one is resolved")
+    void processSms_AfterResolve_ShouldOpenNewRequest() {
+        // Arrange
+        SmsService smsService = context.getBean(SmsService.class);
+        smsService.processSms("DONEBK: Rs.100 debited", customer.getUId());
+        TemplateRequestNotification resolved = pending("DONEBK").get(0);
+        smsService.markNotificationAsResolved(resolved.getNotificationId());
+
+        // Act
+        smsService.processSms("DONEBK: Rs.200 debited", customer.getUId());
+
+        // Assert
+        List<TemplateRequestNotification> requests = pending("DONEBK");
+        assertEquals(1, requests.size());
+        assertNotEquals(resolved.getNotificationId(), requests.get(0).getNotificationId());
+        assertEquals(1L, requests.get(0).getOccurrenceCount());
+        assertEquals(NotificationStatus.RESOLVED,
+            context.getBean(TemplateRequestNotificationRepository.class)
+                .findById(resolved.getNotificationId()).orElseThrow().getStatus());
+    }
+
+    private static Sms storeSms(String smsText) {
+        Sms sms = new Sms();
+        sms.setSmsText(smsText);
+        sms.setSenderHeader(smsText.substring(0, smsText.indexOf(':')));
+        sms.setUser(customer);
+        return context.getBean(SmsRepository.class).save(sms);
+    }
+
+    private static List<TemplateRequestNotification> pending(String senderHeader) {
+        return context.getBean(TemplateRequestNotificationRepository.class)
+            .findByStatusOrderByLastSeenAtDesc(NotificationStatus.PENDING).stream()
+            .filter(request -> senderHeader.equals(request.getSenderHeader()))
+            .collect(Collectors.toList());
+    }
+
+    private static List<Long> sampleIds(TemplateRequestNotification request) {
+        return Arrays.stream(request.getSampleSmsIds().split(",")).map(Long::valueOf).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,51 @@
+package com.regexflow.backend;
+
+import com.regexflow.backend.Entity.Users;
+import com.regexflow.backend.Enums.UserRole;
+import com.regexflow.backend.Repository.UserRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Backend nodes for the integration tests: the application without a web server, on the
+ * in-memory H2 database of the h2 test profile (application-h2.properties)
+ */
+final class TestNodes {
+
+    static final String PROFILE = "h2";
+
+    private TestNodes() {
+    }
+
+    /**
+     * Starts a node on the named database; nodes started on the same name share it. Extra
+     * arguments (e.g. "--regexflow.sms.pipeline.max-in-flight=64") override any property.
+     */
+    static ConfigurableApplicationContext start(String database, String... args) {
+        List<String> allArgs = new ArrayList<>();
+        allArgs.add("--regexflow.test.database=" + database);
+        allArgs.addAll(Arrays.asList(args));
+        return new SpringApplicationBuilder(BackendApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles(PROFILE)
+            // Arguments, so they override application.properties
+            .run(allArgs.toArray(String[]::new));
+    }
+
+    /**
+     * Saves a user with the given email and role, named after the role
+     */
+    static Users user(ConfigurableApplicationContext node, String email, UserRole role) {
+        Users user = new Users();
+        user.setName(role.name());
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        user.setRole(role);
+        return node.getBean(UserRepository.class).save(user);
+    }
+}
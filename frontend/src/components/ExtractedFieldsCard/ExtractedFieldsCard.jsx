@@ -1,6 +1,9 @@
+import { useFieldSchema } from '../../utils/fieldSchema';
 import './ExtractedFieldsCard.css';
 
 function ExtractedFieldsCard({ extractedFields }) {
+  const fieldSchema = useFieldSchema();
+
   if (!extractedFields || !extractedFields.fields || Object.keys(extractedFields.fields).length === 0) {
     return null;
   }
@@ -104,48 +107,20 @@ function ExtractedFieldsCard({ extractedFields }) {
 
   const typeInfo = getTypeInfo();
 
-  // Format field name from camelCase to Title Case
+  // Labels and order come from the backend field schema, in the order makers see the fields
+  const schemaLabels = {};
+  const schemaOrder = {};
+  fieldSchema.forEach((field, index) => {
+    schemaLabels[field.groupName] = field.label;
+    schemaOrder[field.groupName] = index;
+  });
+
+  // Label of a field, or its name from camelCase to Title Case if the schema does not know it
   const formatFieldName = (fieldName) => {
-    // Handle special cases
-    const specialCases = {
-      'bankAcId': 'Bank A/C ID',
-      'sBank': 'Sender Bank',
-      'rBank': 'Receiver Bank',
-      'sAcType': 'Sender A/C Type',
-      'sAcId': 'Sender A/C ID',
-      'txnNote': 'Transaction Note',
-      'paymentType': 'Payment Mode',
-      'availLimit': 'Available Limit',
-      'creditLimit': 'Credit Limit',
-      'billerAcId': 'Biller A/C ID',
-      'billId': 'Bill ID',
-      'billDate': 'Bill Date',
-      'billPeriod': 'Bill Period',
-      'dueDate': 'Due Date',
-      'minAmtDue': 'Min Amount Due',
-      'totAmtDue': 'Total Amount Due',
-      'principalAmount': 'Principal Amount',
-      'maturityDate': 'Maturity Date',
-      'maturityAmount': 'Maturity Amount',
-      'rateOfInterest': 'Rate of Interest',
-      'mfNav': 'MF NAV',
-      'mfUnits': 'MF Units',
-      'mfArn': 'MF ARN',
-      'mfBalUnits': 'MF Balance Units',
-      'mfSchemeBal': 'MF Scheme Balance',
-      'amountPaid': 'Amount Paid',
-      'offerAmount': 'Offer Amount',
-      'minPurchaseAmt': 'Min Purchase Amount',
-      'amountNegative': 'Amount Negative',
-      'balanceNegative': 'Balance Negative',
-      'smsText': 'SMS Text'
-    };
-
-    if (specialCases[fieldName]) {
-      return specialCases[fieldName];
+    if (schemaLabels[fieldName]) {
+      return schemaLabels[fieldName];
     }
 
-    // Convert camelCase to Title Case
     return fieldName
       .replace(/([A-Z])/g, ' $1')
       .replace(/^./, str => str.toUpperCase())
@@ -170,19 +145,10 @@ function ExtractedFieldsCard({ extractedFields }) {
       }
     });
 
-    // Sort fields for consistent display (common fields first)
-    const fieldOrder = [
-      'paymentType', 'txnNote', 'bankAcId', 'senderName', 'receiverName',
-      'sBank', 'rBank', 'sAcType', 'sAcId', 'city', 'availLimit', 'creditLimit',
-      'billerAcId', 'billId', 'billDate', 'billPeriod', 'dueDate', 'minAmtDue', 'totAmtDue',
-      'principalAmount', 'frequency', 'maturityDate', 'maturityAmount', 'rateOfInterest',
-      'mfNav', 'mfUnits', 'mfArn', 'mfBalUnits', 'mfSchemeBal',
-      'amountPaid', 'offerAmount', 'minPurchaseAmt'
-    ];
-
+    // Sort fields in schema order; fields the schema does not know go last, by label
     fieldsToDisplay.sort((a, b) => {
-      const indexA = fieldOrder.indexOf(a.key);
-      const indexB = fieldOrder.indexOf(b.key);
+      const indexA = schemaOrder[a.key] ?? -1;
+      const indexB = schemaOrder[b.key] ?? -1;
       if (indexA === -1 && indexB === -1) return a.label.localeCompare(b.label);
       if (indexA === -1) return 1;
       if (indexB === -1) return -1;
@@ -3,6 +3,7 @@ import Navbar from '../../components/Navbar/Navbar';
 import Footer from '../../components/Footer/Footer';
 import axios from 'axios';
 import toast from 'react-hot-toast';
+import { useFieldSchema, groupBySection } from '../../utils/fieldSchema';
 import './CheckerDashboard.css';
 
 // Component to render a verification result row
@@ -41,6 +42,7 @@ function CheckerDashboard() {
   const [testingTemplate, setTestingTemplate] = useState(null);
   const [verificationResult, setVerificationResult] = useState(null);
   const [testing, setTesting] = useState(false);
+  const fieldSchema = useFieldSchema();
 
   useEffect(() => {
     fetchPendingTemplates();
@@ -405,169 +407,28 @@ function CheckerDashboard() {
                 <div className="checker-verification-result">
                   <h3>Extracted Fields</h3>
                   
-                  {/* Bank A/C Details */}
-                  <div className="checker-verification-section">
-                    <h4>Bank A/C Details</h4>
-                    <div className="checker-verification-table-container">
-                      <table className="checker-verification-table">
-                        <thead>
-                          <tr>
-                            <th>Field</th>
-                            <th>Index</th>
-                            <th>Value</th>
-                          </tr>
-                        </thead>
-                        <tbody>
-                          <VerificationRow label="Bank A/C Id" field={verificationResult.bankAcId} />
-                          <VerificationRow label="Amount" field={verificationResult.amount} />
-                          <VerificationRow label="Amount (Negative)" field={verificationResult.amountNegative} />
-                          <VerificationRow label="Date" field={verificationResult.date} />
-                          <VerificationRow label="Merchant" field={verificationResult.merchant} />
-                          <VerificationRow label="Txn Note" field={verificationResult.txnNote} />
-                          <VerificationRow label="Balance" field={verificationResult.balance} />
-                          <VerificationRow label="Balance (Negative)" field={verificationResult.balanceNegative} />
-                        </tbody>
-                      </table>
-                    </div>
-                  </div>
-
-                  {/* Sender/Receiver Details */}
-                  <div className="checker-verification-section">
-                    <h4>Sender/Receiver Details</h4>
-                    <div className="checker-verification-table-container">
-                      <table className="checker-verification-table">
-                        <thead>
-                          <tr>
-                            <th>Field</th>
-                            <th>Index</th>
-                            <th>Value</th>
-                          </tr>
-                        </thead>
-                        <tbody>
-                          <VerificationRow label="Sender Name" field={verificationResult.senderName} />
-                          <VerificationRow label="S Bank" field={verificationResult.sBank} />
-                          <VerificationRow label="S A/C Type" field={verificationResult.sAcType} />
-                          <VerificationRow label="S A/C Id" field={verificationResult.sAcId} />
-                          <VerificationRow label="Receiver Name" field={verificationResult.receiverName} />
-                          <VerificationRow label="R Bank" field={verificationResult.rBank} />
-                        </tbody>
-                      </table>
-                    </div>
-                  </div>
-
-                  {/* General Information */}
-                  <div className="checker-verification-section">
-                    <h4>General Information</h4>
-                    <div className="checker-verification-table-container">
-                      <table className="checker-verification-table">
-                        <thead>
-                          <tr>
-                            <th>Field</th>
-                            <th>Index</th>
-                            <th>Value</th>
-                          </tr>
-                        </thead>
-                        <tbody>
-                          <VerificationRow label="Avail Limit" field={verificationResult.availLimit} />
-                          <VerificationRow label="Credit Limit" field={verificationResult.creditLimit} />
-                          <VerificationRow label="Payment Type" field={verificationResult.paymentType} />
-                          <VerificationRow label="City" field={verificationResult.city} />
-                        </tbody>
-                      </table>
-                    </div>
-                  </div>
-
-                  {/* Biller Details */}
-                  <div className="checker-verification-section">
-                    <h4>Biller Details</h4>
-                    <div className="checker-verification-table-container">
-                      <table className="checker-verification-table">
-                        <thead>
-                          <tr>
-                            <th>Field</th>
-                            <th>Index</th>
-                            <th>Value</th>
-                          </tr>
-                        </thead>
-                        <tbody>
-                          <VerificationRow label="Biller A/C Id" field={verificationResult.billerAcId} />
-                          <VerificationRow label="Bill Id" field={verificationResult.billId} />
-                          <VerificationRow label="Bill Date" field={verificationResult.billDate} />
-                          <VerificationRow label="Bill Period" field={verificationResult.billPeriod} />
-                          <VerificationRow label="Due Date" field={verificationResult.dueDate} />
-                          <VerificationRow label="Min Amt Due" field={verificationResult.minAmtDue} />
-                          <VerificationRow label="Tot Amt Due" field={verificationResult.totAmtDue} />
-                        </tbody>
-                      </table>
-                    </div>
-                  </div>
-
-                  {/* FD Details */}
-                  <div className="checker-verification-section">
-                    <h4>FD Details</h4>
-                    <div className="checker-verification-table-container">
-                      <table className="checker-verification-table">
-                        <thead>
-                          <tr>
-                            <th>Field</th>
-                            <th>Index</th>
-                            <th>Value</th>
-                          </tr>
-                        </thead>
-                        <tbody>
-                          <VerificationRow label="Principal Amount" field={verificationResult.principalAmount} />
-                          <VerificationRow label="Frequency" field={verificationResult.frequency} />
-                          <VerificationRow label="Maturity Date" field={verificationResult.maturityDate} />
-                          <VerificationRow label="Maturity Amount" field={verificationResult.maturityAmount} />
-                          <VerificationRow label="Rate Of Interest" field={verificationResult.rateOfInterest} />
-                        </tbody>
-                      </table>
-                    </div>
-                  </div>
-
-                  {/* MF Details */}
-                  <div className="checker-verification-section">
-                    <h4>MF Details</h4>
-                    <div className="checker-verification-table-container">
-                      <table className="checker-verification-table">
-                        <thead>
-                          <tr>
-                            <th>Field</th>
-                            <th>Index</th>
-                            <th>Value</th>
-                          </tr>
-                        </thead>
-                        <tbody>
-                          <VerificationRow label="MF Nav" field={verificationResult.mfNav} />
-                          <VerificationRow label="MF Units" field={verificationResult.mfUnits} />
-                          <VerificationRow label="MF ARN" field={verificationResult.mfArn} />
-                          <VerificationRow label="MF Bal Units" field={verificationResult.mfBalUnits} />
-                          <VerificationRow label="MF Scheme Bal" field={verificationResult.mfSchemeBal} />
-                        </tbody>
-                      </table>
-                    </div>
-                  </div>
-
-                  {/* Order Details */}
-                  <div className="checker-verification-section">
-                    <h4>Order Details</h4>
-                    <div className="checker-verification-table-container">
-                      <table className="checker-verification-table">
-                        <thead>
-                          <tr>
-                            <th>Field</th>
-                            <th>Index</th>
-                            <th>Value</th>
-                          </tr>
-                        </thead>
-                        <tbody>
-                          <VerificationRow label="Amount Paid" field={verificationResult.amountPaid} />
-                          <VerificationRow label="Offer Amount" field={verificationResult.offerAmount} />
-                          <VerificationRow label="Min Purchase Amt" field={verificationResult.minPurchaseAmt} />
-                        </tbody>
-                      </table>
+                  {/* One table per section of the field schema */}
+                  {groupBySection(fieldSchema).map(({ section, fields }) => (
+                    <div key={section} className="checker-verification-section">
+                      <h4>{section}</h4>
+                      <div className="checker-verification-table-container">
+                        <table className="checker-verification-table">
+                          <thead>
+                            <tr>
+                              <th>Field</th>
+                              <th>Index</th>
+                              <th>Value</th>
+                            </tr>
+                          </thead>
+                          <tbody>
+                            {fields.map((field) => (
+                              <VerificationRow key={field.groupName} label={field.label} field={verificationResult[field.groupName]} />
+                            ))}
+                          </tbody>
+                        </table>
+                      </div>
                     </div>
-                  </div>
+                  ))}
                 </div>
               )}
             </div>
@@ -172,6 +172,16 @@ function MakerDashboard() {
                           {new Date(notification.createdAt).toLocaleString()}
                         </span>
                       </div>
+                      <div className="notification-detail-item">
+                        <span className="detail-label">Unmatched SMS:</span>
+                        <span className="detail-value">{notification.occurrenceCount ?? 1}</span>
+                      </div>
+                      <div className="notification-detail-item">
+                        <span className="detail-label">Last seen:</span>
+                        <span className="detail-value">
+                          {new Date(notification.lastSeenAt ?? notification.createdAt).toLocaleString()}
+                        </span>
+                      </div>
                     </div>
                   </div>
                 ))}
@@ -7,6 +7,7 @@ import toast from 'react-hot-toast';
 import { useAuth } from '../../context/AuthContext';
 import { GoogleGenAI } from '@google/genai';
 import { FaMagic } from 'react-icons/fa';
+import { useFieldSchema, groupBySection } from '../../utils/fieldSchema';
 import './TemplateEditor.css';
 
 const PAYMENT_TYPES = ['UPI', 'NET_BANKING', 'CREDIT_CARD', 'DEBIT_CARD', 'CASH', 'CHEQUE'];
@@ -69,6 +70,7 @@ function TemplateEditor() {
   const [currentTemplateId, setCurrentTemplateId] = useState(null);
   const [templateStatus, setTemplateStatus] = useState(null);
   const [aiGenerating, setAiGenerating] = useState(false);
+  const fieldSchema = useFieldSchema();
 
   const getBankId = (bank) => bank.bId ?? bank.bid;
 
@@ -161,70 +163,6 @@ function TemplateEditor() {
     }));
   };
 
-//   const handleGenerateRegex = async () => {
-//     const sampleMsg = formData.sampleRawMsg?.trim();
-//     if (!sampleMsg) {
-//       toast.error('Please enter a Sample Raw Message first. AI will generate a regex pattern from it.');
-//       return;
-//     }
-//     const apiKey = import.meta.env.VITE_GEMINI_API_KEY || import.meta.env.VITE_GEMENI_API_KEY;
-//     if (!apiKey) {
-//       toast.error('AI is not configured. Set VITE_GEMINI_API_KEY in your .env file.');
-//       return;
-//     }
-//     setAiGenerating(true);
-//     try {
-//       const ai = new GoogleGenAI({ apiKey });
-//       // Use 1.5-flash for free tier; 2.0-flash often has 0 free quota. Override with VITE_GEMINI_MODEL if needed.
-//       const model = import.meta.env.VITE_GEMINI_MODEL || 'gemini-3-flash-preview';
-//       const result = await ai.models.generateContent({
-//         model:'gemini-3-flash-preview',
-//         contents: `You are a regex expert for bank SMS parsing. Given the following sample SMS message, generate a single Java-compatible regex pattern with NAMED CAPTURE GROUPS that extracts transaction fields.
-
-// Use ONLY these named group names where applicable (use (?<name>...) syntax):
-// amount, amountNegative, date, balance, balanceNegative, merchant, txnNote, bankAcId, senderName, sBank, sAcType, sAcId, receiverName, rBank, availLimit, creditLimit, paymentType, city, billerAcId, billId, billDate, billPeriod, dueDate, minAmtDue, totAmtDue, principalAmount, frequency, maturityDate, maturityAmount, rateOfInterest, mfNav, mfUnits, mfArn, mfBalUnits, mfSchemeBal, amountPaid, offerAmount, minPurchaseAmt.
-
-// Rules:
-// - Output ONLY the regex pattern. No explanation, no markdown, no code blocks, no backticks.
-// - Escape backslashes for Java (e.g. \\d for digits).
-// - Match amounts like Rs.500.00 or INR 1000 with a named group (amount or amountNegative for debits).
-// - Match dates in common formats (DD-MMM-YY, DD/MM/YYYY, etc.) with group "date".
-// - Match balance or "Avl Bal" / "Available balance" with group "balance" or "balanceNegative".
-// - Keep the pattern concise but accurate for the given sample.
-
-// Sample SMS:
-// """
-// ${sampleMsg}
-// """
-
-// Regex pattern (output only the pattern, nothing else):`,
-//       });
-//       const rawText = result?.text ?? (result?.candidates?.[0]?.content?.parts?.[0]?.text ?? '');
-//       if (!rawText || typeof rawText !== 'string') {
-//         toast.error('AI did not return a valid regex. Please try again.');
-//         return;
-//       }
-//       let pattern = rawText.trim();
-//       pattern = pattern.replace(/^```[\w]*\n?/i, '').replace(/\n?```\s*$/i, '').trim();
-//       setFormData((prev) => ({ ...prev, pattern }));
-//       toast.success('Regex pattern generated. Review and use Verify to test.');
-//     } catch (error) {
-//       console.error('AI regex generation error:', error);
-//       const status = error?.status ?? error?.response?.status ?? error?.code;
-//       const msg = error?.message ?? error?.error?.message ?? '';
-//       const is429 = status === 429 || msg.includes('429') || msg.includes('RESOURCE_EXHAUSTED') || msg.includes('quota');
-//       if (is429) {
-//         toast.error(
-//           'API quota exceeded. Try again in a minute, or set VITE_GEMINI_MODEL=gemini-1.5-flash in .env (free tier).'
-//         );
-//       } else {
-//         toast.error(msg || 'Failed to generate regex. Please try again.');
-//       }
-//     } finally {
-//       setAiGenerating(false);
-//     }
-//   };
-
 const handleGenerateRegex = async () => {
   const sampleMsg = formData.sampleRawMsg?.trim();
   if (!sampleMsg) {
@@ -244,13 +182,17 @@ const handleGenerateRegex = async () => {
     const ai = new GoogleGenAI({ apiKey });
 
     const model = import.meta.env.VITE_GEMINI_MODEL || 'gemini-3-flash-preview';
+    // Every group the backend extracts, or the common ones if the schema has not loaded
+    const groupNames = fieldSchema.length
+      ? fieldSchema.map((field) => field.groupName).join(', ')
+      : 'amount, date, balance, merchant, bankAcId, senderName, receiverName, paymentType';
     const prompt = `
 You are an expert in bank SMS regex parsing.
 
 Generate ONE regex pattern with named capture groups using (?<name>...)
 
 Allowed group names (use only if present):
-amount, date, balance, merchant, bankAcId, senderName, receiverName, paymentType
+${groupNames}
 
 Rules:
 - Output ONLY the regex pattern
@@ -705,283 +647,32 @@ Sample SMS:
             <div className="verification-result">
               <h3>Verification Results</h3>
               
-              {/* Bank A/C Details */}
-              <div className="verification-section">
-                <h4>Bank A/C Details</h4>
-                <div className="verification-table-container">
-                  <table className="verification-table">
-                    <thead>
-                      <tr>
-                        <th>Field</th>
-                        <th>Index</th>
-                        <th>Value</th>
-                      </tr>
-                    </thead>
-                    <tbody>
-                      <VerificationRow 
-                        label="Bank A/C Id" 
-                        field={verificationResult.bankAcId} 
-                      />
-                      <VerificationRow 
-                        label="Amount" 
-                        field={verificationResult.amount} 
-                      />
-                      <VerificationRow 
-                        label="Amount (Negative)" 
-                        field={verificationResult.amountNegative} 
-                      />
-                      <VerificationRow 
-                        label="Date" 
-                        field={verificationResult.date} 
-                      />
-                      <VerificationRow 
-                        label="Merchant" 
-                        field={verificationResult.merchant} 
-                      />
-                      <VerificationRow 
-                        label="Txn Note" 
-                        field={verificationResult.txnNote} 
-                      />
-                      <VerificationRow 
-                        label="Balance" 
-                        field={verificationResult.balance} 
-                      />
-                      <VerificationRow 
-                        label="Balance (Negative)" 
-                        field={verificationResult.balanceNegative} 
-                      />
-                    </tbody>
-                  </table>
-                </div>
-              </div>
-
-              {/* Sender/Receiver Details */}
-              <div className="verification-section">
-                <h4>Sender/Receiver Details</h4>
-                <div className="verification-table-container">
-                  <table className="verification-table">
-                    <thead>
-                      <tr>
-                        <th>Field</th>
-                        <th>Index</th>
-                        <th>Value</th>
-                      </tr>
-                    </thead>
-                    <tbody>
-                      <VerificationRow 
-                        label="Sender Name" 
-                        field={verificationResult.senderName} 
-                      />
-                      <VerificationRow 
-                        label="S Bank" 
-                        field={verificationResult.sBank} 
-                      />
-                      <VerificationRow 
-                        label="S A/C Type" 
-                        field={verificationResult.sAcType} 
-                      />
-                      <VerificationRow 
-                        label="S A/C Id" 
-                        field={verificationResult.sAcId} 
-                      />
-                      <VerificationRow 
-                        label="Receiver Name" 
-                        field={verificationResult.receiverName} 
-                      />
-                      <VerificationRow 
-                        label="R Bank" 
-                        field={verificationResult.rBank} 
-                      />
-                    </tbody>
-                  </table>
-                </div>
-              </div>
-
-              {/* General Information */}
-              <div className="verification-section">
-                <h4>General Information</h4>
-                <div className="verification-table-container">
-                  <table className="verification-table">
-                    <thead>
-                      <tr>
-                        <th>Field</th>
-                        <th>Index</th>
-                        <th>Value</th>
-                      </tr>
-                    </thead>
-                    <tbody>
-                      <VerificationRow 
-                        label="Avail Limit" 
-                        field={verificationResult.availLimit} 
-                      />
-                      <VerificationRow 
-                        label="Credit Limit" 
-                        field={verificationResult.creditLimit} 
-                      />
-                      <VerificationRow 
-                        label="Payment Type" 
-                        field={verificationResult.paymentType} 
-                      />
-                      <VerificationRow 
-                        label="City" 
-                        field={verificationResult.city} 
-                      />
-                    </tbody>
-                  </table>
-                </div>
-              </div>
-
-              {/* Biller Details */}
-              <div className="verification-section">
-                <h4>Biller Details</h4>
-                <div className="verification-table-container">
-                  <table className="verification-table">
-                    <thead>
-                      <tr>
-                        <th>Field</th>
-                        <th>Index</th>
-                        <th>Value</th>
-                      </tr>
-                    </thead>
-                    <tbody>
-                      <VerificationRow 
-                        label="Biller A/C Id" 
-                        field={verificationResult.billerAcId} 
-                      />
-                      <VerificationRow 
-                        label="Bill Id" 
-                        field={verificationResult.billId} 
-                      />
-                      <VerificationRow 
-                        label="Bill Date" 
-                        field={verificationResult.billDate} 
-                      />
-                      <VerificationRow 
-                        label="Bill Period" 
-                        field={verificationResult.billPeriod} 
-                      />
-                      <VerificationRow 
-                        label="Due Date" 
-                        field={verificationResult.dueDate} 
-                      />
-                      <VerificationRow 
-                        label="Min Amt Due" 
-                        field={verificationResult.minAmtDue} 
-                      />
-                      <VerificationRow 
-                        label="Tot Amt Due" 
-                        field={verificationResult.totAmtDue} 
-                      />
-                    </tbody>
-                  </table>
+              {/* One table per section of the field schema */}
+              {groupBySection(fieldSchema).map(({ section, fields }) => (
+                <div key={section} className="verification-section">
+                  <h4>{section}</h4>
+                  <div className="verification-table-container">
+                    <table className="verification-table">
+                      <thead>
+                        <tr>
+                          <th>Field</th>
+                          <th>Index</th>
+                          <th>Value</th>
+                        </tr>
+                      </thead>
+                      <tbody>
+                        {fields.map((field) => (
+                          <VerificationRow 
+                            key={field.groupName}
+                            label={field.label} 
+                            field={verificationResult[field.groupName]} 
+                          />
+                        ))}
+                      </tbody>
+                    </table>
+                  </div>
                 </div>
-              </div>
-
-              {/* FD Details */}
-              <div className="verification-section">
-                <h4>FD Details</h4>
-                <div className="verification-table-container">
-                  <table className="verification-table">
-                    <thead>
-                      <tr>
-                        <th>Field</th>
-                        <th>Index</th>
-                        <th>Value</th>
-                      </tr>
-                    </thead>
-                    <tbody>
-                      <VerificationRow 
-                        label="Principal Amount" 
-                        field={verificationResult.principalAmount} 
-                      />
-                      <VerificationRow 
-                        label="Frequency" 
-                        field={verificationResult.frequency} 
-                      />
-                      <VerificationRow 
-                        label="Maturity Date" 
-                        field={verificationResult.maturityDate} 
-                      />
-                      <VerificationRow 
-                        label="Maturity Amount" 
-                        field={verificationResult.maturityAmount} 
-                      />
-                      <VerificationRow 
-                        label="Rate Of Interest" 
-                        field={verificationResult.rateOfInterest} 
-                      />
-                    </tbody>
-                  </table>
-                </div>
-              </div>
-
-              {/* MF Details */}
-              <div className="verification-section">
-                <h4>MF Details</h4>
-                <div className="verification-table-container">
-                  <table className="verification-table">
-                    <thead>
-                      <tr>
-                        <th>Field</th>
-                        <th>Index</th>
-                        <th>Value</th>
-                      </tr>
-                    </thead>
-                    <tbody>
-                      <VerificationRow 
-                        label="MF Nav" 
-                        field={verificationResult.mfNav} 
-                      />
-                      <VerificationRow 
-                        label="MF Units" 
-                        field={verificationResult.mfUnits} 
-                      />
-                      <VerificationRow 
-                        label="MF ARN" 
-                        field={verificationResult.mfArn} 
-                      />
-                      <VerificationRow 
-                        label="MF Bal Units" 
-                        field={verificationResult.mfBalUnits} 
-                      />
-                      <VerificationRow 
-                        label="MF Scheme Bal" 
-                        field={verificationResult.mfSchemeBal} 
-                      />
-                    </tbody>
-                  </table>
-                </div>
-              </div>
-
-              {/* Order Details */}
-              <div className="verification-section">
-                <h4>Order Details</h4>
-                <div className="verification-table-container">
-                  <table className="verification-table">
-                    <thead>
-                      <tr>
-                        <th>Field</th>
-                        <th>Index</th>
-                        <th>Value</th>
-                      </tr>
-                    </thead>
-                    <tbody>
-                      <VerificationRow 
-                        label="Amount Paid" 
-                        field={verificationResult.amountPaid} 
-                      />
-                      <VerificationRow 
-                        label="Offer Amount" 
-                        field={verificationResult.offerAmount} 
-                      />
-                      <VerificationRow 
-                        label="Min Purchase Amt" 
-                        field={verificationResult.minPurchaseAmt} 
-                      />
-                    </tbody>
-                  </table>
-                </div>
-              </div>
+              ))}
             </div>
           )}
         </form>
@@ -0,0 +1,55 @@
+/**
+ * Field schema: group name, label and section of every extractable field, from the backend.
+ */
+
+import { useState, useEffect } from 'react';
+import axios from 'axios';
+
+// Fetched once for all pages and cards
+let fieldSchemaRequest = null;
+
+export const fetchFieldSchema = () => {
+  if (!fieldSchemaRequest) {
+    fieldSchemaRequest = axios.get('/regex/fields')
+      .then(response => (Array.isArray(response.data) ? response.data : []))
+      .catch(error => {
+        console.error('Error fetching field schema:', error);
+        fieldSchemaRequest = null; // Retry on the next caller
+        return [];
+      });
+  }
+  return fieldSchemaRequest;
+};
+
+// Field schema, empty until it has loaded
+export const useFieldSchema = () => {
+  const [fieldSchema, setFieldSchema] = useState([]);
+
+  useEffect(() => {
+    let active = true;
+    fetchFieldSchema().then(schema => {
+      if (active) {
+        setFieldSchema(schema);
+      }
+    });
+    return () => {
+      active = false;
+    };
+  }, []);
+
+  return fieldSchema;
+};
+
+// Fields grouped by section heading, sections in the order their first field appears
+export const groupBySection = (fieldSchema) => {
+  const sections = [];
+  fieldSchema.forEach(field => {
+    const last = sections[sections.length - 1];
+    if (last && last.section === field.section) {
+      last.fields.push(field);
+    } else {
+      sections.push({ section: field.section, fields: [field] });
+    }
+  });
+  return sections;
+};